@@ -212,7 +212,8 @@ abstract class AbstractGettableByIndexData implements GettableByIndexData {
         ByteBuffer value = getValue(i);
         if (value == null)
             return null;
-        return value.duplicate();
+        // Rows share a single array per page: slice so that the value starts at position 0
+        return value.slice();
     }
 
     /**
@@ -22,14 +22,12 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingDeque;
 
 /**
- * Default implementation of a result set, backed by an ArrayDeque of ArrayList.
+ * Default implementation of a result set, backed by {@link ResultPage}s.
  */
 abstract class ArrayBackedResultSet implements ResultSet {
 
     private static final Logger logger = LoggerFactory.getLogger(ResultSet.class);
 
-    private static final Queue<List<ByteBuffer>> EMPTY_QUEUE = new ArrayDeque<List<ByteBuffer>>(0);
-
     protected final ColumnDefinitions metadata;
     protected final Token.Factory tokenFactory;
     private final boolean wasApplied;
@@ -37,12 +35,12 @@ abstract class ArrayBackedResultSet implements ResultSet {
     protected final ProtocolVersion protocolVersion;
     protected final CodecRegistry codecRegistry;
 
-    private ArrayBackedResultSet(ColumnDefinitions metadata, Token.Factory tokenFactory, List<ByteBuffer> firstRow, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+    private ArrayBackedResultSet(ColumnDefinitions metadata, Token.Factory tokenFactory, ResultPage firstPage, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
         this.metadata = metadata;
         this.protocolVersion = protocolVersion;
         this.codecRegistry = codecRegistry;
         this.tokenFactory = tokenFactory;
-        this.wasApplied = checkWasApplied(firstRow, metadata, protocolVersion);
+        this.wasApplied = checkWasApplied(firstPage, metadata, protocolVersion);
     }
 
     static ArrayBackedResultSet fromMessage(Responses.Result msg, SessionManager session, ProtocolVersion protocolVersion, ExecutionInfo info, Statement statement) {
@@ -105,7 +103,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static ArrayBackedResultSet empty(ExecutionInfo info) {
         // We could pass the protocol version but we know we won't need it so passing a bogus value (null)
-        return new SinglePage(ColumnDefinitions.EMPTY, null, null, null, EMPTY_QUEUE, info);
+        return new SinglePage(ColumnDefinitions.EMPTY, null, null, null, ResultPage.EMPTY, info);
     }
 
     @Override
@@ -162,33 +160,36 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static class SinglePage extends ArrayBackedResultSet {
 
-        private final Queue<List<ByteBuffer>> rows;
+        private final ResultPage rows;
+        private int nextRow;
         private final ExecutionInfo info;
 
         private SinglePage(ColumnDefinitions metadata,
                            Token.Factory tokenFactory,
                            ProtocolVersion protocolVersion,
                            CodecRegistry codecRegistry,
-                           Queue<List<ByteBuffer>> rows,
+                           ResultPage rows,
                            ExecutionInfo info) {
-            super(metadata, tokenFactory, rows.peek(), protocolVersion, codecRegistry);
+            super(metadata, tokenFactory, rows, protocolVersion, codecRegistry);
             this.info = info;
             this.rows = rows;
         }
 
         @Override
         public boolean isExhausted() {
-            return rows.isEmpty();
+            return nextRow >= rows.size();
         }
 
         @Override
         public Row one() {
-            return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, rows.poll());
+            if (isExhausted())
+                return null;
+            return ArrayBackedRow.fromPage(metadata, tokenFactory, protocolVersion, rows, nextRow++);
         }
 
         @Override
         public int getAvailableWithoutFetching() {
-            return rows.size();
+            return rows.size() - nextRow;
         }
 
         @Override
@@ -214,8 +215,9 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     private static class MultiPage extends ArrayBackedResultSet {
 
-        private Queue<List<ByteBuffer>> currentPage;
-        private final Queue<Queue<List<ByteBuffer>>> nextPages = new ConcurrentLinkedQueue<Queue<List<ByteBuffer>>>();
+        private ResultPage currentPage;
+        private int nextRow;
+        private final Queue<ResultPage> nextPages = new ConcurrentLinkedQueue<ResultPage>();
 
         private final Deque<ExecutionInfo> infos = new LinkedBlockingDeque<ExecutionInfo>();
 
@@ -240,7 +242,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
                           Token.Factory tokenFactory,
                           ProtocolVersion protocolVersion,
                           CodecRegistry codecRegistry,
-                          Queue<List<ByteBuffer>> rows,
+                          ResultPage rows,
                           ExecutionInfo info,
                           ByteBuffer pagingState,
                           SessionManager session) {
@@ -248,7 +250,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
             // Note: as of Cassandra 2.1.0, it turns out that the result of a CAS update is never paged, so
             // we could hard-code the result of wasApplied in this class to "true". However, we can not be sure
             // that this will never change, so apply the generic check by peeking at the first row.
-            super(metadata, tokenFactory, rows.peek(), protocolVersion, codecRegistry);
+            super(metadata, tokenFactory, rows, protocolVersion, codecRegistry);
             this.currentPage = rows;
             this.infos.offer(info);
 
@@ -259,19 +261,21 @@ abstract class ArrayBackedResultSet implements ResultSet {
         @Override
         public boolean isExhausted() {
             prepareNextRow();
-            return currentPage.isEmpty();
+            return nextRow >= currentPage.size();
         }
 
         @Override
         public Row one() {
             prepareNextRow();
-            return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, currentPage.poll());
+            if (nextRow >= currentPage.size())
+                return null;
+            return ArrayBackedRow.fromPage(metadata, tokenFactory, protocolVersion, currentPage, nextRow++);
         }
 
         @Override
         public int getAvailableWithoutFetching() {
-            int available = currentPage.size();
-            for (Queue<List<ByteBuffer>> page : nextPages)
+            int available = currentPage.size() - nextRow;
+            for (ResultPage page : nextPages)
                 available += page.size();
             return available;
         }
@@ -282,15 +286,16 @@ abstract class ArrayBackedResultSet implements ResultSet {
         }
 
         // Ensure that after the call the next row to consume is in 'currentPage', i.e. that
-        // 'currentPage' is empty IFF the ResultSet if fully exhausted.
+        // 'currentPage' has no rows left IFF the ResultSet if fully exhausted.
         private void prepareNextRow() {
-            while (currentPage.isEmpty()) {
+            while (nextRow >= currentPage.size()) {
                 // Grab the current state now to get a consistent view in this iteration.
                 FetchingState fetchingState = this.fetchState;
 
-                Queue<List<ByteBuffer>> nextPage = nextPages.poll();
+                ResultPage nextPage = nextPages.poll();
                 if (nextPage != null) {
                     currentPage = nextPage;
+                    nextRow = 0;
                     continue;
                 }
                 if (fetchingState == null)
@@ -438,10 +443,10 @@ abstract class ArrayBackedResultSet implements ResultSet {
 
     // This method checks the value of the "[applied]" column manually, to avoid instantiating an ArrayBackedRow
     // object that we would throw away immediately.
-    private static boolean checkWasApplied(List<ByteBuffer> firstRow, ColumnDefinitions metadata, ProtocolVersion protocolVersion) {
+    private static boolean checkWasApplied(ResultPage firstPage, ColumnDefinitions metadata, ProtocolVersion protocolVersion) {
         // If the column is not present or not a boolean, we assume the query
         // was not a conditional statement, and therefore return true.
-        if (firstRow == null)
+        if (firstPage.size() == 0)
             return true;
         int[] is = metadata.findAllIdx("[applied]");
         if (is == null)
@@ -451,7 +456,7 @@ abstract class ArrayBackedResultSet implements ResultSet {
             return true;
 
         // Otherwise return the value of the column
-        ByteBuffer value = firstRow.get(i);
+        ByteBuffer value = firstPage.getValue(0, i);
         if (value == null || value.remaining() == 0)
             return false;
 
@@ -13,7 +13,9 @@ import java.util.List;
 import java.util.regex.Pattern;
 
 /**
- * Implementation of a Row backed by an ArrayList.
+ * Implementation of a Row backed by a {@link ResultPage}.
+ * <p/>
+ * Values are not copied: they are read from the page when accessed.
  */
 class ArrayBackedRow extends AbstractGettableData implements Row {
 
@@ -26,20 +28,26 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
     private final ColumnDefinitions metadata;
     private final Token.Factory tokenFactory;
-    private final List<ByteBuffer> data;
+    private final ResultPage page;
+    private final int row;
 
-    private ArrayBackedRow(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, List<ByteBuffer> data) {
+    private ArrayBackedRow(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, ResultPage page, int row) {
         super(protocolVersion);
         this.metadata = metadata;
         this.tokenFactory = tokenFactory;
-        this.data = data;
+        this.page = page;
+        this.row = row;
     }
 
     static Row fromData(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, List<ByteBuffer> data) {
         if (data == null)
             return null;
 
-        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, data);
+        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, ResultPage.fromValues(data), 0);
+    }
+
+    static Row fromPage(ColumnDefinitions metadata, Token.Factory tokenFactory, ProtocolVersion protocolVersion, ResultPage page, int row) {
+        return new ArrayBackedRow(metadata, tokenFactory, protocolVersion, page, row);
     }
 
     @Override
@@ -59,7 +67,17 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
     @Override
     protected ByteBuffer getValue(int i) {
-        return data.get(i);
+        return page.getValue(row, i);
+    }
+
+    @Override
+    protected <T> TypeCodec<T> codecFor(int i) {
+        return metadata.codecFor(i, (Class<T>) null, metadata.codecRegistry);
+    }
+
+    @Override
+    protected <T> TypeCodec<T> codecFor(int i, Class<T> javaClass) {
+        return metadata.codecFor(i, javaClass, metadata.codecRegistry);
     }
 
     @Override
@@ -79,7 +97,7 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
 
         checkType(i, tokenFactory.getTokenType().getName());
 
-        ByteBuffer value = data.get(i);
+        ByteBuffer value = getValue(i);
         if (value == null || value.remaining() == 0)
             return null;
 
@@ -109,7 +127,7 @@ class ArrayBackedRow extends AbstractGettableData implements Row {
         for (int i = 0; i < metadata.size(); i++) {
             if (i != 0)
                 sb.append(", ");
-            ByteBuffer bb = data.get(i);
+            ByteBuffer bb = getValue(i);
             if (bb == null)
                 sb.append("NULL");
             else
@@ -80,10 +80,17 @@ public class BatchStatement extends Statement {
                 statement = ((StatementWrapper) statement).getWrappedStatement();
             if (statement instanceof RegularStatement) {
                 RegularStatement st = (RegularStatement) statement;
-                ByteBuffer[] vals = st.getValues(protocolVersion, codecRegistry);
+                List<?> vals;
+                if (st.getClass() == SimpleStatement.class) {
+                    // Same as for standalone statements, see SessionManager.makeRequestMessage
+                    vals = ((SimpleStatement) st).getDirectValues(protocolVersion, codecRegistry);
+                } else {
+                    ByteBuffer[] serializedVals = st.getValues(protocolVersion, codecRegistry);
+                    vals = serializedVals == null ? null : Arrays.asList(serializedVals);
+                }
                 String query = st.getQueryString(codecRegistry);
                 idAndVals.ids.add(query);
-                idAndVals.values.add(vals == null ? Collections.<ByteBuffer>emptyList() : Arrays.asList(vals));
+                idAndVals.values.add(vals == null ? Collections.<ByteBuffer>emptyList() : vals);
             } else {
                 // We handle BatchStatement in add() so ...
                 assert statement instanceof BoundStatement;
@@ -255,11 +262,12 @@ public class BatchStatement extends Statement {
     static class IdAndValues {
 
         public final List<Object> ids;
-        public final List<List<ByteBuffer>> values;
+        // Elements are either serialized ByteBuffers or DirectValues
+        public final List<List<?>> values;
 
         IdAndValues(int nbstatements) {
             ids = new ArrayList<Object>(nbstatements);
-            values = new ArrayList<List<ByteBuffer>>(nbstatements);
+            values = new ArrayList<List<?>>(nbstatements);
         }
     }
 }
@@ -56,6 +56,8 @@ public class BoundStatement extends Statement implements SettableData<BoundState
 
     private ByteBuffer routingKey;
     private Token routingToken;
+    // The token of the routing key, computed by getRoutingToken(Metadata). Reset when the values or routing key change.
+    private volatile Token computedRoutingToken;
 
     /**
      * Creates a new {@code BoundStatement} from the provided prepared
@@ -193,6 +195,7 @@ public class BoundStatement extends Statement implements SettableData<BoundState
                     wrapper.values[i] = wrapper.codecFor(i, value).serialize(value, protocolVersion);
             }
         }
+        computedRoutingToken = null;
         return this;
     }
 
@@ -253,6 +256,54 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         return routingToken;
     }
 
+    /**
+     * Returns the token to use for token aware routing of this statement, computing it from the routing key if
+     * necessary.
+     * <p/>
+     * If a routing token was set with {@link #setRoutingToken(Token)}, it is returned. Otherwise, the token of the
+     * routing key (see {@link #getRoutingKey(ProtocolVersion, CodecRegistry)}) is computed with the cluster's
+     * partitioner. If the routing key is built from the bound values of a composite partition key, the components
+     * are hashed in place, without building the serialized key.
+     * <p/>
+     * The computed token is cached until the values or the routing key of this statement change, so that load
+     * balancing policies (and the application) can call this method repeatedly for the same execution.
+     *
+     * @param metadata the metadata of the cluster this statement is executed against.
+     * @return the routing token for this statement, or {@code null} if it has no routing key, or if the partitioner of
+     * the cluster is unknown (which happens if metadata was explicitly disabled with
+     * {@link QueryOptions#setMetadataEnabled(boolean)}).
+     */
+    public Token getRoutingToken(Metadata metadata) {
+        if (routingToken != null)
+            return routingToken;
+        Token.Factory factory = metadata.tokenFactory();
+        if (factory == null)
+            return null;
+        Token token = computedRoutingToken;
+        // The statement might have been executed against a cluster with a different partitioner
+        if (token == null || !token.getType().equals(factory.getTokenType())) {
+            token = computeRoutingToken(factory);
+            computedRoutingToken = token;
+        }
+        return token;
+    }
+
+    private Token computeRoutingToken(Token.Factory factory) {
+        if (routingKey != null)
+            return factory.hash(routingKey);
+        if (statement.getRoutingKey() != null)
+            return factory.hash(statement.getRoutingKey());
+        int[] rkIndexes = statement.getPreparedId().routingKeyIndexes;
+        if (rkIndexes == null)
+            return null;
+        ByteBuffer[] values = wrapper.values;
+        for (int index : rkIndexes) {
+            if (values[index] == null)
+                return null;
+        }
+        return factory.hash(values, rkIndexes);
+    }
+
     /**
      * Sets a routing token for this statement.
      *
@@ -276,6 +327,7 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      */
     public BoundStatement setRoutingKey(ByteBuffer routingKey) {
         this.routingKey = routingKey;
+        this.computedRoutingToken = null;
         return this;
     }
 
@@ -294,6 +346,7 @@ public class BoundStatement extends Statement implements SettableData<BoundState
      */
     public BoundStatement setRoutingKey(ByteBuffer... routingKeyComponents) {
         this.routingKey = SimpleStatement.compose(routingKeyComponents);
+        this.computedRoutingToken = null;
         return this;
     }
 
@@ -1392,6 +1445,12 @@ public class BoundStatement extends Statement implements SettableData<BoundState
             super(wrapped.statement.getPreparedId().protocolVersion, wrapped, size);
         }
 
+        @Override
+        protected BoundStatement setValue(int i, ByteBuffer value) {
+            wrapped.computedRoutingToken = null;
+            return super.setValue(i, value);
+        }
+
         protected int[] getAllIndexesOf(String name) {
             return wrapped.statement.getVariables().getAllIdx(name);
         }
@@ -1408,5 +1467,20 @@ public class BoundStatement extends Statement implements SettableData<BoundState
         protected CodecRegistry getCodecRegistry() {
             return wrapped.codecRegistry;
         }
+
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i) {
+            return wrapped.statement.getVariables().codecFor(i, (Class<T>) null, wrapped.codecRegistry);
+        }
+
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i, Class<T> javaClass) {
+            return wrapped.statement.getVariables().codecFor(i, javaClass, wrapped.codecRegistry);
+        }
+
+        @Override
+        protected <T> TypeCodec<T> codecFor(int i, T value) {
+            return wrapped.statement.getVariables().codecFor(i, value, wrapped.codecRegistry);
+        }
     }
 }
@@ -74,6 +74,59 @@ abstract class CBUtil { // TODO rename
         return utflen;
     }
 
+    /**
+     * Returns the number of bytes written by {@link #writeUtf8(String, ByteBuf)}, which is also the length of
+     * {@code str.getBytes(UTF_8)}.
+     */
+    static int utf8Length(String str) {
+        int length = 0;
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80)
+                length += 1;
+            else if (c < 0x800)
+                length += 2;
+            else if (!isSurrogate(c))
+                length += 3;
+            else if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else
+                length += 1; // unpaired surrogate, replaced by '?'
+        }
+        return length;
+    }
+
+    /**
+     * Writes the UTF-8 bytes of a string, without a length prefix and without encoding it to an intermediary array.
+     */
+    static void writeUtf8(String str, ByteBuf cb) {
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80)
+                cb.writeByte(c);
+            else if (c < 0x800) {
+                cb.writeByte(0xC0 | (c >> 6));
+                cb.writeByte(0x80 | (c & 0x3F));
+            } else if (!isSurrogate(c)) {
+                cb.writeByte(0xE0 | (c >> 12));
+                cb.writeByte(0x80 | ((c >> 6) & 0x3F));
+                cb.writeByte(0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < str.length() && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, str.charAt(++i));
+                cb.writeByte(0xF0 | (codePoint >> 18));
+                cb.writeByte(0x80 | ((codePoint >> 12) & 0x3F));
+                cb.writeByte(0x80 | ((codePoint >> 6) & 0x3F));
+                cb.writeByte(0x80 | (codePoint & 0x3F));
+            } else
+                cb.writeByte('?');
+        }
+    }
+
+    private static boolean isSurrogate(char c) {
+        return c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE;
+    }
+
     public static String readLongString(ByteBuf cb) {
         try {
             int length = cb.readInt();
@@ -313,7 +366,11 @@ abstract class CBUtil { // TODO rename
         }
 
         cb.writeInt(bytes.remaining());
-        cb.writeBytes(bytes.duplicate());
+        if (bytes.hasArray())
+            // don't allocate a duplicate just to avoid moving the position
+            cb.writeBytes(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+        else
+            cb.writeBytes(bytes.duplicate());
     }
 
     public static int sizeOfValue(byte[] bytes) {
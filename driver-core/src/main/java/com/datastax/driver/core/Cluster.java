@@ -20,6 +20,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.Closeable;
+import java.io.File;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
@@ -411,6 +412,21 @@ public class Cluster implements Closeable {
         return manager.metrics;
     }
 
+    /**
+     * Returns the executor that runs the driver's internal scheduled tasks (see
+     * {@link ThreadingOptions#createScheduledTasksExecutor(String)}).
+     * <p/>
+     * This is meant for policies that need to run light periodic work, such as {@link LatencyAwarePolicy}, without
+     * starting threads of their own. Tasks must be short and must never block, since this executor also processes host
+     * state notifications.
+     *
+     * @return the executor, or {@code null} if this cluster has not yet been {@link #init() initialized}.
+     */
+    public ScheduledExecutorService getScheduledTasksExecutor() {
+        checkNotClosed(manager);
+        return manager.scheduledTasksExecutor;
+    }
+
     /**
      * Registers the provided listener to be notified on hosts
      * up/down/added/removed events.
@@ -1082,6 +1098,19 @@ public class Cluster implements Closeable {
             return this;
         }
 
+        /**
+         * Configures the request throttler to use for the new cluster.
+         * <p/>
+         * If no throttler is set through this method, {@link Policies#defaultRequestThrottler()}
+         * will be used instead.
+         *
+         * @param throttler the throttler to use.
+         * @return this Builder.
+         */
+        public Builder withRequestThrottler(RequestThrottler throttler) {
+            policiesBuilder.withRequestThrottler(throttler);
+            return this;
+        }
 
         /**
          * Configures the {@link CodecRegistry} instance to use for the new cluster.
@@ -1381,6 +1410,9 @@ public class Cluster implements Closeable {
         // this would yield a slightly less clear behavior.
         ConcurrentMap<MD5Digest, PreparedStatement> preparedQueries;
 
+        // The persisted responses to PREPARE requests, or null if QueryOptions.getPreparedStatementCacheFile() is not set
+        PreparedStatementStore preparedStatementStore;
+
         final Set<Host.StateListener> listeners;
         final Set<LatencyTracker> latencyTrackers = new CopyOnWriteArraySet<LatencyTracker>();
         final Set<SchemaChangeListener> schemaChangeListeners = new CopyOnWriteArraySet<SchemaChangeListener>();
@@ -1492,6 +1524,19 @@ public class Cluster implements Closeable {
 
             this.scheduledTasksExecutor.scheduleWithFixedDelay(new CleanupIdleConnectionsTask(), 10, 10, TimeUnit.SECONDS);
 
+            File preparedStatementCacheFile = configuration.getQueryOptions().getPreparedStatementCacheFile();
+            if (preparedStatementCacheFile != null) {
+                final PreparedStatementStore store = new PreparedStatementStore(preparedStatementCacheFile);
+                store.load();
+                this.preparedStatementStore = store;
+                this.scheduledTasksExecutor.scheduleWithFixedDelay(new ExceptionCatchingRunnable() {
+                    @Override
+                    public void runMayThrow() {
+                        store.save();
+                    }
+                }, 10, 10, TimeUnit.SECONDS);
+            }
+
             for (InetSocketAddress address : contactPoints) {
                 // We don't want to signal -- call onAdd() -- because nothing is ready
                 // yet (loadbalancing policy, control connection, ...). All we want is
@@ -1526,6 +1571,7 @@ public class Cluster implements Closeable {
                 loadBalancingPolicy().init(Cluster.this, contactPointHosts);
 
                 speculativeExecutionPolicy().init(Cluster.this);
+                requestThrottler().init(Cluster.this);
                 configuration.getPolicies().getRetryPolicy().init(Cluster.this);
                 reconnectionPolicy().init(Cluster.this);
                 configuration.getPolicies().getAddressTranslator().init(Cluster.this);
@@ -1624,6 +1670,10 @@ public class Cluster implements Closeable {
             return configuration.getPolicies().getSpeculativeExecutionPolicy();
         }
 
+        RequestThrottler requestThrottler() {
+            return configuration.getPolicies().getRequestThrottler();
+        }
+
         ReconnectionPolicy reconnectionPolicy() {
             return configuration.getPolicies().getReconnectionPolicy();
         }
@@ -1681,8 +1731,12 @@ public class Cluster implements Closeable {
                 if (metrics != null)
                     metrics.shutdown();
 
+                if (preparedStatementStore != null)
+                    preparedStatementStore.save();
+
                 loadBalancingPolicy().close();
                 speculativeExecutionPolicy().close();
+                requestThrottler().close();
                 configuration.getPolicies().getRetryPolicy().close();
                 reconnectionPolicy().close();
                 configuration.getPolicies().getAddressTranslator().close();
@@ -2421,6 +2475,10 @@ public class Cluster implements Closeable {
                     }
                     break;
                 case SCHEMA_CHANGE:
+                    // The new schema version is not known yet, it will be read with the next schema agreement check
+                    if (preparedStatementStore != null)
+                        preparedStatementStore.onSchemaChange();
+
                     if (!configuration.getQueryOptions().isMetadataEnabled())
                         return;
 
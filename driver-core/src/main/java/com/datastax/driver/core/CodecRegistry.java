@@ -18,6 +18,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.nio.ByteBuffer;
 import java.util.EnumMap;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -155,6 +156,19 @@ public final class CodecRegistry {
         BUILT_IN_CODECS_MAP.put(DataType.Name.DURATION, TypeCodec.duration());
     }
 
+    // The contents of BUILT_IN_CODECS_MAP, indexed by DataType.Name ordinal, and the raw Java type of each codec.
+    // They allow lookups by CQL type and Java class without allocating a TypeToken or a cache key.
+    private static final TypeCodec<?>[] BUILT_IN_CODECS_BY_NAME = new TypeCodec<?>[DataType.Name.values().length];
+    private static final Class<?>[] BUILT_IN_JAVA_TYPES_BY_NAME = new Class<?>[DataType.Name.values().length];
+
+    static {
+        for (Map.Entry<DataType.Name, TypeCodec<?>> entry : BUILT_IN_CODECS_MAP.entrySet()) {
+            int i = entry.getKey().ordinal();
+            BUILT_IN_CODECS_BY_NAME[i] = entry.getValue();
+            BUILT_IN_JAVA_TYPES_BY_NAME[i] = entry.getValue().getJavaType().getRawType();
+        }
+    }
+
     // roughly sorted by popularity
     private static final TypeCodec<?>[] BUILT_IN_CODECS = new TypeCodec<?>[]{
             TypeCodec.varchar(), // must be declared before AsciiCodec so it gets chosen when CQL type not available
@@ -179,6 +193,26 @@ public final class CodecRegistry {
             TypeCodec.ascii()
     };
 
+    // The first codec of BUILT_IN_CODECS whose raw Java type is exactly a given class. None of these types is a supertype
+    // of another, so this is also the first built-in codec that accepts an instance of that class.
+    private static final Map<Class<?>, TypeCodec<?>> BUILT_IN_CODECS_BY_JAVA_TYPE = new IdentityHashMap<Class<?>, TypeCodec<?>>();
+
+    static {
+        for (TypeCodec<?> codec : BUILT_IN_CODECS) {
+            Class<?> javaType = codec.getJavaType().getRawType();
+            if (!BUILT_IN_CODECS_BY_JAVA_TYPE.containsKey(javaType))
+                BUILT_IN_CODECS_BY_JAVA_TYPE.put(javaType, codec);
+        }
+    }
+
+    static boolean isBuiltIn(TypeCodec<?> codec) {
+        for (TypeCodec<?> builtIn : BUILT_IN_CODECS) {
+            if (builtIn == codec)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * The default {@code CodecRegistry} instance.
      * <p/>
@@ -327,7 +361,8 @@ public final class CodecRegistry {
                 // so let's start with roughly 1/4 of that
                 .initialCapacity(100)
                 .maximumWeight(1000)
-                .weigher(new TypeCodecWeigher());
+                .weigher(new TypeCodecWeigher())
+                .recordStats();
         if (logger.isTraceEnabled())
             // do not bother adding a listener if it will be ineffective
             builder = builder.removalListener(new TypeCodecRemovalListener());
@@ -394,6 +429,20 @@ public final class CodecRegistry {
         return this;
     }
 
+    /**
+     * Returns statistics about the cache of codec lookups.
+     * <p/>
+     * Lookups of a built-in codec by CQL type and Java class are served from a static table before the cache is
+     * consulted; they are not recorded in these statistics. A high miss count usually means that the cache is too
+     * small for the number of distinct type mappings used by the application (for example, many different collection
+     * types).
+     *
+     * @return the cache statistics.
+     */
+    public CacheStats getCacheStats() {
+        return cache.stats();
+    }
+
     /**
      * Returns a {@link TypeCodec codec} that accepts the given value.
      * <p/>
@@ -454,8 +503,15 @@ public final class CodecRegistry {
      * @return A suitable codec.
      * @throws CodecNotFoundException if a suitable codec cannot be found.
      */
+    @SuppressWarnings("unchecked")
     public <T> TypeCodec<T> codecFor(DataType cqlType, Class<T> javaType) throws CodecNotFoundException {
-        return codecFor(cqlType, TypeToken.of(javaType));
+        checkNotNull(cqlType, "Parameter cqlType cannot be null");
+        if (javaType == null)
+            return lookupCodec(cqlType, null);
+        int i = cqlType.getName().ordinal();
+        if (BUILT_IN_JAVA_TYPES_BY_NAME[i] == javaType)
+            return (TypeCodec<T>) BUILT_IN_CODECS_BY_NAME[i];
+        return lookupCodec(cqlType, TypeToken.of(javaType));
     }
 
     /**
@@ -501,7 +557,7 @@ public final class CodecRegistry {
     @SuppressWarnings("unchecked")
     private <T> TypeCodec<T> lookupCodec(DataType cqlType, TypeToken<T> javaType) {
         checkNotNull(cqlType, "Parameter cqlType cannot be null");
-        TypeCodec<?> codec = BUILT_IN_CODECS_MAP.get(cqlType.getName());
+        TypeCodec<?> codec = BUILT_IN_CODECS_BY_NAME[cqlType.getName().ordinal()];
         if (codec != null && (javaType == null || codec.accepts(javaType))) {
             logger.trace("Returning built-in codec {}", codec);
             return (TypeCodec<T>) codec;
@@ -555,7 +611,12 @@ public final class CodecRegistry {
         if (logger.isTraceEnabled())
             logger.trace("Looking for codec [{} <-> {}]", toString(cqlType), value.getClass());
 
-        // Look at the built-in codecs first
+        // Look at the built-in codecs first, starting with an exact match on the value's class
+        TypeCodec<?> builtIn = BUILT_IN_CODECS_BY_JAVA_TYPE.get(value.getClass());
+        if (builtIn != null && (cqlType == null || builtIn.accepts(cqlType))) {
+            logger.trace("Built-in codec found: {}", builtIn);
+            return (TypeCodec<T>) builtIn;
+        }
         for (TypeCodec<?> codec : BUILT_IN_CODECS) {
             if ((cqlType == null || codec.accepts(cqlType)) && codec.accepts(value)) {
                 logger.trace("Built-in codec found: {}", codec);
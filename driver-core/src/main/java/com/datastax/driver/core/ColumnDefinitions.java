@@ -48,14 +48,20 @@ public class ColumnDefinitions implements Iterable<ColumnDefinitions.Definition>
 
     static final ColumnDefinitions EMPTY = new ColumnDefinitions(new Definition[0], CodecRegistry.DEFAULT_INSTANCE);
 
+    // The maximum number of codecs memoized per column, see memoize
+    private static final int MAX_CODEC_SLOTS = 4;
+
     private final Definition[] byIdx;
     private final Map<String, int[]> byName;
     final CodecRegistry codecRegistry;
+    // The codecs resolved for each column, see codecFor
+    private final CodecSlot[] codecSlots;
 
     ColumnDefinitions(Definition[] defs, CodecRegistry codecRegistry) {
 
         this.byIdx = defs;
         this.codecRegistry = codecRegistry;
+        this.codecSlots = new CodecSlot[defs.length];
         this.byName = new HashMap<String, int[]>(defs.length);
 
         for (int i = 0; i < defs.length; i++) {
@@ -70,6 +76,59 @@ public class ColumnDefinitions implements Iterable<ColumnDefinitions.Definition>
         }
     }
 
+    /*
+     * Returns the codec for the given column and Java class (or the default codec of the column if the class is null).
+     *
+     * Resolving a codec through the registry costs a hash lookup and an allocation. Since rows of a result set, and
+     * bound statements created from the same prepared statement, share their column definitions, the codecs resolved
+     * for each column are memoized here, per Java class. Codecs returned by the registry for a given type and class
+     * never change, so this is only a shortcut.
+     */
+    @SuppressWarnings("unchecked")
+    <T> TypeCodec<T> codecFor(int i, Class<T> javaClass, CodecRegistry registry) {
+        TypeCodec<T> codec = (TypeCodec<T>) memoizedCodec(i, javaClass, false, registry);
+        if (codec != null)
+            return codec;
+        codec = (javaClass == null)
+                ? registry.<T>codecFor(getType(i))
+                : registry.codecFor(getType(i), javaClass);
+        memoize(i, registry, javaClass, false, codec);
+        return codec;
+    }
+
+    /*
+     * Returns the codec for the given column and value. Codecs are selected by inspecting the value, so only built-in
+     * codecs, which only look at the class of the value, are memoized.
+     */
+    @SuppressWarnings("unchecked")
+    <T> TypeCodec<T> codecFor(int i, T value, CodecRegistry registry) {
+        Class<?> javaClass = value.getClass();
+        TypeCodec<T> codec = (TypeCodec<T>) memoizedCodec(i, javaClass, true, registry);
+        if (codec != null)
+            return codec;
+        codec = registry.codecFor(getType(i), value);
+        if (CodecRegistry.isBuiltIn(codec))
+            memoize(i, registry, javaClass, true, codec);
+        return codec;
+    }
+
+    private TypeCodec<?> memoizedCodec(int i, Class<?> javaClass, boolean byValue, CodecRegistry registry) {
+        for (CodecSlot slot = codecSlots[i]; slot != null; slot = slot.next) {
+            if (slot.javaClass == javaClass && slot.byValue == byValue && slot.registry == registry)
+                return slot.codec;
+        }
+        return null;
+    }
+
+    private void memoize(int i, CodecRegistry registry, Class<?> javaClass, boolean byValue, TypeCodec<?> codec) {
+        CodecSlot head = codecSlots[i];
+        // A column is rarely accessed with more than a couple of classes; if it is, start over rather than growing
+        // the list indefinitely. Concurrent updates might lose a slot, which only means another registry lookup.
+        if (head != null && head.depth >= MAX_CODEC_SLOTS)
+            head = null;
+        codecSlots[i] = new CodecSlot(registry, javaClass, byValue, codec, head);
+    }
+
     /**
      * Returns the number of columns described by this {@code Columns}
      * instance.
@@ -341,4 +400,23 @@ public class ColumnDefinitions implements Iterable<ColumnDefinitions.Definition>
                     && type.equals(other.type);
         }
     }
+
+    // Immutable, so that it can be published to other threads through a data race
+    private static class CodecSlot {
+        final CodecRegistry registry;
+        final Class<?> javaClass;
+        final boolean byValue;
+        final TypeCodec<?> codec;
+        final CodecSlot next;
+        final int depth;
+
+        CodecSlot(CodecRegistry registry, Class<?> javaClass, boolean byValue, TypeCodec<?> codec, CodecSlot next) {
+            this.registry = registry;
+            this.javaClass = javaClass;
+            this.byValue = byValue;
+            this.codec = codec;
+            this.next = next;
+            this.depth = (next == null) ? 1 : next.depth + 1;
+        }
+    }
 }
@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.reflect.TypeToken;
+
+/**
+ * A column of a result set, or a field of a user type, resolved ahead of time.
+ * <p/>
+ * Retrieving a value by name (for example {@code row.getInt("c1")}) looks up the name in the column definitions on
+ * every call, and then resolves a codec for the column's type. A {@code ColumnRef} performs these steps once; reading
+ * a value with it is then only an index access and a deserialization with the cached codec:
+ * <pre>{@code
+ * ResultSet rs = session.execute("SELECT id, name FROM users");
+ * ColumnRef<String> name = ColumnRef.of(rs.getColumnDefinitions(), "name", String.class);
+ * for (Row row : rs) {
+ *     String value = name.get(row);
+ *     ...
+ * }}
+ * </pre>
+ * Names obey the usual rules of {@link ColumnDefinitions}: they are case insensitive unless quoted.
+ * <p/>
+ * A reference can be reused with rows or values that have the same layout as the definitions it was resolved against:
+ * for example, the rows of all the pages of a result set, or of all the executions of a prepared statement (as long as
+ * its result metadata doesn't change). Using it with a row that has a different column at that index is an error.
+ * <p/>
+ * Instances of this class are thread-safe.
+ *
+ * @param <T> the Java type that the column's values are converted to.
+ */
+public final class ColumnRef<T> {
+
+    /**
+     * Resolves a column of a result set, using the codec registry that the definitions were created with.
+     *
+     * @param definitions the column definitions of the result set (see {@link ResultSet#getColumnDefinitions()}).
+     * @param name        the name of the column.
+     * @param javaType    the Java type to convert values to.
+     * @return the reference.
+     * @throws IllegalArgumentException                                    if {@code name} is not in the definitions.
+     * @throws com.datastax.driver.core.exceptions.CodecNotFoundException if there is no codec to convert the column to
+     *                                                                     {@code javaType}.
+     */
+    public static <T> ColumnRef<T> of(ColumnDefinitions definitions, String name, Class<T> javaType) {
+        return of(definitions, name, TypeToken.of(javaType));
+    }
+
+    /**
+     * Resolves a column of a result set, using the codec registry that the definitions were created with.
+     * <p/>
+     * This variant handles parameterized types, such as collections.
+     *
+     * @param definitions the column definitions of the result set.
+     * @param name        the name of the column.
+     * @param javaType    the Java type to convert values to.
+     * @return the reference.
+     * @throws IllegalArgumentException                                    if {@code name} is not in the definitions.
+     * @throws com.datastax.driver.core.exceptions.CodecNotFoundException if there is no codec to convert the column to
+     *                                                                     {@code javaType}.
+     */
+    public static <T> ColumnRef<T> of(ColumnDefinitions definitions, String name, TypeToken<T> javaType) {
+        int index = definitions.getFirstIdx(name);
+        DataType type = definitions.getType(index);
+        TypeCodec<T> codec = definitions.codecRegistry.codecFor(type, javaType);
+        ColumnRef<T> ref = new ColumnRef<T>(definitions.getName(index), index, type, codec);
+        ref.checkedDefinitions = definitions;
+        return ref;
+    }
+
+    /**
+     * Resolves a field of a user type, using the codec registry of the type.
+     *
+     * @param userType the user type.
+     * @param name     the name of the field.
+     * @param javaType the Java type to convert values to.
+     * @return the reference.
+     * @throws IllegalArgumentException                                    if {@code name} is not a field of the type.
+     * @throws com.datastax.driver.core.exceptions.CodecNotFoundException if there is no codec to convert the field to
+     *                                                                     {@code javaType}.
+     */
+    public static <T> ColumnRef<T> of(UserType userType, String name, Class<T> javaType) {
+        return of(userType, name, TypeToken.of(javaType));
+    }
+
+    /**
+     * Resolves a field of a user type, using the codec registry of the type.
+     * <p/>
+     * This variant handles parameterized types, such as collections.
+     *
+     * @param userType the user type.
+     * @param name     the name of the field.
+     * @param javaType the Java type to convert values to.
+     * @return the reference.
+     * @throws IllegalArgumentException                                    if {@code name} is not a field of the type.
+     * @throws com.datastax.driver.core.exceptions.CodecNotFoundException if there is no codec to convert the field to
+     *                                                                     {@code javaType}.
+     */
+    public static <T> ColumnRef<T> of(UserType userType, String name, TypeToken<T> javaType) {
+        int[] indexes = userType.byName.get(Metadata.handleId(name));
+        if (indexes == null)
+            throw new IllegalArgumentException(name + " is not a field defined in this definition");
+        UserType.Field field = userType.byIdx[indexes[0]];
+        TypeCodec<T> codec = userType.getCodecRegistry().codecFor(field.getType(), javaType);
+        ColumnRef<T> ref = new ColumnRef<T>(field.getName(), indexes[0], field.getType(), codec);
+        ref.checkedType = userType;
+        return ref;
+    }
+
+    private final String name;
+    private final int index;
+    private final DataType type;
+    private final TypeCodec<T> codec;
+
+    // The last definitions (or user type) that this reference was checked against. Rows of the same result set share
+    // their definitions, so this avoids comparing names and types for every row. These fields are only a shortcut and
+    // can be published to other threads through a data race.
+    private ColumnDefinitions checkedDefinitions;
+    private UserType checkedType;
+
+    private ColumnRef(String name, int index, DataType type, TypeCodec<T> codec) {
+        this.name = name;
+        this.index = index;
+        this.type = type;
+        this.codec = codec;
+    }
+
+    /**
+     * Returns the value of this column in a row.
+     *
+     * @param row the row.
+     * @return the value, converted to the Java type of this reference. If the value is NULL, the result depends on the
+     * codec: for example, {@code null} for most types, an empty collection for collection types.
+     * @throws IllegalArgumentException if {@code row} does not have this column at the same index.
+     */
+    public T get(Row row) {
+        ColumnDefinitions definitions = row.getColumnDefinitions();
+        if (definitions != checkedDefinitions) {
+            if (index >= definitions.size()
+                    || !name.equals(definitions.getName(index))
+                    || !type.equals(definitions.getType(index)))
+                throw new IllegalArgumentException(String.format(
+                        "Column %s (%s) is not at index %d in the definitions of this row", name, type, index));
+            checkedDefinitions = definitions;
+        }
+        return row.get(index, codec);
+    }
+
+    /**
+     * Returns the value of this field in a UDT value.
+     *
+     * @param value the UDT value.
+     * @return the value, converted to the Java type of this reference. If the value is NULL, the result depends on the
+     * codec: for example, {@code null} for most types, an empty collection for collection types.
+     * @throws IllegalArgumentException if {@code value}'s type does not have this field at the same index.
+     */
+    public T get(UDTValue value) {
+        UserType userType = value.getType();
+        if (userType != checkedType) {
+            UserType.Field[] fields = userType.byIdx;
+            if (index >= fields.length
+                    || !name.equals(fields[index].getName())
+                    || !type.equals(fields[index].getType()))
+                throw new IllegalArgumentException(String.format(
+                        "Field %s (%s) is not at index %d in the type of this value", name, type, index));
+            checkedType = userType;
+        }
+        return value.get(index, codec);
+    }
+
+    /**
+     * Returns the name of the column, as it appears in the definitions.
+     *
+     * @return the name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the index of the column in the definitions.
+     *
+     * @return the index.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the CQL type of the column.
+     *
+     * @return the type.
+     */
+    public DataType getType() {
+        return type;
+    }
+
+    /**
+     * Returns the codec used to convert the column's values.
+     *
+     * @return the codec.
+     */
+    public TypeCodec<T> getCodec() {
+        return codec;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ColumnRef(%s, %d, %s <-> %s)", name, index, type, codec.getJavaType());
+    }
+}
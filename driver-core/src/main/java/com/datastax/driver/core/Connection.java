@@ -32,9 +32,11 @@ import org.slf4j.LoggerFactory;
 
 import java.lang.ref.WeakReference;
 import java.net.InetSocketAddress;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -79,6 +81,10 @@ class Connection {
 
     private final AtomicInteger writer = new AtomicInteger(0);
 
+    // How many requests currently need reads to be paused on this connection (see pauseReads()).
+    private final Object readPausesLock = new Object();
+    private int readPauses; // guarded by readPausesLock
+
     private final AtomicReference<SetKeyspaceAttempt> targetKeyspace;
     private final SetKeyspaceAttempt defaultKeyspaceAttempt;
 
@@ -414,6 +420,26 @@ class Connection {
         return dispatcher.streamIdHandler.maxAvailableStreams();
     }
 
+    /**
+     * Stops reading from the connection, until every caller of this method has called {@link #resumeReads()}.
+     * <p/>
+     * This is a last-resort backpressure mechanism: it stalls all the requests multiplexed on this connection.
+     */
+    void pauseReads() {
+        synchronized (readPausesLock) {
+            if (readPauses++ == 0)
+                channel.config().setAutoRead(false);
+        }
+    }
+
+    void resumeReads() {
+        synchronized (readPausesLock) {
+            assert readPauses > 0;
+            if (--readPauses == 0)
+                channel.config().setAutoRead(true);
+        }
+    }
+
     <E extends Throwable> E defunct(E e) {
         if (isDefunct.compareAndSet(false, true)) {
 
@@ -589,7 +615,7 @@ class Connection {
         if (DISABLE_COALESCING) {
             channel.writeAndFlush(request).addListener(writeHandler(request, handler));
         } else {
-            flush(new FlushItem(channel, request, writeHandler(request, handler)));
+            flush(new FlushItem(this, request, writeHandler(request, handler)));
         }
         if (startTimeout)
             handler.startTimeout();
@@ -908,7 +934,11 @@ class Connection {
         final WeakReference<EventLoop> eventLoopRef;
         final Queue<FlushItem> queued = new ConcurrentLinkedQueue<FlushItem>();
         final AtomicBoolean running = new AtomicBoolean(false);
+        // Channels to flush at the end of the current run (no coalescing window). Only accessed from the event loop.
         final HashSet<Channel> channels = new HashSet<Channel>();
+        // Channels that have been written to but not flushed yet, because they have a coalescing window. Only
+        // accessed from the event loop.
+        final Map<Channel, PendingFlush> pending = new HashMap<Channel, PendingFlush>();
         int runsWithNoWork = 0;
 
         private Flusher(EventLoop eventLoop) {
@@ -927,22 +957,52 @@ class Connection {
         public void run() {
 
             boolean doneWork = false;
+            long now = System.nanoTime();
             FlushItem flush;
             while (null != (flush = queued.poll())) {
                 Channel channel = flush.channel;
                 if (channel.isActive()) {
-                    channels.add(channel);
+                    if (flush.connection.factory.configuration.getSocketOptions().getCoalescingWindowMicros() == 0) {
+                        // Fast path (the default): flush at the end of this run, no need to track anything else
+                        channels.add(channel);
+                    } else {
+                        PendingFlush pendingFlush = pending.get(channel);
+                        if (pendingFlush == null) {
+                            pendingFlush = new PendingFlush(flush.connection, now);
+                            pending.put(channel, pendingFlush);
+                        }
+                        pendingFlush.writes += 1;
+                    }
                     channel.write(flush.request).addListener(flush.listener);
                     doneWork = true;
                 }
             }
 
-            // Always flush what we have (don't artificially delay to try to coalesce more messages)
-            for (Channel channel : channels)
+            for (Channel channel : channels) {
                 channel.flush();
+                // In case the window was disabled while writes were pending: they have just been flushed too
+                if (!pending.isEmpty())
+                    pending.remove(channel);
+            }
             channels.clear();
 
-            if (doneWork) {
+            // Flush the channels for which we've waited long enough, or for which there is no point in waiting (see
+            // PendingFlush).
+            if (!pending.isEmpty()) {
+                Iterator<Map.Entry<Channel, PendingFlush>> iterator = pending.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    Map.Entry<Channel, PendingFlush> entry = iterator.next();
+                    Channel channel = entry.getKey();
+                    if (!channel.isActive()) {
+                        iterator.remove();
+                    } else if (entry.getValue().shouldFlush(channel, now)) {
+                        channel.flush();
+                        iterator.remove();
+                    }
+                }
+            }
+
+            if (doneWork || !pending.isEmpty()) {
                 runsWithNoWork = 0;
             } else {
                 // either reschedule or cancel
@@ -960,18 +1020,58 @@ class Connection {
         }
     }
 
+    /**
+     * The writes that are waiting to be flushed on a channel.
+     * <p/>
+     * If a coalescing window is configured (see {@link SocketOptions#setCoalescingWindowMicros(int)}), writes are held
+     * as long as other requests are in flight on the connection: their responses are likely to trigger new requests
+     * that can share the same flush. They are flushed as soon as one of these conditions is met:
+     * <ul>
+     * <li>the connection has no in-flight requests besides the pending writes. This is typically the case under low
+     * load, so waiting would only add latency;</li>
+     * <li>the oldest pending write has waited for the coalescing window;</li>
+     * <li>the bytes waiting in the channel's outbound buffer reach {@link SocketOptions#getCoalescingMaxBytes()}.</li>
+     * </ul>
+     */
+    private static final class PendingFlush {
+        private final Connection connection;
+        private final long firstWriteNanos;
+        private final long windowNanos;
+        private final int maxBytes;
+        int writes;
+
+        PendingFlush(Connection connection, long firstWriteNanos) {
+            this.connection = connection;
+            this.firstWriteNanos = firstWriteNanos;
+            SocketOptions options = connection.factory.configuration.getSocketOptions();
+            this.windowNanos = TimeUnit.MICROSECONDS.toNanos(options.getCoalescingWindowMicros());
+            this.maxBytes = options.getCoalescingMaxBytes();
+        }
+
+        boolean shouldFlush(Channel channel, long now) {
+            if (windowNanos <= 0 || now - firstWriteNanos >= windowNanos)
+                return true;
+            if (connection.inFlight.get() <= writes)
+                return true;
+            ChannelOutboundBuffer outboundBuffer = channel.unsafe().outboundBuffer();
+            return outboundBuffer == null || outboundBuffer.totalPendingWriteBytes() >= maxBytes;
+        }
+    }
+
     private static final ConcurrentMap<EventLoop, Flusher> flusherLookup = new MapMaker()
             .concurrencyLevel(16)
             .weakKeys()
             .makeMap();
 
     private static class FlushItem {
+        final Connection connection;
         final Channel channel;
         final Object request;
         final ChannelFutureListener listener;
 
-        private FlushItem(Channel channel, Object request, ChannelFutureListener listener) {
-            this.channel = channel;
+        private FlushItem(Connection connection, Object request, ChannelFutureListener listener) {
+            this.connection = connection;
+            this.channel = connection.channel;
             this.request = request;
             this.listener = listener;
         }
@@ -1002,7 +1102,7 @@ class Connection {
                 // negotiated yet.
                 protocolVersion = ProtocolVersion.V2;
             }
-            streamIdHandler = StreamIdGenerator.newInstance(protocolVersion);
+            streamIdHandler = StreamIdGenerator.newInstance(protocolVersion, factory.manager.metrics);
         }
 
         void add(ResponseHandler handler) {
@@ -1410,7 +1510,8 @@ class Connection {
 
     private static class Initializer extends ChannelInitializer<SocketChannel> {
         // Stateless handlers
-        private static final Message.ProtocolDecoder messageDecoder = new Message.ProtocolDecoder();
+        private static final Message.ProtocolDecoder messageDecoder = new Message.ProtocolDecoder(false);
+        private static final Message.ProtocolDecoder messageDecoderKeepingPreparedBodies = new Message.ProtocolDecoder(true);
         private static final Message.ProtocolEncoder messageEncoderV1 = new Message.ProtocolEncoder(ProtocolVersion.V1);
         private static final Message.ProtocolEncoder messageEncoderV2 = new Message.ProtocolEncoder(ProtocolVersion.V2);
         private static final Message.ProtocolEncoder messageEncoderV3 = new Message.ProtocolEncoder(ProtocolVersion.V3);
@@ -1466,9 +1567,16 @@ class Connection {
                 pipeline.addLast("frameCompressor", new Frame.Compressor(compressor));
             }
 
-            pipeline.addLast("messageDecoder", messageDecoder);
+            // Only keep the encoded PREPARED results if they get persisted
+            pipeline.addLast("messageDecoder", connection.factory.manager.preparedStatementStore == null
+                    ? messageDecoder
+                    : messageDecoderKeepingPreparedBodies);
             pipeline.addLast("messageEncoder", messageEncoderFor(protocolVersion));
 
+            // Protocol v5 wraps frames in segments once the connection is initialized
+            if (protocolVersion == ProtocolVersion.V5)
+                pipeline.addLast("segmentUpgrader", new Segment.Upgrader(compressor));
+
             pipeline.addLast("idleStateHandler", idleStateHandler);
 
             pipeline.addLast("dispatcher", connection.dispatcher);
@@ -0,0 +1,183 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+
+/**
+ * A <a href="http://www.reactive-streams.org/">Reactive Streams</a> {@link Publisher} that emits the rows of a
+ * continuous paging query, and only lets the server send as many pages as the subscribers request.
+ * <p/>
+ * With {@link ContinuousPagingSession#executeContinuouslyAsync(Statement, ContinuousPagingOptions)}, the server pushes
+ * pages as fast as it can; if the client does not keep up, the only way to slow it down is to stop reading from the
+ * connection, which also stalls all the other requests that share it. Instead, this publisher executes the query in
+ * successive rounds: each round asks the server for a bounded number of pages (via
+ * {@link ContinuousPagingOptions#getMaxPages()}), computed from the subscriber's outstanding demand, and the next round
+ * resumes from the paging state of the previous one once its pages have been consumed. The number of pages buffered
+ * on the client is therefore bounded by {@code maxPagesPerRound}, and the server is never blocked by a slow
+ * subscriber.
+ * <p/>
+ * The other options (page size and unit, rate limit) are preserved; if the options specify a maximum number of pages,
+ * it applies to the query as a whole.
+ * <p/>
+ * Rows are emitted either from the thread that calls {@link Subscription#request(long)}, or from an internal driver
+ * thread when a page arrives. Subscribers should therefore never block in {@link Subscriber#onNext(Object)}.
+ * <p/>
+ * Note that the Reactive Streams API is an optional dependency of the driver: it must be explicitly added to the
+ * classpath in order to use this class.
+ */
+public class ContinuousPagingPublisher implements Publisher<Row> {
+
+    /**
+     * The default maximum number of pages requested in a single round.
+     */
+    public static final int DEFAULT_MAX_PAGES_PER_ROUND = 4;
+
+    private final ContinuousPagingSession session;
+    private final Statement statement;
+    private final ContinuousPagingOptions options;
+    private final int maxPagesPerRound;
+
+    /**
+     * Creates a new instance with {@link #DEFAULT_MAX_PAGES_PER_ROUND}.
+     *
+     * @param session   the session that will execute the statement.
+     * @param statement the statement to execute for each subscription.
+     * @param options   the continuous paging options.
+     */
+    public ContinuousPagingPublisher(ContinuousPagingSession session, Statement statement, ContinuousPagingOptions options) {
+        this(session, statement, options, DEFAULT_MAX_PAGES_PER_ROUND);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param session          the session that will execute the statement.
+     * @param statement        the statement to execute for each subscription.
+     * @param options          the continuous paging options.
+     * @param maxPagesPerRound the maximum number of pages requested from the server at once. This is also the maximum
+     *                         number of pages that can be buffered by the client for each subscription.
+     */
+    public ContinuousPagingPublisher(ContinuousPagingSession session, Statement statement, ContinuousPagingOptions options,
+                                     int maxPagesPerRound) {
+        Preconditions.checkNotNull(options, "Options must not be null");
+        Preconditions.checkArgument(maxPagesPerRound > 0, "maxPagesPerRound must be strictly positive, got %s", maxPagesPerRound);
+        this.session = session;
+        this.statement = statement;
+        this.options = options;
+        this.maxPagesPerRound = maxPagesPerRound;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Row> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("subscriber can't be null");
+        subscriber.onSubscribe(new ContinuousPagingSubscription(subscriber));
+    }
+
+    private class ContinuousPagingSubscription extends PagingSubscription<AsyncContinuousPagingResult> {
+
+        // Only accessed from the methods called by PagingSubscription's drain loop
+        private Iterator<Row> currentRows;
+        private int pagesReceived;
+
+        ContinuousPagingSubscription(Subscriber<? super Row> subscriber) {
+            super(subscriber);
+        }
+
+        @Override
+        ListenableFuture<AsyncContinuousPagingResult> fetchNextPage(AsyncContinuousPagingResult current, long demand) {
+            if (current == null)
+                return startRound(null, demand);
+            if (currentRows.hasNext())
+                return null;
+            // The server is already sending the pages of this round, this just reads them from the local queue.
+            if (!current.isLast())
+                return current.nextPage();
+            // The round ended because of the page limit we've set (see isExhausted), resume once there is demand
+            return (demand > 0)
+                    ? startRound(ByteBuffer.wrap(current.getExecutionInfo().getPagingStateUnsafe()), demand)
+                    : null;
+        }
+
+        @Override
+        boolean isExhausted(AsyncContinuousPagingResult current) {
+            if (!current.isLast())
+                return false;
+            // If the round ended because of the page limit we've set, the server returns the state to resume from
+            byte[] pagingState = current.getExecutionInfo().getPagingStateUnsafe();
+            return pagingState == null || (options.getMaxPages() > 0 && pagesReceived >= options.getMaxPages());
+        }
+
+        @Override
+        Iterator<Row> rows(AsyncContinuousPagingResult page) {
+            pagesReceived += 1;
+            currentRows = page.currentPage().iterator();
+            return currentRows;
+        }
+
+        @Override
+        void cancel(AsyncContinuousPagingResult page) {
+            if (!page.isLast())
+                page.cancel();
+        }
+
+        private ListenableFuture<AsyncContinuousPagingResult> startRound(ByteBuffer pagingState, long demand) {
+            int pages = pagesForDemand(demand);
+            if (options.getMaxPages() > 0)
+                pages = Math.min(pages, options.getMaxPages() - pagesReceived);
+            ContinuousPagingOptions roundOptions = ContinuousPagingOptions.builder()
+                    .withPageSize(options.getPageSize(), options.getPageUnit())
+                    .withMaxPagesPerSecond(options.getMaxPagesPerSecond())
+                    .withMaxPages(pages)
+                    .build();
+            // Resume without modifying the user's statement, since it can be executed again by another subscription
+            Statement roundStatement = (pagingState == null) ? statement : new ResumedStatement(statement, pagingState);
+            return session.executeContinuouslyAsync(roundStatement, roundOptions);
+        }
+
+        // How many pages we need to satisfy the given demand
+        private int pagesForDemand(long demand) {
+            long rowsPerPage;
+            if (options.getPageUnit() == ContinuousPagingOptions.PageUnit.ROWS)
+                rowsPerPage = options.getPageSize();
+            else if (pagesReceived > 0)
+                rowsPerPage = rowsEmitted() / pagesReceived; // estimate from what we've seen so far
+            else
+                rowsPerPage = 0;
+
+            if (rowsPerPage <= 0 || demand == Long.MAX_VALUE)
+                return maxPagesPerRound;
+            long pages = (demand + rowsPerPage - 1) / rowsPerPage;
+            return (int) Math.max(1, Math.min(maxPagesPerRound, pages));
+        }
+    }
+
+    /**
+     * Resumes a statement from a given paging state, without modifying the original statement.
+     */
+    private static class ResumedStatement extends StatementWrapper {
+        private final ByteBuffer pagingState;
+
+        ResumedStatement(Statement wrapped, ByteBuffer pagingState) {
+            super(wrapped);
+            this.pagingState = pagingState;
+        }
+
+        @Override
+        public ByteBuffer getPagingState() {
+            return pagingState;
+        }
+    }
+}
@@ -35,9 +35,10 @@ import static com.datastax.driver.core.Responses.Result.Kind.ROWS;
 class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     private static final Logger logger = LoggerFactory.getLogger(ContinuousPagingQueue.class);
 
-    // How many responses we accumulate before applying backpressure.
+    // How many bytes of responses we accumulate before applying backpressure.
     // Note that because this is done asynchronously, the queue might actually grow bigger than that.
-    private static final int MAX_ENQUEUED_RESPONSES = 4;
+    private static final int MAX_ENQUEUED_BYTES = SystemProperties.getInt(
+            "com.datastax.driver.CONTINUOUS_PAGING_MAX_ENQUEUED_BYTES", 4 * 1024 * 1024);
 
     private final Request request;
 
@@ -47,6 +48,10 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     // Responses that we have received and have not been consumed by the client yet.
     // Only accessed while holding the lock.
     private final Queue<Object> queue;
+    // The size of the pages in the queue. Only accessed while holding the lock.
+    private int enqueuedBytes;
+    // Whether we asked the connection to pause reads. Only accessed while holding the lock.
+    private boolean readsPaused;
     // If the client requested a page while the queue was empty, then it's waiting on that future.
     // Only accessed while holding the lock.
     private SettableFuture<AsyncContinuousPagingResult> pendingResult;
@@ -161,10 +166,8 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
             } else {
                 handler.cancel(); // notify server to stop sending responses
             }
-            if (connection != null) {
-                // Make sure we don't leave it stuck
-                connection.channel.config().setAutoRead(true);
-            }
+            // Make sure we don't leave the connection stuck
+            resumeReads();
             enqueueOrCompletePending(exception);
         }
     }
@@ -235,28 +238,49 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
     private void enqueue(Object pageOrError) {
         assert lock.isHeldByCurrentThread();
         queue.add(pageOrError);
-        // Backpressure: if the queue grows too large, disable auto-read so that the channel eventually becomes
-        // non-writable on the server side (causing it to back off for a while)
-        if (queue.size() == MAX_ENQUEUED_RESPONSES) {
+        if (pageOrError instanceof DefaultAsyncContinuousPagingResult)
+            enqueuedBytes += ((DefaultAsyncContinuousPagingResult) pageOrError).sizeInBytes;
+        // Backpressure: if the queue grows too large, pause reads so that the channel eventually becomes
+        // non-writable on the server side (causing it to back off for a while).
+        // Note that this affects all the requests on the connection. Clients that want to avoid it should consume
+        // pages in bounded rounds, see ContinuousPagingPublisher.
+        if (!readsPaused && enqueuedBytes >= MAX_ENQUEUED_BYTES && connection != null) {
             if (logger.isDebugEnabled()) {
-                logger.debug("Exceeded {} queued response pages, disabling auto-read", queue.size());
+                logger.debug("Exceeded {} bytes of queued response pages ({} pages), pausing reads",
+                        MAX_ENQUEUED_BYTES, queue.size());
             }
-            connection.channel.config().setAutoRead(false);
+            readsPaused = true;
+            connection.pauseReads();
         }
     }
 
     private Object dequeue() {
         assert lock.isHeldByCurrentThread();
         Object head = queue.poll();
-        if (head != null && queue.size() == MAX_ENQUEUED_RESPONSES - 1) {
+        if (head instanceof DefaultAsyncContinuousPagingResult)
+            enqueuedBytes -= ((DefaultAsyncContinuousPagingResult) head).sizeInBytes;
+        if (readsPaused && enqueuedBytes < MAX_ENQUEUED_BYTES) {
             if (logger.isDebugEnabled()) {
-                logger.debug("Back to {} queued response pages, re-enabling auto-read", queue.size());
+                logger.debug("Back to {} bytes of queued response pages, resuming reads", enqueuedBytes);
             }
-            connection.channel.config().setAutoRead(true);
+            readsPaused = false;
+            connection.resumeReads();
         }
         return head;
     }
 
+    private void resumeReads() {
+        lock.lock();
+        try {
+            if (readsPaused) {
+                readsPaused = false;
+                connection.resumeReads();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
     private void complete(SettableFuture<AsyncContinuousPagingResult> future, Object pageOrError) {
         if (pageOrError instanceof AsyncContinuousPagingResult) {
             future.set((AsyncContinuousPagingResult) pageOrError);
@@ -303,10 +327,8 @@ class ContinuousPagingQueue implements MultiResponseRequestHandler.Callback {
             state = STATE_FAILED;
             handler.cancel();
             cancelPendingResult(); // if another thread is waiting on an empty queue, unblock it
-            if (connection != null) {
-                // Make sure we don't leave it stuck
-                connection.channel.config().setAutoRead(true);
-            }
+            // Make sure we don't leave the connection stuck
+            resumeReads();
         }
     }
 
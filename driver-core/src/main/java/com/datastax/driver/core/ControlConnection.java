@@ -547,6 +547,7 @@ class ControlConnection implements Connection.Owner {
         // Update cluster name, DC and rack for the one node we are connected to
         Row localRow = localFuture.get().one();
         if (localRow != null) {
+            onSchemaVersion(localRow, cluster);
             String clusterName = localRow.getString("cluster_name");
             if (clusterName != null)
                 cluster.metadata.clusterName = clusterName;
@@ -743,8 +744,10 @@ class ControlConnection implements Connection.Owner {
         Set<UUID> versions = new HashSet<UUID>();
 
         Row localRow = localFuture.get().one();
-        if (localRow != null && !localRow.isNull("schema_version"))
+        if (localRow != null && !localRow.isNull("schema_version")) {
             versions.add(localRow.getUUID("schema_version"));
+            onSchemaVersion(localRow, cluster);
+        }
 
         for (Row row : peersFuture.get()) {
 
@@ -760,6 +763,13 @@ class ControlConnection implements Connection.Owner {
         return versions.size() <= 1;
     }
 
+    // Passes the schema version that we just read from system.local to the prepared statement store, if any
+    private static void onSchemaVersion(Row localRow, Cluster.Manager cluster) {
+        PreparedStatementStore store = cluster.preparedStatementStore;
+        if (store != null && !localRow.isNull("schema_version"))
+            store.onSchemaVersion(localRow.getUUID("schema_version"), cluster.protocolVersion());
+    }
+
     boolean checkSchemaAgreement() throws ConnectionException, BusyConnectionException, InterruptedException, ExecutionException {
         Connection connection = connectionRef.get();
         return connection != null &&
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+
+import java.util.zip.CRC32;
+
+/**
+ * The checksums used by the protocol v5 segment format (see {@link Segment}).
+ */
+final class Crc {
+
+    private static final int CRC24_INIT = 0x875060;
+    private static final int CRC24_POLY = 0x1974F0B;
+
+    // The CRC32 of a payload is initialized with these bytes, so that a payload of zeroes doesn't have a CRC of zero
+    private static final byte[] CRC32_INITIAL_BYTES = new byte[]{(byte) 0xFA, (byte) 0x2D, (byte) 0x55, (byte) 0xCA};
+
+    // Used to checksum direct buffers: this JDK version can't update a CRC32 from a ByteBuffer
+    private static final ThreadLocal<byte[]> SCRATCH = new ThreadLocal<byte[]>() {
+        @Override
+        protected byte[] initialValue() {
+            return new byte[8192];
+        }
+    };
+
+    private Crc() {
+    }
+
+    /**
+     * Computes the CRC24 of the {@code length} lowest bytes of {@code value}, taken in little-endian order.
+     */
+    static int computeCrc24(long value, int length) {
+        int crc = CRC24_INIT;
+        for (int i = 0; i < length; i++) {
+            crc ^= (value & 0xFF) << 16;
+            value >>= 8;
+            for (int j = 0; j < 8; j++) {
+                crc <<= 1;
+                if ((crc & 0x1000000) != 0)
+                    crc ^= CRC24_POLY;
+            }
+        }
+        return crc;
+    }
+
+    /**
+     * Computes the CRC32 of a region of a buffer, without modifying its indices.
+     */
+    static int computeCrc32(ByteBuf buffer, int index, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(CRC32_INITIAL_BYTES, 0, CRC32_INITIAL_BYTES.length);
+        if (buffer.hasArray()) {
+            crc.update(buffer.array(), buffer.arrayOffset() + index, length);
+        } else {
+            byte[] scratch = SCRATCH.get();
+            while (length > 0) {
+                int chunk = Math.min(length, scratch.length);
+                buffer.getBytes(index, scratch, 0, chunk);
+                crc.update(scratch, 0, chunk);
+                index += chunk;
+                length -= chunk;
+            }
+        }
+        return (int) crc.getValue();
+    }
+}
@@ -6,14 +6,9 @@
  */
 package com.datastax.driver.core;
 
-import com.google.common.base.Function;
-import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 
-import java.nio.ByteBuffer;
-import java.util.List;
-
 class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult {
 
     private final Iterable<Row> currentPage;
@@ -22,19 +17,16 @@ class DefaultAsyncContinuousPagingResult implements AsyncContinuousPagingResult
     private final boolean isLast;
     private final ExecutionInfo executionInfo;
     private final ContinuousPagingQueue queue;
+    final int sizeInBytes;
 
     private volatile ListenableFuture<AsyncContinuousPagingResult> nextPage;
 
-    DefaultAsyncContinuousPagingResult(Iterable<List<ByteBuffer>> data, final ColumnDefinitions columnDefinitions,
+    DefaultAsyncContinuousPagingResult(ResultPage data, ColumnDefinitions columnDefinitions,
                                        int pageNumber, boolean isLast, ExecutionInfo executionInfo,
-                                       final Token.Factory tokenFactory, final ProtocolVersion protocolVersion,
-                                       final ContinuousPagingQueue queue) {
-        this.currentPage = Iterables.transform(data, new Function<List<ByteBuffer>, Row>() {
-            @Override
-            public Row apply(List<ByteBuffer> input) {
-                return ArrayBackedRow.fromData(columnDefinitions, tokenFactory, protocolVersion, input);
-            }
-        });
+                                       Token.Factory tokenFactory, ProtocolVersion protocolVersion,
+                                       ContinuousPagingQueue queue) {
+        this.currentPage = data.rows(columnDefinitions, tokenFactory, protocolVersion);
+        this.sizeInBytes = data.sizeInBytes();
         this.columnDefinitions = columnDefinitions;
         this.pageNumber = pageNumber;
         this.isLast = isLast;
@@ -10,6 +10,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import java.net.InetSocketAddress;
 import java.util.Collections;
+import java.util.concurrent.ScheduledExecutorService;
 
 /**
  * Base class for custom {@link Cluster} implementations that wrap another instance (delegate / decorator pattern).
@@ -92,6 +93,11 @@ public abstract class DelegatingCluster extends Cluster {
         return delegate().getMetrics();
     }
 
+    @Override
+    public ScheduledExecutorService getScheduledTasksExecutor() {
+        return delegate().getScheduledTasksExecutor();
+    }
+
     @Override
     public Cluster register(Host.StateListener listener) {
         return delegate().register(listener);
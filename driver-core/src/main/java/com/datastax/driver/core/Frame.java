@@ -60,6 +60,8 @@ import java.util.List;
  * .                                       .
  * +----------------------------------------
  * </pre>
+ * <p/>
+ * In protocol v5, frames are themselves wrapped in segments once the connection is initialized (see {@link Segment}).
  *
  * @see "https://github.com/apache/cassandra/blob/trunk/doc/native_protocol_v1.spec"
  * @see "https://github.com/apache/cassandra/blob/trunk/doc/native_protocol_v2.spec"
@@ -76,7 +78,7 @@ class Frame {
         this.body = body;
     }
 
-    private static Frame create(ByteBuf fullFrame) {
+    static Frame create(ByteBuf fullFrame) {
         assert fullFrame.readableBytes() >= 1 : String.format("Frame too short (%d bytes)", fullFrame.readableBytes());
 
         int versionBytes = fullFrame.readByte();
@@ -207,6 +209,15 @@ class Frame {
                 out.add(frame);
         }
 
+        /**
+         * Removes the bytes that were received but not decoded yet, and returns them (or {@code null} if there are
+         * none). This is used when another decoder takes over the channel.
+         */
+        ByteBuf takeBufferedBytes() {
+            ByteBuf buffer = internalBuffer();
+            return buffer.isReadable() ? buffer.readBytes(buffer.readableBytes()) : null;
+        }
+
         private static byte peekFirst(ByteBuf buffer) {
             buffer.markReaderIndex();
             byte b = buffer.readByte();
@@ -216,7 +227,7 @@ class Frame {
 
         static class DecoderForStreamIdSize extends LengthFieldBasedFrameDecoder {
             // The maximum response frame length allowed.  Note that C* does not currently restrict the length of its responses (CASSANDRA-12630).
-            private static final int MAX_FRAME_LENGTH = SystemProperties.getInt("com.datastax.driver.NATIVE_TRANSPORT_MAX_FRAME_SIZE_IN_MB", 256) * 1024 * 1024; // 256 MB
+            static final int MAX_FRAME_LENGTH = SystemProperties.getInt("com.datastax.driver.NATIVE_TRANSPORT_MAX_FRAME_SIZE_IN_MB", 256) * 1024 * 1024; // 256 MB
             private final int protocolVersion;
 
             DecoderForStreamIdSize(int protocolVersion, int streamIdSize) {
@@ -259,20 +270,24 @@ class Frame {
 
         @Override
         protected void encode(ChannelHandlerContext ctx, Frame frame, List<Object> out) throws Exception {
-            ProtocolVersion protocolVersion = frame.header.version;
-            ByteBuf header = ctx.alloc().ioBuffer(Frame.Header.lengthFor(protocolVersion));
-            // We don't bother with the direction, we only send requests.
-            header.writeByte(frame.header.version.toInt());
-            header.writeByte(Header.Flag.serialize(frame.header.flags));
-            writeStreamId(frame.header.streamId, header, protocolVersion);
-            header.writeByte(frame.header.opcode);
-            header.writeInt(frame.body.readableBytes());
+            ByteBuf header = ctx.alloc().ioBuffer(Frame.Header.lengthFor(frame.header.version));
+            writeHeader(frame, header);
 
             out.add(header);
             out.add(frame.body);
         }
 
-        private void writeStreamId(int streamId, ByteBuf header, ProtocolVersion protocolVersion) {
+        static void writeHeader(Frame frame, ByteBuf out) {
+            ProtocolVersion protocolVersion = frame.header.version;
+            // We don't bother with the direction, we only send requests.
+            out.writeByte(protocolVersion.toInt());
+            out.writeByte(Header.Flag.serialize(frame.header.flags));
+            writeStreamId(frame.header.streamId, out, protocolVersion);
+            out.writeByte(frame.header.opcode);
+            out.writeInt(frame.body.readableBytes());
+        }
+
+        private static void writeStreamId(int streamId, ByteBuf header, ProtocolVersion protocolVersion) {
             switch (protocolVersion) {
                 case V1:
                 case V2:
@@ -306,7 +321,7 @@ class Frame {
                 // we have a reference to the compressed body (and therefore a chance to release it).
                 ByteBuf compressedBody = frame.body;
                 try {
-                    out.add(compressor.decompress(frame));
+                    out.add(compressor.decompress(ctx.alloc(), frame));
                 } finally {
                     compressedBody.release();
                 }
@@ -335,7 +350,7 @@ class Frame {
                 // See comment in decode()
                 ByteBuf uncompressedBody = frame.body;
                 try {
-                    out.add(compressor.compress(frame));
+                    out.add(compressor.compress(ctx.alloc(), frame));
                 } finally {
                     uncompressedBody.release();
                 }
@@ -7,6 +7,8 @@
 package com.datastax.driver.core;
 
 import com.datastax.driver.core.exceptions.DriverInternalError;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import net.jpountz.lz4.LZ4Factory;
 import org.slf4j.Logger;
@@ -14,14 +16,32 @@ import org.slf4j.LoggerFactory;
 import org.xerial.snappy.Snappy;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 abstract class FrameCompressor {
 
     private static final Logger logger = LoggerFactory.getLogger(FrameCompressor.class);
 
-    public abstract Frame compress(Frame frame) throws IOException;
+    /**
+     * Compresses the body of a frame.
+     * <p/>
+     * Implementations allocate the compressed body with the given allocator, preferably in the same kind of memory
+     * (direct or heap) as the input body, and without copying it to an intermediary array. The input body is left
+     * untouched, the caller is responsible for releasing it.
+     */
+    public abstract Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException;
 
-    public abstract Frame decompress(Frame frame) throws IOException;
+    /**
+     * Decompresses the body of a frame. See {@link #compress(ByteBufAllocator, Frame)} for the rules on buffers.
+     */
+    public abstract Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException;
+
+    // Fallback for bodies that are not backed by a single buffer
+    private static byte[] copyBytes(ByteBuf buffer) {
+        byte[] bytes = new byte[buffer.readableBytes()];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return bytes;
+    }
 
     public static class SnappyCompressor extends FrameCompressor {
 
@@ -48,24 +68,76 @@ abstract class FrameCompressor {
         }
 
         @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-            byte[] output = new byte[Snappy.maxCompressedLength(input.length)];
-
-            int written = Snappy.compress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, written));
+        public Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int inputLength = input.readableBytes();
+            int maxCompressedLength = Snappy.maxCompressedLength(inputLength);
+            if (input.isDirect() && input.nioBufferCount() == 1) {
+                ByteBuf output = alloc.directBuffer(maxCompressedLength);
+                try {
+                    int written = Snappy.compress(input.nioBuffer(), output.nioBuffer(0, maxCompressedLength));
+                    return frame.with(output.writerIndex(written));
+                } catch (IOException e) {
+                    output.release();
+                    throw e;
+                }
+            } else if (input.hasArray()) {
+                ByteBuf output = alloc.heapBuffer(maxCompressedLength);
+                try {
+                    int written = Snappy.compress(input.array(), input.arrayOffset() + input.readerIndex(), inputLength,
+                            output.array(), output.arrayOffset());
+                    return frame.with(output.writerIndex(written));
+                } catch (IOException e) {
+                    output.release();
+                    throw e;
+                }
+            } else {
+                byte[] in = copyBytes(input);
+                byte[] out = new byte[maxCompressedLength];
+                int written = Snappy.compress(in, 0, in.length, out, 0);
+                return frame.with(Unpooled.wrappedBuffer(out, 0, written));
+            }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            if (!Snappy.isValidCompressedBuffer(input, 0, input.length))
-                throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
-
-            byte[] output = new byte[Snappy.uncompressedLength(input)];
-            int size = Snappy.uncompress(input, 0, input.length, output, 0);
-            return frame.with(Unpooled.wrappedBuffer(output, 0, size));
+        public Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int inputLength = input.readableBytes();
+            if (input.isDirect() && input.nioBufferCount() == 1) {
+                ByteBuffer in = input.nioBuffer();
+                if (!Snappy.isValidCompressedBuffer(in))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+                int uncompressedLength = Snappy.uncompressedLength(in);
+                ByteBuf output = alloc.directBuffer(uncompressedLength);
+                try {
+                    int size = Snappy.uncompress(in, output.nioBuffer(0, uncompressedLength));
+                    return frame.with(output.writerIndex(size));
+                } catch (IOException e) {
+                    output.release();
+                    throw e;
+                }
+            } else if (input.hasArray()) {
+                byte[] in = input.array();
+                int offset = input.arrayOffset() + input.readerIndex();
+                if (!Snappy.isValidCompressedBuffer(in, offset, inputLength))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+                int uncompressedLength = Snappy.uncompressedLength(in, offset, inputLength);
+                ByteBuf output = alloc.heapBuffer(uncompressedLength);
+                try {
+                    int size = Snappy.uncompress(in, offset, inputLength, output.array(), output.arrayOffset());
+                    return frame.with(output.writerIndex(size));
+                } catch (IOException e) {
+                    output.release();
+                    throw e;
+                }
+            } else {
+                byte[] in = copyBytes(input);
+                if (!Snappy.isValidCompressedBuffer(in, 0, in.length))
+                    throw new DriverInternalError("Provided frame does not appear to be Snappy compressed");
+                byte[] out = new byte[Snappy.uncompressedLength(in)];
+                int size = Snappy.uncompress(in, 0, in.length, out, 0);
+                return frame.with(Unpooled.wrappedBuffer(out, 0, size));
+            }
         }
     }
 
@@ -99,45 +171,138 @@ abstract class FrameCompressor {
         }
 
         @Override
-        public Frame compress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
-
-            int maxCompressedLength = compressor.maxCompressedLength(input.length);
-            byte[] output = new byte[INTEGER_BYTES + maxCompressedLength];
-
-            output[0] = (byte) (input.length >>> 24);
-            output[1] = (byte) (input.length >>> 16);
-            output[2] = (byte) (input.length >>> 8);
-            output[3] = (byte) (input.length);
-
+        public Frame compress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int inputLength = input.readableBytes();
+            int maxCompressedLength = compressor.maxCompressedLength(inputLength);
+            int outputLength = INTEGER_BYTES + maxCompressedLength;
+            boolean direct = input.isDirect() && input.nioBufferCount() == 1;
+            ByteBuf output = direct ? alloc.directBuffer(outputLength) : alloc.heapBuffer(outputLength);
             try {
-                int written = compressor.compress(input, 0, input.length, output, INTEGER_BYTES, maxCompressedLength);
-                return frame.with(Unpooled.wrappedBuffer(output, 0, INTEGER_BYTES + written));
+                output.writeInt(inputLength);
+                int written = compress(input, output, INTEGER_BYTES, maxCompressedLength);
+                return frame.with(output.writerIndex(INTEGER_BYTES + written));
             } catch (Exception e) {
+                output.release();
                 throw new IOException(e);
             }
         }
 
         @Override
-        public Frame decompress(Frame frame) throws IOException {
-            byte[] input = CBUtil.readRawBytes(frame.body);
+        public Frame decompress(ByteBufAllocator alloc, Frame frame) throws IOException {
+            ByteBuf input = frame.body;
+            int compressedLength = input.readableBytes() - INTEGER_BYTES;
+            int uncompressedLength = input.getInt(input.readerIndex());
+            boolean direct = input.isDirect() && input.nioBufferCount() == 1;
+            ByteBuf output = direct ? alloc.directBuffer(uncompressedLength) : alloc.heapBuffer(uncompressedLength);
+            try {
+                int read = decompress(input, input.readerIndex() + INTEGER_BYTES, compressedLength, output, 0, uncompressedLength);
+                if (read != compressedLength)
+                    throw new IOException("Compressed lengths mismatch");
+
+                return frame.with(output.writerIndex(uncompressedLength));
+            } catch (Exception e) {
+                output.release();
+                throw new IOException(e);
+            }
+        }
 
-            int uncompressedLength = ((input[0] & 0xFF) << 24)
-                    | ((input[1] & 0xFF) << 16)
-                    | ((input[2] & 0xFF) << 8)
-                    | ((input[3] & 0xFF));
+        /**
+         * The maximum length of the output of {@link #compressBlock(ByteBuf, ByteBuf)}.
+         */
+        int maxCompressedLength(int length) {
+            return compressor.maxCompressedLength(length);
+        }
 
-            byte[] output = new byte[uncompressedLength];
+        /**
+         * Compresses the readable bytes of {@code input} as a raw LZ4 block, without the length prefix used for frame
+         * bodies. This is the format of compressed segment payloads in protocol v5 (see {@link Segment}).
+         * <p/>
+         * The result is written at the writer index of {@code output}, which must have room for
+         * {@link #maxCompressedLength(int)} bytes. The input is left untouched.
+         *
+         * @return the number of bytes written.
+         */
+        int compressBlock(ByteBuf input, ByteBuf output) throws IOException {
+            int maxCompressedLength = maxCompressedLength(input.readableBytes());
+            try {
+                int written = compress(input, output, output.writerIndex(), maxCompressedLength);
+                output.writerIndex(output.writerIndex() + written);
+                return written;
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
 
+        /**
+         * Decompresses a raw LZ4 block produced by {@link #compressBlock(ByteBuf, ByteBuf)}, and writes the result at
+         * the writer index of {@code output}. The input is left untouched.
+         */
+        void decompressBlock(ByteBuf input, ByteBuf output, int uncompressedLength) throws IOException {
             try {
-                int read = decompressor.decompress(input, INTEGER_BYTES, output, 0, uncompressedLength);
-                if (read != input.length - INTEGER_BYTES)
+                int read = decompress(input, input.readerIndex(), input.readableBytes(),
+                        output, output.writerIndex(), uncompressedLength);
+                if (read != input.readableBytes())
                     throw new IOException("Compressed lengths mismatch");
-
-                return frame.with(Unpooled.wrappedBuffer(output));
+                output.writerIndex(output.writerIndex() + uncompressedLength);
+            } catch (IOException e) {
+                throw e;
             } catch (Exception e) {
                 throw new IOException(e);
             }
         }
+
+        private int compress(ByteBuf input, ByteBuf output, int outputIndex, int maxCompressedLength) {
+            int inputLength = input.readableBytes();
+            if (isSingleDirect(input) && isSingleDirect(output))
+                return compressor.compress(input.nioBuffer(), 0, inputLength,
+                        output.nioBuffer(outputIndex, maxCompressedLength), 0, maxCompressedLength);
+
+            // Don't use the ByteBuffer API for heap buffers, LZ4 1.3 ignores their array offset
+            byte[] in;
+            int offset;
+            if (input.hasArray()) {
+                in = input.array();
+                offset = input.arrayOffset() + input.readerIndex();
+            } else {
+                in = copyBytes(input);
+                offset = 0;
+            }
+            if (output.hasArray())
+                return compressor.compress(in, offset, inputLength,
+                        output.array(), output.arrayOffset() + outputIndex, maxCompressedLength);
+            byte[] out = new byte[maxCompressedLength];
+            int written = compressor.compress(in, offset, inputLength, out, 0, maxCompressedLength);
+            output.setBytes(outputIndex, out, 0, written);
+            return written;
+        }
+
+        private int decompress(ByteBuf input, int inputIndex, int inputLength,
+                               ByteBuf output, int outputIndex, int uncompressedLength) {
+            if (isSingleDirect(input) && isSingleDirect(output))
+                return decompressor.decompress(input.nioBuffer(inputIndex, inputLength), 0,
+                        output.nioBuffer(outputIndex, uncompressedLength), 0, uncompressedLength);
+
+            byte[] in;
+            int offset;
+            if (input.hasArray()) {
+                in = input.array();
+                offset = input.arrayOffset() + inputIndex;
+            } else {
+                in = new byte[inputLength];
+                input.getBytes(inputIndex, in);
+                offset = 0;
+            }
+            if (output.hasArray())
+                return decompressor.decompress(in, offset, output.array(), output.arrayOffset() + outputIndex, uncompressedLength);
+            byte[] out = new byte[uncompressedLength];
+            int read = decompressor.decompress(in, offset, out, 0, uncompressedLength);
+            output.setBytes(outputIndex, out);
+            return read;
+        }
+
+        private static boolean isSingleDirect(ByteBuf buffer) {
+            return buffer.isDirect() && buffer.nioBufferCount() == 1;
+        }
     }
 }
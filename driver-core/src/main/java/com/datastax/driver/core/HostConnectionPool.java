@@ -32,11 +32,20 @@ class HostConnectionPool implements Connection.Owner {
 
     private static final int MAX_SIMULTANEOUS_CREATION = 1;
 
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
     final Host host;
     volatile HostDistance hostDistance;
     protected final SessionManager manager;
 
     final List<Connection> connections;
+    // A snapshot of connections, to pick a connection without iterating (see connectionsChanged())
+    private volatile Connection[] connectionArray = new Connection[0];
     private final AtomicInteger open;
     /**
      * The total number of in-flight requests on all connections of this pool.
@@ -133,6 +142,7 @@ class HostConnectionPool implements Connection.Owner {
                 }
 
                 HostConnectionPool.this.connections.addAll(connections);
+                connectionsChanged();
                 open.set(connections.size());
 
                 if (isClosed()) {
@@ -210,15 +220,7 @@ class HostConnectionPool implements Connection.Owner {
             }
         }
 
-        int minInFlight = Integer.MAX_VALUE;
-        Connection leastBusy = null;
-        for (Connection connection : connections) {
-            int inFlight = connection.inFlight.get();
-            if (inFlight < minInFlight) {
-                minInFlight = inFlight;
-                leastBusy = connection;
-            }
-        }
+        Connection leastBusy = pickConnection();
 
         if (leastBusy == null) {
             // We could have raced with a shutdown since the last check
@@ -263,6 +265,55 @@ class HostConnectionPool implements Connection.Owner {
         return leastBusy.setKeyspaceAsync(manager.poolsState.keyspace);
     }
 
+    /**
+     * Picks the less busy of two random connections ("power of two choices"): this is constant-time, and in practice
+     * spreads the load almost as well as looking for the least busy connection. We only fall back to a full scan if
+     * the chosen connection is full, since another one could still accept requests.
+     */
+    private Connection pickConnection() {
+        Connection[] snapshot = connectionArray;
+        int size = snapshot.length;
+        if (size == 0)
+            return null;
+        if (size == 1)
+            return snapshot[0];
+
+        Random random = RANDOM.get();
+        int i = random.nextInt(size);
+        int j = random.nextInt(size - 1);
+        if (j >= i)
+            j += 1;
+        Connection candidate = snapshot[i];
+        int candidateInFlight = candidate.inFlight.get();
+        int otherInFlight = snapshot[j].inFlight.get();
+        if (otherInFlight < candidateInFlight) {
+            candidate = snapshot[j];
+            candidateInFlight = otherInFlight;
+        }
+        if (size == 2 || candidateInFlight < Math.min(candidate.maxAvailableStreams(), options().getMaxRequestsPerConnection(hostDistance)))
+            return candidate;
+
+        int minInFlight = Integer.MAX_VALUE;
+        Connection leastBusy = null;
+        for (Connection connection : snapshot) {
+            int inFlight = connection.inFlight.get();
+            if (inFlight < minInFlight) {
+                minInFlight = inFlight;
+                leastBusy = connection;
+            }
+        }
+        return leastBusy;
+    }
+
+    /**
+     * Must be called after every modification of {@link #connections}. This is synchronized so that the last snapshot
+     * always reflects the last modification.
+     */
+    @VisibleForTesting
+    synchronized void connectionsChanged() {
+        connectionArray = connections.toArray(new Connection[0]);
+    }
+
     private ListenableFuture<Connection> enqueue(long timeout, TimeUnit unit, int maxQueueSize) {
         if (timeout == 0 || maxQueueSize == 0) {
             return Futures.immediateFailedFuture(new BusyPoolException(host.getSocketAddress(), 0));
@@ -410,6 +461,7 @@ class HostConnectionPool implements Connection.Owner {
 
     private void doTrashConnection(Connection connection) {
         connections.remove(connection);
+        connectionsChanged();
         trash.add(connection);
     }
 
@@ -443,6 +495,7 @@ class HostConnectionPool implements Connection.Owner {
                 newConnection.setKeyspace(manager.poolsState.keyspace);
             }
             connections.add(newConnection);
+            connectionsChanged();
 
             newConnection.state.compareAndSet(RESURRECTING, OPEN); // no-op if it was already OPEN
 
@@ -522,6 +575,7 @@ class HostConnectionPool implements Connection.Owner {
         if (connection.state.compareAndSet(OPEN, GONE))
             open.decrementAndGet();
         connections.remove(connection);
+        connectionsChanged();
 
         // Don't try to replace the connection now. Connection.defunct already signaled the failure,
         // and either the host will be marked DOWN (which destroys all pools), or we want to prevent
@@ -619,6 +673,10 @@ class HostConnectionPool implements Connection.Owner {
         return trash.size();
     }
 
+    int pendingBorrows() {
+        return pendingBorrowCount.get();
+    }
+
     private List<CloseFuture> discardAvailableConnections() {
         // Note: if this gets called before initialization has completed, both connections and trash will be empty,
         // so this will return an empty list
@@ -676,9 +734,11 @@ class HostConnectionPool implements Connection.Owner {
     private class PendingBorrow {
         final SettableFuture<Connection> future;
         final Future<?> timeoutTask;
+        final long startNanos;
 
         PendingBorrow(final long timeout, final TimeUnit unit, EventExecutor timeoutsExecutor) {
             this.future = SettableFuture.create();
+            this.startNanos = System.nanoTime();
             this.timeoutTask = timeoutsExecutor.schedule(new Runnable() {
                 @Override
                 public void run() {
@@ -691,6 +751,11 @@ class HostConnectionPool implements Connection.Owner {
         boolean set(Connection connection) {
             boolean succeeded = this.future.set(connection);
             this.timeoutTask.cancel(false);
+            if (succeeded) {
+                Metrics metrics = manager.cluster.manager.metrics;
+                if (metrics != null)
+                    metrics.getBorrowWaits().update(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+            }
             return succeeded;
         }
 
@@ -264,6 +264,16 @@ abstract class Message {
     @ChannelHandler.Sharable
     static class ProtocolDecoder extends MessageToMessageDecoder<Frame> {
 
+        private final boolean keepPreparedBodies;
+
+        /**
+         * @param keepPreparedBodies whether PREPARED results should keep a copy of their encoded body (this is only
+         *                           needed when they get persisted, see {@link PreparedStatementStore}).
+         */
+        ProtocolDecoder(boolean keepPreparedBodies) {
+            this.keepPreparedBodies = keepPreparedBodies;
+        }
+
         @Override
         protected void decode(ChannelHandlerContext ctx, Frame frame, List<Object> out) throws Exception {
             boolean isTracing = frame.header.flags.contains(Frame.Header.Flag.TRACING);
@@ -281,7 +291,11 @@ abstract class Message {
             try {
                 CodecRegistry codecRegistry = ctx.channel().attr(CODEC_REGISTRY_ATTRIBUTE_KEY).get();
                 assert codecRegistry != null;
-                Response response = Response.Type.fromOpcode(frame.header.opcode).decoder.decode(frame.body, frame.header.version, codecRegistry);
+                Response.Type type = Response.Type.fromOpcode(frame.header.opcode);
+                Decoder<?> decoder = (keepPreparedBodies && type == Response.Type.RESULT)
+                        ? Responses.Result.decoderKeepingPreparedBodies
+                        : type.decoder;
+                Response response = decoder.decode(frame.body, frame.header.version, codecRegistry);
                 response
                         .setTracingId(tracingId)
                         .setWarnings(warnings)
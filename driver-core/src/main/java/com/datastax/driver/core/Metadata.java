@@ -6,6 +6,7 @@
  */
 package com.datastax.driver.core;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
@@ -17,6 +18,7 @@ import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -55,13 +57,16 @@ public class Metadata {
         try {
             if (tokenMap == null)
                 return;
+            long start = System.nanoTime();
             this.tokenMap = TokenMap.build(
                     tokenMap.factory,
                     tokenMap.primaryToTokens,
                     keyspaces.values(),
                     tokenMap.ring,
                     tokenMap.tokenRanges,
-                    tokenMap.tokenToPrimary);
+                    tokenMap.tokenToPrimary,
+                    tokenMap);
+            recordTokenMapRebuild(start);
         } finally {
             lock.unlock();
         }
@@ -71,12 +76,21 @@ public class Metadata {
     void rebuildTokenMap(Token.Factory factory, Map<Host, Set<Token>> allTokens) {
         lock.lock();
         try {
-            this.tokenMap = TokenMap.build(factory, allTokens, keyspaces.values());
+            long start = System.nanoTime();
+            this.tokenMap = TokenMap.build(factory, allTokens, keyspaces.values(), tokenMap);
+            recordTokenMapRebuild(start);
         } finally {
             lock.unlock();
         }
     }
 
+    private void recordTokenMapRebuild(long start) {
+        long elapsed = System.nanoTime() - start;
+        logger.debug("Rebuilt token map in {} ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+        if (cluster != null && cluster.metrics != null)
+            cluster.metrics.getTokenMapRebuilds().update(elapsed, TimeUnit.NANOSECONDS);
+    }
+
     Host newHost(InetSocketAddress address) {
         return new Host(address, cluster.convictionPolicyFactory, cluster);
     }
@@ -447,7 +461,7 @@ public class Metadata {
     KeyspaceMetadata removeKeyspace(String keyspace) {
         KeyspaceMetadata removed = keyspaces.remove(keyspace);
         if (tokenMap != null)
-            tokenMap.tokenToHostsByKeyspace.remove(keyspace);
+            tokenMap.replicasByKeyspace.remove(keyspace);
         return removed;
     }
 
@@ -537,8 +551,7 @@ public class Metadata {
         TokenMap current = tokenMap;
         if (current == null)
             throw new IllegalStateException("Token factory not set. This should only happen if metadata was explicitly disabled");
-        return current.factory.hash(
-                SimpleStatement.compose(components));
+        return current.factory.hash(components, null);
     }
 
     /**
@@ -676,9 +689,16 @@ public class Metadata {
 
         private final Token.Factory factory;
         private final Map<Host, Set<Token>> primaryToTokens;
-        private final Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace;
+        // For each keyspace, the replicas of each token of the ring: replicas[i] are the replicas of the range that ends
+        // at ring.get(i). Arrays are shared by the keyspaces that have the same replication strategy, and replica sets
+        // are interned, so that the memory footprint doesn't grow with the number of keyspaces.
+        private final Map<String, Set<Host>[]> replicasByKeyspace;
         private final Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace;
+        // The replicas computed for each replication strategy, kept to rebuild the next token map incrementally.
+        private final Map<ReplicationStrategy, StrategyReplicas> replicasByStrategy;
         private final List<Token> ring;
+        // The values of the ring if the partitioner is Murmur3, to search it without boxing; null otherwise.
+        private final long[] murmur3Ring;
         private final Set<TokenRange> tokenRanges;
         private final Map<Token, Host> tokenToPrimary;
 
@@ -687,22 +707,25 @@ public class Metadata {
                          Set<TokenRange> tokenRanges,
                          Map<Token, Host> tokenToPrimary,
                          Map<Host, Set<Token>> primaryToTokens,
-                         Map<String, Map<Token, Set<Host>>> tokenToHostsByKeyspace,
-                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace) {
+                         Map<String, Set<Host>[]> replicasByKeyspace,
+                         Map<String, Map<Host, Set<TokenRange>>> hostsToRangesByKeyspace,
+                         Map<ReplicationStrategy, StrategyReplicas> replicasByStrategy) {
             this.factory = factory;
             this.ring = ring;
+            this.murmur3Ring = murmur3Values(ring);
             this.tokenRanges = tokenRanges;
             this.tokenToPrimary = tokenToPrimary;
             this.primaryToTokens = primaryToTokens;
-            this.tokenToHostsByKeyspace = tokenToHostsByKeyspace;
+            this.replicasByKeyspace = replicasByKeyspace;
             this.hostsToRangesByKeyspace = hostsToRangesByKeyspace;
+            this.replicasByStrategy = replicasByStrategy;
             for (Map.Entry<Host, Set<Token>> entry : primaryToTokens.entrySet()) {
                 Host host = entry.getKey();
                 host.setTokens(ImmutableSet.copyOf(entry.getValue()));
             }
         }
 
-        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces) {
+        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, TokenMap previous) {
             Map<Token, Host> tokenToPrimary = new HashMap<Token, Host>();
             Set<Token> allSorted = new TreeSet<Token>();
             for (Map.Entry<Host, ? extends Collection<Token>> entry : allTokens.entrySet()) {
@@ -718,68 +741,152 @@ public class Metadata {
             }
             List<Token> ring = new ArrayList<Token>(allSorted);
             Set<TokenRange> tokenRanges = makeTokenRanges(ring, factory);
-            return build(factory, allTokens, keyspaces, ring, tokenRanges, tokenToPrimary);
+            // A previous map built with another partitioner can't be reused
+            if (previous != null && previous.factory != factory)
+                previous = null;
+            return build(factory, allTokens, keyspaces, ring, tokenRanges, tokenToPrimary, previous);
         }
 
-        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary) {
+        private static TokenMap build(Token.Factory factory, Map<Host, Set<Token>> allTokens, Collection<KeyspaceMetadata> keyspaces, List<Token> ring, Set<TokenRange> tokenRanges, Map<Token, Host> tokenToPrimary, TokenMap previous) {
             Set<Host> hosts = allTokens.keySet();
-            Map<String, Map<Token, Set<Host>>> tokenToHosts = new HashMap<String, Map<Token, Set<Host>>>();
-            Map<ReplicationStrategy, Map<Token, Set<Host>>> replStrategyToHosts = new HashMap<ReplicationStrategy, Map<Token, Set<Host>>>();
+            Map<String, Set<Host>[]> replicas = new HashMap<String, Set<Host>[]>();
             Map<String, Map<Host, Set<TokenRange>>> hostsToRanges = new HashMap<String, Map<Host, Set<TokenRange>>>();
+            Map<ReplicationStrategy, StrategyReplicas> replicasByStrategy = new HashMap<ReplicationStrategy, StrategyReplicas>();
+            // Maps the positions of the new ring to the positions of the previous one, computed lazily
+            int[] previousPositions = null;
+            // Different strategies often produce the same replicas (for example SimpleStrategy and NetworkTopologyStrategy
+            // with the same replication factor in a single DC). Keys are lists because the order of replicas matters.
+            Map<List<Host>, Set<Host>> internedReplicas = new HashMap<List<Host>, Set<Host>>();
             for (KeyspaceMetadata keyspace : keyspaces) {
                 ReplicationStrategy strategy = keyspace.replicationStrategy();
-                Map<Token, Set<Host>> ksTokens = replStrategyToHosts.get(strategy);
-                if (ksTokens == null) {
-                    ksTokens = (strategy == null)
-                            ? makeNonReplicatedMap(tokenToPrimary)
-                            : strategy.computeTokenToReplicaMap(keyspace.getName(), tokenToPrimary, ring);
-                    replStrategyToHosts.put(strategy, ksTokens);
+                StrategyReplicas strategyReplicas = replicasByStrategy.get(strategy);
+                if (strategyReplicas == null) {
+                    StrategyReplicas previousReplicas = (previous == null) ? null : previous.replicasByStrategy.get(strategy);
+                    if (previousReplicas != null && previous.ring == ring) {
+                        // The ring didn't change (schema refresh), nothing to recompute
+                        strategyReplicas = previousReplicas;
+                    } else {
+                        ReplicationStrategy.ReplicaComputer computer = (strategy == null)
+                                ? new NonReplicatedComputer(tokenToPrimary, ring)
+                                : strategy.newReplicaComputer(keyspace.getName(), tokenToPrimary, ring);
+                        boolean incremental = previousReplicas != null && computer.isCompatibleWith(previousReplicas.computer);
+                        if (incremental && previousPositions == null)
+                            previousPositions = previousPositions(ring, tokenToPrimary, previous);
+                        strategyReplicas = computeReplicas(keyspace.getName(), computer, ring,
+                                incremental ? previousReplicas : null, previousPositions, internedReplicas);
+                        strategyReplicas.hostsToRanges = (ring.size() == 1)
+                                // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
+                                ? singleRangeMap(hosts, tokenRanges)
+                                : computeHostsToRangesMap(tokenRanges, strategyReplicas.replicas, hosts.size());
+                    }
+                    replicasByStrategy.put(strategy, strategyReplicas);
                 }
+                replicas.put(keyspace.getName(), strategyReplicas.replicas);
+                hostsToRanges.put(keyspace.getName(), strategyReplicas.hostsToRanges);
+            }
+            return new TokenMap(factory, ring, tokenRanges, tokenToPrimary, allTokens, replicas, hostsToRanges, replicasByStrategy);
+        }
+
+        /*
+         * For each position of the new ring, the position of the same token in the previous ring if it is still owned
+         * by the same host, -1 otherwise.
+         */
+        private static int[] previousPositions(List<Token> ring, Map<Token, Host> tokenToPrimary, TokenMap previous) {
+            int[] positions = new int[ring.size()];
+            for (int i = 0; i < positions.length; i++) {
+                Token token = ring.get(i);
+                int j = Collections.binarySearch(previous.ring, token);
+                positions[i] = (j >= 0 && previous.tokenToPrimary.get(token) == tokenToPrimary.get(token)) ? j : -1;
+            }
+            return positions;
+        }
+
+        /*
+         * Computes the replicas of every position of the ring. If previous is not null, the replicas of a position are
+         * reused if the walk that computed them in the previous ring covers the same hosts in the new ring; that is,
+         * the positions that it examined are still consecutive, and still owned by the same hosts.
+         */
+        @SuppressWarnings("unchecked")
+        private static StrategyReplicas computeReplicas(String keyspaceName, ReplicationStrategy.ReplicaComputer computer, List<Token> ring,
+                                                        StrategyReplicas previous, int[] previousPositions, Map<List<Host>, Set<Host>> interned) {
+            int n = ring.size();
+            Set<Host>[] replicas = new Set[n];
+            int[] walkLengths = new int[n];
+
+            // brokenBefore[k] is the number of positions m < k (over two laps of the ring) that don't directly follow
+            // position m - 1 in the previous ring.
+            int[] brokenBefore = null;
+            int previousSize = 0;
+            if (previous != null && n > 0) {
+                previousSize = previous.replicas.length;
+                brokenBefore = new int[2 * n + 1];
+                for (int k = 0; k < 2 * n; k++) {
+                    int current = previousPositions[k % n];
+                    int before = previousPositions[(k + n - 1) % n];
+                    boolean follows = current >= 0 && before >= 0 && current == (before + 1) % previousSize;
+                    brokenBefore[k + 1] = brokenBefore[k] + (follows ? 0 : 1);
+                }
+            }
 
-                tokenToHosts.put(keyspace.getName(), ksTokens);
-
-                Map<Host, Set<TokenRange>> ksRanges;
-                if (ring.size() == 1) {
-                    // We forced the single range to ]minToken,minToken], make sure to use that instead of relying on the host's token
-                    ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
-                    for (Host host : allTokens.keySet())
-                        builder.put(host, tokenRanges);
-                    ksRanges = builder.build();
-                } else {
-                    ksRanges = computeHostsToRangesMap(tokenRanges, ksTokens, hosts.size());
+            int recomputed = 0;
+            for (int i = 0; i < n; i++) {
+                if (brokenBefore != null) {
+                    int j = previousPositions[i];
+                    // A walk that went all around the previous ring might have stopped only because it ran out of
+                    // positions, it can't be reused.
+                    if (j >= 0 && previous.walkLengths[j] < previousSize && previous.walkLengths[j] <= n) {
+                        int length = previous.walkLengths[j];
+                        if (brokenBefore[i + length] - brokenBefore[i + 1] == 0) {
+                            replicas[i] = previous.replicas[j];
+                            walkLengths[i] = length;
+                            continue;
+                        }
+                    }
                 }
-                hostsToRanges.put(keyspace.getName(), ksRanges);
+                replicas[i] = intern(computer.computeReplicas(i), interned);
+                walkLengths[i] = computer.walkLength;
+                recomputed += 1;
+            }
+            logger.debug("Computed replicas of {} out of {} ring positions for keyspace {}", recomputed, n, keyspaceName);
+            return new StrategyReplicas(computer, replicas, walkLengths);
+        }
+
+        private static Set<Host> intern(Set<Host> replicas, Map<List<Host>, Set<Host>> interned) {
+            List<Host> key = ImmutableList.copyOf(replicas);
+            Set<Host> existing = interned.get(key);
+            if (existing == null) {
+                existing = ImmutableSet.copyOf(replicas);
+                interned.put(key, existing);
             }
-            return new TokenMap(factory, ring, tokenRanges, tokenToPrimary, allTokens, tokenToHosts, hostsToRanges);
+            return existing;
+        }
+
+        private static long[] murmur3Values(List<Token> ring) {
+            if (ring.isEmpty() || !(ring.get(0) instanceof Token.M3PToken))
+                return null;
+            long[] values = new long[ring.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = ((Token.M3PToken) ring.get(i)).longValue();
+            return values;
         }
 
         private Set<Host> getReplicas(String keyspace, Token token) {
 
-            Map<Token, Set<Host>> tokenToHosts = tokenToHostsByKeyspace.get(keyspace);
-            if (tokenToHosts == null)
+            Set<Host>[] replicas = replicasByKeyspace.get(keyspace);
+            if (replicas == null || replicas.length == 0)
                 return Collections.emptySet();
 
-            // If the token happens to be one of the "primary" tokens, get result directly
-            Set<Host> hosts = tokenToHosts.get(token);
-            if (hosts != null)
-                return hosts;
-
-            // Otherwise, find closest "primary" token on the ring
-            int i = Collections.binarySearch(ring, token);
+            // Find the closest "primary" token on the ring (or the token itself if it is a primary token)
+            int i = (murmur3Ring != null && token instanceof Token.M3PToken)
+                    ? Arrays.binarySearch(murmur3Ring, ((Token.M3PToken) token).longValue())
+                    : Collections.binarySearch(ring, token);
             if (i < 0) {
                 i = -i - 1;
-                if (i >= ring.size())
+                if (i >= replicas.length)
                     i = 0;
             }
 
-            return tokenToHosts.get(ring.get(i));
-        }
-
-        private static Map<Token, Set<Host>> makeNonReplicatedMap(Map<Token, Host> input) {
-            Map<Token, Set<Host>> output = new HashMap<Token, Set<Host>>(input.size());
-            for (Map.Entry<Token, Host> entry : input.entrySet())
-                output.put(entry.getKey(), ImmutableSet.of(entry.getValue()));
-            return output;
+            return replicas[i];
         }
 
         private static Set<TokenRange> makeTokenRanges(List<Token> ring, Token.Factory factory) {
@@ -797,11 +904,20 @@ public class Metadata {
             return builder.build();
         }
 
-        private static Map<Host, Set<TokenRange>> computeHostsToRangesMap(Set<TokenRange> tokenRanges, Map<Token, Set<Host>> ksTokens, int hostCount) {
+        private static Map<Host, Set<TokenRange>> singleRangeMap(Set<Host> hosts, Set<TokenRange> tokenRanges) {
+            ImmutableMap.Builder<Host, Set<TokenRange>> builder = ImmutableMap.builder();
+            for (Host host : hosts)
+                builder.put(host, tokenRanges);
+            return builder.build();
+        }
+
+        private static Map<Host, Set<TokenRange>> computeHostsToRangesMap(Set<TokenRange> tokenRanges, Set<Host>[] replicas, int hostCount) {
             Map<Host, ImmutableSet.Builder<TokenRange>> builders = Maps.newHashMapWithExpectedSize(hostCount);
+            // Ranges are in ring order: the i-th range ends at the (i + 1)-th token
+            int i = 0;
             for (TokenRange range : tokenRanges) {
-                Set<Host> replicas = ksTokens.get(range.getEnd());
-                for (Host host : replicas) {
+                i = (i + 1) % replicas.length;
+                for (Host host : replicas[i]) {
                     ImmutableSet.Builder<TokenRange> hostRanges = builders.get(host);
                     if (hostRanges == null) {
                         hostRanges = ImmutableSet.builder();
@@ -817,4 +933,40 @@ public class Metadata {
             return ksRanges;
         }
     }
+
+    private static class StrategyReplicas {
+        final ReplicationStrategy.ReplicaComputer computer;
+        final Set<Host>[] replicas;
+        // The number of positions examined to compute each element of replicas
+        final int[] walkLengths;
+        Map<Host, Set<TokenRange>> hostsToRanges;
+
+        StrategyReplicas(ReplicationStrategy.ReplicaComputer computer, Set<Host>[] replicas, int[] walkLengths) {
+            this.computer = computer;
+            this.replicas = replicas;
+            this.walkLengths = walkLengths;
+        }
+    }
+
+    // The "replicas" of keyspaces without a (known) replication strategy: only the primary host of each token
+    private static class NonReplicatedComputer extends ReplicationStrategy.ReplicaComputer {
+        private final Map<Token, Host> tokenToPrimary;
+        private final List<Token> ring;
+
+        NonReplicatedComputer(Map<Token, Host> tokenToPrimary, List<Token> ring) {
+            this.tokenToPrimary = tokenToPrimary;
+            this.ring = ring;
+        }
+
+        @Override
+        Set<Host> computeReplicas(int i) {
+            walkLength = 1;
+            return ImmutableSet.of(tokenToPrimary.get(ring.get(i)));
+        }
+
+        @Override
+        boolean isCompatibleWith(ReplicationStrategy.ReplicaComputer previous) {
+            return previous instanceof NonReplicatedComputer;
+        }
+    }
 }
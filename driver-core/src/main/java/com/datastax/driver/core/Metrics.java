@@ -35,6 +35,13 @@ public class Metrics {
 
     private final Timer requests = registry.timer("requests");
 
+    private final Counter streamIdCasRetries = registry.counter("stream-id-cas-retries");
+    private final Counter streamIdExhaustions = registry.counter("stream-id-exhaustions");
+
+    private final Timer borrowWaits = registry.timer("borrow-waits");
+
+    private final Timer tokenMapRebuilds = registry.timer("token-map-rebuilds");
+
     private final Gauge<Integer> knownHosts = registry.register("known-hosts", new Gauge<Integer>() {
         @Override
         public Integer getValue() {
@@ -71,6 +78,31 @@ public class Metrics {
         }
     });
 
+    private final Gauge<Integer> pendingBorrows = registry.register("pending-borrows", new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+            int value = 0;
+            for (SessionManager session : manager.sessions)
+                for (HostConnectionPool pool : session.pools.values())
+                    value += pool.pendingBorrows();
+            return value;
+        }
+    });
+
+    private final Gauge<Long> codecCacheHits = registry.register("codec-cache-hits", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+            return manager.configuration.getCodecRegistry().getCacheStats().hitCount();
+        }
+    });
+
+    private final Gauge<Long> codecCacheMisses = registry.register("codec-cache-misses", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+            return manager.configuration.getCodecRegistry().getCacheStats().missCount();
+        }
+    });
+
     private final Gauge<Integer> executorQueueDepth;
     private final Gauge<Integer> blockingExecutorQueueDepth;
     private final Gauge<Integer> reconnectionSchedulerQueueSize;
@@ -267,6 +299,96 @@ public class Metrics {
         return taskSchedulerQueueSize;
     }
 
+    /**
+     * Returns the number of times a thread had to retry an atomic update while borrowing or releasing a stream id on a
+     * connection.
+     * <p/>
+     * Each retry means that another thread modified the same stream ids concurrently. A few retries are expected
+     * under high concurrency, but if that number grows as fast as the number of requests, connections are heavily
+     * contended: opening more connections per host might help.
+     *
+     * @return the number of stream id allocation retries.
+     */
+    public Counter getStreamIdCasRetries() {
+        return streamIdCasRetries;
+    }
+
+    /**
+     * Returns the number of times a connection had no stream id available when a request tried to borrow one.
+     * <p/>
+     * When that happens, the request is retried on another connection, or on another host if the pool has no other
+     * connection to offer.
+     *
+     * @return the number of stream id exhaustions.
+     */
+    public Counter getStreamIdExhaustions() {
+        return streamIdExhaustions;
+    }
+
+    /**
+     * Returns metrics on the time that requests spent waiting for a connection, when they could not borrow one
+     * immediately because all the connections to the host were busy.
+     * <p/>
+     * Requests that borrow a connection immediately are not recorded. Requests that time out while waiting (see
+     * {@link PoolingOptions#getPoolTimeoutMillis()}) are not recorded either, they are counted in the errors.
+     *
+     * @return a {@code Timer} metric object exposing the rate and duration of borrow waits.
+     */
+    public Timer getBorrowWaits() {
+        return borrowWaits;
+    }
+
+    /**
+     * Returns metrics on the rebuilds of the token map, that the driver uses to compute the replicas of a partition key
+     * (see {@link Metadata#getReplicas(String, java.nio.ByteBuffer)}).
+     * <p/>
+     * The token map is rebuilt when the topology of the cluster changes, and when keyspaces are created, altered or
+     * dropped. Only the replicas affected by a change are recomputed, but rebuilds can still take a while on large
+     * clusters with many virtual nodes.
+     *
+     * @return a {@code Timer} metric object exposing the rate and duration of token map rebuilds.
+     */
+    public Timer getTokenMapRebuilds() {
+        return tokenMapRebuilds;
+    }
+
+    /**
+     * Returns the total number of requests currently waiting for a connection, across all connection pools.
+     * <p/>
+     * Requests wait when all the connections to a host are busy, up to {@link PoolingOptions#getMaxQueueSize()} per
+     * host. If this value is consistently high, the pools are undersized for the load.
+     *
+     * @return the total number of requests currently waiting for a connection.
+     */
+    public Gauge<Integer> getPendingBorrows() {
+        return pendingBorrows;
+    }
+
+    /**
+     * Returns the number of codec lookups served by the cache of the cluster's {@link CodecRegistry}.
+     * <p/>
+     * The registry can be shared by several clusters, in which case this value includes the lookups of all of them.
+     *
+     * @return the number of codec cache hits.
+     * @see CodecRegistry#getCacheStats()
+     */
+    public Gauge<Long> getCodecCacheHits() {
+        return codecCacheHits;
+    }
+
+    /**
+     * Returns the number of codec lookups that were not found in the cache of the cluster's {@link CodecRegistry},
+     * and had to be resolved by scanning the registered codecs or generating a new codec.
+     * <p/>
+     * The registry can be shared by several clusters, in which case this value includes the lookups of all of them.
+     *
+     * @return the number of codec cache misses.
+     * @see CodecRegistry#getCacheStats()
+     */
+    public Gauge<Long> getCodecCacheMisses() {
+        return codecCacheMisses;
+    }
+
     void shutdown() {
         if (jmxReporter != null)
             jmxReporter.stop();
@@ -0,0 +1,218 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Reactive Streams {@link Subscription} that emits rows fetched one page at a time.
+ * <p/>
+ * This handles the demand, the serialization of signals and the terminal states; subclasses only decide when and how
+ * to fetch pages. All the abstract methods are invoked from the drain loop, so they never run concurrently with each
+ * other.
+ *
+ * @param <P> the type of the pages.
+ */
+abstract class PagingSubscription<P> implements Subscription {
+
+    private static final Logger logger = LoggerFactory.getLogger(PagingSubscription.class);
+
+    private final Subscriber<? super Row> subscriber;
+
+    // The outstanding demand. Long.MAX_VALUE means unbounded.
+    private final AtomicLong requested = new AtomicLong();
+    // Guarantees that only one thread emits at a time, and that no request is missed (work-in-progress counter).
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private volatile boolean cancelled;
+    private volatile Throwable error;
+    // The future of the next page, if we are waiting for one
+    private volatile ListenableFuture<P> inFlight;
+    // A page that has arrived but hasn't been picked up by drain() yet
+    private volatile P received;
+    // The latest page. Only written from drain(), volatile because cancel() reads it.
+    private volatile P current;
+
+    // Only accessed from drain()
+    private Iterator<Row> currentRows;
+    private boolean done;
+    private long rowsEmitted;
+
+    PagingSubscription(Subscriber<? super Row> subscriber) {
+        this.subscriber = subscriber;
+    }
+
+    /**
+     * Returns the future of the next page, or {@code null} if no page should be fetched for now.
+     * <p/>
+     * This is called whenever no fetch is in flight, until {@link #isExhausted(Object)} returns {@code true}.
+     *
+     * @param current the latest page, or {@code null} for the first page. In that case, this must not return
+     *                {@code null}.
+     * @param demand  the outstanding demand, after the rows at hand have been emitted.
+     */
+    abstract ListenableFuture<P> fetchNextPage(P current, long demand);
+
+    /**
+     * Whether there are no more pages to fetch after the given one.
+     */
+    abstract boolean isExhausted(P current);
+
+    /**
+     * Returns the rows to emit for a page that was just received.
+     * <p/>
+     * {@code hasNext()} must not block; it may return {@code true} again later if more rows become available.
+     */
+    abstract Iterator<Row> rows(P page);
+
+    /**
+     * Releases the resources held by a page when the subscription is cancelled. Does nothing by default.
+     */
+    void cancel(P page) {
+    }
+
+    long rowsEmitted() {
+        return rowsEmitted;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            error = new IllegalArgumentException("Subscribers must request a strictly positive number of rows, got " + n);
+        } else {
+            long current, next;
+            do {
+                current = requested.get();
+                if (current == Long.MAX_VALUE)
+                    break;
+                next = current + n;
+                if (next < 0)
+                    next = Long.MAX_VALUE;
+            } while (!requested.compareAndSet(current, next));
+        }
+        drain();
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        ListenableFuture<P> future = inFlight;
+        if (future != null)
+            future.cancel(true);
+        P page = received;
+        if (page != null)
+            cancel(page);
+        page = current;
+        if (page != null)
+            cancel(page);
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            try {
+                emit();
+            } catch (RuntimeException e) {
+                // Either the subscriber violated the specification by throwing, or an unexpected error occurred in
+                // the driver. In both cases, we can't continue.
+                logger.warn("Unexpected error while emitting rows, cancelling subscription", e);
+                done = true;
+                cancel();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit() {
+        if (done || cancelled)
+            return;
+
+        Throwable error = this.error;
+        if (error != null) {
+            done = true;
+            cancel();
+            subscriber.onError(error);
+            return;
+        }
+
+        P page = received;
+        if (page != null) {
+            received = null;
+            current = page;
+            currentRows = rows(page);
+            inFlight = null;
+        }
+
+        long r = requested.get();
+        if (current == null) {
+            if (inFlight == null && r > 0)
+                fetch(fetchNextPage(null, r));
+            return;
+        }
+
+        long emitted = 0;
+        Iterator<Row> rows = currentRows;
+        while (emitted != r && !cancelled && rows.hasNext()) {
+            subscriber.onNext(rows.next());
+            emitted += 1;
+        }
+        rowsEmitted += emitted;
+        if (emitted != 0 && r != Long.MAX_VALUE)
+            r = requested.addAndGet(-emitted);
+        if (cancelled || inFlight != null)
+            return;
+
+        // No fetch is in flight, so the page can't change under our feet
+        if (isExhausted(current)) {
+            if (!rows.hasNext()) {
+                done = true;
+                subscriber.onComplete();
+            }
+        } else {
+            ListenableFuture<P> next = fetchNextPage(current, r);
+            if (next != null)
+                fetch(next);
+        }
+    }
+
+    private void fetch(ListenableFuture<P> future) {
+        inFlight = future;
+        Futures.addCallback(future, new FutureCallback<P>() {
+            @Override
+            public void onSuccess(P page) {
+                if (cancelled) {
+                    cancel(page);
+                } else {
+                    received = page;
+                    drain();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (!cancelled) {
+                    error = t;
+                    drain();
+                }
+            }
+        });
+        if (cancelled)
+            future.cancel(true);
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.netty.buffer.Unpooled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Persists the responses to PREPARE requests, so that new client instances can prepare statements without contacting
+ * the cluster (see {@link QueryOptions#setPreparedStatementCacheFile(File)}).
+ * <p/>
+ * Responses are stored in their encoded form, and decoded with the regular message decoder when they are reused. They
+ * are only valid for the protocol version and schema version that they were obtained with: entries loaded from the file
+ * are discarded if either differs from the cluster's, and all entries are discarded when the schema changes.
+ * <p/>
+ * The schema version is not queried specifically: it is taken from the rows of {@code system.local} that the control
+ * connection reads anyway (when it connects, and when it checks schema agreement).
+ */
+class PreparedStatementStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PreparedStatementStore.class);
+
+    private static final int FORMAT_VERSION = 1;
+
+    private final File file;
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+    // The versions of the loaded entries, until they get validated
+    private ProtocolVersion loadedProtocolVersion;
+    private UUID loadedSchemaVersion;
+
+    private volatile ProtocolVersion protocolVersion;
+    private volatile UUID schemaVersion;
+    private volatile boolean dirty;
+
+    PreparedStatementStore(File file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads the file, if it exists. Its entries can't be used until {@link #onSchemaVersion} validates them.
+     */
+    synchronized void load() {
+        if (!file.exists())
+            return;
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (in.readInt() != FORMAT_VERSION) {
+                logger.info("Ignoring prepared statement cache {}: unknown format", file);
+                return;
+            }
+            loadedProtocolVersion = ProtocolVersion.valueOf(in.readUTF());
+            loadedSchemaVersion = new UUID(in.readLong(), in.readLong());
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String keyspace = in.readBoolean() ? in.readUTF() : null;
+                String query = new String(readBytes(in), "UTF-8");
+                Entry entry = new Entry(keyspace, query, readBytes(in));
+                entries.put(key(keyspace, query), entry);
+            }
+            logger.debug("Loaded {} prepared statements from {}", count, file);
+        } catch (Exception e) {
+            logger.warn("Error while loading prepared statement cache {}, ignoring it", file, e);
+            entries.clear();
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Called when the driver reads the current schema version of the cluster: when the control connection connects,
+     * and each time it checks schema agreement.
+     */
+    synchronized void onSchemaVersion(UUID newSchemaVersion, ProtocolVersion newProtocolVersion) {
+        if (loadedSchemaVersion != null) {
+            // First call after loading the file
+            if (!loadedSchemaVersion.equals(newSchemaVersion) || loadedProtocolVersion != newProtocolVersion) {
+                logger.info("Discarding prepared statement cache {}: it was written with schema version {} and protocol "
+                                + "version {}, the cluster has schema version {} and protocol version {}",
+                        file, loadedSchemaVersion, loadedProtocolVersion, newSchemaVersion, newProtocolVersion);
+                entries.clear();
+            }
+            loadedSchemaVersion = null;
+            loadedProtocolVersion = null;
+        } else if (schemaVersion != null && !schemaVersion.equals(newSchemaVersion)) {
+            // Existing statements might have been affected by the change
+            entries.clear();
+            dirty = true;
+        }
+        schemaVersion = newSchemaVersion;
+        protocolVersion = newProtocolVersion;
+    }
+
+    /**
+     * Called when the control connection receives a schema change event. The version at that point is unknown, but
+     * existing statements might have been affected by the change.
+     */
+    void onSchemaChange() {
+        if (protocolVersion == null || entries.isEmpty())
+            return;
+        entries.clear();
+        dirty = true;
+    }
+
+    /**
+     * Returns the response to the preparation of a query, or {@code null} if it is not known.
+     */
+    Responses.Result.Prepared get(String keyspace, String query, CodecRegistry codecRegistry) {
+        // Entries can't be trusted until they have been validated
+        ProtocolVersion version = protocolVersion;
+        if (version == null)
+            return null;
+        Entry entry = entries.get(key(keyspace, query));
+        if (entry == null)
+            return null;
+        try {
+            return (Responses.Result.Prepared) Responses.Result.Prepared.subcodec.decode(
+                    Unpooled.wrappedBuffer(entry.encoded), version, codecRegistry);
+        } catch (RuntimeException e) {
+            logger.warn("Error while decoding cached prepared statement {}, ignoring it", query, e);
+            entries.remove(key(keyspace, query), entry);
+            return null;
+        }
+    }
+
+    void put(String keyspace, String query, Responses.Result.Prepared response) {
+        if (protocolVersion == null || response.encoded == null)
+            return;
+        Entry entry = new Entry(keyspace, query, response.encoded);
+        if (entries.put(key(keyspace, query), entry) == null)
+            dirty = true;
+    }
+
+    /**
+     * Writes the entries to the file if they changed since the last save.
+     */
+    synchronized void save() {
+        UUID currentSchemaVersion = schemaVersion;
+        ProtocolVersion currentProtocolVersion = protocolVersion;
+        if (!dirty || currentSchemaVersion == null)
+            return;
+        dirty = false;
+        List<Entry> snapshot = new ArrayList<Entry>(entries.values());
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(FORMAT_VERSION);
+            out.writeUTF(currentProtocolVersion.name());
+            out.writeLong(currentSchemaVersion.getMostSignificantBits());
+            out.writeLong(currentSchemaVersion.getLeastSignificantBits());
+            out.writeInt(snapshot.size());
+            for (Entry entry : snapshot) {
+                out.writeBoolean(entry.keyspace != null);
+                if (entry.keyspace != null)
+                    out.writeUTF(entry.keyspace);
+                writeBytes(out, entry.query.getBytes("UTF-8"));
+                writeBytes(out, entry.encoded);
+            }
+            out.close();
+            out = null;
+            // Replace the file in one step, so that concurrent readers never see a partial file
+            if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file)))
+                throw new IOException("Could not rename " + tmp + " to " + file);
+            logger.debug("Saved {} prepared statements to {}", snapshot.size(), file);
+        } catch (IOException e) {
+            logger.warn("Error while saving prepared statement cache {}", file, e);
+            dirty = true;
+        } finally {
+            closeQuietly(out);
+        }
+    }
+
+    @VisibleForTesting
+    int size() {
+        return entries.size();
+    }
+
+    private static String key(String keyspace, String query) {
+        return (keyspace == null) ? query : keyspace + '\u0000' + query;
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null)
+            return;
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignore
+        }
+    }
+
+    private static class Entry {
+        final String keyspace;
+        final String query;
+        final byte[] encoded;
+
+        Entry(String keyspace, String query, byte[] encoded) {
+            this.keyspace = keyspace;
+            this.query = query;
+            this.encoded = encoded;
+        }
+    }
+}
@@ -182,9 +182,16 @@ public class ProtocolOptions {
      * @throws IllegalStateException if the compression requested is not
      *                               available. Most compression algorithms require that the relevant be
      *                               present in the classpath. If not, the compression will be
-     *                               unavailable.
+     *                               unavailable. Also thrown if {@link Compression#SNAPPY} is requested with
+     *                               protocol {@link ProtocolVersion#V5 V5}, which only supports LZ4.
      */
     public ProtocolOptions setCompression(Compression compression) {
+        ProtocolVersion protocolVersion = getProtocolVersion();
+        if (protocolVersion == null)
+            protocolVersion = initialProtocolVersion;
+        if (compression == Compression.SNAPPY && protocolVersion == ProtocolVersion.V5)
+            throw new IllegalStateException("Snappy compression is not supported with protocol V5, use LZ4 instead");
+
         if (compression != Compression.NONE && compression.compressor() == null)
             throw new IllegalStateException("The requested compression is not available (some compression require a JAR to be found in the classpath)");
 
@@ -10,6 +10,8 @@ import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
 import com.datastax.driver.core.utils.MoreFutures;
 import com.google.common.util.concurrent.Futures;
 
+import java.io.File;
+
 /**
  * Options related to defaults for individual queries.
  */
@@ -65,6 +67,7 @@ public class QueryOptions {
     private volatile boolean reprepareOnUp = true;
     private volatile Cluster.Manager manager;
     private volatile boolean prepareOnAllHosts = true;
+    private volatile File preparedStatementCacheFile;
 
     /**
      * Creates a new {@link QueryOptions} instance using the {@link #DEFAULT_CONSISTENCY_LEVEL},
@@ -264,6 +267,43 @@ public class QueryOptions {
         return this.reprepareOnUp;
     }
 
+    /**
+     * Sets the file where the driver persists the metadata of prepared statements, to speed up the startup of new
+     * client instances.
+     * <p/>
+     * Preparing a statement normally requires a roundtrip to a Cassandra node (and by default another one to every
+     * other node, see {@link #setPrepareOnAllHosts(boolean)}). When many client instances start at the same time,
+     * for example during the deployment of an application, they all prepare the same statements, which can put a
+     * noticeable load on the cluster.
+     * <p/>
+     * If this option is set, the driver records the responses to the statements that it prepares, and saves them
+     * to the file periodically and when the cluster is closed. On startup, the file is loaded, and statements
+     * that are found in it are prepared without contacting the cluster. The file is only used if it was written
+     * with the same native protocol version, and with the same schema version as the cluster's current one; it is
+     * also discarded when the driver gets notified of a schema change. If a node does not know a statement
+     * prepared that way (for example because it restarted since), it is re-prepared on the fly the first time it
+     * gets executed on that node.
+     * <p/>
+     * This option is disabled by default. It must be set before the cluster is initialized.
+     *
+     * @param file the file, or {@code null} to disable the cache. Its parent directory must exist.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setPreparedStatementCacheFile(File file) {
+        this.preparedStatementCacheFile = file;
+        return this;
+    }
+
+    /**
+     * Returns the file where the driver persists the metadata of prepared statements.
+     *
+     * @return the file, or {@code null} if this feature is disabled.
+     * @see #setPreparedStatementCacheFile(File)
+     */
+    public File getPreparedStatementCacheFile() {
+        return preparedStatementCacheFile;
+    }
+
     /**
      * Toggle client-side token and schema metadata.
      * <p/>
@@ -0,0 +1,497 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Writes a stream of statements by grouping them into unlogged batches, where all the statements of a batch have the
+ * same replicas.
+ * <p/>
+ * Multi-partition batches are usually discouraged, because the coordinator has to forward each statement to its own
+ * replicas. But if all the statements of a batch are owned by the same replicas, a token-aware coordinator can apply
+ * them locally, and the batch only saves round trips and per-request overhead. This class computes the replicas of
+ * each statement from its routing key (or routing token) and the driver's token metadata, and accumulates the
+ * statements of each replica set in a separate batch. A batch is sent when it reaches a maximum number of statements
+ * or a maximum size, or when its oldest statement has waited for a maximum delay, whichever comes first. Statements
+ * whose replicas are unknown (for example if they have no routing information) are grouped together.
+ * <p/>
+ * At most a given number of batches are executed concurrently. When that limit is reached, full batches are queued,
+ * and {@link #write(Statement)} blocks once the queue holds as many batches as can be executed concurrently, so that
+ * a fast producer can't exhaust the client's memory. For that reason, {@link #write(Statement)} must never be called
+ * from a driver thread (for example in a callback).
+ * <p/>
+ * This relies on a token-aware load balancing policy (see {@link com.datastax.driver.core.policies.TokenAwarePolicy})
+ * to send each batch to one of its replicas. Note that the statements of an unlogged batch are not applied
+ * atomically; also, all the statements of a batch are executed with the same settings, which are those configured on
+ * the {@link Builder}, and not those of the individual statements.
+ * <p/>
+ * Instances of this class are thread-safe.
+ */
+public class ReplicaGroupingWriter {
+
+    /**
+     * The default maximum number of statements in a batch.
+     */
+    public static final int DEFAULT_MAX_BATCH_STATEMENTS = 32;
+
+    /**
+     * The default maximum size of a batch, in bytes. This matches the default value of Cassandra's
+     * {@code batch_size_warn_threshold_in_kb}.
+     */
+    public static final int DEFAULT_MAX_BATCH_BYTES = 5 * 1024;
+
+    /**
+     * The default maximum time that a statement waits for its batch to fill up, in milliseconds.
+     */
+    public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 10;
+
+    /**
+     * The default maximum number of batches that are executed concurrently.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_BATCHES = 32;
+
+    /**
+     * Returns a builder to create a new instance.
+     *
+     * @param session the session that will execute the batches.
+     * @return the builder.
+     */
+    public static Builder builder(Session session) {
+        return new Builder(session);
+    }
+
+    private final Session session;
+    private final Metadata metadata;
+    private final ProtocolVersion protocolVersion;
+    private final CodecRegistry codecRegistry;
+    private final ScheduledExecutorService scheduler;
+    private final int maxBatchStatements;
+    private final int maxBatchBytes;
+    private final long maxBatchDelayNanos;
+    private final ConsistencyLevel consistencyLevel;
+
+    // The batches that are being filled, guarded by this
+    private final Map<Set<Host>, ReplicaBatch> openBatches = new HashMap<Set<Host>, ReplicaBatch>();
+    private boolean closed;
+
+    // The batches that are full, waiting for a slot to execute
+    private final Queue<ReplicaBatch> readyBatches = new ConcurrentLinkedQueue<ReplicaBatch>();
+    // Bounds the number of full batches queued by write(), see backpressure in the class javadoc
+    private final Semaphore queueSlots;
+    private final Semaphore executionSlots;
+    // The batches that have not completed yet, to implement flush()
+    private final Set<ReplicaBatch> pendingBatches = Collections.newSetFromMap(new ConcurrentHashMap<ReplicaBatch, Boolean>());
+
+    private ReplicaGroupingWriter(Builder builder) {
+        this.session = builder.session;
+        Cluster cluster = session.getCluster();
+        this.metadata = cluster.getMetadata();
+        Configuration configuration = cluster.getConfiguration();
+        this.protocolVersion = configuration.getProtocolOptions().getProtocolVersion();
+        this.codecRegistry = configuration.getCodecRegistry();
+        this.scheduler = (builder.scheduler != null) ? builder.scheduler : cluster.manager.scheduledTasksExecutor;
+        this.maxBatchStatements = builder.maxBatchStatements;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.maxBatchDelayNanos = builder.maxBatchDelayNanos;
+        this.consistencyLevel = builder.consistencyLevel;
+        this.queueSlots = new Semaphore(builder.maxConcurrentBatches);
+        this.executionSlots = new Semaphore(builder.maxConcurrentBatches);
+    }
+
+    /**
+     * Adds a statement to the batch of its replicas.
+     * <p/>
+     * The returned future is shared by all the statements of the batch: it completes when the batch has been executed
+     * successfully, or fails with the error of the batch. It can't be cancelled.
+     * <p/>
+     * This method blocks if too many batches are waiting to be executed.
+     *
+     * @param statement the statement. It must be a {@link RegularStatement} or a {@link BoundStatement}.
+     * @return a future that completes when the statement's batch has been executed.
+     * @throws IllegalStateException if this writer was closed.
+     */
+    public ListenableFuture<Void> write(Statement statement) {
+        Preconditions.checkNotNull(statement, "statement must not be null");
+        Preconditions.checkArgument(!(statement instanceof BatchStatement),
+                "batches can't be nested, add the statements of the batch individually");
+        Set<Host> replicas = replicasOf(statement);
+        int size = sizeOf(statement);
+
+        // The batches to send. There can be two if the statement exceeds the maximum size on its own
+        ReplicaBatch previous = null, full = null;
+        ReplicaBatch batch;
+        synchronized (this) {
+            if (closed)
+                throw new IllegalStateException("Can't write to a closed writer");
+            batch = openBatches.get(replicas);
+            if (batch != null && batch.sizeInBytes + size > maxBatchBytes) {
+                // This statement does not fit, send the current batch and start a new one
+                openBatches.remove(replicas);
+                previous = batch;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = newBatch(replicas);
+                openBatches.put(replicas, batch);
+            }
+            batch.add(statement, size);
+            if (batch.size() == maxBatchStatements || batch.sizeInBytes >= maxBatchBytes) {
+                openBatches.remove(replicas);
+                full = batch;
+            }
+        }
+        if (previous != null)
+            enqueue(previous, true);
+        if (full != null)
+            enqueue(full, true);
+        return batch.future;
+    }
+
+    /**
+     * Sends all the batches that are being filled, without waiting for their maximum delay.
+     *
+     * @return a future that completes when all the statements written so far have been executed. If one of the batches
+     * failed, it fails with the error of that batch.
+     */
+    public ListenableFuture<Void> flush() {
+        List<ReplicaBatch> toSend;
+        synchronized (this) {
+            toSend = ImmutableList.copyOf(openBatches.values());
+            openBatches.clear();
+        }
+        for (ReplicaBatch batch : toSend)
+            enqueue(batch, false);
+
+        final List<ListenableFuture<Void>> futures = new ArrayList<ListenableFuture<Void>>();
+        for (ReplicaBatch batch : pendingBatches)
+            futures.add(batch.future);
+        final SettableFuture<Void> flushFuture = SettableFuture.create();
+        Futures.addCallback(Futures.successfulAsList(futures), new FutureCallback<List<Void>>() {
+            @Override
+            public void onSuccess(List<Void> result) {
+                // All the futures are done at this point, report the first error if any
+                for (ListenableFuture<Void> future : futures) {
+                    try {
+                        Uninterruptibles.getUninterruptibly(future);
+                    } catch (ExecutionException e) {
+                        flushFuture.setException(e.getCause());
+                        return;
+                    }
+                }
+                flushFuture.set(null);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                // can't happen with successfulAsList
+                flushFuture.setException(t);
+            }
+        });
+        return flushFuture;
+    }
+
+    /**
+     * Flushes this writer and prevents further writes.
+     *
+     * @return a future that completes when all the statements written so far have been executed, see {@link #flush()}.
+     */
+    public ListenableFuture<Void> close() {
+        synchronized (this) {
+            closed = true;
+        }
+        return flush();
+    }
+
+    private ReplicaBatch newBatch(Set<Host> replicas) {
+        final ReplicaBatch batch = new ReplicaBatch(replicas);
+        if (consistencyLevel != null)
+            batch.setConsistencyLevel(consistencyLevel);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ReplicaGroupingWriter.this) {
+                    // If the batch is not open anymore, it was already sent because it was full, or by flush()
+                    if (openBatches.get(batch.replicas) != batch)
+                        return;
+                    openBatches.remove(batch.replicas);
+                }
+                enqueue(batch, false);
+            }
+        }, maxBatchDelayNanos, TimeUnit.NANOSECONDS);
+        return batch;
+    }
+
+    private void enqueue(ReplicaBatch batch, boolean blocking) {
+        if (blocking) {
+            queueSlots.acquireUninterruptibly();
+            batch.holdsQueueSlot = true;
+        }
+        pendingBatches.add(batch);
+        readyBatches.add(batch);
+        drain();
+    }
+
+    private void drain() {
+        while (!readyBatches.isEmpty() && executionSlots.tryAcquire()) {
+            ReplicaBatch batch = readyBatches.poll();
+            if (batch == null)
+                executionSlots.release(); // another thread emptied the queue since our check
+            else
+                execute(batch);
+        }
+    }
+
+    private void execute(final ReplicaBatch batch) {
+        if (batch.holdsQueueSlot)
+            queueSlots.release();
+        ResultSetFuture future;
+        try {
+            future = session.executeAsync(batch);
+        } catch (RuntimeException e) {
+            future = null;
+            onBatchDone(batch, e);
+        }
+        if (future != null) {
+            Futures.addCallback(future, new FutureCallback<ResultSet>() {
+                @Override
+                public void onSuccess(ResultSet result) {
+                    onBatchDone(batch, null);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    onBatchDone(batch, t);
+                }
+            });
+        }
+    }
+
+    private void onBatchDone(ReplicaBatch batch, Throwable error) {
+        executionSlots.release();
+        pendingBatches.remove(batch);
+        if (error == null)
+            batch.future.set(null);
+        else
+            batch.future.setException(error);
+        drain();
+    }
+
+    private Set<Host> replicasOf(Statement statement) {
+        String keyspace = statement.getKeyspace();
+        if (keyspace == null)
+            keyspace = session.getLoggedKeyspace();
+        if (keyspace == null)
+            return Collections.emptySet();
+        Token token = statement.getRoutingToken();
+        if (token == null && statement instanceof BoundStatement)
+            token = ((BoundStatement) statement).getRoutingToken(metadata);
+        if (token != null)
+            return metadata.getReplicas(Metadata.quote(keyspace), token);
+        ByteBuffer partitionKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+        if (partitionKey != null)
+            return metadata.getReplicas(Metadata.quote(keyspace), partitionKey);
+        return Collections.emptySet();
+    }
+
+    /**
+     * Estimates the contribution of a statement to the size of a batch: its values, plus the query string for regular
+     * statements. This does not need to be exact, it only has to be of the same order as what the server measures.
+     */
+    @VisibleForTesting
+    int sizeOf(Statement statement) {
+        ByteBuffer[] values;
+        int size = 0;
+        if (statement instanceof BoundStatement) {
+            values = ((BoundStatement) statement).wrapper.values;
+        } else if (statement instanceof RegularStatement) {
+            RegularStatement regularStatement = (RegularStatement) statement;
+            size += regularStatement.getQueryString(codecRegistry).length();
+            values = regularStatement.getValues(protocolVersion, codecRegistry);
+        } else {
+            values = null;
+        }
+        if (values != null) {
+            for (ByteBuffer value : values) {
+                if (value != null)
+                    size += value.remaining();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * A batch that knows its replicas, and routes to them even if its statements only have a routing token.
+     */
+    private static class ReplicaBatch extends BatchStatement {
+        final Set<Host> replicas;
+        final BatchFuture future = new BatchFuture();
+        int sizeInBytes;
+        volatile boolean holdsQueueSlot;
+        private Token routingToken;
+
+        ReplicaBatch(Set<Host> replicas) {
+            super(Type.UNLOGGED);
+            this.replicas = replicas;
+        }
+
+        void add(Statement statement, int size) {
+            add(statement);
+            sizeInBytes += size;
+            if (routingToken == null)
+                routingToken = statement.getRoutingToken();
+        }
+
+        @Override
+        public Token getRoutingToken() {
+            return routingToken;
+        }
+    }
+
+    /**
+     * The future of a batch. It is shared by all the statements of the batch, so one of them must not be able to
+     * cancel it for the others.
+     */
+    private static class BatchFuture extends AbstractFuture<Void> {
+        @Override
+        protected boolean set(Void value) {
+            return super.set(value);
+        }
+
+        @Override
+        protected boolean setException(Throwable throwable) {
+            return super.setException(throwable);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            return false;
+        }
+    }
+
+    /**
+     * Helper class to build {@link ReplicaGroupingWriter} instances.
+     */
+    public static class Builder {
+        private final Session session;
+        private int maxBatchStatements = DEFAULT_MAX_BATCH_STATEMENTS;
+        private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private long maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_BATCH_DELAY_MILLIS);
+        private int maxConcurrentBatches = DEFAULT_MAX_CONCURRENT_BATCHES;
+        private ConsistencyLevel consistencyLevel;
+        private ScheduledExecutorService scheduler;
+
+        private Builder(Session session) {
+            this.session = Preconditions.checkNotNull(session, "session must not be null");
+        }
+
+        /**
+         * Sets the maximum number of statements in a batch.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_BATCH_STATEMENTS}.
+         *
+         * @param maxBatchStatements the maximum number of statements.
+         * @return this builder.
+         */
+        public Builder withMaxBatchStatements(int maxBatchStatements) {
+            Preconditions.checkArgument(maxBatchStatements > 0 && maxBatchStatements <= 0xFFFF,
+                    "maxBatchStatements must be between 1 and 65535, got %s", maxBatchStatements);
+            this.maxBatchStatements = maxBatchStatements;
+            return this;
+        }
+
+        /**
+         * Sets the maximum size of a batch, in bytes. A batch is sent as soon as it reaches that size; a statement that
+         * exceeds that size on its own is sent in a batch of one statement.
+         * <p/>
+         * The size of a batch is estimated from the size of the values of its statements, as well as the query
+         * strings of non-prepared statements. Cassandra logs a warning when a batch exceeds
+         * {@code batch_size_warn_threshold_in_kb}, and rejects it if it exceeds {@code batch_size_fail_threshold_in_kb}.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_BATCH_BYTES}.
+         *
+         * @param maxBatchBytes the maximum size in bytes.
+         * @return this builder.
+         */
+        public Builder withMaxBatchBytes(int maxBatchBytes) {
+            Preconditions.checkArgument(maxBatchBytes > 0, "maxBatchBytes must be strictly positive, got %s", maxBatchBytes);
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Sets the maximum time that a statement waits for its batch to fill up. A batch is sent when its first
+         * statement has waited for that long, even if it is not full.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_BATCH_DELAY_MILLIS} milliseconds.
+         *
+         * @param maxBatchDelay the maximum delay.
+         * @param unit          the unit of the delay.
+         * @return this builder.
+         */
+        public Builder withMaxBatchDelay(long maxBatchDelay, TimeUnit unit) {
+            Preconditions.checkArgument(maxBatchDelay >= 0, "maxBatchDelay must be positive, got %s", maxBatchDelay);
+            this.maxBatchDelayNanos = unit.toNanos(maxBatchDelay);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of batches that are executed concurrently. This is also the maximum number of full
+         * batches that can wait for execution before {@link ReplicaGroupingWriter#write(Statement)} blocks.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_CONCURRENT_BATCHES}.
+         *
+         * @param maxConcurrentBatches the maximum number of concurrent batches.
+         * @return this builder.
+         */
+        public Builder withMaxConcurrentBatches(int maxConcurrentBatches) {
+            Preconditions.checkArgument(maxConcurrentBatches > 0,
+                    "maxConcurrentBatches must be strictly positive, got %s", maxConcurrentBatches);
+            this.maxConcurrentBatches = maxConcurrentBatches;
+            return this;
+        }
+
+        /**
+         * Sets the consistency level of the batches.
+         * <p/>
+         * If this method is not called, the default consistency level of {@link QueryOptions} is used.
+         *
+         * @param consistencyLevel the consistency level.
+         * @return this builder.
+         */
+        public Builder withConsistencyLevel(ConsistencyLevel consistencyLevel) {
+            this.consistencyLevel = consistencyLevel;
+            return this;
+        }
+
+        /**
+         * Sets the scheduler that sends batches after their maximum delay. By default, the driver's internal
+         * scheduler is used.
+         */
+        @VisibleForTesting
+        Builder withScheduler(ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        /**
+         * Returns the writer specified by this builder.
+         *
+         * @return the writer.
+         */
+        public ReplicaGroupingWriter build() {
+            return new ReplicaGroupingWriter(this);
+        }
+    }
+}
@@ -50,12 +50,46 @@ abstract class ReplicationStrategy {
         }
     }
 
-    abstract Map<Token, Set<Host>> computeTokenToReplicaMap(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring);
+    /**
+     * Returns an object that computes the replicas of individual positions of the given ring.
+     */
+    abstract ReplicaComputer newReplicaComputer(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring);
+
+    Map<Token, Set<Host>> computeTokenToReplicaMap(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+        ReplicaComputer computer = newReplicaComputer(keyspaceName, tokenToPrimary, ring);
+        Map<Token, Set<Host>> replicaMap = new HashMap<Token, Set<Host>>(tokenToPrimary.size());
+        for (int i = 0; i < ring.size(); i++)
+            replicaMap.put(ring.get(i), ImmutableSet.copyOf(computer.computeReplicas(i)));
+        return replicaMap;
+    }
 
     private static Token getTokenWrapping(int i, List<Token> ring) {
         return ring.get(i % ring.size());
     }
 
+    /*
+     * Computes the replicas of the positions of a ring, one at a time.
+     *
+     * The replicas of position i only depend on the hosts at positions i to i + walkLength - 1 (wrapping around the
+     * ring), and on a few global properties of the ring that are checked by isCompatibleWith. This allows the token map
+     * to reuse the previous replicas of the positions that are not affected by a topology change.
+     */
+    static abstract class ReplicaComputer {
+        int walkLength;
+
+        /**
+         * Computes the replicas of the given position, and sets {@link #walkLength} to the number of positions that were
+         * examined. The returned set is not necessarily immutable.
+         */
+        abstract Set<Host> computeReplicas(int i);
+
+        /**
+         * Whether the replicas of a position are guaranteed to be the same with this computer and the given (previous)
+         * computer, as long as the hosts of the positions that were examined are the same.
+         */
+        abstract boolean isCompatibleWith(ReplicaComputer previous);
+    }
+
     static class SimpleStrategy extends ReplicationStrategy {
 
         private final int replicationFactor;
@@ -65,19 +99,36 @@ abstract class ReplicationStrategy {
         }
 
         @Override
-        Map<Token, Set<Host>> computeTokenToReplicaMap(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+        ReplicaComputer newReplicaComputer(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+            return new SimpleReplicaComputer(Math.min(replicationFactor, ring.size()), tokenToPrimary, ring);
+        }
+
+        private static class SimpleReplicaComputer extends ReplicaComputer {
+            private final int rf;
+            private final Map<Token, Host> tokenToPrimary;
+            private final List<Token> ring;
 
-            int rf = Math.min(replicationFactor, ring.size());
+            SimpleReplicaComputer(int rf, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+                this.rf = rf;
+                this.tokenToPrimary = tokenToPrimary;
+                this.ring = ring;
+            }
 
-            Map<Token, Set<Host>> replicaMap = new HashMap<Token, Set<Host>>(tokenToPrimary.size());
-            for (int i = 0; i < ring.size(); i++) {
+            @Override
+            Set<Host> computeReplicas(int i) {
                 // Consecutive sections of the ring can assigned to the same host
                 Set<Host> replicas = new LinkedHashSet<Host>();
-                for (int j = 0; j < ring.size() && replicas.size() < rf; j++)
+                int j = 0;
+                for (; j < ring.size() && replicas.size() < rf; j++)
                     replicas.add(tokenToPrimary.get(getTokenWrapping(i + j, ring)));
-                replicaMap.put(ring.get(i), ImmutableSet.copyOf(replicas));
+                walkLength = j;
+                return replicas;
+            }
+
+            @Override
+            boolean isCompatibleWith(ReplicaComputer previous) {
+                return previous instanceof SimpleReplicaComputer && ((SimpleReplicaComputer) previous).rf == rf;
             }
-            return replicaMap;
         }
 
         @Override
@@ -109,27 +160,42 @@ abstract class ReplicationStrategy {
         }
 
         @Override
-        Map<Token, Set<Host>> computeTokenToReplicaMap(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
-
-            logger.debug("Computing token to replica map for keyspace: {}.", keyspaceName);
-
-            // Track how long it takes to compute the token to replica map
-            long startTime = System.currentTimeMillis();
-
-            // This is essentially a copy of org.apache.cassandra.locator.NetworkTopologyStrategy
-            Map<String, Set<String>> racks = getRacksInDcs(tokenToPrimary.values());
-            Map<Token, Set<Host>> replicaMap = new HashMap<Token, Set<Host>>(tokenToPrimary.size());
-            Map<String, Integer> dcHostCount = Maps.newHashMapWithExpectedSize(replicationFactors.size());
-            Set<String> warnedDcs = Sets.newHashSetWithExpectedSize(replicationFactors.size());
-            // find maximum number of nodes in each DC
-            for (Host host : Sets.newHashSet(tokenToPrimary.values())) {
-                String dc = host.getDatacenter();
-                if (dcHostCount.get(dc) == null) {
-                    dcHostCount.put(dc, 0);
+        ReplicaComputer newReplicaComputer(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+            return new NetworkTopologyReplicaComputer(keyspaceName, tokenToPrimary, ring);
+        }
+
+        private class NetworkTopologyReplicaComputer extends ReplicaComputer {
+            private final String keyspaceName;
+            private final Map<Token, Host> tokenToPrimary;
+            private final List<Token> ring;
+            private final Map<String, Set<String>> racks;
+            private final Map<String, Integer> dcHostCount;
+            // The datacenter and rack of each host when this computer was created, since they can change afterwards
+            private final Map<Host, String> locations;
+            private final Set<String> warnedDcs;
+
+            NetworkTopologyReplicaComputer(String keyspaceName, Map<Token, Host> tokenToPrimary, List<Token> ring) {
+                this.keyspaceName = keyspaceName;
+                this.tokenToPrimary = tokenToPrimary;
+                this.ring = ring;
+                this.racks = getRacksInDcs(tokenToPrimary.values());
+                this.dcHostCount = Maps.newHashMapWithExpectedSize(replicationFactors.size());
+                this.locations = new HashMap<Host, String>();
+                this.warnedDcs = Sets.newHashSetWithExpectedSize(replicationFactors.size());
+                // find maximum number of nodes in each DC
+                for (Host host : Sets.newHashSet(tokenToPrimary.values())) {
+                    String dc = host.getDatacenter();
+                    if (dcHostCount.get(dc) == null) {
+                        dcHostCount.put(dc, 0);
+                    }
+                    dcHostCount.put(dc, dcHostCount.get(dc) + 1);
+                    locations.put(host, dc + '/' + host.getRack());
                 }
-                dcHostCount.put(dc, dcHostCount.get(dc) + 1);
             }
-            for (int i = 0; i < ring.size(); i++) {
+
+            @Override
+            Set<Host> computeReplicas(int i) {
+                // This is essentially a copy of org.apache.cassandra.locator.NetworkTopologyStrategy
                 Map<String, Set<Host>> allDcReplicas = new HashMap<String, Set<Host>>();
                 Map<String, Set<String>> seenRacks = new HashMap<String, Set<String>>();
                 Map<String, Set<Host>> skippedDcEndpoints = new HashMap<String, Set<Host>>();
@@ -141,7 +207,8 @@ abstract class ReplicationStrategy {
 
                 // Preserve order - primary replica will be first
                 Set<Host> replicas = new LinkedHashSet<Host>();
-                for (int j = 0; j < ring.size() && !allDone(allDcReplicas, dcHostCount); j++) {
+                int j = 0;
+                for (; j < ring.size() && !allDone(allDcReplicas, dcHostCount); j++) {
                     Host h = tokenToPrimary.get(getTokenWrapping(i + j, ring));
                     String dc = h.getDatacenter();
                     if (dc == null || !allDcReplicas.containsKey(dc))
@@ -177,6 +244,7 @@ abstract class ReplicationStrategy {
                         }
                     }
                 }
+                walkLength = j;
 
                 // If we haven't found enough replicas after a whole trip around the ring, this probably
                 // means that the replication factors are broken.
@@ -194,15 +262,34 @@ abstract class ReplicationStrategy {
                         warnedDcs.add(dcName);
                     }
                 }
-
-                replicaMap.put(ring.get(i), ImmutableSet.copyOf(replicas));
+                return replicas;
             }
 
-            long duration = System.currentTimeMillis() - startTime;
-            logger.debug("Token to replica map computation for keyspace {} completed in {} milliseconds",
-                    keyspaceName, duration);
+            @Override
+            boolean isCompatibleWith(ReplicaComputer previous) {
+                if (!(previous instanceof NetworkTopologyReplicaComputer))
+                    return false;
+                NetworkTopologyReplicaComputer that = (NetworkTopologyReplicaComputer) previous;
+                // The walk stops when each DC has min(rf, hosts in DC) replicas, and rack-awareness depends on the
+                // racks of each DC: if any of these changed, positions far from the change can be affected.
+                if (!racks.equals(that.racks))
+                    return false;
+                for (String dc : replicationFactors.keySet()) {
+                    if (effectiveReplicationFactor(dc) != that.effectiveReplicationFactor(dc))
+                        return false;
+                }
+                for (Map.Entry<Host, String> entry : locations.entrySet()) {
+                    String previousLocation = that.locations.get(entry.getKey());
+                    if (previousLocation != null && !previousLocation.equals(entry.getValue()))
+                        return false;
+                }
+                return true;
+            }
 
-            return replicaMap;
+            private int effectiveReplicationFactor(String dc) {
+                Integer count = dcHostCount.get(dc);
+                return Math.min(replicationFactors.get(dc), count == null ? 0 : count);
+            }
         }
 
         private boolean allDone(Map<String, Set<Host>> map, Map<String, Integer> dcHostCount) {
@@ -9,6 +9,7 @@ package com.datastax.driver.core;
 import com.datastax.driver.core.exceptions.*;
 import com.datastax.driver.core.policies.RetryPolicy;
 import com.datastax.driver.core.policies.RetryPolicy.RetryDecision.Type;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy.ConditionalSpeculativeExecutionPlan;
 import com.datastax.driver.core.policies.SpeculativeExecutionPolicy.SpeculativeExecutionPlan;
 import com.codahale.metrics.Timer;
 import com.google.common.collect.ImmutableList;
@@ -126,6 +127,12 @@ class RequestHandler {
                 manager.executor().execute(new Runnable() {
                     @Override
                     public void run() {
+                        if (speculativeExecutionPlan instanceof ConditionalSpeculativeExecutionPlan
+                                && !((ConditionalSpeculativeExecutionPlan) speculativeExecutionPlan).allowExecution()) {
+                            if (logger.isTraceEnabled())
+                                logger.trace("[{}] Speculative execution vetoed by the plan", id);
+                            return;
+                        }
                         if (metricsEnabled())
                             metrics().getErrorMetrics().getSpeculativeExecutions().inc();
                         startNewExecution();
@@ -264,8 +264,9 @@ class Requests {
         private final EnumSet<QueryFlag> flags = EnumSet.noneOf(QueryFlag.class);
         private final Message.Request.Type requestType;
         final ConsistencyLevel consistency;
-        final List<ByteBuffer> positionalValues;
-        final Map<String, ByteBuffer> namedValues;
+        // Elements are either serialized ByteBuffers or DirectValues
+        final List<?> positionalValues;
+        final Map<String, ?> namedValues;
         final boolean skipMetadata;
         final int pageSize;
         final ByteBuffer pagingState;
@@ -275,8 +276,8 @@ class Requests {
 
         QueryProtocolOptions(Message.Request.Type requestType,
                              ConsistencyLevel consistency,
-                             List<ByteBuffer> positionalValues,
-                             Map<String, ByteBuffer> namedValues,
+                             List<?> positionalValues,
+                             Map<String, ?> namedValues,
                              boolean skipMetadata,
                              int pageSize,
                              ByteBuffer pagingState,
@@ -334,7 +335,7 @@ class Requests {
                     // only EXECUTE messages have variables in V1, and their list must be written
                     // even if it is empty; and they are never named
                     if (requestType == Message.Request.Type.EXECUTE)
-                        CBUtil.writeValueList(positionalValues, dest);
+                        writeValueList(positionalValues, dest, version);
                     CBUtil.writeConsistencyLevel(consistency, dest);
                     break;
                 case V2:
@@ -347,9 +348,9 @@ class Requests {
                     if (flags.contains(QueryFlag.VALUES)) {
                         if (flags.contains(QueryFlag.VALUE_NAMES)) {
                             assert version.compareTo(ProtocolVersion.V3) >= 0;
-                            CBUtil.writeNamedValueList(namedValues, dest);
+                            writeNamedValueList(namedValues, dest, version);
                         } else {
-                            CBUtil.writeValueList(positionalValues, dest);
+                            writeValueList(positionalValues, dest, version);
                         }
                     }
                     if (flags.contains(QueryFlag.PAGE_SIZE))
@@ -375,7 +376,7 @@ class Requests {
                 case V1:
                     // only EXECUTE messages have variables in V1, and their list must be written
                     // even if it is empty; and they are never named
-                    return (requestType == Message.Request.Type.EXECUTE ? CBUtil.sizeOfValueList(positionalValues) : 0)
+                    return (requestType == Message.Request.Type.EXECUTE ? sizeOfValueList(positionalValues) : 0)
                             + CBUtil.sizeOfConsistencyLevel(consistency);
                 case V2:
                 case V3:
@@ -388,9 +389,9 @@ class Requests {
                     if (flags.contains(QueryFlag.VALUES)) {
                         if (flags.contains(QueryFlag.VALUE_NAMES)) {
                             assert version.compareTo(ProtocolVersion.V3) >= 0;
-                            size += CBUtil.sizeOfNamedValueList(namedValues);
+                            size += sizeOfNamedValueList(namedValues);
                         } else {
-                            size += CBUtil.sizeOfValueList(positionalValues);
+                            size += sizeOfValueList(positionalValues);
                         }
                     }
                     if (flags.contains(QueryFlag.PAGE_SIZE))
@@ -409,6 +410,49 @@ class Requests {
             }
         }
 
+        static void writeValueList(List<?> values, ByteBuf dest, ProtocolVersion version) {
+            dest.writeShort(values.size());
+            for (Object value : values)
+                writeValue(value, dest, version);
+        }
+
+        private static void writeNamedValueList(Map<String, ?> namedValues, ByteBuf dest, ProtocolVersion version) {
+            dest.writeShort(namedValues.size());
+            for (Map.Entry<String, ?> entry : namedValues.entrySet()) {
+                CBUtil.writeString(entry.getKey(), dest);
+                writeValue(entry.getValue(), dest, version);
+            }
+        }
+
+        private static void writeValue(Object value, ByteBuf dest, ProtocolVersion version) {
+            if (value instanceof DirectValue)
+                ((DirectValue<?>) value).encode(dest, version);
+            else
+                CBUtil.writeValue((ByteBuffer) value, dest);
+        }
+
+        static int sizeOfValueList(List<?> values) {
+            int size = 2;
+            for (Object value : values)
+                size += sizeOfValue(value);
+            return size;
+        }
+
+        private static int sizeOfNamedValueList(Map<String, ?> namedValues) {
+            int size = 2;
+            for (Map.Entry<String, ?> entry : namedValues.entrySet()) {
+                size += CBUtil.sizeOfString(entry.getKey());
+                size += sizeOfValue(entry.getValue());
+            }
+            return size;
+        }
+
+        private static int sizeOfValue(Object value) {
+            return value instanceof DirectValue
+                    ? ((DirectValue<?>) value).encodedSize()
+                    : CBUtil.sizeOfValue((ByteBuffer) value);
+        }
+
         @Override
         public String toString() {
             return String.format("[cl=%s, positionalVals=%s, namedVals=%s, skip=%b, psize=%d, state=%s, serialCl=%s]",
@@ -416,6 +460,39 @@ class Requests {
         }
     }
 
+    /**
+     * A statement value that is serialized straight into the frame when the request is encoded, instead of into an
+     * intermediary {@link ByteBuffer} when the request is created (see {@link TypeCodec#writesDirectly()}).
+     */
+    static final class DirectValue<T> {
+
+        final T value;
+        final TypeCodec<T> codec;
+        private final int size;
+
+        DirectValue(T value, TypeCodec<T> codec, ProtocolVersion version) {
+            assert value != null && codec.writesDirectly();
+            this.value = value;
+            this.codec = codec;
+            // Computed when the request is created, so that invalid values are reported to the caller
+            this.size = codec.serializedSize(value, version);
+        }
+
+        int encodedSize() {
+            return 4 + size;
+        }
+
+        void encode(ByteBuf dest, ProtocolVersion version) {
+            dest.writeInt(size);
+            codec.serializeTo(value, version, dest);
+        }
+
+        @Override
+        public String toString() {
+            return codec.format(value);
+        }
+    }
+
     static class Batch extends Message.Request {
 
         static final Message.Coder<Batch> coder = new Message.Coder<Batch>() {
@@ -435,7 +512,7 @@ class Requests {
                     else
                         CBUtil.writeBytes(((MD5Digest) q).bytes, dest);
 
-                    CBUtil.writeValueList(msg.values.get(i), dest);
+                    QueryProtocolOptions.writeValueList(msg.values.get(i), dest, version);
                 }
 
                 msg.options.encode(dest, version);
@@ -450,7 +527,7 @@ class Requests {
                             ? CBUtil.sizeOfLongString((String) q)
                             : CBUtil.sizeOfBytes(((MD5Digest) q).bytes));
 
-                    size += CBUtil.sizeOfValueList(msg.values.get(i));
+                    size += QueryProtocolOptions.sizeOfValueList(msg.values.get(i));
                 }
                 size += msg.options.encodedSize(version);
                 return size;
@@ -472,10 +549,11 @@ class Requests {
 
         final BatchStatement.Type type;
         final List<Object> queryOrIdList;
-        final List<List<ByteBuffer>> values;
+        // Elements are either serialized ByteBuffers or DirectValues
+        final List<List<?>> values;
         final BatchProtocolOptions options;
 
-        Batch(BatchStatement.Type type, List<Object> queryOrIdList, List<List<ByteBuffer>> values, BatchProtocolOptions options, boolean tracingRequested) {
+        Batch(BatchStatement.Type type, List<Object> queryOrIdList, List<List<?>> values, BatchProtocolOptions options, boolean tracingRequested) {
             super(Message.Request.Type.BATCH, tracingRequested);
             this.type = type;
             this.queryOrIdList = queryOrIdList;
@@ -250,6 +250,18 @@ class Responses {
             }
         };
 
+        // Same as decoder, but PREPARED results keep a copy of their encoded body, so that it can be persisted (see
+        // PreparedStatementStore)
+        static final Message.Decoder<Result> decoderKeepingPreparedBodies = new Message.Decoder<Result>() {
+            @Override
+            public Result decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
+                Kind kind = Kind.fromId(body.readInt());
+                return kind == Kind.PREPARED
+                        ? Prepared.decode(body, version, codecRegistry, true)
+                        : kind.subDecoder.decode(body, version, codecRegistry);
+            }
+        };
+
         enum Kind {
             VOID(1, Void.subcodec),
             ROWS(2, Rows.subcodec),
@@ -469,27 +481,17 @@ class Responses {
                     Metadata metadata = Metadata.decode(body, version, codecRegistry);
 
                     int rowCount = body.readInt();
-                    int columnCount = metadata.columnCount;
-
-                    Queue<List<ByteBuffer>> data = new ArrayDeque<List<ByteBuffer>>(rowCount);
-                    for (int i = 0; i < rowCount; i++) {
-                        List<ByteBuffer> row = new ArrayList<ByteBuffer>(columnCount);
-                        for (int j = 0; j < columnCount; j++)
-                            row.add(CBUtil.readValue(body));
-                        data.add(row);
-                    }
+                    ResultPage data = ResultPage.decode(body, rowCount, metadata.columnCount);
 
                     return new Rows(metadata, data, version);
                 }
             };
 
             final Metadata metadata;
-            final Queue<List<ByteBuffer>> data;
+            final ResultPage data;
             private final ProtocolVersion version;
 
-            private volatile Queue<List<ByteBuffer>> rows;
-
-            private Rows(Metadata metadata, Queue<List<ByteBuffer>> data, ProtocolVersion version) {
+            private Rows(Metadata metadata, ResultPage data, ProtocolVersion version) {
                 super(Kind.ROWS);
                 this.metadata = metadata;
                 this.data = data;
@@ -500,13 +502,10 @@ class Responses {
             public String toString() {
                 StringBuilder sb = new StringBuilder();
                 sb.append("ROWS ").append(metadata).append('\n');
-                int rowNumber = 0;
-                for (List<ByteBuffer> row : data) {
-                    if (++rowNumber > 5) {
-                        break;
-                    }
-                    for (int i = 0; i < row.size(); i++) {
-                        ByteBuffer v = row.get(i);
+                int rowCount = Math.min(data.size(), 5);
+                for (int row = 0; row < rowCount; row++) {
+                    for (int i = 0; i < data.columnCount(); i++) {
+                        ByteBuffer v = data.getValue(row, i);
                         if (v == null) {
                             sb.append(" | null");
                         } else {
@@ -528,7 +527,7 @@ class Responses {
                     }
                     sb.append('\n');
                 }
-                if (rowNumber > 5) {
+                if (data.size() > 5) {
                     sb.append(String.format(" ... (%d rows)\n", data.size()));
                 }
                 sb.append("---");
@@ -556,38 +555,50 @@ class Responses {
             static final Message.Decoder<Result> subcodec = new Message.Decoder<Result>() {
                 @Override
                 public Result decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
-                    MD5Digest id = MD5Digest.wrap(CBUtil.readBytes(body));
-                    boolean withPkIndices = version.compareTo(V4) >= 0;
-                    Rows.Metadata metadata = Rows.Metadata.decode(body, withPkIndices, version, codecRegistry);
-                    Rows.Metadata resultMetadata = decodeResultMetadata(body, version, codecRegistry);
-                    return new Prepared(id, metadata, resultMetadata);
+                    return Prepared.decode(body, version, codecRegistry, false);
                 }
+            };
 
-                private Metadata decodeResultMetadata(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
-                    switch (version) {
-                        case V1:
-                            return Rows.Metadata.EMPTY;
-                        case V2:
-                        case V3:
-                        case V4:
-                        case V5:
-                        case DSE_V1:
-                            return Rows.Metadata.decode(body, version, codecRegistry);
-                        default:
-                            throw version.unsupported();
-                    }
+            static Prepared decode(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry, boolean keepEncoded) {
+                byte[] encoded = null;
+                if (keepEncoded) {
+                    encoded = new byte[body.readableBytes()];
+                    body.getBytes(body.readerIndex(), encoded);
                 }
-            };
+                MD5Digest id = MD5Digest.wrap(CBUtil.readBytes(body));
+                boolean withPkIndices = version.compareTo(V4) >= 0;
+                Rows.Metadata metadata = Rows.Metadata.decode(body, withPkIndices, version, codecRegistry);
+                Rows.Metadata resultMetadata = decodeResultMetadata(body, version, codecRegistry);
+                return new Prepared(id, metadata, resultMetadata, encoded);
+            }
+
+            private static Metadata decodeResultMetadata(ByteBuf body, ProtocolVersion version, CodecRegistry codecRegistry) {
+                switch (version) {
+                    case V1:
+                        return Rows.Metadata.EMPTY;
+                    case V2:
+                    case V3:
+                    case V4:
+                    case V5:
+                    case DSE_V1:
+                        return Rows.Metadata.decode(body, version, codecRegistry);
+                    default:
+                        throw version.unsupported();
+                }
+            }
 
             final MD5Digest statementId;
             final Rows.Metadata metadata;
             final Rows.Metadata resultMetadata;
+            // The encoded body of the response, only kept if the connection's decoder was asked to
+            final byte[] encoded;
 
-            private Prepared(MD5Digest statementId, Rows.Metadata metadata, Rows.Metadata resultMetadata) {
+            private Prepared(MD5Digest statementId, Rows.Metadata metadata, Rows.Metadata resultMetadata, byte[] encoded) {
                 super(Kind.PREPARED);
                 this.statementId = statementId;
                 this.metadata = metadata;
                 this.resultMetadata = resultMetadata;
+                this.encoded = encoded;
             }
 
             @Override
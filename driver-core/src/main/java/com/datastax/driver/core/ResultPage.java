@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * The raw values of a page of rows.
+ * <p/>
+ * Implementation notes: instead of allocating a buffer per cell when the page is decoded, we copy all the rows
+ * at once into a single byte array, in their wire format (each cell is a 4-byte length, followed by that many
+ * bytes, and a negative length means {@code null}). An offset table records where each cell starts. Buffers for
+ * the values are only created when they are read. This class is immutable: consumers keep their own position in
+ * the page.
+ */
+class ResultPage {
+
+    static final ResultPage EMPTY = new ResultPage(0, 0, new byte[0], new int[0]);
+
+    private final int rowCount;
+    private final int columnCount;
+    private final byte[] bytes;
+    // The start of cell (row, column) in bytes is offsets[row * columnCount + column]
+    private final int[] offsets;
+
+    private ResultPage(int rowCount, int columnCount, byte[] bytes, int[] offsets) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.bytes = bytes;
+        this.offsets = offsets;
+    }
+
+    /**
+     * Reads {@code rowCount} rows of {@code columnCount} values from the body of a ROWS response.
+     */
+    static ResultPage decode(ByteBuf body, int rowCount, int columnCount) {
+        if (rowCount == 0)
+            return new ResultPage(0, columnCount, EMPTY.bytes, EMPTY.offsets);
+
+        int start = body.readerIndex();
+        int[] offsets = new int[rowCount * columnCount];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = body.readerIndex() - start;
+            int length = body.readInt();
+            if (length > 0)
+                body.skipBytes(length);
+        }
+        byte[] bytes = new byte[body.readerIndex() - start];
+        body.getBytes(start, bytes);
+        return new ResultPage(rowCount, columnCount, bytes, offsets);
+    }
+
+    /**
+     * Builds a page containing a single row with the given values.
+     */
+    static ResultPage fromValues(List<ByteBuffer> values) {
+        int size = 0;
+        for (ByteBuffer value : values)
+            size += 4 + (value == null ? 0 : value.remaining());
+
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        int[] offsets = new int[values.size()];
+        int i = 0;
+        for (ByteBuffer value : values) {
+            offsets[i++] = bytes.position();
+            if (value == null) {
+                bytes.putInt(-1);
+            } else {
+                bytes.putInt(value.remaining());
+                bytes.put(value.duplicate());
+            }
+        }
+        return new ResultPage(1, offsets.length, bytes.array(), offsets);
+    }
+
+    int size() {
+        return rowCount;
+    }
+
+    int columnCount() {
+        return columnCount;
+    }
+
+    /**
+     * Returns the size of the values of this page (including the 4-byte length of each value).
+     */
+    int sizeInBytes() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns the value of a cell, or {@code null} if the value is {@code null}.
+     * <p/>
+     * The returned buffer shares its content with this page, and a new one is created on each call. Its position is
+     * the start of the value in the page, not necessarily 0.
+     */
+    ByteBuffer getValue(int row, int column) {
+        int offset = offsets[row * columnCount + column];
+        int length = (bytes[offset] & 0xFF) << 24
+                | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8
+                | (bytes[offset + 3] & 0xFF);
+        if (length < 0)
+            return null;
+        return ByteBuffer.wrap(bytes, offset + 4, length);
+    }
+
+    /**
+     * Returns the rows of this page, as views that decode their values lazily.
+     */
+    Iterable<Row> rows(final ColumnDefinitions metadata, final Token.Factory tokenFactory, final ProtocolVersion protocolVersion) {
+        return new Iterable<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                return new Iterator<Row>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < rowCount;
+                    }
+
+                    @Override
+                    public Row next() {
+                        if (next >= rowCount)
+                            throw new NoSuchElementException();
+                        return ArrayBackedRow.fromPage(metadata, tokenFactory, protocolVersion, ResultPage.this, next++);
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.Iterator;
+
+/**
+ * A <a href="http://www.reactive-streams.org/">Reactive Streams</a> {@link Publisher} that emits the rows of a query,
+ * fetching the pages of results as the subscribers request them.
+ * <p/>
+ * Each subscription executes the statement with {@link Session#executeAsync(Statement)}. Subsequent pages are fetched
+ * with {@link ResultSet#fetchMoreResults()} when the rows at hand are not enough to satisfy the subscriber's demand,
+ * or when less than half the fetch size remains (so that the next page is usually available by the time it is
+ * needed). At most one page is fetched at a time, and pages are released as soon as their rows have been emitted:
+ * the memory used by a subscription is bounded by about two pages, regardless of the size of the result.
+ * <p/>
+ * Rows are emitted either from the thread that calls {@link Subscription#request(long)}, or from an internal driver
+ * thread when a page arrives. Subscribers should therefore never block in {@link Subscriber#onNext(Object)}.
+ * <p/>
+ * Note that the Reactive Streams API is an optional dependency of the driver: it must be explicitly added to the
+ * classpath in order to use this class.
+ */
+public class ResultSetPublisher implements Publisher<Row> {
+
+    private final Session session;
+    private final Statement statement;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param session   the session that will execute the statement.
+     * @param statement the statement to execute for each subscription.
+     */
+    public ResultSetPublisher(Session session, Statement statement) {
+        this.session = session;
+        this.statement = statement;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Row> subscriber) {
+        if (subscriber == null)
+            throw new NullPointerException("subscriber can't be null");
+        ResultSetSubscription subscription = new ResultSetSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    private int fetchSize() {
+        int fetchSize = statement.getFetchSize();
+        return (fetchSize > 0)
+                ? fetchSize
+                : session.getCluster().getConfiguration().getQueryOptions().getFetchSize();
+    }
+
+    private class ResultSetSubscription extends PagingSubscription<ResultSet> {
+
+        private final int prefetchThreshold;
+        private ResultSet resultSet;
+        // All the pages are appended to the same result set, so a single iterator covers them all
+        private final Iterator<Row> rows = new Iterator<Row>() {
+            @Override
+            public boolean hasNext() {
+                return resultSet.getAvailableWithoutFetching() > 0;
+            }
+
+            @Override
+            public Row next() {
+                return resultSet.one();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        ResultSetSubscription(Subscriber<? super Row> subscriber) {
+            super(subscriber);
+            this.prefetchThreshold = Math.max(fetchSize() / 2, 1);
+        }
+
+        @Override
+        ListenableFuture<ResultSet> fetchNextPage(ResultSet current, long demand) {
+            if (current == null)
+                return session.executeAsync(statement);
+            int available = current.getAvailableWithoutFetching();
+            return (demand > available || available < prefetchThreshold)
+                    ? current.fetchMoreResults()
+                    : null;
+        }
+
+        @Override
+        boolean isExhausted(ResultSet current) {
+            return current.isFullyFetched();
+        }
+
+        @Override
+        Iterator<Row> rows(ResultSet page) {
+            resultSet = page;
+            return rows;
+        }
+    }
+}
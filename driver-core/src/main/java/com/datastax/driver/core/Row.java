@@ -14,6 +14,11 @@ import com.datastax.driver.core.exceptions.InvalidTypeException;
  * The values of a CQL Row can be retrieved by either index (index starts at zero)
  * or name. When getting them by name, names follow the case insensitivity
  * rules explained in {@link ColumnDefinitions}.
+ * <p/>
+ * The values of all the rows of a page are held in a single array. Binary values returned by
+ * {@link #getBytes(int)}, {@link #getBytesUnsafe(int)} or the blob codec are views over that array: they start at
+ * position 0, but their {@link java.nio.ByteBuffer#array() backing array} is the whole page, and keeping a reference
+ * to one of them retains the page in memory. Copy the value if it needs to outlive the row.
  */
 public interface Row extends GettableData {
 
@@ -0,0 +1,468 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.DriverInternalError;
+import com.datastax.driver.core.exceptions.FrameTooLongException;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.*;
+import io.netty.handler.codec.ByteToMessageDecoder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outer framing of protocol v5: once a connection is initialized, frames are not written to the socket directly,
+ * but grouped into segments.
+ * <p/>
+ * A segment carries a payload of up to 128 KiB. Small frames are packed together in a <em>self-contained</em> segment
+ * (it contains only complete frames); a frame that doesn't fit in a single segment is split across several segments
+ * that are not self-contained. Both the header and the payload are protected by a checksum. If compression is enabled,
+ * it applies to the payload of each segment, not to individual frames.
+ * <p/>
+ * Without compression, the header is 6 bytes (integers are in little-endian order):
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |          Payload Length         |C|           |   Header CRC24
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *                 |
+ * +-+-+-+-+-+-+-+-+
+ * </pre>
+ * With compression, it is 8 bytes:
+ * <pre>
+ *  0                   1                   2                   3
+ *  0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1 2 3 4 5 6 7 8 9 0 1
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * |  Compressed Payload Length      |   Uncompressed Length
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ *                   |C|     |            Header CRC24             |
+ * +-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+-+
+ * </pre>
+ * where {@code C} is the self-contained flag, and an uncompressed length of 0 means that the payload was sent
+ * uncompressed because compression would not have reduced its size.
+ * <p/>
+ * The header is followed by the payload, and a CRC32 of the payload (4 bytes).
+ *
+ * @see "https://github.com/apache/cassandra/blob/trunk/doc/native_protocol_v5.spec"
+ */
+class Segment {
+
+    static final int MAX_PAYLOAD_LENGTH = (1 << 17) - 1;
+
+    private static final int UNCOMPRESSED_HEADER_LENGTH = 6;
+    private static final int COMPRESSED_HEADER_LENGTH = 8;
+    private static final int CRC24_LENGTH = 3;
+    private static final int CRC32_LENGTH = 4;
+
+    private static final int FRAME_HEADER_LENGTH = Frame.Header.lengthFor(ProtocolVersion.V5);
+    // The offset of the body length in a frame header
+    private static final int FRAME_LENGTH_OFFSET = FRAME_HEADER_LENGTH - 4;
+
+    private Segment() {
+    }
+
+    private static int headerLength(FrameCompressor.LZ4Compressor compressor) {
+        return compressor == null ? UNCOMPRESSED_HEADER_LENGTH : COMPRESSED_HEADER_LENGTH;
+    }
+
+    private static long getLittleEndian(ByteBuf buffer, int index, int length) {
+        long value = 0;
+        for (int i = 0; i < length; i++)
+            value |= (buffer.getByte(index + i) & 0xFFL) << (8 * i);
+        return value;
+    }
+
+    private static void setLittleEndian(ByteBuf buffer, int index, long value, int length) {
+        for (int i = 0; i < length; i++)
+            buffer.setByte(index + i, (int) (value >>> (8 * i)));
+    }
+
+    /**
+     * Packs the frames written between two flushes into segments.
+     * <p/>
+     * This handler is stateful, a new instance must be created for each channel.
+     */
+    static class Encoder extends ChannelOutboundHandlerAdapter {
+
+        private final FrameCompressor.LZ4Compressor compressor;
+        private final int headerLength;
+
+        // The frames written since the last flush, and their promises
+        private final List<Frame> frames = new ArrayList<Frame>();
+        private final List<ChannelPromise> promises = new ArrayList<ChannelPromise>();
+        private int pendingBytes;
+
+        Encoder(FrameCompressor.LZ4Compressor compressor) {
+            this.compressor = compressor;
+            this.headerLength = headerLength(compressor);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) throws Exception {
+            if (msg instanceof Frame) {
+                Frame frame = (Frame) msg;
+                frames.add(frame);
+                promises.add(promise);
+                pendingBytes += FRAME_HEADER_LENGTH + frame.body.readableBytes();
+            } else {
+                ctx.write(msg, promise);
+            }
+        }
+
+        @Override
+        public void flush(ChannelHandlerContext ctx) throws Exception {
+            if (!frames.isEmpty())
+                writeSegments(ctx);
+            ctx.flush();
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+            failPending(0, new DriverInternalError("Segment encoder removed before the frame was flushed"));
+        }
+
+        private void writeSegments(ChannelHandlerContext ctx) throws Exception {
+            ByteBuf payload = null;
+            List<ChannelPromise> segmentPromises = new ArrayList<ChannelPromise>();
+            int i = 0;
+            try {
+                for (; i < frames.size(); i++) {
+                    Frame frame = frames.get(i);
+                    ChannelPromise promise = promises.get(i);
+                    int frameLength = FRAME_HEADER_LENGTH + frame.body.readableBytes();
+                    if (payload != null && payload.writerIndex() - headerLength + frameLength > MAX_PAYLOAD_LENGTH) {
+                        // Flush the current segment: it would overflow, or the next frame needs segments of its own
+                        ByteBuf full = payload;
+                        payload = null;
+                        writeSegment(ctx, full, true, segmentPromises);
+                        segmentPromises = new ArrayList<ChannelPromise>();
+                    }
+                    if (frameLength > MAX_PAYLOAD_LENGTH) {
+                        writeLargeFrame(ctx, frame, frameLength, promise);
+                    } else {
+                        if (payload == null)
+                            payload = newPayload(ctx, Math.min(pendingBytes, MAX_PAYLOAD_LENGTH));
+                        Frame.Encoder.writeHeader(frame, payload);
+                        payload.writeBytes(frame.body, frame.body.readerIndex(), frame.body.readableBytes());
+                        segmentPromises.add(promise);
+                    }
+                    pendingBytes -= frameLength;
+                    frame.body.release();
+                }
+                if (payload != null) {
+                    ByteBuf last = payload;
+                    payload = null;
+                    writeSegment(ctx, last, true, segmentPromises);
+                }
+            } catch (Exception e) {
+                if (payload != null)
+                    payload.release();
+                for (ChannelPromise promise : segmentPromises)
+                    promise.tryFailure(e);
+                // Frames before index i have already been released
+                failPending(i, e);
+                throw e;
+            } finally {
+                frames.clear();
+                promises.clear();
+                pendingBytes = 0;
+            }
+        }
+
+        private void writeLargeFrame(ChannelHandlerContext ctx, Frame frame, int frameLength, ChannelPromise promise) throws Exception {
+            ByteBuf frameHeader = Unpooled.buffer(FRAME_HEADER_LENGTH);
+            Frame.Encoder.writeHeader(frame, frameHeader);
+            int bodyIndex = frame.body.readerIndex();
+            int remaining = frameLength;
+            while (remaining > 0) {
+                int length = Math.min(remaining, MAX_PAYLOAD_LENGTH);
+                ByteBuf payload = newPayload(ctx, length);
+                // The first segment starts with the frame header
+                int headerBytes = frameHeader.readableBytes();
+                payload.writeBytes(frameHeader);
+                payload.writeBytes(frame.body, bodyIndex, length - headerBytes);
+                bodyIndex += length - headerBytes;
+                remaining -= length;
+                writeSegment(ctx, payload, false,
+                        remaining == 0 ? Collections.singletonList(promise) : Collections.<ChannelPromise>emptyList());
+            }
+        }
+
+        private ByteBuf newPayload(ChannelHandlerContext ctx, int length) {
+            ByteBuf payload = ctx.alloc().ioBuffer(headerLength + length + CRC32_LENGTH);
+            // Leave room for the segment header, it is filled once the payload is complete
+            payload.writerIndex(headerLength);
+            return payload;
+        }
+
+        private void writeSegment(ChannelHandlerContext ctx, ByteBuf payload, boolean selfContained,
+                                  List<ChannelPromise> promises) throws Exception {
+            int payloadLength = payload.writerIndex() - headerLength;
+            ByteBuf segment = payload;
+            long header;
+            try {
+                if (compressor == null) {
+                    header = payloadLength | (selfContained ? 1L << 17 : 0);
+                } else {
+                    ByteBuf compressed = ctx.alloc().ioBuffer(
+                            headerLength + compressor.maxCompressedLength(payloadLength) + CRC32_LENGTH);
+                    int compressedLength;
+                    try {
+                        compressed.writerIndex(headerLength);
+                        compressedLength = compressor.compressBlock(payload.slice(headerLength, payloadLength), compressed);
+                    } catch (Exception e) {
+                        compressed.release();
+                        throw e;
+                    }
+                    if (compressedLength < payloadLength) {
+                        payload.release();
+                        segment = compressed;
+                        header = compressedLength | ((long) payloadLength << 17);
+                    } else {
+                        // Not worth it, send uncompressed (signaled by an uncompressed length of 0)
+                        compressed.release();
+                        header = payloadLength;
+                    }
+                    if (selfContained)
+                        header |= 1L << 34;
+                }
+                int headerDataLength = headerLength - CRC24_LENGTH;
+                setLittleEndian(segment, 0, header, headerDataLength);
+                setLittleEndian(segment, headerDataLength, Crc.computeCrc24(header, headerDataLength), CRC24_LENGTH);
+                int crc = Crc.computeCrc32(segment, headerLength, segment.writerIndex() - headerLength);
+                int crcIndex = segment.writerIndex();
+                segment.ensureWritable(CRC32_LENGTH);
+                setLittleEndian(segment, crcIndex, crc & 0xFFFFFFFFL, CRC32_LENGTH);
+                segment.writerIndex(crcIndex + CRC32_LENGTH);
+            } catch (Exception e) {
+                segment.release();
+                throw e;
+            }
+            ctx.write(segment, segmentPromise(ctx, promises));
+        }
+
+        private ChannelPromise segmentPromise(ChannelHandlerContext ctx, final List<ChannelPromise> promises) {
+            if (promises.size() == 1)
+                return promises.get(0);
+            ChannelPromise segmentPromise = ctx.newPromise();
+            if (!promises.isEmpty()) {
+                segmentPromise.addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        for (ChannelPromise promise : promises) {
+                            if (future.isSuccess())
+                                promise.trySuccess();
+                            else
+                                promise.tryFailure(future.cause());
+                        }
+                    }
+                });
+            }
+            return segmentPromise;
+        }
+
+        private void failPending(int from, Throwable cause) {
+            for (int i = from; i < frames.size(); i++) {
+                frames.get(i).body.release();
+                promises.get(i).tryFailure(cause);
+            }
+            frames.clear();
+            promises.clear();
+            pendingBytes = 0;
+        }
+    }
+
+    /**
+     * Reads segments, checks them and extracts the frames that they contain.
+     * <p/>
+     * This handler is stateful, a new instance must be created for each channel.
+     */
+    static class Decoder extends ByteToMessageDecoder {
+
+        private final FrameCompressor.LZ4Compressor compressor;
+        private final int headerLength;
+
+        // A frame that is being reassembled from segments that are not self-contained
+        private ByteBuf largeFrame;
+        private int largeFrameLength;
+        // The bytes of a frame that was too long, that remain to be skipped
+        private int skippedBytes;
+
+        Decoder(FrameCompressor.LZ4Compressor compressor) {
+            this.compressor = compressor;
+            this.headerLength = headerLength(compressor);
+        }
+
+        @Override
+        protected void decode(ChannelHandlerContext ctx, ByteBuf in, List<Object> out) throws Exception {
+            if (in.readableBytes() < headerLength)
+                return;
+
+            int start = in.readerIndex();
+            int headerDataLength = headerLength - CRC24_LENGTH;
+            long header = getLittleEndian(in, start, headerDataLength);
+            int headerCrc = (int) getLittleEndian(in, start + headerDataLength, CRC24_LENGTH);
+            if (Crc.computeCrc24(header, headerDataLength) != headerCrc)
+                throw corrupted(in, "CRC mismatch on segment header");
+
+            int payloadLength = (int) (header & MAX_PAYLOAD_LENGTH);
+            int uncompressedLength;
+            boolean selfContained;
+            if (compressor == null) {
+                uncompressedLength = 0;
+                selfContained = (header & (1L << 17)) != 0;
+            } else {
+                uncompressedLength = (int) ((header >>> 17) & MAX_PAYLOAD_LENGTH);
+                selfContained = (header & (1L << 34)) != 0;
+            }
+
+            if (in.readableBytes() < headerLength + payloadLength + CRC32_LENGTH)
+                return;
+
+            int payloadIndex = start + headerLength;
+            int payloadCrc = (int) getLittleEndian(in, payloadIndex + payloadLength, CRC32_LENGTH);
+            if (Crc.computeCrc32(in, payloadIndex, payloadLength) != payloadCrc)
+                throw corrupted(in, "CRC mismatch on segment payload");
+
+            ByteBuf payload;
+            if (uncompressedLength > 0) {
+                payload = ctx.alloc().buffer(uncompressedLength);
+                try {
+                    compressor.decompressBlock(in.slice(payloadIndex, payloadLength), payload, uncompressedLength);
+                } catch (Exception e) {
+                    payload.release();
+                    throw e;
+                }
+            } else {
+                payload = in.slice(payloadIndex, payloadLength).retain();
+            }
+            in.readerIndex(payloadIndex + payloadLength + CRC32_LENGTH);
+
+            try {
+                if (selfContained)
+                    decodeFrames(payload, out);
+                else
+                    decodeFragment(ctx, payload, out);
+            } finally {
+                payload.release();
+            }
+        }
+
+        private void decodeFrames(ByteBuf payload, List<Object> out) {
+            while (payload.isReadable()) {
+                int frameLength = FRAME_HEADER_LENGTH + payload.getInt(payload.readerIndex() + FRAME_LENGTH_OFFSET);
+                // Retain the slice, Frame.body gets released by the next handlers
+                out.add(newFrame(payload.readSlice(frameLength).retain()));
+            }
+        }
+
+        private void decodeFragment(ChannelHandlerContext ctx, ByteBuf payload, List<Object> out) {
+            if (skippedBytes > 0) {
+                skippedBytes -= payload.readableBytes();
+                return;
+            }
+            if (largeFrame == null) {
+                // First segment of a new frame, it starts with the frame header
+                int frameLength = FRAME_HEADER_LENGTH + payload.getInt(payload.readerIndex() + FRAME_LENGTH_OFFSET);
+                if (frameLength > Frame.Decoder.DecoderForStreamIdSize.MAX_FRAME_LENGTH) {
+                    skippedBytes = frameLength - payload.readableBytes();
+                    throw new FrameTooLongException(payload.getShort(payload.readerIndex() + 2));
+                }
+                largeFrame = ctx.alloc().buffer(frameLength);
+                largeFrameLength = frameLength;
+            }
+            largeFrame.writeBytes(payload);
+            if (largeFrame.writerIndex() >= largeFrameLength) {
+                ByteBuf frame = largeFrame;
+                largeFrame = null;
+                out.add(newFrame(frame));
+            }
+        }
+
+        private static DriverInternalError corrupted(ByteBuf in, String message) {
+            // There is no way to find the next segment boundary, discard everything. The connection will be defuncted.
+            in.skipBytes(in.readableBytes());
+            return new DriverInternalError(message);
+        }
+
+        private static Frame newFrame(ByteBuf fullFrame) {
+            try {
+                Frame frame = Frame.create(fullFrame);
+                // Validate the opcode (this will throw if it's not a response)
+                Message.Response.Type.fromOpcode(frame.header.opcode);
+                return frame;
+            } catch (RuntimeException e) {
+                fullFrame.release();
+                throw e;
+            }
+        }
+
+        @Override
+        protected void handlerRemoved0(ChannelHandlerContext ctx) throws Exception {
+            if (largeFrame != null) {
+                largeFrame.release();
+                largeFrame = null;
+            }
+        }
+    }
+
+    /**
+     * Switches a connection to segments once the server has accepted the STARTUP message: the server starts using them
+     * right after its response (READY or AUTHENTICATE), and expects them for all subsequent requests.
+     * <p/>
+     * The switch happens before the response is passed on, so that any request sent as a result uses the new format.
+     * If the first segments arrived in the same read as the response, the frame decoder has already buffered them: they
+     * are passed to the segment decoder once the response has been handled.
+     */
+    static class Upgrader extends ChannelInboundHandlerAdapter {
+
+        private final FrameCompressor compressor;
+
+        Upgrader(FrameCompressor compressor) {
+            this.compressor = compressor;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (msg instanceof Message.Response) {
+                Message.Response.Type type = ((Message.Response) msg).type;
+                if (type == Message.Response.Type.READY || type == Message.Response.Type.AUTHENTICATE) {
+                    ChannelPipeline pipeline = ctx.pipeline();
+                    // Take the buffered bytes first, otherwise the frame decoder would forward them to the next
+                    // handler when it gets removed
+                    ByteBuf buffered = ((Frame.Decoder) pipeline.get("frameDecoder")).takeBufferedBytes();
+                    Decoder decoder = upgrade(pipeline);
+                    ctx.fireChannelRead(msg);
+                    if (buffered != null)
+                        decoder.channelRead(pipeline.context(decoder), buffered);
+                    return;
+                }
+            }
+            ctx.fireChannelRead(msg);
+        }
+
+        private Decoder upgrade(ChannelPipeline pipeline) {
+            if (compressor != null && !(compressor instanceof FrameCompressor.LZ4Compressor))
+                throw new DriverInternalError("Protocol v5 only supports LZ4 compression");
+            FrameCompressor.LZ4Compressor lz4 = (FrameCompressor.LZ4Compressor) compressor;
+            Decoder decoder = new Decoder(lz4);
+            pipeline.replace("frameDecoder", "segmentDecoder", decoder);
+            pipeline.replace("frameEncoder", "segmentEncoder", new Encoder(lz4));
+            if (compressor != null) {
+                // Compression applies to segments now
+                pipeline.remove("frameDecompressor");
+                pipeline.remove("frameCompressor");
+            }
+            pipeline.remove(this);
+            return decoder;
+        }
+    }
+}
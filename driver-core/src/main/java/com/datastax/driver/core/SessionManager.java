@@ -9,10 +9,13 @@ package com.datastax.driver.core;
 import com.datastax.driver.core.Message.Response;
 import com.datastax.driver.core.exceptions.DriverInternalError;
 import com.datastax.driver.core.exceptions.InvalidQueryException;
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
 import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
 import com.datastax.driver.core.exceptions.UnsupportedProtocolVersionException;
 import com.datastax.driver.core.policies.LoadBalancingPolicy;
+import com.datastax.driver.core.policies.PassThroughRequestThrottler;
 import com.datastax.driver.core.policies.ReconnectionPolicy;
+import com.datastax.driver.core.policies.RequestThrottler;
 import com.datastax.driver.core.policies.SpeculativeExecutionPolicy;
 import com.datastax.driver.core.utils.MoreFutures;
 import com.google.common.base.Functions;
@@ -26,6 +29,7 @@ import org.slf4j.LoggerFactory;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -121,7 +125,7 @@ class SessionManager extends AbstractSession {
     public ResultSetFuture executeAsync(final Statement statement) {
         if (isInit) {
             DefaultResultSetFuture future = new DefaultResultSetFuture(this, cluster.manager.protocolVersion(), makeRequestMessage(statement, null));
-            new RequestHandler(this, future, statement).sendRequest();
+            executeThrottled(future, statement);
             return future;
         } else {
             // If the session is not initialized, we can't call makeRequestMessage() synchronously, because it
@@ -132,7 +136,7 @@ class SessionManager extends AbstractSession {
                 @Override
                 public void run() {
                     DefaultResultSetFuture actualFuture = new DefaultResultSetFuture(SessionManager.this, cluster.manager.protocolVersion(), makeRequestMessage(statement, null));
-                    execute(actualFuture, statement);
+                    executeThrottled(actualFuture, statement);
                     chainedFuture.setSource(actualFuture);
                 }
             }, executor());
@@ -181,6 +185,15 @@ class SessionManager extends AbstractSession {
 
     @Override
     protected ListenableFuture<PreparedStatement> prepareAsync(String query, Map<String, ByteBuffer> customPayload) {
+        PreparedStatementStore store = cluster.manager.preparedStatementStore;
+        // A custom payload might change how the server prepares the query, don't use the store in that case
+        if (store != null && (customPayload == null || customPayload.isEmpty())) {
+            Responses.Result.Prepared cached = store.get(poolsState.keyspace, query, cluster.getConfiguration().getCodecRegistry());
+            if (cached != null) {
+                PreparedStatement stmt = DefaultPreparedStatement.fromMessage(cached, cluster, query, poolsState.keyspace);
+                return Futures.immediateFuture(cluster.manager.addPrepared(stmt));
+            }
+        }
         Requests.Prepare request = new Requests.Prepare(query);
         request.setCustomPayload(customPayload);
         Connection.Future future = new Connection.Future(request);
@@ -234,6 +247,10 @@ class SessionManager extends AbstractSession {
                             case PREPARED:
                                 Responses.Result.Prepared pmsg = (Responses.Result.Prepared) rm;
                                 PreparedStatement stmt = DefaultPreparedStatement.fromMessage(pmsg, cluster, query, poolsState.keyspace);
+                                PreparedStatementStore store = cluster.manager.preparedStatementStore;
+                                Map<String, ByteBuffer> customPayload = future.request().getCustomPayload();
+                                if (store != null && (customPayload == null || customPayload.isEmpty()))
+                                    store.put(poolsState.keyspace, query, pmsg);
                                 stmt = cluster.manager.addPrepared(stmt);
                                 if (cluster.getConfiguration().getQueryOptions().isPrepareOnAllHosts()) {
                                     // All Sessions are connected to the same nodes so it's enough to prepare only the nodes of this session.
@@ -597,8 +614,18 @@ class SessionManager extends AbstractSession {
             if (protocolVersion == ProtocolVersion.V1 && rs instanceof com.datastax.driver.core.querybuilder.BuiltStatement)
                 ((com.datastax.driver.core.querybuilder.BuiltStatement) rs).setForceNoValues(true);
 
-            ByteBuffer[] rawPositionalValues = rs.getValues(protocolVersion, codecRegistry);
-            Map<String, ByteBuffer> rawNamedValues = rs.getNamedValues(protocolVersion, codecRegistry);
+            List<?> rawPositionalValues;
+            Map<String, ?> rawNamedValues;
+            if (rs.getClass() == SimpleStatement.class) {
+                // Let the encoder serialize the values straight into the frame (subclasses might override getValues())
+                SimpleStatement ss = (SimpleStatement) rs;
+                rawPositionalValues = ss.getDirectValues(protocolVersion, codecRegistry);
+                rawNamedValues = ss.getDirectNamedValues(protocolVersion, codecRegistry);
+            } else {
+                ByteBuffer[] values = rs.getValues(protocolVersion, codecRegistry);
+                rawPositionalValues = values == null ? null : Arrays.asList(values);
+                rawNamedValues = rs.getNamedValues(protocolVersion, codecRegistry);
+            }
 
             if (protocolVersion == ProtocolVersion.V1 && (rawPositionalValues != null || rawNamedValues != null))
                 throw new UnsupportedFeatureException(protocolVersion, "Binary values are not supported");
@@ -606,8 +633,8 @@ class SessionManager extends AbstractSession {
             if (protocolVersion == ProtocolVersion.V2 && rawNamedValues != null)
                 throw new UnsupportedFeatureException(protocolVersion, "Named values are not supported");
 
-            List<ByteBuffer> positionalValues = rawPositionalValues == null ? Collections.<ByteBuffer>emptyList() : Arrays.asList(rawPositionalValues);
-            Map<String, ByteBuffer> namedValues = rawNamedValues == null ? Collections.<String, ByteBuffer>emptyMap() : rawNamedValues;
+            List<?> positionalValues = rawPositionalValues == null ? Collections.<ByteBuffer>emptyList() : rawPositionalValues;
+            Map<String, ?> namedValues = rawNamedValues == null ? Collections.<String, ByteBuffer>emptyMap() : rawNamedValues;
 
             String qString = rs.getQueryString(codecRegistry);
 
@@ -663,6 +690,58 @@ class SessionManager extends AbstractSession {
             }, executor());
     }
 
+    /**
+     * Sends a user request once the {@link RequestThrottler} allows it.
+     */
+    private void executeThrottled(DefaultResultSetFuture future, Statement statement) {
+        RequestThrottler throttler = cluster.manager.requestThrottler();
+        if (throttler == PassThroughRequestThrottler.INSTANCE)
+            new RequestHandler(this, future, statement).sendRequest();
+        else
+            throttler.register(new ThrottledRequest(throttler, future, statement));
+    }
+
+    private class ThrottledRequest implements RequestThrottler.Throttled, Runnable {
+        private final RequestThrottler throttler;
+        private final DefaultResultSetFuture future;
+        private final Statement statement;
+        private volatile long startNanos;
+
+        ThrottledRequest(RequestThrottler throttler, DefaultResultSetFuture future, Statement statement) {
+            this.throttler = throttler;
+            this.future = future;
+            this.statement = statement;
+        }
+
+        @Override
+        public void onThrottleReady() {
+            startNanos = System.nanoTime();
+            future.addListener(this, GuavaCompatibility.INSTANCE.sameThreadExecutor());
+            // The user might have cancelled while the request was waiting
+            if (!future.isDone())
+                new RequestHandler(SessionManager.this, future, statement).sendRequest();
+        }
+
+        @Override
+        public void onThrottleFailure(RequestThrottlingException error) {
+            future.onException(null, error, 0, 0);
+        }
+
+        // Invoked when the future completes
+        @Override
+        public void run() {
+            long latency = System.nanoTime() - startNanos;
+            try {
+                Uninterruptibles.getUninterruptibly(future);
+                throttler.signalSuccess(this, latency);
+            } catch (ExecutionException e) {
+                throttler.signalError(this, e.getCause(), latency);
+            } catch (CancellationException e) {
+                throttler.signalError(this, e, latency);
+            }
+        }
+    }
+
     private ListenableFuture<PreparedStatement> prepare(final PreparedStatement statement, InetSocketAddress toExclude) {
         final String query = statement.getQueryString();
         List<ListenableFuture<Response>> futures = Lists.newArrayListWithExpectedSize(pools.size());
@@ -9,8 +9,10 @@ package com.datastax.driver.core;
 import com.datastax.driver.core.exceptions.InvalidTypeException;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -305,62 +307,74 @@ public class SimpleStatement extends RegularStatement {
         return this;
     }
 
-    /*
-     * This method performs a best-effort heuristic to guess which codec to use.
-     * Note that this is not particularly efficient as the codec registry needs to iterate over
-     * the registered codecs until it finds a suitable one.
+    /**
+     * Same as {@link #getValues(ProtocolVersion, CodecRegistry)}, except that values of immutable built-in types are
+     * not serialized yet: they are returned as {@link Requests.DirectValue}s, which the request encoder writes straight
+     * into the frame. Other values are returned as {@link ByteBuffer}s.
+     */
+    List<Object> getDirectValues(ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+        if (values == null)
+            return null;
+        Object[] convertedValues = new Object[values.length];
+        for (int i = 0; i < values.length; i++)
+            convertedValues[i] = convert(values[i], i, protocolVersion, codecRegistry, true);
+        return Arrays.asList(convertedValues);
+    }
+
+    /**
+     * Same as {@link #getNamedValues(ProtocolVersion, CodecRegistry)}, with the same value types as
+     * {@link #getDirectValues(ProtocolVersion, CodecRegistry)}.
      */
+    Map<String, Object> getDirectNamedValues(ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+        if (namedValues == null)
+            return null;
+        Map<String, Object> convertedValues = new HashMap<String, Object>();
+        for (Map.Entry<String, Object> entry : namedValues.entrySet())
+            convertedValues.put(entry.getKey(), convert(entry.getValue(), entry.getKey(), protocolVersion, codecRegistry, true));
+        return convertedValues;
+    }
+
     private static ByteBuffer[] convert(Object[] values, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
         ByteBuffer[] serializedValues = new ByteBuffer[values.length];
-        for (int i = 0; i < values.length; i++) {
-            Object value = values[i];
-            if (value == null) {
-                // impossible to locate the right codec when object is null,
-                // so forcing the result to null
-                serializedValues[i] = null;
-            } else {
-                if (value instanceof Token) {
-                    // bypass CodecRegistry for Token instances
-                    serializedValues[i] = ((Token) value).serialize(protocolVersion);
-                } else {
-                    try {
-                        TypeCodec<Object> codec = codecRegistry.codecFor(value);
-                        serializedValues[i] = codec.serialize(value, protocolVersion);
-                    } catch (Exception e) {
-                        // Catch and rethrow to provide a more helpful error message (one that include which value is bad)
-                        throw new InvalidTypeException(String.format("Value %d of type %s does not correspond to any CQL3 type", i, value.getClass()), e);
-                    }
-                }
-            }
-        }
+        for (int i = 0; i < values.length; i++)
+            serializedValues[i] = (ByteBuffer) convert(values[i], i, protocolVersion, codecRegistry, false);
         return serializedValues;
     }
 
     private static Map<String, ByteBuffer> convert(Map<String, Object> values, ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
         Map<String, ByteBuffer> serializedValues = new HashMap<String, ByteBuffer>();
-        for (Map.Entry<String, Object> entry : values.entrySet()) {
-            String name = entry.getKey();
-            Object value = entry.getValue();
-            if (value == null) {
-                // impossible to locate the right codec when object is null,
-                // so forcing the result to null
-                serializedValues.put(name, null);
-            } else {
-                if (value instanceof Token) {
-                    // bypass CodecRegistry for Token instances
-                    serializedValues.put(name, ((Token) value).serialize(protocolVersion));
-                } else {
-                    try {
-                        TypeCodec<Object> codec = codecRegistry.codecFor(value);
-                        serializedValues.put(name, codec.serialize(value, protocolVersion));
-                    } catch (Exception e) {
-                        // Catch and rethrow to provide a more helpful error message (one that include which value is bad)
-                        throw new InvalidTypeException(String.format("Value '%s' of type %s does not correspond to any CQL3 type", name, value.getClass()), e);
-                    }
-                }
+        for (Map.Entry<String, Object> entry : values.entrySet())
+            serializedValues.put(entry.getKey(), (ByteBuffer) convert(entry.getValue(), entry.getKey(), protocolVersion, codecRegistry, false));
+        return serializedValues;
+    }
+
+    /*
+     * This method performs a best-effort heuristic to guess which codec to use.
+     * Note that this is not particularly efficient as the codec registry needs to iterate over
+     * the registered codecs until it finds a suitable one.
+     *
+     * The key is the index or name of the value, it is only used in error messages.
+     */
+    private static Object convert(Object value, Object key, ProtocolVersion protocolVersion, CodecRegistry codecRegistry, boolean direct) {
+        if (value == null) {
+            // impossible to locate the right codec when object is null,
+            // so forcing the result to null
+            return null;
+        } else if (value instanceof Token) {
+            // bypass CodecRegistry for Token instances
+            return ((Token) value).serialize(protocolVersion);
+        } else {
+            try {
+                TypeCodec<Object> codec = codecRegistry.codecFor(value);
+                return direct && codec.writesDirectly()
+                        ? new Requests.DirectValue<Object>(value, codec, protocolVersion)
+                        : codec.serialize(value, protocolVersion);
+            } catch (Exception e) {
+                // Catch and rethrow to provide a more helpful error message (one that include which value is bad)
+                throw new InvalidTypeException(String.format("Value %s of type %s does not correspond to any CQL3 type",
+                        key instanceof String ? "'" + key + "'" : key, value.getClass()), e);
             }
         }
-        return serializedValues;
     }
 
     /**
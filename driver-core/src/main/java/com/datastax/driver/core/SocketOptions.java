@@ -31,6 +31,22 @@ public class SocketOptions {
      */
     public static final int DEFAULT_READ_TIMEOUT_MILLIS = 12000;
 
+    /**
+     * The default coalescing window in microseconds if none is set explicitly
+     * using {@link #setCoalescingWindowMicros}.
+     * <p/>
+     * That default is 0, meaning that writes are flushed as soon as possible.
+     */
+    public static final int DEFAULT_COALESCING_WINDOW_MICROS = 0;
+
+    /**
+     * The default maximum number of bytes held before a flush if none is set explicitly
+     * using {@link #setCoalescingMaxBytes}.
+     * <p/>
+     * That default is of 64 kilobytes.
+     */
+    public static final int DEFAULT_COALESCING_MAX_BYTES = 64 * 1024;
+
     private volatile int connectTimeoutMillis = DEFAULT_CONNECT_TIMEOUT_MILLIS;
     private volatile int readTimeoutMillis = DEFAULT_READ_TIMEOUT_MILLIS;
     private volatile Boolean keepAlive;
@@ -39,6 +55,8 @@ public class SocketOptions {
     private volatile Boolean tcpNoDelay = Boolean.TRUE;
     private volatile Integer receiveBufferSize;
     private volatile Integer sendBufferSize;
+    private volatile int coalescingWindowMicros = DEFAULT_COALESCING_WINDOW_MICROS;
+    private volatile int coalescingMaxBytes = DEFAULT_COALESCING_MAX_BYTES;
 
     /**
      * Creates a new {@code SocketOptions} instance with default values.
@@ -272,4 +290,72 @@ public class SocketOptions {
         this.sendBufferSize = sendBufferSize;
         return this;
     }
+
+    /**
+     * The write coalescing window in microseconds.
+     * <p/>
+     * The driver batches the requests written to a connection and flushes them to the socket together, to reduce
+     * the number of system calls. By default, it flushes as soon as it has written everything that was pending; with a
+     * positive window, it may hold writes for up to that amount of time in order to coalesce more of them in a single
+     * flush.
+     * <p/>
+     * Writes are only held when other requests are in flight on the same connection: under low load, they are
+     * flushed right away so that the window does not add to the latency. They are also flushed as soon as the
+     * amount of pending data reaches {@link #getCoalescingMaxBytes()}.
+     *
+     * @return the coalescing window in microseconds.
+     */
+    public int getCoalescingWindowMicros() {
+        return coalescingWindowMicros;
+    }
+
+    /**
+     * Sets the write coalescing window in microseconds.
+     * <p/>
+     * The default value is {@link #DEFAULT_COALESCING_WINDOW_MICROS}. Setting this option
+     * to 0 disables the window.
+     * <p/>
+     * Changes to this option apply to subsequent writes on existing connections.
+     *
+     * @param coalescingWindowMicros the window to set.
+     * @return this {@code SocketOptions}.
+     * @throws IllegalArgumentException if {@code coalescingWindowMicros < 0}.
+     * @see #getCoalescingWindowMicros()
+     */
+    public SocketOptions setCoalescingWindowMicros(int coalescingWindowMicros) {
+        if (coalescingWindowMicros < 0)
+            throw new IllegalArgumentException("Coalescing window must be positive or 0, got " + coalescingWindowMicros);
+        this.coalescingWindowMicros = coalescingWindowMicros;
+        return this;
+    }
+
+    /**
+     * The maximum number of bytes that can be held on a connection before it gets flushed, when a coalescing window
+     * is in use.
+     *
+     * @return the maximum number of bytes.
+     * @see #getCoalescingWindowMicros()
+     */
+    public int getCoalescingMaxBytes() {
+        return coalescingMaxBytes;
+    }
+
+    /**
+     * Sets the maximum number of bytes that can be held on a connection before it gets flushed, when a coalescing
+     * window is in use.
+     * <p/>
+     * The default value is {@link #DEFAULT_COALESCING_MAX_BYTES}. This option has no effect if the coalescing window
+     * is 0.
+     *
+     * @param coalescingMaxBytes the maximum number of bytes to set.
+     * @return this {@code SocketOptions}.
+     * @throws IllegalArgumentException if {@code coalescingMaxBytes <= 0}.
+     * @see #setCoalescingWindowMicros(int)
+     */
+    public SocketOptions setCoalescingMaxBytes(int coalescingMaxBytes) {
+        if (coalescingMaxBytes <= 0)
+            throw new IllegalArgumentException("Coalescing max bytes must be strictly positive, got " + coalescingMaxBytes);
+        this.coalescingMaxBytes = coalescingMaxBytes;
+        return this;
+    }
 }
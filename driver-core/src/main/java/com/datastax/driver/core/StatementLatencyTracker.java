@@ -0,0 +1,515 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Reservoir;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.datastax.driver.core.exceptions.DriverInternalError;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.*;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
+import org.HdrHistogram.Recorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.*;
+
+/**
+ * A {@link LatencyTracker} that records latencies separately for each kind of statement, and exposes them as
+ * {@link Timer}s in the cluster's {@link Metrics#getRegistry() metric registry}.
+ * <p/>
+ * Latencies are categorized according to a configurable set of {@link Dimension dimensions}. Each combination of
+ * dimensions produces a timer named {@code statement-latencies.<dimension values>}, for example
+ * {@code statement-latencies.0x2f3a...ks1.127_0_0_1_9042.LOCAL_QUORUM} if all the dimensions are enabled. The timers
+ * are backed by <a href="http://hdrhistogram.github.io/HdrHistogram/">HdrHistogram</a>: like
+ * {@link PercentileTracker}, their snapshot reflects the latencies recorded during the last complete interval, which
+ * gives accurate high percentiles (p99, p999) at a fixed memory cost.
+ * <p/>
+ * Since the number of combinations can grow large (for example if the application executes many distinct non-prepared
+ * statements), the number of timers is bounded: when the maximum is reached, the least recently updated timer is
+ * removed from the registry.
+ * <p/>
+ * This tracker is opt-in, it must be registered with {@link Cluster#register(LatencyTracker)}. It requires metrics to
+ * be enabled (see {@link MetricsOptions}), as well as the presence of HdrHistogram at runtime. If you use Maven, this
+ * can be done by declaring the following dependency in your project:
+ * <pre>{@code
+ * <dependency>
+ *   <groupId>org.hdrhistogram</groupId>
+ *   <artifactId>HdrHistogram</artifactId>
+ *   <version>2.1.9</version>
+ * </dependency>
+ * }</pre>
+ */
+public class StatementLatencyTracker implements LatencyTracker {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementLatencyTracker.class);
+
+    /**
+     * The prefix of the names of the timers created by this tracker.
+     */
+    public static final String METRIC_PREFIX = "statement-latencies";
+
+    /**
+     * The dimensions that can be used to categorize latencies.
+     */
+    public enum Dimension {
+        /**
+         * The statement: the id for a bound statement, a hash of the query string for a regular statement, or
+         * {@code batch} for a batch.
+         */
+        STATEMENT,
+        /**
+         * The keyspace of the statement (see {@link Statement#getKeyspace()}), or {@code none} if it is not known.
+         */
+        KEYSPACE,
+        /**
+         * The host that was queried.
+         */
+        HOST,
+        /**
+         * The consistency level of the statement, or the default consistency level if the statement does not
+         * specify one.
+         */
+        CONSISTENCY_LEVEL
+    }
+
+    /**
+     * Returns a builder to create a new instance.
+     *
+     * @param highestTrackableLatencyMillis the highest expected latency. If a higher value is reported, it will be
+     *                                      recorded as that value. A good rule of thumb is to set it slightly higher
+     *                                      than {@link SocketOptions#getReadTimeoutMillis()}.
+     * @return the builder.
+     */
+    public static Builder builder(long highestTrackableLatencyMillis) {
+        return new Builder(highestTrackableLatencyMillis);
+    }
+
+    private final Set<Dimension> dimensions;
+    private final boolean byStatement, byKeyspace, byHost, byConsistencyLevel;
+    private final long highestTrackableLatencyMicros;
+    private final int numberOfSignificantValueDigits;
+    private final long intervalMs;
+    private final Cache<TimerKey, Timer> timers;
+
+    private volatile MetricRegistry registry;
+    private volatile ConsistencyLevel defaultConsistencyLevel;
+
+    private StatementLatencyTracker(Builder builder) {
+        this.dimensions = builder.dimensions;
+        this.byStatement = dimensions.contains(Dimension.STATEMENT);
+        this.byKeyspace = dimensions.contains(Dimension.KEYSPACE);
+        this.byHost = dimensions.contains(Dimension.HOST);
+        this.byConsistencyLevel = dimensions.contains(Dimension.CONSISTENCY_LEVEL);
+        this.highestTrackableLatencyMicros = MILLISECONDS.toMicros(builder.highestTrackableLatencyMillis);
+        this.numberOfSignificantValueDigits = builder.numberOfSignificantValueDigits;
+        this.intervalMs = builder.intervalMs;
+        this.timers = CacheBuilder.newBuilder()
+                .maximumSize(builder.maxMetrics)
+                .removalListener(new RemovalListener<TimerKey, Timer>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<TimerKey, Timer> notification) {
+                        unregister(metricName(notification.getKey()), notification.getValue());
+                    }
+                })
+                .build();
+    }
+
+    @Override
+    public void onRegister(Cluster cluster) {
+        Metrics metrics = cluster.getMetrics();
+        if (metrics == null) {
+            logger.warn("Metrics are disabled, {} will not record anything", StatementLatencyTracker.class.getSimpleName());
+            return;
+        }
+        this.defaultConsistencyLevel = cluster.getConfiguration().getQueryOptions().getConsistencyLevel();
+        this.registry = metrics.getRegistry();
+    }
+
+    @Override
+    public void onUnregister(Cluster cluster) {
+        // The removal listener unregisters the timers
+        timers.invalidateAll();
+        this.registry = null;
+    }
+
+    @Override
+    public void update(Host host, Statement statement, Exception exception, long newLatencyNanos) {
+        if (registry == null || (exception != null && PercentileTracker.EXCLUDED_EXCEPTIONS.contains(exception.getClass())))
+            return;
+        timer(key(host, statement)).update(newLatencyNanos, NANOSECONDS);
+    }
+
+    /**
+     * Returns the timer that tracks the latencies of the given host and statement, or {@code null} if no latency was
+     * recorded for them yet (or if the timer was evicted since).
+     *
+     * @param host      the host (if {@link Dimension#HOST} is enabled).
+     * @param statement the statement.
+     * @return the timer.
+     */
+    public Timer getTimer(Host host, Statement statement) {
+        return timers.getIfPresent(key(host, statement));
+    }
+
+    private Timer timer(final TimerKey key) {
+        Timer timer = timers.getIfPresent(key);
+        if (timer != null)
+            return timer;
+        try {
+            return timers.get(key, new Callable<Timer>() {
+                @Override
+                public Timer call() {
+                    // Only build the name when a new timer is created
+                    return register(metricName(key), new Timer(new HdrReservoir(
+                            highestTrackableLatencyMicros, numberOfSignificantValueDigits, intervalMs)));
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new DriverInternalError("Unexpected error while creating timer " + metricName(key), e.getCause());
+        }
+    }
+
+    private Timer register(String name, Timer timer) {
+        MetricRegistry registry = this.registry;
+        if (registry != null) {
+            try {
+                registry.register(name, timer);
+            } catch (IllegalArgumentException e) {
+                // A previous timer with the same name was evicted, but its removal listener hasn't run yet
+                registry.remove(name);
+                registry.register(name, timer);
+            }
+        }
+        return timer;
+    }
+
+    private void unregister(String name, Timer timer) {
+        MetricRegistry registry = this.registry;
+        // Only remove the timer if it hasn't been replaced already, see register()
+        if (registry != null && registry.getMetrics().get(name) == timer)
+            registry.remove(name);
+    }
+
+    private TimerKey key(Host host, Statement statement) {
+        ConsistencyLevel consistencyLevel = null;
+        if (byConsistencyLevel) {
+            consistencyLevel = statement.getConsistencyLevel();
+            if (consistencyLevel == null)
+                consistencyLevel = defaultConsistencyLevel;
+        }
+        return new TimerKey(
+                byStatement ? statementKey(statement) : null,
+                byKeyspace ? statement.getKeyspace() : null,
+                byHost ? host : null,
+                consistencyLevel);
+    }
+
+    // Identifies the statement with an object that is cheap to compare: the prepared id for a bound statement, the
+    // query string for a regular statement, or the class otherwise.
+    private static Object statementKey(Statement statement) {
+        if (statement instanceof StatementWrapper)
+            statement = ((StatementWrapper) statement).getWrappedStatement();
+        if (statement instanceof BoundStatement)
+            return ((BoundStatement) statement).preparedStatement().getPreparedId().id;
+        else if (statement instanceof RegularStatement)
+            return ((RegularStatement) statement).getQueryString();
+        else
+            return statement.getClass();
+    }
+
+    @VisibleForTesting
+    String metricName(Host host, Statement statement) {
+        return metricName(key(host, statement));
+    }
+
+    private String metricName(TimerKey key) {
+        StringBuilder name = new StringBuilder(METRIC_PREFIX);
+        for (Dimension dimension : dimensions) {
+            name.append('.');
+            switch (dimension) {
+                case STATEMENT:
+                    appendStatement(name, key.statement);
+                    break;
+                case KEYSPACE:
+                    name.append(key.keyspace == null ? "none" : key.keyspace);
+                    break;
+                case HOST:
+                    InetSocketAddress address = key.host.getSocketAddress();
+                    // dots are separators in most reporters
+                    name.append(address.getAddress().getHostAddress().replace('.', '_').replace(':', '_'))
+                            .append('_').append(address.getPort());
+                    break;
+                case CONSISTENCY_LEVEL:
+                    name.append(key.consistencyLevel);
+                    break;
+            }
+        }
+        return name.toString();
+    }
+
+    private static void appendStatement(StringBuilder name, Object statementKey) {
+        if (statementKey instanceof MD5Digest) {
+            name.append(statementKey);
+        } else if (statementKey instanceof String) {
+            name.append(String.format("%08x", statementKey.hashCode()));
+        } else if (statementKey == BatchStatement.class) {
+            name.append("batch");
+        } else {
+            name.append(((Class<?>) statementKey).getSimpleName());
+        }
+    }
+
+    /**
+     * The values of the enabled dimensions for a given request ({@code null} for the disabled ones).
+     */
+    private static class TimerKey {
+        private final Object statement;
+        private final String keyspace;
+        private final Host host;
+        private final ConsistencyLevel consistencyLevel;
+        private final int hashCode;
+
+        TimerKey(Object statement, String keyspace, Host host, ConsistencyLevel consistencyLevel) {
+            this.statement = statement;
+            this.keyspace = keyspace;
+            this.host = host;
+            this.consistencyLevel = consistencyLevel;
+            this.hashCode = Objects.hashCode(statement, keyspace, host, consistencyLevel);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof TimerKey))
+                return false;
+            TimerKey that = (TimerKey) other;
+            return this.hashCode == that.hashCode
+                    && Objects.equal(this.statement, that.statement)
+                    && Objects.equal(this.keyspace, that.keyspace)
+                    && Objects.equal(this.host, that.host)
+                    && this.consistencyLevel == that.consistencyLevel;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A reservoir that records values in an HdrHistogram recorder, and exposes the histogram of the last complete
+     * interval. Values are durations in nanoseconds, they are recorded with a microsecond precision.
+     */
+    @VisibleForTesting
+    static class HdrReservoir implements Reservoir {
+
+        private final Recorder recorder;
+        private final long highestTrackableValue;
+        private final long intervalMs;
+
+        // Guarded by this. Reads are infrequent (reporters), so there is no need for anything fancier.
+        private Histogram lastInterval;
+        private long lastIntervalTimestamp;
+
+        HdrReservoir(long highestTrackableMicros, int numberOfSignificantValueDigits, long intervalMs) {
+            this.recorder = new Recorder(highestTrackableMicros, numberOfSignificantValueDigits);
+            this.highestTrackableValue = highestTrackableMicros;
+            this.intervalMs = intervalMs;
+            this.lastIntervalTimestamp = System.currentTimeMillis();
+        }
+
+        @Override
+        public void update(long nanos) {
+            long micros = Math.min(Math.max(NANOSECONDS.toMicros(nanos), 0), highestTrackableValue);
+            recorder.recordValue(micros);
+        }
+
+        @Override
+        public int size() {
+            return getSnapshot().size();
+        }
+
+        @Override
+        public synchronized Snapshot getSnapshot() {
+            long now = System.currentTimeMillis();
+            if (lastInterval == null || now - lastIntervalTimestamp >= intervalMs) {
+                lastInterval = recorder.getIntervalHistogram(lastInterval);
+                lastIntervalTimestamp = now;
+            }
+            return new HdrSnapshot(lastInterval.copy());
+        }
+    }
+
+    /**
+     * A snapshot of an HdrHistogram (in microseconds), that reports values in nanoseconds like other timers.
+     */
+    private static class HdrSnapshot extends Snapshot {
+        private final Histogram histogram;
+
+        HdrSnapshot(Histogram histogram) {
+            this.histogram = histogram;
+        }
+
+        @Override
+        public double getValue(double quantile) {
+            return MICROSECONDS.toNanos(histogram.getValueAtPercentile(quantile * 100));
+        }
+
+        /**
+         * Returns the distinct recorded values (each bucket of the histogram is represented once).
+         */
+        @Override
+        public long[] getValues() {
+            List<Long> values = new ArrayList<Long>();
+            for (HistogramIterationValue value : histogram.recordedValues())
+                values.add(MICROSECONDS.toNanos(value.getValueIteratedTo()));
+            long[] result = new long[values.size()];
+            for (int i = 0; i < result.length; i++)
+                result[i] = values.get(i);
+            return result;
+        }
+
+        @Override
+        public int size() {
+            return (int) Math.min(histogram.getTotalCount(), Integer.MAX_VALUE);
+        }
+
+        @Override
+        public long getMax() {
+            return histogram.getTotalCount() == 0 ? 0 : MICROSECONDS.toNanos(histogram.getMaxValue());
+        }
+
+        @Override
+        public double getMean() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getMean() * 1000;
+        }
+
+        @Override
+        public long getMin() {
+            return histogram.getTotalCount() == 0 ? 0 : MICROSECONDS.toNanos(histogram.getMinValue());
+        }
+
+        @Override
+        public double getStdDev() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getStdDeviation() * 1000;
+        }
+
+        @Override
+        public void dump(OutputStream output) {
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(output));
+            try {
+                for (long value : getValues())
+                    out.printf("%d%n", value);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Helper class to build {@code StatementLatencyTracker} instances with a fluent interface.
+     */
+    public static class Builder {
+        private final long highestTrackableLatencyMillis;
+        private Set<Dimension> dimensions = EnumSet.of(Dimension.STATEMENT);
+        private int numberOfSignificantValueDigits = 2;
+        private long intervalMs = MINUTES.toMillis(1);
+        private int maxMetrics = 100;
+
+        Builder(long highestTrackableLatencyMillis) {
+            this.highestTrackableLatencyMillis = highestTrackableLatencyMillis;
+        }
+
+        /**
+         * Sets the dimensions used to categorize latencies. The dimensions appear in the names of the timers in the
+         * order of the {@link Dimension} enum.
+         * <p/>
+         * If not set explicitly, latencies are categorized by {@link Dimension#STATEMENT statement} only.
+         *
+         * @param first the first dimension.
+         * @param rest  the other dimensions.
+         * @return this builder.
+         */
+        public Builder withDimensions(Dimension first, Dimension... rest) {
+            this.dimensions = EnumSet.of(first, rest);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of timers. Once this number is reached, the least recently updated timers are
+         * evicted.
+         * <p/>
+         * Each timer holds two histograms, whose size depends on the highest trackable latency and the number of
+         * significant digits (a few tens of kilobytes with the defaults).
+         * <p/>
+         * If not set explicitly, this value defaults to 100.
+         *
+         * @param maxMetrics the new value.
+         * @return this builder.
+         */
+        public Builder withMaxMetrics(int maxMetrics) {
+            Preconditions.checkArgument(maxMetrics > 0, "maxMetrics must be strictly positive, got %s", maxMetrics);
+            this.maxMetrics = maxMetrics;
+            return this;
+        }
+
+        /**
+         * Sets the number of significant decimal digits to which histograms will maintain value resolution and
+         * separation. This must be an integer between 0 and 5.
+         * <p/>
+         * If not set explicitly, this value defaults to 2, which is less than {@link PercentileTracker} because there
+         * are potentially many more histograms.
+         *
+         * @param numberOfSignificantValueDigits the new value.
+         * @return this builder.
+         */
+        public Builder withNumberOfSignificantValueDigits(int numberOfSignificantValueDigits) {
+            this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
+            return this;
+        }
+
+        /**
+         * Sets the time interval over which samples are recorded: the snapshot of each timer reflects the latencies of
+         * the last complete interval. It should match the period of your metrics reporter.
+         * <p/>
+         * If not set explicitly, this value defaults to 1 minute.
+         *
+         * @param interval the new interval.
+         * @param unit     the unit that the interval is expressed in.
+         * @return this builder.
+         */
+        public Builder withInterval(long interval, TimeUnit unit) {
+            this.intervalMs = MILLISECONDS.convert(interval, unit);
+            return this;
+        }
+
+        /**
+         * Builds the tracker configured with this builder.
+         *
+         * @return the tracker.
+         */
+        public StatementLatencyTracker build() {
+            return new StatementLatencyTracker(this);
+        }
+    }
+}
@@ -6,6 +6,8 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.Counter;
+
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLongArray;
 
@@ -19,7 +21,9 @@ import java.util.concurrent.atomic.AtomicLongArray;
  * Implementation notes: we use an atomic long array where each bit represents an id. It is set to 1 if
  * the id is available, 0 otherwise. When looking for an id, we find a long that has remaining 1's and
  * pick the rightmost one.
- * To minimize the average time to find that long, we search the array in a round-robin fashion.
+ * To spread concurrent clients over different longs, each search starts at a different long, picked in a
+ * round-robin fashion. If that long is full, we try the long where an id was last released (it is likely to
+ * have a free bit, which matters when most ids are in use), and only then scan the whole array.
  */
 class StreamIdGenerator {
     static final int MAX_STREAM_PER_CONNECTION_V2 = 128;
@@ -27,7 +31,13 @@ class StreamIdGenerator {
     private static final long MAX_UNSIGNED_LONG = -1L;
 
     static StreamIdGenerator newInstance(ProtocolVersion version) {
-        return new StreamIdGenerator(streamIdSizeFor(version));
+        return newInstance(version, null);
+    }
+
+    static StreamIdGenerator newInstance(ProtocolVersion version, Metrics metrics) {
+        return (metrics == null)
+                ? new StreamIdGenerator(streamIdSizeFor(version), new Counter(), new Counter())
+                : new StreamIdGenerator(streamIdSizeFor(version), metrics.getStreamIdCasRetries(), metrics.getStreamIdExhaustions());
     }
 
     private static int streamIdSizeFor(ProtocolVersion version) {
@@ -47,7 +57,15 @@ class StreamIdGenerator {
 
     private final AtomicLongArray bits;
     private final int maxIds;
+    // bits.length() - 1 (the length is always a power of 2)
+    private final int indexMask;
     private final AtomicInteger offset;
+    // The index of the long that had an id released last. Only a hint: stale values are fine since next() falls
+    // back to a full scan, so it is neither volatile nor updated atomically (int writes can't tear).
+    private int releasedIndex;
+
+    private final Counter casRetries;
+    private final Counter exhaustions;
 
     // If a query timeout, we'll stop waiting for it. However in that case, we
     // can't release/reuse the ID because we don't know if the response is lost
@@ -56,7 +74,7 @@ class StreamIdGenerator {
     // how many marks we've put.
     private final AtomicInteger marked = new AtomicInteger(0);
 
-    private StreamIdGenerator(int streamIdSizeInBytes) {
+    private StreamIdGenerator(int streamIdSizeInBytes, Counter casRetries, Counter exhaustions) {
         // Stream IDs are signed and we only handle positive values
         // (negative stream IDs are for server side initiated streams).
         maxIds = 1 << (streamIdSizeInBytes * 8 - 1);
@@ -66,33 +84,51 @@ class StreamIdGenerator {
 
         // We use one bit in our array of longs to represent each stream ID.
         bits = new AtomicLongArray(maxIds / 64);
+        indexMask = bits.length() - 1;
 
         // Initialize all bits to 1
         for (int i = 0; i < bits.length(); i++)
             bits.set(i, MAX_UNSIGNED_LONG);
 
-        offset = new AtomicInteger(bits.length() - 1);
+        offset = new AtomicInteger(0);
+        this.casRetries = casRetries;
+        this.exhaustions = exhaustions;
     }
 
     public int next() {
-        int previousOffset, myOffset;
-        do {
-            previousOffset = offset.get();
-            myOffset = (previousOffset + 1) % bits.length();
-        } while (!offset.compareAndSet(previousOffset, myOffset));
+        // A single atomic increment (no CAS loop): the counter may wrap around, the mask takes care of that.
+        int myOffset = offset.getAndIncrement() & indexMask;
+
+        int id = atomicGetAndSetFirstAvailable(myOffset);
+        if (id >= 0)
+            return id + (64 * myOffset);
+
+        int hint = releasedIndex;
+        if (hint != myOffset) {
+            id = atomicGetAndSetFirstAvailable(hint);
+            if (id >= 0)
+                return id + (64 * hint);
+        }
 
-        for (int i = 0; i < bits.length(); i++) {
-            int j = (i + myOffset) % bits.length();
+        for (int i = 1; i < bits.length(); i++) {
+            int j = (i + myOffset) & indexMask;
+            if (j == hint)
+                continue;
 
-            int id = atomicGetAndSetFirstAvailable(j);
+            id = atomicGetAndSetFirstAvailable(j);
             if (id >= 0)
                 return id + (64 * j);
         }
+        exhaustions.inc();
         return -1;
     }
 
     public void release(int streamId) {
-        atomicClear(streamId / 64, streamId % 64);
+        int idx = streamId / 64;
+        atomicClear(idx, streamId % 64);
+        // Avoid dirtying the shared cache line when the hint doesn't change
+        if (releasedIndex != idx)
+            releasedIndex = idx;
     }
 
     public void mark(int streamId) {
@@ -118,6 +154,7 @@ class StreamIdGenerator {
             int id = Long.numberOfTrailingZeros(l);
             if (bits.compareAndSet(idx, l, l ^ mask(id)))
                 return id;
+            casRetries.inc();
         }
     }
 
@@ -126,6 +163,7 @@ class StreamIdGenerator {
             long l = bits.get(idx);
             if (bits.compareAndSet(idx, l, l | mask(toClear)))
                 return;
+            casRetries.inc();
         }
     }
 
@@ -0,0 +1,736 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.QueryValidationException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Reads all the rows of a table, by querying ranges of its token ring in parallel.
+ * <p/>
+ * Each range of the ring (as returned by {@link Metadata#getTokenRanges()}) is assigned to one of its replicas, so that
+ * every host owns about the same number of ranges; ranges are further split with {@link TokenRange#splitEvenly(int)}
+ * if a host owns less than the configured number of splits. The scanner then queries the ranges of each host
+ * concurrently, with at most a given number of queries per host at a time, so that a large scan keeps all the nodes
+ * busy without overwhelming any of them. Each query carries the end of its range as
+ * {@link RegularStatement#setRoutingToken(Token) routing token}, so this relies on a token-aware load balancing
+ * policy to reach the right replica.
+ * <p/>
+ * Ranges are read with continuous paging if the protocol version in use supports it (see
+ * {@link ContinuousPagingSession}), and with regular paging otherwise. If the query of a range fails, it is retried
+ * (up to a configurable number of times), and resumes from the last page that was received.
+ * <p/>
+ * Results can be consumed in two ways:
+ * <ul>
+ * <li>{@link #scan(RowHandler)} processes the rows with a callback, and returns a future that completes when the whole
+ * table has been read;</li>
+ * <li>{@link #iterator()} returns a blocking iterator. The next page of a range is only requested once the previous one
+ * has been taken by the iterator, so the number of pages buffered on the client is bounded by twice the total number
+ * of concurrent queries.</li>
+ * </ul>
+ * There is no guarantee on the order of rows. Each call to one of these methods starts a new scan, so an instance can
+ * be reused.
+ */
+public class TableScanner implements Iterable<Row> {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableScanner.class);
+
+    /**
+     * The default minimum number of ranges to query for each host.
+     */
+    public static final int DEFAULT_SPLITS_PER_HOST = 16;
+
+    /**
+     * The default maximum number of concurrent queries to each host.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_RANGES_PER_HOST = 2;
+
+    /**
+     * The default maximum number of retries for each range.
+     */
+    public static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * Processes the rows of a scan.
+     */
+    public interface RowHandler {
+        /**
+         * Called for each row of the table.
+         * <p/>
+         * Rows of different ranges are processed concurrently, so this method must be thread-safe. Unless an executor
+         * was provided with {@link Builder#withExecutor(Executor)}, it is invoked on the driver's I/O threads and must
+         * not block.
+         * <p/>
+         * If this method throws an exception, the scan is stopped and its future fails with that exception.
+         *
+         * @param row the row.
+         */
+        void onRow(Row row);
+    }
+
+    /**
+     * An iterator over the rows of a scan, that can be stopped before the end.
+     */
+    public interface RowIterator extends Iterator<Row> {
+        /**
+         * Stops the scan. This should be called if the iterator is abandoned before it was exhausted, in order to
+         * release the resources of the ongoing queries.
+         */
+        void cancel();
+    }
+
+    /**
+     * Returns a builder to create a new instance.
+     *
+     * @param session the session that will execute the queries.
+     * @param table   the table to scan.
+     * @return the builder.
+     */
+    public static Builder builder(Session session, TableMetadata table) {
+        return new Builder(session, table);
+    }
+
+    private final Session session;
+    private final TableMetadata table;
+    private final List<String> columns;
+    private final int splitsPerHost;
+    private final int maxConcurrentRangesPerHost;
+    private final int maxRetries;
+    private final int fetchSize;
+    private final ConsistencyLevel consistencyLevel;
+    private final boolean continuousPagingEnabled;
+    private final Executor executor;
+
+    private TableScanner(Builder builder) {
+        this.session = builder.session;
+        this.table = builder.table;
+        this.columns = builder.columns;
+        this.splitsPerHost = builder.splitsPerHost;
+        this.maxConcurrentRangesPerHost = builder.maxConcurrentRangesPerHost;
+        this.maxRetries = builder.maxRetries;
+        this.fetchSize = builder.fetchSize;
+        this.consistencyLevel = builder.consistencyLevel;
+        this.continuousPagingEnabled = builder.continuousPagingEnabled;
+        this.executor = builder.executor;
+    }
+
+    /**
+     * Scans the table, and processes each row with the given handler.
+     * <p/>
+     * Cancelling the returned future stops the scan.
+     *
+     * @param handler the handler.
+     * @return a future that completes when all the rows have been processed, or fails with the first unrecoverable
+     * error.
+     */
+    public ListenableFuture<Void> scan(final RowHandler handler) {
+        Scan scan = new Scan() {
+            @Override
+            void onPage(Iterable<Row> rows, Runnable next) {
+                for (Row row : rows) {
+                    if (stopped)
+                        return;
+                    handler.onRow(row);
+                }
+                next.run();
+            }
+        };
+        scan.start();
+        return scan.result;
+    }
+
+    /**
+     * Scans the table, and returns the rows with a blocking iterator.
+     * <p/>
+     * If an unrecoverable error occurs, it is thrown by the iterator.
+     *
+     * @return the iterator.
+     */
+    @Override
+    public RowIterator iterator() {
+        ScanIterator iterator = new ScanIterator();
+        iterator.scan.start();
+        return iterator;
+    }
+
+    /**
+     * Assigns each range of the ring to one of its replicas (preferably up, and with the fewest ranges so far), then
+     * splits them so that each host has at least {@code splitsPerHost} ranges.
+     */
+    @VisibleForTesting
+    static Map<Host, List<TokenRange>> planRanges(Metadata metadata, String keyspace, int splitsPerHost) {
+        List<TokenRange> ring = new ArrayList<TokenRange>(metadata.getTokenRanges());
+        if (ring.isEmpty())
+            throw new IllegalStateException("Token metadata is not available, make sure it is enabled in QueryOptions");
+        Collections.sort(ring);
+
+        Map<Host, List<TokenRange>> primaryRanges = new LinkedHashMap<Host, List<TokenRange>>();
+        for (TokenRange range : ring) {
+            Host target = null;
+            int targetCount = 0;
+            for (Host replica : metadata.getReplicas(keyspace, range)) {
+                List<TokenRange> assigned = primaryRanges.get(replica);
+                int count = (assigned == null) ? 0 : assigned.size();
+                if (target == null
+                        || (replica.isUp() && !target.isUp())
+                        || (replica.isUp() == target.isUp() && count < targetCount)) {
+                    target = replica;
+                    targetCount = count;
+                }
+            }
+            if (target == null)
+                throw new IllegalStateException(String.format("Found no replica for range %s in keyspace %s", range, keyspace));
+            List<TokenRange> assigned = primaryRanges.get(target);
+            if (assigned == null) {
+                assigned = new ArrayList<TokenRange>();
+                primaryRanges.put(target, assigned);
+            }
+            assigned.add(range);
+        }
+
+        Map<Host, List<TokenRange>> plan = new LinkedHashMap<Host, List<TokenRange>>();
+        for (Map.Entry<Host, List<TokenRange>> entry : primaryRanges.entrySet()) {
+            List<TokenRange> ranges = entry.getValue();
+            int splitsPerRange = (splitsPerHost + ranges.size() - 1) / ranges.size();
+            List<TokenRange> splits = new ArrayList<TokenRange>();
+            for (TokenRange range : ranges) {
+                for (TokenRange split : (splitsPerRange > 1) ? range.splitEvenly(splitsPerRange) : ImmutableList.of(range)) {
+                    // CQL range queries can't wrap around the ring
+                    for (TokenRange unwrapped : split.unwrap()) {
+                        if (!unwrapped.isEmpty())
+                            splits.add(unwrapped);
+                    }
+                }
+            }
+            plan.put(entry.getKey(), splits);
+        }
+        return plan;
+    }
+
+    private String buildQuery(boolean withUpperBound) {
+        StringBuilder partitionKey = new StringBuilder();
+        for (ColumnMetadata column : table.getPartitionKey()) {
+            if (partitionKey.length() > 0)
+                partitionKey.append(',');
+            partitionKey.append(Metadata.quoteIfNecessary(column.getName()));
+        }
+        StringBuilder query = new StringBuilder("SELECT ");
+        if (columns == null) {
+            query.append('*');
+        } else {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0)
+                    query.append(',');
+                query.append(columns.get(i));
+            }
+        }
+        query.append(" FROM ")
+                .append(Metadata.quoteIfNecessary(table.getKeyspace().getName()))
+                .append('.')
+                .append(Metadata.quoteIfNecessary(table.getName()))
+                .append(" WHERE token(").append(partitionKey).append(") > ?");
+        if (withUpperBound)
+            query.append(" AND token(").append(partitionKey).append(") <= ?");
+        return query.toString();
+    }
+
+    /**
+     * The state of a single execution of the scanner.
+     */
+    private abstract class Scan {
+
+        final SettableFuture<Void> result = SettableFuture.create();
+        volatile boolean stopped;
+
+        private final boolean useContinuousPaging;
+        private final ContinuousPagingOptions continuousPagingOptions;
+        private volatile PreparedStatement boundedStatement;
+        private volatile PreparedStatement unboundedStatement;
+
+        // All guarded by this
+        private final Map<Host, Deque<RangeScan>> pending = new LinkedHashMap<Host, Deque<RangeScan>>();
+        private final Map<Host, Integer> running = new HashMap<Host, Integer>();
+        private final Set<RangeScan> active = new HashSet<RangeScan>();
+        private int remaining;
+
+        Scan() {
+            ProtocolVersion protocolVersion = session.getCluster().getConfiguration().getProtocolOptions().getProtocolVersion();
+            this.useContinuousPaging = continuousPagingEnabled
+                    && session instanceof ContinuousPagingSession
+                    && protocolVersion != null
+                    && protocolVersion.compareTo(ProtocolVersion.DSE_V1) >= 0;
+            int pageSize = (fetchSize > 0)
+                    ? fetchSize
+                    : session.getCluster().getConfiguration().getQueryOptions().getFetchSize();
+            this.continuousPagingOptions = useContinuousPaging
+                    ? ContinuousPagingOptions.builder().withPageSize(pageSize, ContinuousPagingOptions.PageUnit.ROWS).build()
+                    : null;
+        }
+
+        /**
+         * Delivers a page of rows. {@code next} must be run once the scan is ready for the next page of the same range.
+         */
+        abstract void onPage(Iterable<Row> rows, Runnable next);
+
+        void start() {
+            Map<Host, List<TokenRange>> plan = planRanges(session.getCluster().getMetadata(),
+                    Metadata.quote(table.getKeyspace().getName()), splitsPerHost);
+            synchronized (this) {
+                for (Map.Entry<Host, List<TokenRange>> entry : plan.entrySet()) {
+                    Deque<RangeScan> ranges = new ArrayDeque<RangeScan>();
+                    for (TokenRange range : entry.getValue())
+                        ranges.add(new RangeScan(entry.getKey(), range));
+                    pending.put(entry.getKey(), ranges);
+                    running.put(entry.getKey(), 0);
+                    remaining += ranges.size();
+                }
+            }
+            Futures.addCallback(result, new FutureCallback<Void>() {
+                @Override
+                public void onSuccess(Void result) {
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    // Also called if the user cancels the future
+                    stop();
+                }
+            });
+
+            ListenableFuture<List<PreparedStatement>> prepared = Futures.allAsList(
+                    session.prepareAsync(buildQuery(true)),
+                    session.prepareAsync(buildQuery(false)));
+            Futures.addCallback(prepared, new FutureCallback<List<PreparedStatement>>() {
+                @Override
+                public void onSuccess(List<PreparedStatement> statements) {
+                    boundedStatement = statements.get(0);
+                    unboundedStatement = statements.get(1);
+                    // The hosts don't change after the planning phase
+                    for (Host host : pending.keySet())
+                        schedule(host);
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    fail(t);
+                }
+            });
+        }
+
+        private void schedule(Host host) {
+            List<RangeScan> toStart = new ArrayList<RangeScan>();
+            synchronized (this) {
+                if (stopped)
+                    return;
+                Deque<RangeScan> ranges = pending.get(host);
+                int count = running.get(host);
+                while (count < maxConcurrentRangesPerHost && !ranges.isEmpty()) {
+                    RangeScan range = ranges.poll();
+                    active.add(range);
+                    toStart.add(range);
+                    count += 1;
+                }
+                running.put(host, count);
+            }
+            for (RangeScan range : toStart)
+                range.query();
+        }
+
+        Statement newStatement(TokenRange range, byte[] pagingState) {
+            // A range that ends at the minimum token extends to the end of the ring
+            BoundStatement statement;
+            if (range.getEnd().equals(range.factory.minToken())) {
+                statement = unboundedStatement.bind().setToken(0, range.getStart());
+            } else {
+                statement = boundedStatement.bind().setToken(0, range.getStart()).setToken(1, range.getEnd());
+            }
+            statement.setRoutingToken(range.getEnd());
+            statement.setIdempotent(true);
+            if (fetchSize > 0)
+                statement.setFetchSize(fetchSize);
+            if (consistencyLevel != null)
+                statement.setConsistencyLevel(consistencyLevel);
+            if (pagingState != null)
+                statement.setPagingStateUnsafe(pagingState);
+            return statement;
+        }
+
+        void onRangeDone(RangeScan range) {
+            boolean done;
+            synchronized (this) {
+                active.remove(range);
+                running.put(range.host, running.get(range.host) - 1);
+                remaining -= 1;
+                done = (remaining == 0);
+            }
+            if (done)
+                result.set(null);
+            else
+                schedule(range.host);
+        }
+
+        void onRangeRetry(RangeScan range) {
+            synchronized (this) {
+                active.remove(range);
+                running.put(range.host, running.get(range.host) - 1);
+                pending.get(range.host).addFirst(range);
+            }
+            schedule(range.host);
+        }
+
+        void fail(Throwable t) {
+            result.setException(t);
+        }
+
+        private void stop() {
+            List<RangeScan> toCancel;
+            synchronized (this) {
+                stopped = true;
+                toCancel = new ArrayList<RangeScan>(active);
+            }
+            for (RangeScan range : toCancel)
+                range.cancel();
+        }
+
+        /**
+         * The queries for a single range. Only one of them is in progress at any time.
+         */
+        private class RangeScan {
+            final Host host;
+            final TokenRange range;
+
+            // Only accessed by the thread that currently drives this range
+            private byte[] pagingState;
+            private boolean resumable = true;
+            private int failures;
+
+            private volatile ListenableFuture<?> inFlight;
+            private volatile AsyncContinuousPagingResult currentPage;
+
+            RangeScan(Host host, TokenRange range) {
+                this.host = host;
+                this.range = range;
+            }
+
+            void query() {
+                Statement statement = newStatement(range, pagingState);
+                if (useContinuousPaging)
+                    fetchContinuous(((ContinuousPagingSession) session).executeContinuouslyAsync(statement, continuousPagingOptions));
+                else
+                    fetchPage(session.executeAsync(statement));
+            }
+
+            private void fetchPage(ResultSetFuture future) {
+                inFlight = future;
+                Futures.addCallback(future, new FutureCallback<ResultSet>() {
+                    @Override
+                    public void onSuccess(ResultSet rs) {
+                        // Only take the rows of this page: each subsequent page is a new query, so that it can be retried
+                        int available = rs.getAvailableWithoutFetching();
+                        List<Row> rows = new ArrayList<Row>(available);
+                        for (int i = 0; i < available; i++)
+                            rows.add(rs.one());
+                        final byte[] nextPagingState = rs.getExecutionInfo().getPagingStateUnsafe();
+                        deliver(rows, new Runnable() {
+                            @Override
+                            public void run() {
+                                pagingState = nextPagingState;
+                                if (nextPagingState == null)
+                                    onRangeDone(RangeScan.this);
+                                else if (!stopped)
+                                    query();
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        onError(t);
+                    }
+                }, executor);
+            }
+
+            private void fetchContinuous(ListenableFuture<AsyncContinuousPagingResult> future) {
+                inFlight = future;
+                Futures.addCallback(future, new FutureCallback<AsyncContinuousPagingResult>() {
+                    @Override
+                    public void onSuccess(final AsyncContinuousPagingResult page) {
+                        currentPage = page;
+                        final byte[] nextPagingState = page.getExecutionInfo().getPagingStateUnsafe();
+                        deliver(page.currentPage(), new Runnable() {
+                            @Override
+                            public void run() {
+                                if (page.isLast()) {
+                                    onRangeDone(RangeScan.this);
+                                } else {
+                                    // Without a paging state, we can't resume after this page if a later one fails
+                                    pagingState = nextPagingState;
+                                    resumable = (nextPagingState != null);
+                                    if (stopped)
+                                        page.cancel();
+                                    else
+                                        fetchContinuous(page.nextPage());
+                                }
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onFailure(Throwable t) {
+                        onError(t);
+                    }
+                }, executor);
+            }
+
+            private void deliver(Iterable<Row> rows, Runnable next) {
+                if (stopped)
+                    return;
+                try {
+                    onPage(rows, next);
+                } catch (RuntimeException e) {
+                    fail(e);
+                }
+            }
+
+            private void onError(Throwable t) {
+                if (stopped)
+                    return;
+                if (t instanceof QueryValidationException || !resumable || failures >= maxRetries) {
+                    fail(t);
+                } else {
+                    failures += 1;
+                    logger.debug(String.format("Error while scanning range %s, retrying (attempt %d of %d)",
+                            range, failures, maxRetries), t);
+                    currentPage = null;
+                    onRangeRetry(this);
+                }
+            }
+
+            void cancel() {
+                ListenableFuture<?> future = inFlight;
+                if (future != null)
+                    future.cancel(true);
+                AsyncContinuousPagingResult page = currentPage;
+                if (page != null && !page.isLast())
+                    page.cancel();
+            }
+        }
+    }
+
+    private class ScanIterator extends AbstractIterator<Row> implements RowIterator {
+
+        private final Object endOfScan = new Object();
+
+        // Contains pages (Object[] {rows, next}), an ExecutionException, or endOfScan
+        private final BlockingQueue<Object> queue = new LinkedBlockingQueue<Object>();
+        private Iterator<Row> currentRows = Collections.<Row>emptyList().iterator();
+
+        final Scan scan = new Scan() {
+            @Override
+            void onPage(Iterable<Row> rows, Runnable next) {
+                queue.add(new Object[]{rows, next});
+            }
+        };
+
+        ScanIterator() {
+            scan.result.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        Uninterruptibles.getUninterruptibly(scan.result);
+                        queue.add(endOfScan);
+                    } catch (ExecutionException e) {
+                        queue.add(e);
+                    } catch (CancellationException e) {
+                        queue.add(endOfScan);
+                    }
+                }
+            }, GuavaCompatibility.INSTANCE.sameThreadExecutor());
+        }
+
+        @Override
+        protected Row computeNext() {
+            while (!currentRows.hasNext()) {
+                Object next = Uninterruptibles.takeUninterruptibly(queue);
+                if (next == endOfScan) {
+                    return endOfData();
+                } else if (next instanceof ExecutionException) {
+                    throw DriverThrowables.propagateCause((ExecutionException) next);
+                } else {
+                    Object[] page = (Object[]) next;
+                    @SuppressWarnings("unchecked")
+                    Iterable<Row> rows = (Iterable<Row>) page[0];
+                    currentRows = rows.iterator();
+                    // Request the next page of this range while we consume this one
+                    ((Runnable) page[1]).run();
+                }
+            }
+            return currentRows.next();
+        }
+
+        @Override
+        public void cancel() {
+            scan.result.cancel(true);
+        }
+    }
+
+    /**
+     * Helper class to build {@link TableScanner} instances.
+     */
+    public static class Builder {
+        private final Session session;
+        private final TableMetadata table;
+        private List<String> columns;
+        private int splitsPerHost = DEFAULT_SPLITS_PER_HOST;
+        private int maxConcurrentRangesPerHost = DEFAULT_MAX_CONCURRENT_RANGES_PER_HOST;
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private int fetchSize;
+        private ConsistencyLevel consistencyLevel;
+        private boolean continuousPagingEnabled = true;
+        private Executor executor = GuavaCompatibility.INSTANCE.sameThreadExecutor();
+
+        private Builder(Session session, TableMetadata table) {
+            this.session = Preconditions.checkNotNull(session, "session must not be null");
+            this.table = Preconditions.checkNotNull(table, "table must not be null");
+        }
+
+        /**
+         * Sets the columns to retrieve.
+         * <p/>
+         * The names are inserted as-is in the query, so they must be quoted if necessary (see
+         * {@link Metadata#quoteIfNecessary(String)}). If this method is not called, all the columns are retrieved.
+         *
+         * @param columns the columns.
+         * @return this builder.
+         */
+        public Builder withColumns(String... columns) {
+            Preconditions.checkArgument(columns.length > 0, "columns must not be empty");
+            this.columns = ImmutableList.copyOf(columns);
+            return this;
+        }
+
+        /**
+         * Sets the minimum number of ranges to query for each host. If a host owns fewer ranges of the ring (for
+         * example, if virtual nodes are not used), they are split evenly.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_SPLITS_PER_HOST}.
+         *
+         * @param splitsPerHost the number of splits.
+         * @return this builder.
+         */
+        public Builder withSplitsPerHost(int splitsPerHost) {
+            Preconditions.checkArgument(splitsPerHost > 0, "splitsPerHost must be strictly positive, got %s", splitsPerHost);
+            this.splitsPerHost = splitsPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of ranges that are queried concurrently on each host.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_CONCURRENT_RANGES_PER_HOST}.
+         *
+         * @param maxConcurrentRangesPerHost the maximum number of concurrent queries per host.
+         * @return this builder.
+         */
+        public Builder withMaxConcurrentRangesPerHost(int maxConcurrentRangesPerHost) {
+            Preconditions.checkArgument(maxConcurrentRangesPerHost > 0,
+                    "maxConcurrentRangesPerHost must be strictly positive, got %s", maxConcurrentRangesPerHost);
+            this.maxConcurrentRangesPerHost = maxConcurrentRangesPerHost;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of times the queries of a range are retried after an error, before the scan fails.
+         * Syntax, validation or authorization errors are never retried.
+         * <p/>
+         * If this method is not called, it defaults to {@link #DEFAULT_MAX_RETRIES}.
+         *
+         * @param maxRetries the maximum number of retries.
+         * @return this builder.
+         */
+        public Builder withMaxRetries(int maxRetries) {
+            Preconditions.checkArgument(maxRetries >= 0, "maxRetries must be positive, got %s", maxRetries);
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * Sets the number of rows per page (with continuous paging, this is the page size).
+         * <p/>
+         * If this method is not called, the default fetch size of {@link QueryOptions} is used.
+         *
+         * @param fetchSize the fetch size.
+         * @return this builder.
+         */
+        public Builder withFetchSize(int fetchSize) {
+            Preconditions.checkArgument(fetchSize > 0, "fetchSize must be strictly positive, got %s", fetchSize);
+            this.fetchSize = fetchSize;
+            return this;
+        }
+
+        /**
+         * Sets the consistency level of the queries.
+         * <p/>
+         * If this method is not called, the default consistency level of {@link QueryOptions} is used.
+         *
+         * @param consistencyLevel the consistency level.
+         * @return this builder.
+         */
+        public Builder withConsistencyLevel(ConsistencyLevel consistencyLevel) {
+            this.consistencyLevel = consistencyLevel;
+            return this;
+        }
+
+        /**
+         * Sets whether continuous paging should be used when the protocol version supports it.
+         * <p/>
+         * If this method is not called, continuous paging is used when possible.
+         *
+         * @param continuousPagingEnabled whether to use continuous paging.
+         * @return this builder.
+         */
+        public Builder withContinuousPaging(boolean continuousPagingEnabled) {
+            this.continuousPagingEnabled = continuousPagingEnabled;
+            return this;
+        }
+
+        /**
+         * Sets the executor that runs the {@link RowHandler} passed to {@link TableScanner#scan(RowHandler)}.
+         * <p/>
+         * If this method is not called, handlers are invoked on the driver's I/O threads.
+         *
+         * @param executor the executor.
+         * @return this builder.
+         */
+        public Builder withExecutor(Executor executor) {
+            this.executor = Preconditions.checkNotNull(executor, "executor must not be null");
+            return this;
+        }
+
+        /**
+         * Returns the scanner specified by this builder.
+         *
+         * @return the scanner.
+         */
+        public TableScanner build() {
+            return new TableScanner(this);
+        }
+    }
+}
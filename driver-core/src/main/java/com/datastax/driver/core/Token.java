@@ -72,6 +72,20 @@ public abstract class Token implements Comparable<Token> {
 
         abstract Token hash(ByteBuffer partitionKey);
 
+        /**
+         * Hashes a composite partition key, without building its serialized form if the partitioner allows it.
+         *
+         * @param values  the values of the components, in serialized form.
+         * @param indexes the indexes of the components in {@code values}, or {@code null} to use all the values.
+         */
+        Token hash(ByteBuffer[] values, int[] indexes) {
+            int count = (indexes == null) ? values.length : indexes.length;
+            ByteBuffer[] components = new ByteBuffer[count];
+            for (int i = 0; i < count; i++)
+                components[i] = values[(indexes == null) ? i : indexes[i]];
+            return hash(SimpleStatement.compose(components));
+        }
+
         abstract List<Token> split(Token startToken, Token endToken, int numberOfSplits);
 
         // Base implementation for split
@@ -222,9 +236,10 @@ public abstract class Token implements Comparable<Token> {
                         h1 ^= k1;
                 }
 
-                //----------
-                // finalization
+                return finish(h1, h2, length);
+            }
 
+            private long finish(long h1, long h2, int length) {
                 h1 ^= length;
                 h2 ^= length;
 
@@ -235,11 +250,87 @@ public abstract class Token implements Comparable<Token> {
                 h2 = fmix(h2);
 
                 h1 += h2;
-                h2 += h1;
-
                 return h1;
             }
 
+            // Same as murmur(compose(components)), but reads the components in place. The composite layout is, for each
+            // component: its length on 2 bytes, its bytes, and a 0 byte.
+            private long murmur(ByteBuffer[] values, int[] indexes) {
+                int count = (indexes == null) ? values.length : indexes.length;
+
+                long h1 = 0;
+                long h2 = 0;
+
+                long c1 = 0x87c37b91114253d5L;
+                long c2 = 0x4cf5ad432745937fL;
+
+                // The current block, and the same bytes accumulated like the tail (sign-extended, see murmur)
+                long k1 = 0, k2 = 0;
+                long t1 = 0, t2 = 0;
+                int inBlock = 0;
+                int length = 0;
+
+                for (int c = 0; c < count; c++) {
+                    ByteBuffer component = values[(indexes == null) ? c : indexes[c]];
+                    int position = component.position();
+                    int size = component.remaining();
+                    length += size + 3;
+                    for (int b = -2; b <= size; b++) {
+                        byte v;
+                        if (b == -2)
+                            v = (byte) (size >> 8);
+                        else if (b == -1)
+                            v = (byte) size;
+                        else if (b == size)
+                            v = 0;
+                        else
+                            v = component.get(position + b);
+
+                        if (inBlock < 8) {
+                            k1 |= ((long) v & 0xff) << (inBlock << 3);
+                            t1 ^= ((long) v) << (inBlock << 3);
+                        } else {
+                            k2 |= ((long) v & 0xff) << ((inBlock - 8) << 3);
+                            t2 ^= ((long) v) << ((inBlock - 8) << 3);
+                        }
+
+                        if (++inBlock == 16) {
+                            k1 *= c1;
+                            k1 = rotl64(k1, 31);
+                            k1 *= c2;
+                            h1 ^= k1;
+                            h1 = rotl64(h1, 27);
+                            h1 += h2;
+                            h1 = h1 * 5 + 0x52dce729;
+                            k2 *= c2;
+                            k2 = rotl64(k2, 33);
+                            k2 *= c1;
+                            h2 ^= k2;
+                            h2 = rotl64(h2, 31);
+                            h2 += h1;
+                            h2 = h2 * 5 + 0x38495ab5;
+                            k1 = k2 = t1 = t2 = 0;
+                            inBlock = 0;
+                        }
+                    }
+                }
+
+                if (inBlock > 8) {
+                    t2 *= c2;
+                    t2 = rotl64(t2, 33);
+                    t2 *= c1;
+                    h2 ^= t2;
+                }
+                if (inBlock > 0) {
+                    t1 *= c1;
+                    t1 = rotl64(t1, 31);
+                    t1 *= c2;
+                    h1 ^= t1;
+                }
+
+                return finish(h1, h2, length);
+            }
+
             @Override
             M3PToken fromString(String tokenStr) {
                 return new M3PToken(Long.parseLong(tokenStr));
@@ -262,8 +353,19 @@ public abstract class Token implements Comparable<Token> {
 
             @Override
             M3PToken hash(ByteBuffer partitionKey) {
-                long v = murmur(partitionKey);
-                return new M3PToken(v == Long.MIN_VALUE ? Long.MAX_VALUE : v);
+                return newToken(murmur(partitionKey));
+            }
+
+            @Override
+            M3PToken hash(ByteBuffer[] values, int[] indexes) {
+                int count = (indexes == null) ? values.length : indexes.length;
+                if (count == 1)
+                    return hash(values[(indexes == null) ? 0 : indexes[0]]);
+                return newToken(murmur(values, indexes));
+            }
+
+            private M3PToken newToken(long hash) {
+                return new M3PToken(hash == Long.MIN_VALUE ? Long.MAX_VALUE : hash);
             }
 
             @Override
@@ -293,6 +395,10 @@ public abstract class Token implements Comparable<Token> {
             this.value = value;
         }
 
+        long longValue() {
+            return value;
+        }
+
         @Override
         public DataType getType() {
             return FACTORY.getTokenType();
@@ -11,6 +11,8 @@ import com.datastax.driver.core.utils.Bytes;
 import com.google.common.io.ByteArrayDataOutput;
 import com.google.common.io.ByteStreams;
 import com.google.common.reflect.TypeToken;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
 
 import java.io.DataInput;
 import java.io.IOException;
@@ -644,6 +646,42 @@ public abstract class TypeCodec<T> {
         return GuavaCompatibility.INSTANCE.isSupertypeOf(this.javaType, TypeToken.of(value.getClass()));
     }
 
+    /**
+     * Whether this codec can write values straight into the buffer of an outgoing frame, with
+     * {@link #serializedSize(Object, ProtocolVersion)} and {@link #serializeTo(Object, ProtocolVersion, ByteBuf)}.
+     * <p/>
+     * Only built-in codecs of immutable types do, so that serializing a value can be deferred until the request is
+     * encoded, and can't fail or produce different bytes at that point. Other values are serialized eagerly with
+     * {@link #serialize(Object, ProtocolVersion)}.
+     */
+    boolean writesDirectly() {
+        return false;
+    }
+
+    /**
+     * Returns the number of bytes that {@link #serializeTo(Object, ProtocolVersion, ByteBuf)} writes for the given
+     * value, or -1 if it serializes to {@code null}.
+     * <p/>
+     * The default implementation serializes the value; built-in codecs override it (along with
+     * {@link #serializeTo(Object, ProtocolVersion, ByteBuf)}) when the size can be computed without doing so.
+     */
+    int serializedSize(T value, ProtocolVersion protocolVersion) {
+        ByteBuffer bytes = serialize(value, protocolVersion);
+        return bytes == null ? -1 : bytes.remaining();
+    }
+
+    /**
+     * Writes a value to a buffer, in the same format as {@link #serialize(Object, ProtocolVersion)} but without the
+     * length prefix. Nothing is written if the value serializes to {@code null}.
+     * <p/>
+     * The default implementation serializes the value and copies the result.
+     */
+    void serializeTo(T value, ProtocolVersion protocolVersion, ByteBuf target) {
+        ByteBuffer bytes = serialize(value, protocolVersion);
+        if (bytes != null)
+            target.writeBytes(bytes.duplicate());
+    }
+
     @Override
     public String toString() {
         return String.format("%s [%s <-> %s]", this.getClass().getSimpleName(), cqlType, javaType);
@@ -888,6 +926,21 @@ public abstract class TypeCodec<T> {
             super(DataType.varchar(), Charset.forName("UTF-8"));
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(String value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : CBUtil.utf8Length(value);
+        }
+
+        @Override
+        void serializeTo(String value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                CBUtil.writeUtf8(value, target);
+        }
     }
 
     /**
@@ -918,6 +971,26 @@ public abstract class TypeCodec<T> {
             }
             return super.format(value);
         }
+
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(String value, ProtocolVersion protocolVersion) {
+            if (value == null)
+                return -1;
+            if (!ASCII_PATTERN.matcher(value).matches())
+                throw new InvalidTypeException(String.format("%s is not a valid ASCII String", value));
+            return value.length();
+        }
+
+        @Override
+        void serializeTo(String value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                ByteBufUtil.writeAscii(target, value);
+        }
     }
 
     /**
@@ -953,6 +1026,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Long value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 8;
+        }
+
+        @Override
+        void serializeTo(Long value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeLong(value);
+        }
+
         @Override
         public long deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1020,7 +1109,7 @@ public abstract class TypeCodec<T> {
 
         @Override
         public ByteBuffer deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
-            return bytes == null ? null : bytes.duplicate();
+            return bytes == null ? null : bytes.slice();
         }
     }
 
@@ -1097,6 +1186,22 @@ public abstract class TypeCodec<T> {
             return value ? TRUE.duplicate() : FALSE.duplicate();
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Boolean value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 1;
+        }
+
+        @Override
+        void serializeTo(Boolean value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeByte(value ? 1 : 0);
+        }
+
         @Override
         public boolean deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1201,6 +1306,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Double value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 8;
+        }
+
+        @Override
+        void serializeTo(Double value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeDouble(value);
+        }
+
         @Override
         public double deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1246,6 +1367,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Float value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 4;
+        }
+
+        @Override
+        void serializeTo(Float value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeFloat(value);
+        }
+
         @Override
         public float deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1341,6 +1478,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Byte value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 1;
+        }
+
+        @Override
+        void serializeTo(Byte value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeByte(value);
+        }
+
         @Override
         public byte deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1386,6 +1539,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Short value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 2;
+        }
+
+        @Override
+        void serializeTo(Short value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeShort(value);
+        }
+
         @Override
         public short deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1431,6 +1600,22 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(Integer value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 4;
+        }
+
+        @Override
+        void serializeTo(Integer value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeInt(value);
+        }
+
         @Override
         public int deserializeNoBoxing(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1555,6 +1740,22 @@ public abstract class TypeCodec<T> {
             return IntCodec.instance.serializeNoBoxing(unsigned, protocolVersion);
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(LocalDate value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 4;
+        }
+
+        @Override
+        void serializeTo(LocalDate value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null)
+                target.writeInt(CodecUtils.fromSignedToUnsignedInt(value.getDaysSinceEpoch()));
+        }
+
         @Override
         public LocalDate deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             if (bytes == null || bytes.remaining() == 0)
@@ -1646,6 +1847,24 @@ public abstract class TypeCodec<T> {
             return bb;
         }
 
+        @Override
+        boolean writesDirectly() {
+            return true;
+        }
+
+        @Override
+        int serializedSize(UUID value, ProtocolVersion protocolVersion) {
+            return value == null ? -1 : 16;
+        }
+
+        @Override
+        void serializeTo(UUID value, ProtocolVersion protocolVersion, ByteBuf target) {
+            if (value != null) {
+                target.writeLong(value.getMostSignificantBits());
+                target.writeLong(value.getLeastSignificantBits());
+            }
+        }
+
         @Override
         public UUID deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
             return bytes == null || bytes.remaining() == 0 ? null : new UUID(bytes.getLong(bytes.position()), bytes.getLong(bytes.position() + 8));
@@ -0,0 +1,31 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.exceptions;
+
+/**
+ * Thrown when a request is rejected by the {@link com.datastax.driver.core.policies.RequestThrottler} before being
+ * sent, for example because too many requests are already waiting.
+ * <p/>
+ * The request was never sent to any host, so it is always safe to retry it later.
+ */
+public class RequestThrottlingException extends DriverException {
+
+    private static final long serialVersionUID = 0;
+
+    public RequestThrottlingException(String message) {
+        super(message);
+    }
+
+    public RequestThrottlingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    @Override
+    public RequestThrottlingException copy() {
+        return new RequestThrottlingException(getMessage(), this);
+    }
+}
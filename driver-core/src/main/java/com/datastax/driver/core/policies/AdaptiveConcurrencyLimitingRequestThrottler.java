@@ -0,0 +1,210 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.exceptions.*;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * A concurrency limiting throttler that adjusts its limit to the cluster's response times, with an additive
+ * increase / multiplicative decrease (AIMD) algorithm.
+ * <p/>
+ * The limit grows by one each time a full "window" of requests (as many as the current limit) has completed within the
+ * latency threshold, provided that the limit is actually used (at least half of it is in flight). When a request is
+ * slower than the threshold, or fails with an error that signals overload (client or server timeout,
+ * {@link OverloadedException}, busy pool or connection), the limit is multiplied by the backoff ratio. Consecutive
+ * decreases are spaced by at least the latency threshold, so that a single burst of slow responses does not collapse the
+ * limit.
+ * <p/>
+ * The limit always stays between the configured minimum and maximum. Requests beyond the limit are queued as in
+ * {@link ConcurrencyLimitingRequestThrottler}.
+ */
+public class AdaptiveConcurrencyLimitingRequestThrottler extends ConcurrencyLimitingRequestThrottler {
+
+    /**
+     * Returns a builder to create a new instance.
+     *
+     * @return the builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Clock clock;
+
+    private final Object limitLock = new Object();
+    // Guarded by limitLock
+    private int successesInWindow;
+    private long lastDecreaseNanos;
+
+    private AdaptiveConcurrencyLimitingRequestThrottler(Builder builder) {
+        super(builder.initialLimit, builder.maxQueueSize);
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.latencyThresholdNanos = builder.latencyThresholdNanos;
+        this.backoffRatio = builder.backoffRatio;
+        this.clock = builder.clock;
+        this.lastDecreaseNanos = clock.nanoTime() - latencyThresholdNanos;
+    }
+
+    @Override
+    public void signalSuccess(Throttled request, long latencyNanos) {
+        // Adjust first, so that a larger limit is taken into account when the next queued request is dequeued
+        if (latencyNanos > latencyThresholdNanos)
+            decrease();
+        else
+            increase();
+        super.signalSuccess(request, latencyNanos);
+    }
+
+    @Override
+    public void signalError(Throttled request, Throwable error, long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos || isOverload(error))
+            decrease();
+        super.signalError(request, error, latencyNanos);
+    }
+
+    private void increase() {
+        int newLimit = 0;
+        synchronized (limitLock) {
+            int limit = getMaxConcurrentRequests();
+            if (limit >= maxLimit || getConcurrentRequests() * 2 < limit)
+                return;
+            successesInWindow += 1;
+            if (successesInWindow >= limit) {
+                successesInWindow = 0;
+                newLimit = limit + 1;
+            }
+        }
+        if (newLimit > 0)
+            setMaxConcurrentRequests(newLimit);
+    }
+
+    private void decrease() {
+        int newLimit;
+        synchronized (limitLock) {
+            long now = clock.nanoTime();
+            if (now - lastDecreaseNanos < latencyThresholdNanos)
+                return;
+            lastDecreaseNanos = now;
+            successesInWindow = 0;
+            newLimit = Math.max(minLimit, (int) (getMaxConcurrentRequests() * backoffRatio));
+        }
+        setMaxConcurrentRequests(newLimit);
+    }
+
+    private static boolean isOverload(Throwable error) {
+        return error instanceof OperationTimedOutException
+                || error instanceof ReadTimeoutException
+                || error instanceof WriteTimeoutException
+                || error instanceof OverloadedException
+                || error instanceof BusyPoolException
+                || error instanceof BusyConnectionException;
+    }
+
+    /**
+     * Helper class to build {@link AdaptiveConcurrencyLimitingRequestThrottler} instances.
+     */
+    public static class Builder {
+        private int minLimit = 8;
+        private int initialLimit = 64;
+        private int maxLimit = 1024;
+        private long latencyThresholdNanos = NANOSECONDS.convert(100, MILLISECONDS);
+        private double backoffRatio = 0.9;
+        private int maxQueueSize = 1024;
+        private Clock clock = Clock.DEFAULT;
+
+        /**
+         * Sets the bounds of the concurrency limit, and its initial value.
+         * <p/>
+         * If this method is not called, the limit starts at 64 and varies between 8 and 1024.
+         *
+         * @param minLimit     the minimum limit.
+         * @param initialLimit the initial limit.
+         * @param maxLimit     the maximum limit.
+         * @return this builder.
+         */
+        public Builder withLimits(int minLimit, int initialLimit, int maxLimit) {
+            Preconditions.checkArgument(minLimit > 0, "minLimit must be strictly positive, got %s", minLimit);
+            Preconditions.checkArgument(minLimit <= initialLimit && initialLimit <= maxLimit,
+                    "Limits must verify minLimit <= initialLimit <= maxLimit, got %s, %s, %s", minLimit, initialLimit, maxLimit);
+            this.minLimit = minLimit;
+            this.initialLimit = initialLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Sets the latency above which a response is considered as a sign of overload.
+         * <p/>
+         * If this method is not called, the threshold is 100 milliseconds.
+         *
+         * @param latencyThreshold the threshold.
+         * @param unit             the unit of the threshold.
+         * @return this builder.
+         */
+        public Builder withLatencyThreshold(long latencyThreshold, TimeUnit unit) {
+            Preconditions.checkArgument(latencyThreshold > 0, "latencyThreshold must be strictly positive, got %s", latencyThreshold);
+            this.latencyThresholdNanos = unit.toNanos(latencyThreshold);
+            return this;
+        }
+
+        /**
+         * Sets the factor applied to the limit when overload is detected.
+         * <p/>
+         * If this method is not called, the ratio is 0.9.
+         *
+         * @param backoffRatio the ratio, strictly between 0 and 1.
+         * @return this builder.
+         */
+        public Builder withBackoffRatio(double backoffRatio) {
+            Preconditions.checkArgument(backoffRatio > 0 && backoffRatio < 1,
+                    "backoffRatio must be strictly between 0 and 1, got %s", backoffRatio);
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests that can wait to be sent.
+         * <p/>
+         * If this method is not called, the maximum is 1024.
+         *
+         * @param maxQueueSize the maximum queue size.
+         * @return this builder.
+         */
+        public Builder withMaxQueueSize(int maxQueueSize) {
+            Preconditions.checkArgument(maxQueueSize >= 0, "maxQueueSize must be positive, got %s", maxQueueSize);
+            this.maxQueueSize = maxQueueSize;
+            return this;
+        }
+
+        @VisibleForTesting
+        Builder withClock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * Builds the throttler.
+         *
+         * @return the throttler.
+         */
+        public AdaptiveConcurrencyLimitingRequestThrottler build() {
+            return new AdaptiveConcurrencyLimitingRequestThrottler(this);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.*;
+import com.google.common.annotations.VisibleForTesting;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A policy that triggers speculative executions when the request to the current host is above a given percentile, and
+ * limits the additional load that they put on the cluster.
+ * <p/>
+ * Like {@link PercentileSpeculativeExecutionPolicy}, the threshold is obtained from a {@link PercentileTracker}. The
+ * statement is passed to the tracker, so a custom implementation can categorize latencies per host and per type of
+ * statement; with a {@link PerHostPercentileTracker}, each host is only compared to itself.
+ * <p/>
+ * In addition, this policy:
+ * <ul>
+ * <li>limits speculative executions to a fraction of the requests, with a token bucket: each request adds a fraction
+ * of a token to the bucket (up to a maximum), and each speculative execution consumes a token. If the bucket is empty,
+ * the speculative execution does not happen.</li>
+ * <li>stops triggering speculative executions during cluster-wide slowdowns. If the percentile is {@code p}, about
+ * {@code 100 - p} percent of the requests to a host should reach the threshold. If, over a short window, this ratio is
+ * much higher for the majority of the hosts that were queried, the slowness is not specific to a host, and
+ * speculative executions would only make matters worse. They are suspended until the next window.</li>
+ * </ul>
+ */
+public class BudgetedSpeculativeExecutionPolicy implements SpeculativeExecutionPolicy {
+
+    // One token, in the fixed-point unit used by the bucket
+    private static final long TOKEN = 1000000;
+
+    // Hosts with fewer queries than that in a window are not considered by the slowdown detection
+    private static final int MIN_QUERIES_PER_WINDOW = 20;
+
+    /**
+     * Returns a builder to create a new instance.
+     *
+     * @param percentileTracker the component that will record latencies. It will get
+     *                          {@link Cluster#register(LatencyTracker) registered} with the cluster when this policy
+     *                          initializes.
+     * @param percentile        the percentile that a request's latency must fall into to be considered slow (ex:
+     *                          {@code 99.0}).
+     * @return the builder.
+     */
+    public static Builder builder(PercentileTracker percentileTracker, double percentile) {
+        return new Builder(percentileTracker, percentile);
+    }
+
+    private final PercentileTracker percentileTracker;
+    private final double percentile;
+    private final int maxSpeculativeExecutions;
+    private final long tokensPerRequest;
+    private final long maxTokens;
+    private final double maxLateRatio;
+    private final long windowNanos;
+
+    private final AtomicLong tokens;
+    private final AtomicLong windowStart;
+    private volatile ConcurrentMap<Host, HostStats> window = new ConcurrentHashMap<Host, HostStats>();
+    private volatile boolean slowdown;
+
+    private BudgetedSpeculativeExecutionPolicy(Builder builder) {
+        this.percentileTracker = builder.percentileTracker;
+        this.percentile = builder.percentile;
+        this.maxSpeculativeExecutions = builder.maxSpeculativeExecutions;
+        this.tokensPerRequest = (long) (builder.budget * TOKEN);
+        this.maxTokens = builder.maxBurst * TOKEN;
+        this.maxLateRatio = builder.slowdownFactor * (100 - percentile) / 100;
+        this.windowNanos = builder.slowdownWindowNanos;
+        this.tokens = new AtomicLong(maxTokens);
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        cluster.register(percentileTracker);
+    }
+
+    @Override
+    public SpeculativeExecutionPlan newPlan(String loggedKeyspace, final Statement statement) {
+        addTokens();
+        return new ConditionalSpeculativeExecutionPlan() {
+            private final AtomicInteger remaining = new AtomicInteger(maxSpeculativeExecutions);
+            private volatile Host lastQueried;
+
+            @Override
+            public long nextExecution(Host lastQueried) {
+                if (remaining.getAndDecrement() <= 0)
+                    return -1;
+                long threshold = percentileTracker.getLatencyAtPercentile(lastQueried, statement, null, percentile);
+                if (threshold > 0) {
+                    this.lastQueried = lastQueried;
+                    stats(lastQueried).queries.incrementAndGet();
+                }
+                return threshold;
+            }
+
+            @Override
+            public boolean allowExecution() {
+                Host host = lastQueried;
+                if (host != null)
+                    stats(host).late.incrementAndGet();
+                if (isSlowdown() || !tryAcquireToken()) {
+                    // Don't try again for this request
+                    remaining.set(0);
+                    return false;
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+        // nothing
+    }
+
+    private void addTokens() {
+        while (true) {
+            long current = tokens.get();
+            if (current >= maxTokens)
+                return;
+            long next = Math.min(current + tokensPerRequest, maxTokens);
+            if (tokens.compareAndSet(current, next))
+                return;
+        }
+    }
+
+    @VisibleForTesting
+    boolean tryAcquireToken() {
+        while (true) {
+            long current = tokens.get();
+            if (current < TOKEN)
+                return false;
+            if (tokens.compareAndSet(current, current - TOKEN))
+                return true;
+        }
+    }
+
+    private HostStats stats(Host host) {
+        ConcurrentMap<Host, HostStats> window = this.window;
+        HostStats stats = window.get(host);
+        if (stats == null) {
+            stats = new HostStats();
+            HostStats previous = window.putIfAbsent(host, stats);
+            if (previous != null)
+                stats = previous;
+        }
+        return stats;
+    }
+
+    @VisibleForTesting
+    boolean isSlowdown() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+            // Only one thread gets here for a given window. Updates that race with the swap might be lost, which is
+            // fine since this is only an estimate.
+            ConcurrentMap<Host, HostStats> previous = window;
+            window = new ConcurrentHashMap<Host, HostStats>();
+            slowdown = computeSlowdown(previous);
+        }
+        return slowdown;
+    }
+
+    private boolean computeSlowdown(Map<Host, HostStats> stats) {
+        int queriedHosts = 0, slowHosts = 0;
+        for (HostStats hostStats : stats.values()) {
+            int queries = hostStats.queries.get();
+            if (queries < MIN_QUERIES_PER_WINDOW)
+                continue;
+            queriedHosts += 1;
+            if (hostStats.late.get() > maxLateRatio * queries)
+                slowHosts += 1;
+        }
+        return slowHosts > 0 && slowHosts * 2 > queriedHosts;
+    }
+
+    private static class HostStats {
+        // The number of queries for which a threshold was computed
+        final AtomicInteger queries = new AtomicInteger();
+        // The number of queries that reached the threshold
+        final AtomicInteger late = new AtomicInteger();
+    }
+
+    /**
+     * Helper class to build {@code BudgetedSpeculativeExecutionPolicy} instances with a fluent interface.
+     */
+    public static class Builder {
+        private final PercentileTracker percentileTracker;
+        private final double percentile;
+        private int maxSpeculativeExecutions = 1;
+        private double budget = 0.05;
+        private int maxBurst = 100;
+        private double slowdownFactor = 5;
+        private long slowdownWindowNanos = TimeUnit.SECONDS.toNanos(1);
+
+        Builder(PercentileTracker percentileTracker, double percentile) {
+            checkArgument(percentile >= 0.0 && percentile < 100,
+                    "percentile must be between 0.0 and 100 (was %s)", percentile);
+            this.percentileTracker = percentileTracker;
+            this.percentile = percentile;
+        }
+
+        /**
+         * Sets the maximum number of speculative executions that will be triggered for a given request (this does not
+         * include the initial, normal request).
+         * <p/>
+         * If not set explicitly, this value defaults to 1.
+         *
+         * @param maxSpeculativeExecutions the new value. Must be strictly positive.
+         * @return this builder.
+         */
+        public Builder withMaxSpeculativeExecutions(int maxSpeculativeExecutions) {
+            checkArgument(maxSpeculativeExecutions > 0,
+                    "number of speculative executions must be strictly positive (was %s)", maxSpeculativeExecutions);
+            this.maxSpeculativeExecutions = maxSpeculativeExecutions;
+            return this;
+        }
+
+        /**
+         * Sets the budget of speculative executions.
+         * <p/>
+         * If not set explicitly, speculative executions are limited to 5% of the requests, with bursts of up to 100.
+         *
+         * @param budget   the maximum number of speculative executions, as a fraction of the number of requests (ex:
+         *                 {@code 0.05} for 5%). Must be strictly positive.
+         * @param maxBurst the maximum number of speculative executions that can be triggered in a row after a quiet
+         *                 period. Must be strictly positive.
+         * @return this builder.
+         */
+        public Builder withBudget(double budget, int maxBurst) {
+            checkArgument(budget > 0, "budget must be strictly positive (was %s)", budget);
+            checkArgument(maxBurst > 0, "maxBurst must be strictly positive (was %s)", maxBurst);
+            this.budget = budget;
+            this.maxBurst = maxBurst;
+            return this;
+        }
+
+        /**
+         * Configures the detection of cluster-wide slowdowns.
+         * <p/>
+         * A host is considered slow if, during a window, the ratio of its queries that reach the threshold is more
+         * than {@code factor} times what the percentile predicts. If the majority of the hosts queried during a
+         * window are slow, no speculative executions are triggered until the next window.
+         * <p/>
+         * If not set explicitly, the factor defaults to 5, and the window to 1 second.
+         *
+         * @param factor the factor. Must be strictly greater than 1.
+         * @param window the duration of the window.
+         * @param unit   the unit that the window is expressed in.
+         * @return this builder.
+         */
+        public Builder withSlowdownDetection(double factor, long window, TimeUnit unit) {
+            checkArgument(factor > 1, "factor must be strictly greater than 1 (was %s)", factor);
+            checkArgument(window > 0, "window must be strictly positive (was %s)", window);
+            this.slowdownFactor = factor;
+            this.slowdownWindowNanos = unit.toNanos(window);
+            return this;
+        }
+
+        /**
+         * Builds the policy configured with this builder.
+         *
+         * @return the policy.
+         */
+        public BudgetedSpeculativeExecutionPolicy build() {
+            return new BudgetedSpeculativeExecutionPolicy(this);
+        }
+    }
+}
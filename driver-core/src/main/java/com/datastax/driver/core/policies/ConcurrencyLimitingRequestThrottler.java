@@ -0,0 +1,180 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+
+/**
+ * A request throttler that limits the number of concurrent requests.
+ * <p/>
+ * Requests are sent immediately as long as less than {@code maxConcurrentRequests} are in flight. Beyond that, they
+ * are queued, and sent in order as soon as previous requests complete. If the queue is full, new requests are
+ * rejected with a {@link RequestThrottlingException}.
+ */
+public class ConcurrencyLimitingRequestThrottler implements RequestThrottler {
+
+    private final int maxQueueSize;
+
+    private final Object lock = new Object();
+    // All guarded by lock
+    private int maxConcurrentRequests;
+    private int concurrentRequests;
+    private final Queue<Throttled> queue = new ArrayDeque<Throttled>();
+    private boolean closed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxConcurrentRequests the maximum number of requests in flight at any given time.
+     * @param maxQueueSize          the maximum number of requests that can wait to be sent. If this is exceeded, new
+     *                              requests are rejected.
+     */
+    public ConcurrencyLimitingRequestThrottler(int maxConcurrentRequests, int maxQueueSize) {
+        Preconditions.checkArgument(maxConcurrentRequests > 0,
+                "maxConcurrentRequests must be strictly positive, got %s", maxConcurrentRequests);
+        Preconditions.checkArgument(maxQueueSize >= 0, "maxQueueSize must be positive, got %s", maxQueueSize);
+        this.maxConcurrentRequests = maxConcurrentRequests;
+        this.maxQueueSize = maxQueueSize;
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        // nothing to do
+    }
+
+    @Override
+    public void register(Throttled request) {
+        boolean ready = false;
+        RequestThrottlingException error = null;
+        synchronized (lock) {
+            if (closed) {
+                error = new RequestThrottlingException("The throttler was closed");
+            } else if (concurrentRequests < maxConcurrentRequests && queue.isEmpty()) {
+                concurrentRequests += 1;
+                ready = true;
+            } else if (queue.size() < maxQueueSize) {
+                queue.add(request);
+            } else {
+                error = new RequestThrottlingException(String.format(
+                        "The session has too many requests in progress (%d in flight, %d queued)",
+                        concurrentRequests, queue.size()));
+            }
+        }
+        if (ready)
+            request.onThrottleReady();
+        else if (error != null)
+            request.onThrottleFailure(error);
+    }
+
+    @Override
+    public void signalSuccess(Throttled request, long latencyNanos) {
+        onRequestDone();
+    }
+
+    @Override
+    public void signalError(Throttled request, Throwable error, long latencyNanos) {
+        onRequestDone();
+    }
+
+    private void onRequestDone() {
+        List<Throttled> toStart;
+        synchronized (lock) {
+            concurrentRequests -= 1;
+            toStart = dequeue();
+        }
+        start(toStart);
+    }
+
+    // Must be called while holding lock
+    private List<Throttled> dequeue() {
+        List<Throttled> toStart = null;
+        while (concurrentRequests < maxConcurrentRequests && !queue.isEmpty()) {
+            if (toStart == null)
+                toStart = new ArrayList<Throttled>();
+            toStart.add(queue.poll());
+            concurrentRequests += 1;
+        }
+        return toStart;
+    }
+
+    private static void start(List<Throttled> requests) {
+        if (requests != null) {
+            for (Throttled request : requests)
+                request.onThrottleReady();
+        }
+    }
+
+    /**
+     * Returns the current maximum number of concurrent requests.
+     *
+     * @return the current maximum number of concurrent requests.
+     */
+    public int getMaxConcurrentRequests() {
+        synchronized (lock) {
+            return maxConcurrentRequests;
+        }
+    }
+
+    /**
+     * Changes the maximum number of concurrent requests. If it increases, queued requests are sent immediately.
+     * <p/>
+     * This is intended for subclasses that adapt the limit dynamically.
+     *
+     * @param maxConcurrentRequests the new limit.
+     */
+    protected void setMaxConcurrentRequests(int maxConcurrentRequests) {
+        Preconditions.checkArgument(maxConcurrentRequests > 0,
+                "maxConcurrentRequests must be strictly positive, got %s", maxConcurrentRequests);
+        List<Throttled> toStart;
+        synchronized (lock) {
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            toStart = dequeue();
+        }
+        start(toStart);
+    }
+
+    /**
+     * Returns the number of requests currently in flight.
+     *
+     * @return the number of requests currently in flight.
+     */
+    public int getConcurrentRequests() {
+        synchronized (lock) {
+            return concurrentRequests;
+        }
+    }
+
+    /**
+     * Returns the number of requests currently waiting to be sent.
+     *
+     * @return the number of requests currently waiting to be sent.
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Throttled> toFail;
+        synchronized (lock) {
+            closed = true;
+            toFail = new ArrayList<Throttled>(queue);
+            queue.clear();
+        }
+        for (Throttled request : toFail)
+            request.onThrottleFailure(new RequestThrottlingException("The throttler was closed"));
+    }
+}
@@ -53,6 +53,10 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
     private final ConcurrentMap<String, CopyOnWriteArrayList<Host>> perDcLiveHosts = new ConcurrentHashMap<String, CopyOnWriteArrayList<Host>>();
     private final AtomicInteger index = new AtomicInteger();
 
+    // An immutable copy of perDcLiveHosts, that is read by query plans and distance(). It is rebuilt after each change
+    // to the live hosts, so that building a query plan doesn't need to copy anything.
+    private volatile LiveHosts liveHosts = LiveHosts.EMPTY;
+
     @VisibleForTesting
     volatile String localDc;
 
@@ -94,6 +98,7 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
             else
                 prev.addIfAbsent(host);
         }
+        updateLiveHosts();
 
         if (notInLocalDC.size() > 0) {
             String nonLocalHosts = Joiner.on(",").join(notInLocalDC);
@@ -109,9 +114,38 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
         return dc == null ? localDc : dc;
     }
 
-    @SuppressWarnings("unchecked")
-    private static CopyOnWriteArrayList<Host> cloneList(CopyOnWriteArrayList<Host> list) {
-        return (CopyOnWriteArrayList<Host>) list.clone();
+    // Synchronized so that the last change to perDcLiveHosts is always reflected in the last snapshot
+    private synchronized void updateLiveHosts() {
+        String localDc = this.localDc;
+        CopyOnWriteArrayList<Host> localHosts = perDcLiveHosts.get(localDc);
+        Map<String, Host[]> remoteHosts = new LinkedHashMap<String, Host[]>();
+        if (usedHostsPerRemoteDc > 0) {
+            for (Map.Entry<String, CopyOnWriteArrayList<Host>> entry : perDcLiveHosts.entrySet()) {
+                String dc = entry.getKey();
+                if (dc.equals(localDc))
+                    continue;
+                Host[] dcHosts = entry.getValue().toArray(new Host[0]);
+                remoteHosts.put(dc, Arrays.copyOf(dcHosts, Math.min(dcHosts.length, usedHostsPerRemoteDc)));
+            }
+        }
+        this.liveHosts = new LiveHosts(
+                localHosts == null ? new Host[0] : localHosts.toArray(new Host[0]),
+                remoteHosts);
+    }
+
+    private static class LiveHosts {
+        static final LiveHosts EMPTY = new LiveHosts(new Host[0], Collections.<String, Host[]>emptyMap());
+
+        final Host[] local;
+        // The hosts used in each remote DC (at most usedHostsPerRemoteDc per DC)
+        final Map<String, Host[]> remote;
+        final Host[][] remoteArrays;
+
+        LiveHosts(Host[] local, Map<String, Host[]> remote) {
+            this.local = local;
+            this.remote = remote;
+            this.remoteArrays = remote.values().toArray(new Host[remote.size()][]);
+        }
     }
 
     /**
@@ -133,15 +167,14 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
         if (dc == UNSET || dc.equals(localDc))
             return HostDistance.LOCAL;
 
-        CopyOnWriteArrayList<Host> dcHosts = perDcLiveHosts.get(dc);
-        if (dcHosts == null || usedHostsPerRemoteDc == 0)
+        Host[] dcHosts = liveHosts.remote.get(dc);
+        if (dcHosts == null)
             return HostDistance.IGNORED;
 
-        // We need to clone, otherwise our subList call is not thread safe
-        dcHosts = cloneList(dcHosts);
-        return dcHosts.subList(0, Math.min(dcHosts.size(), usedHostsPerRemoteDc)).contains(host)
-                ? HostDistance.REMOTE
-                : HostDistance.IGNORED;
+        for (Host dcHost : dcHosts)
+            if (dcHost.equals(host))
+                return HostDistance.REMOTE;
+        return HostDistance.IGNORED;
     }
 
     /**
@@ -162,18 +195,19 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
     @Override
     public Iterator<Host> newQueryPlan(String loggedKeyspace, final Statement statement) {
 
-        CopyOnWriteArrayList<Host> localLiveHosts = perDcLiveHosts.get(localDc);
-        final List<Host> hosts = localLiveHosts == null ? Collections.<Host>emptyList() : cloneList(localLiveHosts);
+        LiveHosts liveHosts = this.liveHosts;
+        final Host[] hosts = liveHosts.local;
+        final Host[][] remoteHosts = liveHosts.remoteArrays;
         final int startIdx = index.getAndIncrement();
 
         return new AbstractIterator<Host>() {
 
             private int idx = startIdx;
-            private int remainingLocal = hosts.size();
+            private int remainingLocal = hosts.length;
 
             // For remote Dcs
-            private Iterator<String> remoteDcs;
-            private List<Host> currentDcHosts;
+            private int nextRemoteDc;
+            private Host[] currentDcHosts;
             private int currentDcRemaining;
 
             @Override
@@ -181,22 +215,25 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
                 while (true) {
                     if (remainingLocal > 0) {
                         remainingLocal--;
-                        int c = idx++ % hosts.size();
+                        int c = idx++ % hosts.length;
                         if (c < 0) {
-                            c += hosts.size();
+                            c += hosts.length;
                         }
-                        return hosts.get(c);
+                        return hosts[c];
                     }
 
                     if (currentDcHosts != null && currentDcRemaining > 0) {
                         currentDcRemaining--;
-                        int c = idx++ % currentDcHosts.size();
+                        int c = idx++ % currentDcHosts.length;
                         if (c < 0) {
-                            c += currentDcHosts.size();
+                            c += currentDcHosts.length;
                         }
-                        return currentDcHosts.get(c);
+                        return currentDcHosts[c];
                     }
 
+                    if (nextRemoteDc >= remoteHosts.length)
+                        break;
+
                     ConsistencyLevel cl = statement.getConsistencyLevel() == null
                             ? configuration.getQueryOptions().getConsistencyLevel()
                             : statement.getConsistencyLevel();
@@ -204,23 +241,8 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
                     if (dontHopForLocalCL && cl.isDCLocal())
                         return endOfData();
 
-                    if (remoteDcs == null) {
-                        Set<String> copy = new HashSet<String>(perDcLiveHosts.keySet());
-                        copy.remove(localDc);
-                        remoteDcs = copy.iterator();
-                    }
-
-                    if (!remoteDcs.hasNext())
-                        break;
-
-                    String nextRemoteDc = remoteDcs.next();
-                    CopyOnWriteArrayList<Host> nextDcHosts = perDcLiveHosts.get(nextRemoteDc);
-                    if (nextDcHosts != null) {
-                        // Clone for thread safety
-                        List<Host> dcHosts = cloneList(nextDcHosts);
-                        currentDcHosts = dcHosts.subList(0, Math.min(dcHosts.size(), usedHostsPerRemoteDc));
-                        currentDcRemaining = currentDcHosts.size();
-                    }
+                    currentDcHosts = remoteHosts[nextRemoteDc++];
+                    currentDcRemaining = currentDcHosts.length;
                 }
                 return endOfData();
             }
@@ -242,17 +264,20 @@ public class DCAwareRoundRobinPolicy implements LoadBalancingPolicy {
             CopyOnWriteArrayList<Host> newMap = new CopyOnWriteArrayList<Host>(Collections.singletonList(host));
             dcHosts = perDcLiveHosts.putIfAbsent(dc, newMap);
             // If we've successfully put our new host, we're good, otherwise we've been beaten so continue
-            if (dcHosts == null)
+            if (dcHosts == null) {
+                updateLiveHosts();
                 return;
+            }
         }
         dcHosts.addIfAbsent(host);
+        updateLiveHosts();
     }
 
     @Override
     public void onDown(Host host) {
         CopyOnWriteArrayList<Host> dcHosts = perDcLiveHosts.get(dc(host));
-        if (dcHosts != null)
-            dcHosts.remove(host);
+        if (dcHosts != null && dcHosts.remove(host))
+            updateLiveHosts();
     }
 
     @Override
@@ -12,7 +12,6 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +46,10 @@ import java.util.concurrent.atomic.AtomicReference;
  * <p/>
  * Please see the {@link Builder} class and methods for more details on the
  * possible parameters of this policy.
+ * <p/>
+ * This policy does not start any thread: the minimum average latency and the set of penalized nodes are periodically
+ * recomputed on the cluster's scheduled tasks executor (see {@link Builder#withUpdateRate(long, TimeUnit)}), and cached
+ * in between. As long as no node is penalized, the query plans of the child policy are returned as-is.
  *
  * @since 1.0.4
  */
@@ -56,13 +59,21 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
 
     private final LoadBalancingPolicy childPolicy;
     private final Tracker latencyTracker;
-    private final ScheduledExecutorService updaterService = Executors.newSingleThreadScheduledExecutor(threadFactory("LatencyAwarePolicy updater"));
+    private final Updater updater = new Updater();
 
     private final double exclusionThreshold;
 
     private final long scale;
     private final long retryPeriod;
     private final long minMeasure;
+    private final long updateRate;
+
+    // The hosts penalized at the last update. This is replaced (not modified) only when the set changes.
+    private volatile Set<Host> excludedHosts = Collections.emptySet();
+
+    // The cluster's scheduled tasks executor, that runs the updater
+    private volatile ScheduledExecutorService updaterExecutor;
+    private volatile ScheduledFuture<?> updaterFuture;
 
     private LatencyAwarePolicy(LoadBalancingPolicy childPolicy,
                                double exclusionThreshold,
@@ -76,8 +87,7 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         this.latencyTracker = new Tracker();
         this.exclusionThreshold = exclusionThreshold;
         this.minMeasure = minMeasure;
-
-        updaterService.scheduleAtFixedRate(new Updater(), updateRate, updateRate, TimeUnit.NANOSECONDS);
+        this.updateRate = updateRate;
     }
 
     @Override
@@ -100,41 +110,43 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
     @VisibleForTesting
     class Updater implements Runnable {
 
-        private Set<Host> excludedAtLastTick = Collections.<Host>emptySet();
-
         @Override
         public void run() {
             try {
                 logger.trace("Updating LatencyAwarePolicy minimum");
                 latencyTracker.updateMin();
 
-                if (logger.isDebugEnabled()) {
-                    /*
-                     * For users to be able to know if the policy potentially needs tuning, we need to provide
-                     * some feedback on on how things evolve. For that, we use the min computation to also check
-                     * which host will be excluded if a query is submitted now and if any host is, we log it (but
-                     * we try to avoid flooding too). This is probably interesting information anyway since it
-                     * gets an idea of which host perform badly.
-                     */
-                    Set<Host> excludedThisTick = new HashSet<Host>();
-                    double currentMin = latencyTracker.getMinAverage();
-                    for (Map.Entry<Host, Snapshot.Stats> entry : getScoresSnapshot().getAllStats().entrySet()) {
+                Set<Host> excludedAtLastTick = excludedHosts;
+                Set<Host> excludedThisTick = new HashSet<Host>();
+                long currentMin = latencyTracker.getMinAverage();
+                long now = System.nanoTime();
+                if (currentMin >= 0) {
+                    for (Map.Entry<Host, TimestampedAverage> entry : latencyTracker.currentLatencies().entrySet()) {
                         Host host = entry.getKey();
-                        Snapshot.Stats stats = entry.getValue();
-                        if (stats.getMeasurementsCount() < minMeasure)
+                        TimestampedAverage latency = entry.getValue();
+                        // If we haven't had enough data point yet to have a score, don't penalize the host.
+                        if (latency == null || latency.nbMeasure < minMeasure)
                             continue;
 
-                        if (stats.lastUpdatedSince() > retryPeriod) {
-                            if (excludedAtLastTick.contains(host))
-                                logger.debug(String.format("Previously avoided host %s has not be queried since %.3fms: will be reconsidered.", host, inMS(stats.lastUpdatedSince())));
+                        // If the last update of the score is just too old, give the host another chance.
+                        if ((now - latency.timestamp) > retryPeriod) {
+                            if (excludedAtLastTick.contains(host) && logger.isDebugEnabled())
+                                logger.debug(String.format("Previously avoided host %s has not be queried since %.3fms: will be reconsidered.", host, inMS(now - latency.timestamp)));
                             continue;
                         }
 
-                        if (stats.getLatencyScore() > ((long) (exclusionThreshold * currentMin))) {
+                        // If the host latency is not within acceptable bound of the faster known host, penalize it.
+                        if (latency.average > ((long) (exclusionThreshold * (double) currentMin))) {
                             excludedThisTick.add(host);
-                            if (!excludedAtLastTick.contains(host))
+                            /*
+                             * For users to be able to know if the policy potentially needs tuning, we need to provide
+                             * some feedback on on how things evolve. For that, we log when a host starts or stops
+                             * being excluded (but we try to avoid flooding too). This is probably interesting
+                             * information anyway since it gets an idea of which host perform badly.
+                             */
+                            if (!excludedAtLastTick.contains(host) && logger.isDebugEnabled())
                                 logger.debug(String.format("Host %s has an average latency score of %.3fms, more than %f times more than the minimum %.3fms: will be avoided temporarily.",
-                                        host, inMS(stats.getLatencyScore()), exclusionThreshold, inMS(currentMin)));
+                                        host, inMS(latency.average), exclusionThreshold, inMS(currentMin)));
                             continue;
                         }
 
@@ -142,10 +154,14 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
                             logger.debug("Previously avoided host {} average latency has come back within accepted bounds: will be reconsidered.", host);
                         }
                     }
-                    excludedAtLastTick = excludedThisTick;
                 }
+                // Only publish a new set if it changed, most updates will be no-ops
+                if (!excludedThisTick.equals(excludedAtLastTick))
+                    excludedHosts = excludedThisTick.isEmpty()
+                            ? Collections.<Host>emptySet()
+                            : ImmutableSet.copyOf(excludedThisTick);
             } catch (RuntimeException e) {
-                // An unexpected exception would suppress further execution, so catch, log, but swallow after that.
+                // An unexpected exception would break the query plan, so catch, log, but swallow after that.
                 logger.error("Error while updating LatencyAwarePolicy minimum", e);
             }
         }
@@ -159,14 +175,12 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
         return nanos / (1000 * 1000);
     }
 
-    private static ThreadFactory threadFactory(String nameFormat) {
-        return new ThreadFactoryBuilder().setNameFormat(nameFormat).build();
-    }
-
     @Override
     public void init(Cluster cluster, Collection<Host> hosts) {
         childPolicy.init(cluster, hosts);
         cluster.register(latencyTracker);
+        updaterExecutor = cluster.getScheduledTasksExecutor();
+        updaterFuture = updaterExecutor.scheduleAtFixedRate(updater, updateRate, updateRate, TimeUnit.NANOSECONDS);
     }
 
     /**
@@ -196,26 +210,18 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
     @Override
     public Iterator<Host> newQueryPlan(String loggedKeyspace, Statement statement) {
         final Iterator<Host> childIter = childPolicy.newQueryPlan(loggedKeyspace, statement);
+        final Set<Host> excluded = excludedHosts;
+        if (excluded.isEmpty())
+            return childIter;
         return new AbstractIterator<Host>() {
 
             private Queue<Host> skipped;
 
             @Override
             protected Host computeNext() {
-                long min = latencyTracker.getMinAverage();
-                long now = System.nanoTime();
                 while (childIter.hasNext()) {
                     Host host = childIter.next();
-                    TimestampedAverage latency = latencyTracker.latencyOf(host);
-
-                    // If we haven't had enough data point yet to have a score, or the last update of the score
-                    // is just too old, include the host.
-                    if (min < 0 || latency == null || latency.nbMeasure < minMeasure || (now - latency.timestamp) > retryPeriod)
-                        return host;
-
-                    // If the host latency is within acceptable bound of the faster known host, return
-                    // that host. Otherwise, skip it.
-                    if (latency.average <= ((long) (exclusionThreshold * (double) min)))
+                    if (!excluded.contains(host))
                         return host;
 
                     if (skipped == null)
@@ -228,8 +234,6 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
 
                 return endOfData();
             }
-
-            ;
         };
     }
 
@@ -262,6 +266,7 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
     public void onDown(Host host) {
         childPolicy.onDown(host);
         latencyTracker.resetHost(host);
+        updateNow();
     }
 
     @Override
@@ -273,6 +278,19 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
     public void onRemove(Host host) {
         childPolicy.onRemove(host);
         latencyTracker.resetHost(host);
+        updateNow();
+    }
+
+    // Don't wait for the next scheduled update to stop penalizing a host
+    private void updateNow() {
+        ScheduledExecutorService executor = updaterExecutor;
+        if (executor != null) {
+            try {
+                executor.execute(updater);
+            } catch (RejectedExecutionException e) {
+                // The cluster is shutting down
+            }
+        }
     }
 
     /**
@@ -636,8 +654,11 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
          * recomputed. While the average latency score of each node is computed
          * iteratively (updated each time a new latency is collected), the
          * minimum score needs to be recomputed from scratch every time, which
-         * is slightly more costly. For this reason, the minimum is only
-         * re-calculated at the given fixed rate and cached between re-calculation.
+         * is slightly more costly. For this reason, the minimum (and the set of
+         * nodes that are penalized) is only re-calculated at the given fixed
+         * rate and cached between re-calculation. The re-calculation runs on
+         * the cluster's scheduled tasks executor (see
+         * {@link Cluster#getScheduledTasksExecutor()}).
          * <p/>
          * The default update rate if <b>100 milliseconds</b>, which should be
          * appropriate for most applications. In particular, note that while we
@@ -708,6 +729,8 @@ public class LatencyAwarePolicy implements ChainableLoadBalancingPolicy {
     @Override
     public void close() {
         childPolicy.close();
-        updaterService.shutdown();
+        ScheduledFuture<?> future = updaterFuture;
+        if (future != null)
+            future.cancel(false);
     }
 }
@@ -0,0 +1,49 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Cluster;
+
+/**
+ * A request throttler that does not limit requests: they are all sent immediately.
+ */
+public class PassThroughRequestThrottler implements RequestThrottler {
+
+    /**
+     * The single instance (this class is stateless).
+     */
+    public static final PassThroughRequestThrottler INSTANCE = new PassThroughRequestThrottler();
+
+    private PassThroughRequestThrottler() {
+        // do nothing
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        // do nothing
+    }
+
+    @Override
+    public void register(Throttled request) {
+        request.onThrottleReady();
+    }
+
+    @Override
+    public void signalSuccess(Throttled request, long latencyNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void signalError(Throttled request, Throwable error, long latencyNanos) {
+        // do nothing
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
@@ -27,6 +27,7 @@ public class Policies {
     private static final RetryPolicy DEFAULT_RETRY_POLICY = DefaultRetryPolicy.INSTANCE;
     private static final AddressTranslator DEFAULT_ADDRESS_TRANSLATOR = new IdentityTranslator();
     private static final SpeculativeExecutionPolicy DEFAULT_SPECULATIVE_EXECUTION_POLICY = NoSpeculativeExecutionPolicy.INSTANCE;
+    private static final RequestThrottler DEFAULT_REQUEST_THROTTLER = PassThroughRequestThrottler.INSTANCE;
 
     private final LoadBalancingPolicy loadBalancingPolicy;
     private final ReconnectionPolicy reconnectionPolicy;
@@ -34,19 +35,22 @@ public class Policies {
     private final AddressTranslator addressTranslator;
     private final TimestampGenerator timestampGenerator;
     private final SpeculativeExecutionPolicy speculativeExecutionPolicy;
+    private final RequestThrottler requestThrottler;
 
     private Policies(LoadBalancingPolicy loadBalancingPolicy,
                      ReconnectionPolicy reconnectionPolicy,
                      RetryPolicy retryPolicy,
                      AddressTranslator addressTranslator,
                      TimestampGenerator timestampGenerator,
-                     SpeculativeExecutionPolicy speculativeExecutionPolicy) {
+                     SpeculativeExecutionPolicy speculativeExecutionPolicy,
+                     RequestThrottler requestThrottler) {
         this.loadBalancingPolicy = loadBalancingPolicy;
         this.reconnectionPolicy = reconnectionPolicy;
         this.retryPolicy = retryPolicy;
         this.addressTranslator = addressTranslator;
         this.timestampGenerator = timestampGenerator;
         this.speculativeExecutionPolicy = speculativeExecutionPolicy;
+        this.requestThrottler = requestThrottler;
     }
 
     /**
@@ -123,6 +127,17 @@ public class Policies {
         return DEFAULT_SPECULATIVE_EXECUTION_POLICY;
     }
 
+    /**
+     * The default request throttler.
+     * <p/>
+     * The default request throttler is a {@link PassThroughRequestThrottler}.
+     *
+     * @return the default request throttler.
+     */
+    public static RequestThrottler defaultRequestThrottler() {
+        return DEFAULT_REQUEST_THROTTLER;
+    }
+
     /**
      * The load balancing policy in use.
      * <p/>
@@ -184,6 +199,17 @@ public class Policies {
         return speculativeExecutionPolicy;
     }
 
+    /**
+     * The request throttler in use.
+     * <p/>
+     * The request throttler limits the requests that sessions send to the cluster.
+     *
+     * @return the request throttler in use.
+     */
+    public RequestThrottler getRequestThrottler() {
+        return requestThrottler;
+    }
+
     /**
      * A builder to create a new {@code Policies} object.
      */
@@ -194,6 +220,7 @@ public class Policies {
         private AddressTranslator addressTranslator;
         private TimestampGenerator timestampGenerator;
         private SpeculativeExecutionPolicy speculativeExecutionPolicy;
+        private RequestThrottler requestThrottler;
 
         /**
          * Sets the load balancing policy.
@@ -261,6 +288,17 @@ public class Policies {
             return this;
         }
 
+        /**
+         * Sets the request throttler.
+         *
+         * @param requestThrottler see {@link #getRequestThrottler()}.
+         * @return this builder.
+         */
+        public Builder withRequestThrottler(RequestThrottler requestThrottler) {
+            this.requestThrottler = requestThrottler;
+            return this;
+        }
+
         /**
          * Builds the final object from this builder.
          * <p/>
@@ -275,7 +313,8 @@ public class Policies {
                     retryPolicy == null ? defaultRetryPolicy() : retryPolicy,
                     addressTranslator == null ? defaultAddressTranslator() : addressTranslator,
                     timestampGenerator == null ? defaultTimestampGenerator() : timestampGenerator,
-                    speculativeExecutionPolicy == null ? defaultSpeculativeExecutionPolicy() : speculativeExecutionPolicy);
+                    speculativeExecutionPolicy == null ? defaultSpeculativeExecutionPolicy() : speculativeExecutionPolicy,
+                    requestThrottler == null ? defaultRequestThrottler() : requestThrottler);
         }
     }
 }
@@ -0,0 +1,188 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A request throttler that limits the rate at which requests are sent.
+ * <p/>
+ * Permits are replenished continuously at {@code maxRequestsPerSecond}, and up to one second worth of permits can be
+ * accumulated when the session is idle. Requests that arrive when no permit is available are queued, and sent by a
+ * background task that runs every {@code drainInterval} on {@link Cluster#getScheduledTasksExecutor()}. If the queue is full, new requests are rejected with a
+ * {@link RequestThrottlingException}.
+ */
+public class RateLimitingRequestThrottler implements RequestThrottler {
+
+    private final double permitsPerNano;
+    private final double maxPermits;
+    private final int maxQueueSize;
+    private final long drainIntervalNanos;
+    private final Clock clock;
+
+    private volatile ScheduledExecutorService scheduler;
+    private volatile ScheduledFuture<?> drainFuture;
+
+    private final Object lock = new Object();
+    // All guarded by lock
+    private double permits;
+    private long lastRefillNanos;
+    private final Queue<Throttled> queue = new ArrayDeque<Throttled>();
+    private boolean drainScheduled;
+    private boolean closed;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param maxRequestsPerSecond the maximum number of requests per second.
+     * @param maxQueueSize         the maximum number of requests that can wait to be sent. If this is exceeded, new
+     *                             requests are rejected.
+     * @param drainInterval        how often queued requests are checked.
+     * @param unit                 the unit of {@code drainInterval}.
+     */
+    public RateLimitingRequestThrottler(int maxRequestsPerSecond, int maxQueueSize, long drainInterval, TimeUnit unit) {
+        this(maxRequestsPerSecond, maxQueueSize, drainInterval, unit, Clock.DEFAULT);
+    }
+
+    @VisibleForTesting
+    RateLimitingRequestThrottler(int maxRequestsPerSecond, int maxQueueSize, long drainInterval, TimeUnit unit, Clock clock) {
+        Preconditions.checkArgument(maxRequestsPerSecond > 0,
+                "maxRequestsPerSecond must be strictly positive, got %s", maxRequestsPerSecond);
+        Preconditions.checkArgument(maxQueueSize >= 0, "maxQueueSize must be positive, got %s", maxQueueSize);
+        Preconditions.checkArgument(drainInterval > 0, "drainInterval must be strictly positive, got %s", drainInterval);
+        this.permitsPerNano = maxRequestsPerSecond / (double) TimeUnit.SECONDS.toNanos(1);
+        this.maxPermits = maxRequestsPerSecond;
+        this.maxQueueSize = maxQueueSize;
+        this.drainIntervalNanos = unit.toNanos(drainInterval);
+        this.clock = clock;
+        this.permits = maxRequestsPerSecond;
+        this.lastRefillNanos = clock.nanoTime();
+    }
+
+    @Override
+    public void init(Cluster cluster) {
+        scheduler = cluster.getScheduledTasksExecutor();
+    }
+
+    @Override
+    public void register(Throttled request) {
+        boolean ready = false;
+        boolean scheduleDrain = false;
+        RequestThrottlingException error = null;
+        synchronized (lock) {
+            if (closed) {
+                error = new RequestThrottlingException("The throttler was closed");
+            } else {
+                refill();
+                if (queue.isEmpty() && permits >= 1) {
+                    permits -= 1;
+                    ready = true;
+                } else if (queue.size() < maxQueueSize) {
+                    queue.add(request);
+                    scheduleDrain = !drainScheduled;
+                    drainScheduled = true;
+                } else {
+                    error = new RequestThrottlingException(String.format(
+                            "The session has too many requests waiting to be sent (%d queued)", queue.size()));
+                }
+            }
+        }
+        if (ready)
+            request.onThrottleReady();
+        else if (error != null)
+            request.onThrottleFailure(error);
+        if (scheduleDrain)
+            scheduleDrain();
+    }
+
+    @VisibleForTesting
+    void drain() {
+        List<Throttled> toStart = new ArrayList<Throttled>();
+        boolean reschedule;
+        synchronized (lock) {
+            if (closed)
+                return;
+            refill();
+            while (permits >= 1 && !queue.isEmpty()) {
+                permits -= 1;
+                toStart.add(queue.poll());
+            }
+            reschedule = drainScheduled = !queue.isEmpty();
+        }
+        for (Throttled request : toStart)
+            request.onThrottleReady();
+        if (reschedule)
+            scheduleDrain();
+    }
+
+    // Must be called while holding lock
+    private void refill() {
+        long now = clock.nanoTime();
+        permits = Math.min(maxPermits, permits + (now - lastRefillNanos) * permitsPerNano);
+        lastRefillNanos = now;
+    }
+
+    private void scheduleDrain() {
+        ScheduledExecutorService scheduler = this.scheduler;
+        // Can be null in tests, where drain() is invoked manually
+        if (scheduler != null) {
+            drainFuture = scheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    drain();
+                }
+            }, drainIntervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void signalSuccess(Throttled request, long latencyNanos) {
+        // nothing to do
+    }
+
+    @Override
+    public void signalError(Throttled request, Throwable error, long latencyNanos) {
+        // nothing to do
+    }
+
+    /**
+     * Returns the number of requests currently waiting to be sent.
+     *
+     * @return the number of requests currently waiting to be sent.
+     */
+    public int getQueueSize() {
+        synchronized (lock) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Throttled> toFail;
+        synchronized (lock) {
+            closed = true;
+            toFail = new ArrayList<Throttled>(queue);
+            queue.clear();
+        }
+        ScheduledFuture<?> future = drainFuture;
+        if (future != null)
+            future.cancel(false);
+        for (Throttled request : toFail)
+            request.onThrottleFailure(new RequestThrottlingException("The throttler was closed"));
+    }
+}
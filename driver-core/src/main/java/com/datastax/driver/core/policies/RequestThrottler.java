@@ -0,0 +1,90 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+
+/**
+ * Limits the number of requests that a session sends to the cluster.
+ * <p/>
+ * Each request executed with {@link com.datastax.driver.core.Session#executeAsync(com.datastax.driver.core.Statement)}
+ * (and the synchronous variants built on it) is first {@link #register(Throttled) registered} with the throttler, which
+ * decides when it can be sent, or rejects it. Once the request completes, the throttler is notified with
+ * {@link #signalSuccess(Throttled, long)} or {@link #signalError(Throttled, Throwable, long)}, which allows
+ * implementations to track how many requests are in flight, or to adapt to the cluster's response times.
+ * <p/>
+ * Throttling happens before the request is sent to any host (and therefore before retries and speculative
+ * executions). Unlike {@link com.datastax.driver.core.PoolingOptions#setMaxQueueSize(int) the connection pool's queue},
+ * it can make requests wait in a single place for the whole session, so that spikes of activity are smoothed out
+ * instead of failing with {@link com.datastax.driver.core.exceptions.BusyPoolException}.
+ * <p/>
+ * Implementations must be thread-safe. The same instance is shared by all the sessions of a cluster.
+ */
+public interface RequestThrottler {
+
+    /**
+     * Gets invoked at cluster startup.
+     *
+     * @param cluster the cluster that this throttler is associated with.
+     */
+    void init(Cluster cluster);
+
+    /**
+     * Registers a new request.
+     * <p/>
+     * The throttler must eventually invoke exactly one of the request's methods: either
+     * {@link Throttled#onThrottleReady()} when the request can be sent (this can be done from within this method, if
+     * the request does not need to wait), or {@link Throttled#onThrottleFailure(RequestThrottlingException)} if it is
+     * rejected.
+     *
+     * @param request the request.
+     */
+    void register(Throttled request);
+
+    /**
+     * Notifies the throttler that a request that was allowed to proceed has completed successfully.
+     *
+     * @param request      the request.
+     * @param latencyNanos the time between {@link Throttled#onThrottleReady()} and the completion of the request.
+     */
+    void signalSuccess(Throttled request, long latencyNanos);
+
+    /**
+     * Notifies the throttler that a request that was allowed to proceed has failed (this includes cancelled requests).
+     *
+     * @param request      the request.
+     * @param error        the error.
+     * @param latencyNanos the time between {@link Throttled#onThrottleReady()} and the completion of the request.
+     */
+    void signalError(Throttled request, Throwable error, long latencyNanos);
+
+    /**
+     * Gets invoked at cluster shutdown.
+     * <p/>
+     * This gives the throttler the opportunity to perform some cleanup, for instance stop threads that it might have
+     * started, or reject the requests that are still waiting.
+     */
+    void close();
+
+    /**
+     * A request handled by a {@link RequestThrottler}.
+     */
+    interface Throttled {
+        /**
+         * Invoked when the request can be sent.
+         */
+        void onThrottleReady();
+
+        /**
+         * Invoked when the request is rejected. It will not be sent, and will fail with the given error.
+         *
+         * @param error the error.
+         */
+        void onThrottleFailure(RequestThrottlingException error);
+    }
+}
@@ -60,4 +60,24 @@ public interface SpeculativeExecutionPolicy {
          */
         long nextExecution(Host lastQueried);
     }
+
+    /**
+     * A plan that gets a chance to veto speculative executions when they are about to start.
+     * <p/>
+     * The delay returned by {@link #nextExecution(Host)} is computed when a host is queried, but most of the time the
+     * response arrives before the delay has elapsed, and no speculative execution happens. If the plan implements this
+     * interface, the driver will invoke {@link #allowExecution()} when the delay has elapsed and the query is still
+     * running, which allows policies to account for the speculative executions that actually happen (for example to
+     * limit them to a fraction of the overall traffic).
+     */
+    interface ConditionalSpeculativeExecutionPlan extends SpeculativeExecutionPlan {
+        /**
+         * Invoked when the delay returned by the last call to {@link #nextExecution(Host)} has elapsed, and the query
+         * has not completed yet.
+         *
+         * @return whether the speculative execution should start. If {@code false}, no other speculative execution
+         * will be started for this query.
+         */
+        boolean allowExecution();
+    }
 }
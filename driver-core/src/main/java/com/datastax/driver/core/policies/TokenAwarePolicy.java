@@ -8,10 +8,11 @@ package com.datastax.driver.core.policies;
 
 import com.datastax.driver.core.*;
 import com.google.common.collect.AbstractIterator;
-import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A wrapper load balancing policy that add token awareness to a child policy.
@@ -34,6 +35,10 @@ import java.util.*;
  * priority. For example, if you wrap {@link DCAwareRoundRobinPolicy} with this
  * token aware policy, replicas from remote data centers may only be
  * returned after all the host of the local data center.
+ * <p/>
+ * The replicas of each token range are copied once into an array and cached, so that building a query plan without
+ * shuffling doesn't allocate anything besides the returned iterator. The cache only depends on the token map: the
+ * child policy's distance is checked for each query plan, so it may change at any time.
  */
 public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
 
@@ -43,6 +48,18 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     private volatile ProtocolVersion protocolVersion;
     private volatile CodecRegistry codecRegistry;
 
+    // The replicas as an array, for each set of replicas returned by the metadata. Replica sets are immutable, shared by
+    // all the token ranges that have the same replicas, and replaced when the token map is rebuilt; so keys are compared
+    // by identity, and weakly referenced to let stale entries go away with the old token map.
+    private final ConcurrentMap<Set<Host>, Host[]> replicaArrays = new MapMaker().weakKeys().makeMap();
+
+    private static final ThreadLocal<Random> RANDOM = new ThreadLocal<Random>() {
+        @Override
+        protected Random initialValue() {
+            return new Random();
+        }
+    };
+
     /**
      * Creates a new {@code TokenAware} policy.
      *
@@ -110,7 +127,10 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
     public Iterator<Host> newQueryPlan(final String loggedKeyspace, final Statement statement) {
 
         Token token = statement.getRoutingToken();
-        ByteBuffer partitionKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+        // Bound statements hash their routing key in place, and cache the token
+        if (token == null && statement instanceof BoundStatement)
+            token = ((BoundStatement) statement).getRoutingToken(clusterMetadata);
+        ByteBuffer partitionKey = (token == null) ? statement.getRoutingKey(protocolVersion, codecRegistry) : null;
         String keyspace = statement.getKeyspace();
         if (keyspace == null)
             keyspace = loggedKeyspace;
@@ -118,30 +138,27 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
         if ((token == null && partitionKey == null) || keyspace == null)
             return childPolicy.newQueryPlan(keyspace, statement);
 
-        final Set<Host> replicas = token == null ?
+        Set<Host> replicas = token == null ?
                 clusterMetadata.getReplicas(Metadata.quote(keyspace), partitionKey) :
                 clusterMetadata.getReplicas(Metadata.quote(keyspace), token);
 
         if (replicas.isEmpty())
             return childPolicy.newQueryPlan(loggedKeyspace, statement);
 
-        final Iterator<Host> iter;
-        if (shuffleReplicas) {
-            List<Host> l = Lists.newArrayList(replicas);
-            Collections.shuffle(l);
-            iter = l.iterator();
-        } else {
-            iter = replicas.iterator();
-        }
+        Host[] array = replicaArray(replicas);
+        if (shuffleReplicas && array.length > 1)
+            array = shuffle(array);
+        final Host[] replicaArray = array;
 
         return new AbstractIterator<Host>() {
 
+            private int index;
             private Iterator<Host> childIterator;
 
             @Override
             protected Host computeNext() {
-                while (iter.hasNext()) {
-                    Host host = iter.next();
+                while (index < replicaArray.length) {
+                    Host host = replicaArray[index++];
                     if (host.isUp() && childPolicy.distance(host) == HostDistance.LOCAL)
                         return host;
                 }
@@ -152,7 +169,7 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
                 while (childIterator.hasNext()) {
                     Host host = childIterator.next();
                     // Skip it if it was already a local replica
-                    if (!replicas.contains(host) || childPolicy.distance(host) != HostDistance.LOCAL)
+                    if (!contains(replicaArray, host) || childPolicy.distance(host) != HostDistance.LOCAL)
                         return host;
                 }
                 return endOfData();
@@ -160,6 +177,36 @@ public class TokenAwarePolicy implements ChainableLoadBalancingPolicy {
         };
     }
 
+    private Host[] replicaArray(Set<Host> replicas) {
+        Host[] array = replicaArrays.get(replicas);
+        if (array == null) {
+            array = replicas.toArray(new Host[replicas.size()]);
+            // If another thread computed it at the same time, both results are equivalent
+            replicaArrays.put(replicas, array);
+        }
+        return array;
+    }
+
+    // Fisher-Yates shuffle of a copy (the array is shared with other query plans)
+    private static Host[] shuffle(Host[] hosts) {
+        Host[] shuffled = hosts.clone();
+        Random random = RANDOM.get();
+        for (int i = shuffled.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Host tmp = shuffled[i];
+            shuffled[i] = shuffled[j];
+            shuffled[j] = tmp;
+        }
+        return shuffled;
+    }
+
+    private static boolean contains(Host[] hosts, Host host) {
+        for (Host h : hosts)
+            if (h.equals(host))
+                return true;
+        return false;
+    }
+
     @Override
     public void onUp(Host host) {
         childPolicy.onUp(host);
@@ -192,6 +192,11 @@ public class DseCluster extends DelegatingCluster {
             return (DseCluster.Builder) super.withSpeculativeExecutionPolicy(policy);
         }
 
+        @Override
+        public DseCluster.Builder withRequestThrottler(RequestThrottler throttler) {
+            return (DseCluster.Builder) super.withRequestThrottler(throttler);
+        }
+
         @Override
         public DseCluster.Builder withCodecRegistry(CodecRegistry codecRegistry) {
             return (DseCluster.Builder) super.withCodecRegistry(codecRegistry);
@@ -471,6 +471,22 @@ public class CodecRegistryTest {
         stopCapturingLogs(logs);
     }
 
+    @Test(groups = "unit")
+    public void should_record_cache_statistics() {
+        CodecRegistry registry = new CodecRegistry();
+
+        // Built-in codecs are resolved without going through the cache
+        assertThat(registry.codecFor(cint(), Integer.class)).isSameAs(TypeCodec.cint());
+        assertThat(registry.codecFor(varchar(), "foo")).isSameAs(TypeCodec.varchar());
+        assertThat(registry.codecFor(ascii(), "foo")).isSameAs(TypeCodec.ascii());
+        assertThat(registry.getCacheStats().requestCount()).isEqualTo(0);
+
+        TypeCodec<List<Integer>> codec = registry.codecFor(list(cint()), listOf(Integer.class));
+        assertThat(registry.codecFor(list(cint()), listOf(Integer.class))).isSameAs(codec);
+        assertThat(registry.getCacheStats().missCount()).isEqualTo(1);
+        assertThat(registry.getCacheStats().hitCount()).isEqualTo(1);
+    }
+
     private MemoryAppender startCapturingLogs() {
         Logger registryLogger = Logger.getLogger(CodecRegistry.class);
         registryLogger.setLevel(Level.WARN);
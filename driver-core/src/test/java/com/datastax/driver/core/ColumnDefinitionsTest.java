@@ -6,9 +6,15 @@
  */
 package com.datastax.driver.core;
 
+import com.datastax.driver.core.exceptions.CodecNotFoundException;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class ColumnDefinitionsTest {
 
@@ -60,4 +66,94 @@ public class ColumnDefinitionsTest {
 
         assertTrue(defs.getType("column").equals(DataType.text()));
     }
+
+    @Test(groups = "unit")
+    public void should_memoize_codecs_per_column() {
+        CodecRegistry registry = new CodecRegistry().register(new NameCodec(true), new NameCodec(false));
+        ColumnDefinitions defs = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "cf", "c1", DataType.text()),
+                new ColumnDefinitions.Definition("ks", "cf", "c2", DataType.list(DataType.cint()))
+        }, registry);
+
+        assertThat(defs.codecFor(0, String.class, registry)).isSameAs(TypeCodec.varchar());
+        assertThat(defs.codecFor(0, String.class, registry)).isSameAs(TypeCodec.varchar());
+        assertThat(defs.codecFor(0, "foo", registry)).isSameAs(TypeCodec.varchar());
+        assertThat(defs.codecFor(1, (Class<Object>) null, registry).getCqlType()).isEqualTo(DataType.list(DataType.cint()));
+
+        // Custom codecs are selected by inspecting each value, the codec of the previous value can't be reused
+        TypeCodec<?> upperCaseCodec = defs.codecFor(0, new Name(true), registry);
+        TypeCodec<?> lowerCaseCodec = defs.codecFor(0, new Name(false), registry);
+        assertThat(((NameCodec) upperCaseCodec).upperCase).isTrue();
+        assertThat(((NameCodec) lowerCaseCodec).upperCase).isFalse();
+
+        // Another registry resolves its own codecs
+        CodecRegistry otherRegistry = new CodecRegistry();
+        try {
+            defs.codecFor(0, new Name(true), otherRegistry);
+            fail("Expected CodecNotFoundException");
+        } catch (CodecNotFoundException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_memoize_codecs_for_several_classes_of_same_column() {
+        CodecRegistry registry = spy(new CodecRegistry());
+        ColumnDefinitions defs = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "cf", "c1", DataType.text())
+        }, registry);
+
+        // Alternate between two classes, as when a column is read both with getString() and getObject()
+        for (int i = 0; i < 10; i++) {
+            assertThat(defs.codecFor(0, String.class, registry)).isSameAs(TypeCodec.varchar());
+            assertThat(defs.codecFor(0, (Class<Object>) null, registry)).isSameAs(TypeCodec.varchar());
+        }
+
+        verify(registry, times(1)).codecFor(DataType.text(), String.class);
+        verify(registry, times(1)).codecFor(DataType.text());
+    }
+
+    private static class Name {
+        final boolean upperCase;
+
+        Name(boolean upperCase) {
+            this.upperCase = upperCase;
+        }
+    }
+
+    // Both codecs handle Name instances, they are registered with different Java types to avoid a collision
+    private static class NameCodec extends TypeCodec<Object> {
+        final boolean upperCase;
+
+        @SuppressWarnings("unchecked")
+        NameCodec(boolean upperCase) {
+            super(DataType.text(), (Class<Object>) (upperCase ? Name.class : Object.class));
+            this.upperCase = upperCase;
+        }
+
+        @Override
+        public boolean accepts(Object value) {
+            return value instanceof Name && ((Name) value).upperCase == upperCase;
+        }
+
+        @Override
+        public ByteBuffer serialize(Object value, ProtocolVersion protocolVersion) {
+            return null;
+        }
+
+        @Override
+        public Object deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) {
+            return null;
+        }
+
+        @Override
+        public Object parse(String value) {
+            return null;
+        }
+
+        @Override
+        public String format(Object value) {
+            return null;
+        }
+    }
 }
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.Lists;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static com.datastax.driver.core.TypeTokens.listOf;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+public class ColumnRefTest {
+
+    private final CodecRegistry codecRegistry = new CodecRegistry();
+
+    @Test(groups = "unit")
+    public void should_read_row_values() {
+        ColumnDefinitions definitions = definitions("k", DataType.cint(), "\"Name\"", DataType.text(), "l", DataType.list(DataType.cint()));
+        ColumnRef<Integer> k = ColumnRef.of(definitions, "k", Integer.class);
+        ColumnRef<String> name = ColumnRef.of(definitions, "\"Name\"", String.class);
+        ColumnRef<List<Integer>> l = ColumnRef.of(definitions, "L", listOf(Integer.class));
+
+        assertThat(k.getIndex()).isEqualTo(0);
+        assertThat(name.getIndex()).isEqualTo(1);
+        assertThat(name.getName()).isEqualTo("Name");
+        assertThat(l.getType()).isEqualTo(DataType.list(DataType.cint()));
+
+        // Rows of a different page have other definitions, with the same layout
+        for (ColumnDefinitions rowDefinitions : Arrays.asList(definitions,
+                definitions("k", DataType.cint(), "\"Name\"", DataType.text(), "l", DataType.list(DataType.cint())))) {
+            Row row = ArrayBackedRow.fromData(rowDefinitions, null, V4, Lists.newArrayList(
+                    TypeCodec.cint().serialize(1, V4),
+                    TypeCodec.varchar().serialize("foo", V4),
+                    null));
+            assertThat(k.get(row)).isEqualTo(1);
+            assertThat(name.get(row)).isEqualTo("foo");
+            assertThat(l.get(row)).isEmpty();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_row_with_different_layout() {
+        ColumnRef<Integer> k = ColumnRef.of(definitions("k", DataType.cint(), "v", DataType.cint()), "v", Integer.class);
+        Row row = ArrayBackedRow.fromData(definitions("v", DataType.cint(), "k", DataType.cint()), null, V4,
+                Lists.<ByteBuffer>newArrayList(null, null));
+        try {
+            k.get(row);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_check_layout_again_when_definitions_change() {
+        ColumnDefinitions definitions = definitions("k", DataType.cint(), "v", DataType.cint());
+        ColumnRef<Integer> v = ColumnRef.of(definitions, "v", Integer.class);
+        Row row = ArrayBackedRow.fromData(definitions, null, V4,
+                Lists.newArrayList(null, TypeCodec.cint().serialize(1, V4)));
+        assertThat(v.get(row)).isEqualTo(1);
+
+        // The definitions that were checked last are remembered, but only rows that share them skip the check
+        Row otherRow = ArrayBackedRow.fromData(definitions("k", DataType.cint(), "v", DataType.text()), null, V4,
+                Lists.<ByteBuffer>newArrayList(null, null));
+        try {
+            v.get(otherRow);
+            fail("Expected IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertThat(v.get(row)).isEqualTo(1);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void should_fail_to_resolve_unknown_column() {
+        ColumnRef.of(definitions("k", DataType.cint()), "v", Integer.class);
+    }
+
+    @Test(groups = "unit")
+    public void should_read_udt_fields() {
+        UserType userType = new UserType("ks", "t", false, Arrays.asList(
+                new UserType.Field("a", DataType.cint()),
+                new UserType.Field("b", DataType.text())), V4, codecRegistry);
+        ColumnRef<String> b = ColumnRef.of(userType, "b", String.class);
+
+        assertThat(b.get(userType.newValue().setString("b", "foo"))).isEqualTo("foo");
+        assertThat(b.get(userType.newValue())).isNull();
+    }
+
+    private ColumnDefinitions definitions(Object... namesAndTypes) {
+        ColumnDefinitions.Definition[] definitions = new ColumnDefinitions.Definition[namesAndTypes.length / 2];
+        for (int i = 0; i < definitions.length; i++) {
+            String name = (String) namesAndTypes[2 * i];
+            if (name.startsWith("\""))
+                name = name.substring(1, name.length() - 1);
+            definitions[i] = new ColumnDefinitions.Definition("ks", "t", name, (DataType) namesAndTypes[2 * i + 1]);
+        }
+        return new ColumnDefinitions(definitions, codecRegistry);
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.datastax.driver.core.ResultSetPublisherTest.RecordingSubscriber;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ContinuousPagingPublisherTest {
+
+    private static final int PAGE_SIZE = 10;
+
+    @Test(groups = "unit")
+    public void should_emit_all_rows_in_bounded_rounds() {
+        FakeServer server = new FakeServer(10);
+        RecordingSubscriber subscriber = subscribe(server, options(0), 4);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.rows).containsExactlyElementsOf(server.allRows);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(server.requestedPages).containsExactly(4, 4, 4);
+    }
+
+    @Test(groups = "unit")
+    public void should_size_rounds_according_to_demand() {
+        FakeServer server = new FakeServer(10);
+        RecordingSubscriber subscriber = subscribe(server, options(0), 4);
+
+        subscriber.subscription.request(PAGE_SIZE);
+        assertThat(subscriber.rows).hasSize(PAGE_SIZE);
+        assertThat(server.requestedPages).containsExactly(1);
+
+        // no more demand: the next round should not start
+        assertThat(subscriber.completed).isFalse();
+        assertThat(server.requestedPages).containsExactly(1);
+
+        // 21 rows require 3 pages, the last one is only partially consumed
+        subscriber.subscription.request(2 * PAGE_SIZE + 1);
+        assertThat(subscriber.rows).hasSize(3 * PAGE_SIZE + 1);
+        assertThat(server.requestedPages).containsExactly(1, 3);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+        assertThat(subscriber.rows).containsExactlyElementsOf(server.allRows);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(server.requestedPages).containsExactly(1, 3, 4, 4);
+    }
+
+    @Test(groups = "unit")
+    public void should_signal_execution_errors() {
+        ContinuousPagingSession session = mock(ContinuousPagingSession.class);
+        RuntimeException error = new RuntimeException("mock error");
+        when(session.executeContinuouslyAsync(any(Statement.class), any(ContinuousPagingOptions.class)))
+                .thenReturn(Futures.<AsyncContinuousPagingResult>immediateFailedFuture(error));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new ContinuousPagingPublisher(session, new SimpleStatement("mock query"), options(0)).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.error).isSameAs(error);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_stop_emitting_when_cancelled() {
+        FakeServer server = new FakeServer(10);
+        RecordingSubscriber subscriber = subscribe(server, options(0), 4);
+
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(50);
+
+        assertThat(subscriber.rows).hasSize(5);
+        assertThat(subscriber.completed).isFalse();
+        assertThat(server.requestedPages).containsExactly(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_honor_max_pages_across_rounds() {
+        FakeServer server = new FakeServer(10);
+        RecordingSubscriber subscriber = subscribe(server, options(3), 2);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.rows).containsExactlyElementsOf(server.allRows.subList(0, 3 * PAGE_SIZE));
+        assertThat(subscriber.completed).isTrue();
+        assertThat(server.requestedPages).containsExactly(2, 1);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_modify_statement() {
+        FakeServer server = new FakeServer(3);
+        Statement statement = new SimpleStatement("mock query");
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new ContinuousPagingPublisher(server.session, statement, options(0), 1).subscribe(subscriber);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.completed).isTrue();
+        assertThat(statement.getPagingState()).isNull();
+    }
+
+    private static ContinuousPagingOptions options(int maxPages) {
+        return ContinuousPagingOptions.builder()
+                .withPageSize(PAGE_SIZE, ContinuousPagingOptions.PageUnit.ROWS)
+                .withMaxPages(maxPages)
+                .build();
+    }
+
+    private static RecordingSubscriber subscribe(FakeServer server, ContinuousPagingOptions options, int maxPagesPerRound) {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new ContinuousPagingPublisher(server.session, new SimpleStatement("mock query"), options, maxPagesPerRound)
+                .subscribe(subscriber);
+        return subscriber;
+    }
+
+    /**
+     * Simulates the server side of continuous paging: each request returns at most {@code maxPages} pages, and the
+     * last page of a request contains the paging state to resume from (the index of the next page).
+     */
+    static class FakeServer {
+        final List<Row> allRows = new ArrayList<Row>();
+        final List<Integer> requestedPages = new ArrayList<Integer>();
+        final ContinuousPagingSession session = mock(ContinuousPagingSession.class);
+        private final int pageCount;
+
+        FakeServer(int pageCount) {
+            this.pageCount = pageCount;
+            for (int i = 0; i < pageCount * PAGE_SIZE; i++)
+                allRows.add(mock(Row.class));
+            when(session.executeContinuouslyAsync(any(Statement.class), any(ContinuousPagingOptions.class)))
+                    .thenAnswer(new Answer<ListenableFuture<AsyncContinuousPagingResult>>() {
+                        @Override
+                        public ListenableFuture<AsyncContinuousPagingResult> answer(InvocationOnMock invocation) {
+                            Statement statement = (Statement) invocation.getArguments()[0];
+                            ContinuousPagingOptions options = (ContinuousPagingOptions) invocation.getArguments()[1];
+                            requestedPages.add(options.getMaxPages());
+                            int start = statement.getPagingState() == null ? 0 : statement.getPagingState().getInt(0);
+                            int end = options.getMaxPages() > 0
+                                    ? Math.min(FakeServer.this.pageCount, start + options.getMaxPages())
+                                    : FakeServer.this.pageCount;
+                            return Futures.<AsyncContinuousPagingResult>immediateFuture(new FakePage(start, end));
+                        }
+                    });
+        }
+
+        class FakePage implements AsyncContinuousPagingResult {
+            private final int index;
+            private final int end;
+
+            FakePage(int index, int end) {
+                this.index = index;
+                this.end = end;
+            }
+
+            @Override
+            public Iterable<Row> currentPage() {
+                return allRows.subList(index * PAGE_SIZE, (index + 1) * PAGE_SIZE);
+            }
+
+            @Override
+            public boolean isLast() {
+                return index == end - 1;
+            }
+
+            @Override
+            public ListenableFuture<AsyncContinuousPagingResult> nextPage() {
+                assertThat(isLast()).isFalse();
+                return Futures.<AsyncContinuousPagingResult>immediateFuture(new FakePage(index + 1, end));
+            }
+
+            @Override
+            public ColumnDefinitions getColumnDefinitions() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public int pageNumber() {
+                return index + 1;
+            }
+
+            @Override
+            public void cancel() {
+            }
+
+            @Override
+            public ExecutionInfo getExecutionInfo() {
+                ExecutionInfo info = mock(ExecutionInfo.class);
+                if (isLast() && end < pageCount) {
+                    ByteBuffer state = ByteBuffer.allocate(4);
+                    state.putInt(0, end);
+                    when(info.getPagingStateUnsafe()).thenReturn(state.array());
+                }
+                return info;
+            }
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.*;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.EnumSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameCompressorTest {
+
+    private static final ByteBufAllocator ALLOC = PooledByteBufAllocator.DEFAULT;
+
+    @DataProvider(name = "compressors")
+    public static Object[][] compressors() {
+        return new Object[][]{
+                {FrameCompressor.LZ4Compressor.instance},
+                {FrameCompressor.SnappyCompressor.instance}
+        };
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_direct_buffers(FrameCompressor compressor) throws Exception {
+        checkRoundTrip(compressor, "direct");
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_heap_buffers(FrameCompressor compressor) throws Exception {
+        checkRoundTrip(compressor, "heap");
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_composite_buffers(FrameCompressor compressor) throws Exception {
+        checkRoundTrip(compressor, "composite");
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_compress_and_decompress_buffers_with_reader_offset(FrameCompressor compressor) throws Exception {
+        checkRoundTrip(compressor, "offset");
+    }
+
+    private void checkRoundTrip(FrameCompressor compressor, String bufferType) throws Exception {
+        if (compressor == null)
+            throw new SkipException("Compression library not available");
+        byte[] data = newData(10000);
+
+        ByteBuf body = newBody(data, bufferType);
+        Frame compressed = compressor.compress(ALLOC, frame(body));
+        assertThat(body.readableBytes()).isEqualTo(data.length);
+        body.release();
+        assertThat(compressed.body.readableBytes()).isLessThan(data.length);
+
+        Frame decompressed = compressor.decompress(ALLOC, compressed);
+        compressed.body.release();
+        try {
+            byte[] result = new byte[decompressed.body.readableBytes()];
+            decompressed.body.readBytes(result);
+            assertThat(result).isEqualTo(data);
+        } finally {
+            decompressed.body.release();
+        }
+    }
+
+    private static ByteBuf newBody(byte[] data, String bufferType) {
+        if (bufferType.equals("direct")) {
+            return ALLOC.directBuffer(data.length).writeBytes(data);
+        } else if (bufferType.equals("heap")) {
+            return ALLOC.heapBuffer(data.length).writeBytes(data);
+        } else if (bufferType.equals("composite")) {
+            int half = data.length / 2;
+            return Unpooled.wrappedBuffer(
+                    ALLOC.directBuffer(half).writeBytes(data, 0, half),
+                    ALLOC.directBuffer(data.length - half).writeBytes(data, half, data.length - half));
+        } else {
+            ByteBuf buffer = ALLOC.directBuffer(data.length + 10).writeZero(10).writeBytes(data);
+            buffer.skipBytes(10);
+            return buffer;
+        }
+    }
+
+    private static Frame frame(ByteBuf body) {
+        return Frame.create(ProtocolVersion.NEWEST_SUPPORTED, Message.Request.Type.QUERY.opcode, 1,
+                EnumSet.of(Frame.Header.Flag.COMPRESSED), body);
+    }
+
+    // Compressible data: random words from a small dictionary
+    private static byte[] newData(int length) {
+        Random random = new Random(42);
+        byte[] data = new byte[length];
+        String[] words = {"cassandra ", "driver ", "frame ", "compression ", "buffer "};
+        int i = 0;
+        while (i < length) {
+            byte[] word = words[random.nextInt(words.length)].getBytes();
+            for (int j = 0; j < word.length && i < length; j++)
+                data[i++] = word[j];
+        }
+        return data;
+    }
+}
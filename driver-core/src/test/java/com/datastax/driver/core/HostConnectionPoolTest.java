@@ -147,6 +147,38 @@ public class HostConnectionPoolTest extends ScassandraTestBase.PerClassCluster {
         }
     }
 
+    /**
+     * Ensures that enqueued borrow requests are reported by the pending borrows gauge, and that the time they spent
+     * waiting is recorded once they get a connection.
+     *
+     * @test_category connection:connection_pool
+     */
+    @Test(groups = "short")
+    public void should_report_pending_borrows_and_borrow_waits() throws Exception {
+        Cluster cluster = createClusterBuilder().build();
+        List<MockRequest> allRequests = newArrayList();
+        try {
+            HostConnectionPool pool = createPool(cluster, 1, 1);
+            Metrics metrics = cluster.getMetrics();
+            List<MockRequest> requests = MockRequest.sendMany(128, pool);
+            allRequests.addAll(requests);
+            assertThat(metrics.getPendingBorrows().getValue()).isEqualTo(0);
+
+            // pool is now full, these requests will be enqueued
+            allRequests.add(MockRequest.send(pool, 10));
+            allRequests.add(MockRequest.send(pool, 10));
+            assertThat(metrics.getPendingBorrows().getValue()).isEqualTo(2);
+            assertThat(metrics.getBorrowWaits().getCount()).isEqualTo(0);
+
+            MockRequest.completeMany(1, requests);
+            assertThat(metrics.getPendingBorrows().getValue()).isEqualTo(1);
+            assertThat(metrics.getBorrowWaits().getCount()).isEqualTo(1);
+        } finally {
+            MockRequest.completeAll(allRequests);
+            cluster.close();
+        }
+    }
+
     /**
      * Validates that if a borrow request is enqueued into a pool for a Host that is currently
      * within the window of reconnecting after an error that the future tied to that query times out
@@ -700,6 +732,7 @@ public class HostConnectionPoolTest extends ScassandraTestBase.PerClassCluster {
             // Grab the new non-core connection and replace it with a spy.
             Connection extra1 = spy(pool.connections.get(1));
             pool.connections.set(1, extra1);
+            pool.connectionsChanged();
 
             // Borrow 10 times to ensure pool is utilized.
             allRequests.addAll(MockRequest.sendMany(10, pool));
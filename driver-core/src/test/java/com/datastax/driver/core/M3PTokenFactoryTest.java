@@ -8,7 +8,9 @@ package com.datastax.driver.core;
 
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
 import java.util.List;
+import java.util.Random;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -81,4 +83,32 @@ public class M3PTokenFactoryTest {
         );
     }
 
-}
\ No newline at end of file
+
+    @Test(groups = "unit")
+    public void should_hash_composite_key_like_its_serialized_form() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            // Cover all the sizes of the tail, and negative bytes (which the tail sign-extends)
+            ByteBuffer[] values = new ByteBuffer[1 + random.nextInt(4)];
+            for (int j = 0; j < values.length; j++) {
+                byte[] bytes = new byte[random.nextInt(40)];
+                random.nextBytes(bytes);
+                // Also check that the position of the values is honored
+                values[j] = ByteBuffer.wrap(bytes, 0, bytes.length);
+                values[j].position(bytes.length > 0 ? random.nextInt(bytes.length) : 0);
+            }
+            assertThat(factory.hash(values, null)).isEqualTo(factory.hash(SimpleStatement.compose(values)));
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_hash_selected_components_of_composite_key() {
+        ByteBuffer a = TypeCodec.cint().serialize(1, ProtocolVersion.NEWEST_SUPPORTED);
+        ByteBuffer b = TypeCodec.varchar().serialize("foo", ProtocolVersion.NEWEST_SUPPORTED);
+        ByteBuffer c = TypeCodec.bigint().serialize(-1L, ProtocolVersion.NEWEST_SUPPORTED);
+        ByteBuffer[] values = new ByteBuffer[]{a, b, c};
+
+        assertThat(factory.hash(values, new int[]{2, 0})).isEqualTo(factory.hash(SimpleStatement.compose(c, a)));
+        assertThat(factory.hash(values, new int[]{1})).isEqualTo(factory.hash(b));
+    }
+}
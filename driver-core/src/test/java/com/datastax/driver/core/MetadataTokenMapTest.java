@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MetadataTokenMapTest {
+
+    private static final Token.Factory FACTORY = Token.M3PToken.FACTORY;
+
+    private Metadata metadata;
+    private Host host1, host2, host3;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        host1 = host("dc1");
+        host2 = host("dc1");
+        host3 = host("dc1");
+        metadata = new Metadata(null);
+        addKeyspace("ks1", ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "2"));
+        addKeyspace("ks2", ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "2"));
+        addKeyspace("ks3", ImmutableMap.of("class", "NetworkTopologyStrategy", "dc1", "2"));
+        addKeyspace("ks4", ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "1"));
+        Map<Host, Set<Token>> tokens = ImmutableMap.<Host, Set<Token>>of(
+                host1, ImmutableSet.of(token(-100), token(200)),
+                host2, ImmutableSet.of(token(0)),
+                host3, ImmutableSet.of(token(100)));
+        metadata.rebuildTokenMap(FACTORY, tokens);
+    }
+
+    @Test(groups = "unit")
+    public void should_find_replicas_of_primary_tokens() {
+        assertThat(metadata.getReplicas("ks1", token(-100))).containsExactly(host1, host2);
+        assertThat(metadata.getReplicas("ks1", token(0))).containsExactly(host2, host3);
+        assertThat(metadata.getReplicas("ks1", token(100))).containsExactly(host3, host1);
+        assertThat(metadata.getReplicas("ks1", token(200))).containsExactly(host1, host2);
+        assertThat(metadata.getReplicas("ks4", token(0))).containsExactly(host2);
+    }
+
+    @Test(groups = "unit")
+    public void should_find_replicas_of_tokens_between_primary_tokens() {
+        assertThat(metadata.getReplicas("ks1", token(-1000))).containsExactly(host1, host2);
+        assertThat(metadata.getReplicas("ks1", token(-99))).containsExactly(host2, host3);
+        assertThat(metadata.getReplicas("ks1", token(150))).containsExactly(host1, host2);
+        // wraps around the ring
+        assertThat(metadata.getReplicas("ks1", token(1000))).containsExactly(host1, host2);
+    }
+
+    @Test(groups = "unit")
+    public void should_share_replica_sets() {
+        // Same strategy
+        assertThat(metadata.getReplicas("ks2", token(0))).isSameAs(metadata.getReplicas("ks1", token(0)));
+        // Different strategy, same replicas
+        assertThat(metadata.getReplicas("ks3", token(0))).isSameAs(metadata.getReplicas("ks1", token(0)));
+        // Different tokens, same replicas
+        assertThat(metadata.getReplicas("ks1", token(200))).isSameAs(metadata.getReplicas("ks1", token(-100)));
+    }
+
+    @Test(groups = "unit")
+    public void should_return_empty_set_for_unknown_keyspace() {
+        assertThat(metadata.getReplicas("unknown", token(0))).isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_reuse_replicas_when_schema_changes() {
+        Set<Host> replicas = metadata.getReplicas("ks1", token(0));
+
+        addKeyspace("ks5", ImmutableMap.of("class", "SimpleStrategy", "replication_factor", "3"));
+        metadata.rebuildTokenMap();
+
+        assertThat(metadata.getReplicas("ks1", token(0))).isSameAs(replicas);
+        assertThat(metadata.getReplicas("ks5", token(0))).containsExactly(host2, host3, host1);
+    }
+
+    @Test(groups = "unit")
+    public void should_compute_same_replicas_incrementally_as_from_scratch() {
+        addKeyspace("ks5", ImmutableMap.of("class", "NetworkTopologyStrategy", "dc1", "3", "dc2", "2"));
+        Random random = new Random(42);
+        List<Host> hosts = new ArrayList<Host>();
+        Map<Host, Set<Token>> tokens = new HashMap<Host, Set<Token>>();
+        for (int i = 0; i < 8; i++)
+            addHost(tokens, hosts, random);
+        metadata.rebuildTokenMap(FACTORY, tokens);
+
+        for (int i = 0; i < 10; i++) {
+            // Alternately add, remove and move nodes
+            switch (i % 3) {
+                case 0:
+                    addHost(tokens, hosts, random);
+                    break;
+                case 1:
+                    tokens.remove(hosts.remove(random.nextInt(hosts.size())));
+                    break;
+                case 2:
+                    tokens.put(hosts.get(random.nextInt(hosts.size())), randomTokens(random));
+                    break;
+            }
+            metadata.rebuildTokenMap(FACTORY, tokens);
+
+            Metadata fromScratch = new Metadata(null);
+            fromScratch.keyspaces.putAll(metadata.keyspaces);
+            fromScratch.rebuildTokenMap(FACTORY, tokens);
+            for (Set<Token> hostTokens : tokens.values()) {
+                for (Token token : hostTokens) {
+                    for (String keyspace : metadata.keyspaces.keySet()) {
+                        assertThat(metadata.getReplicas(keyspace, token))
+                                .containsExactlyElementsOf(fromScratch.getReplicas(keyspace, token));
+                    }
+                }
+            }
+        }
+    }
+
+    private void addKeyspace(String name, Map<String, String> replication) {
+        metadata.keyspaces.put(name, new KeyspaceMetadata(name, true, replication));
+    }
+
+    private static Host host(String dc) {
+        return host(dc, null);
+    }
+
+    private static Host host(String dc, String rack) {
+        Host host = mock(Host.class);
+        when(host.getDatacenter()).thenReturn(dc);
+        when(host.getRack()).thenReturn(rack);
+        return host;
+    }
+
+    private static void addHost(Map<Host, Set<Token>> tokens, List<Host> hosts, Random random) {
+        Host host = host("dc" + (1 + random.nextInt(2)), "rack" + (1 + random.nextInt(2)));
+        hosts.add(host);
+        tokens.put(host, randomTokens(random));
+    }
+
+    private static Set<Token> randomTokens(Random random) {
+        Set<Token> tokens = new HashSet<Token>();
+        for (int i = 0; i < 16; i++)
+            tokens.add(token(random.nextLong()));
+        return tokens;
+    }
+
+    private static Token token(long value) {
+        return FACTORY.fromString(Long.toString(value));
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.UUID;
+
+import static com.datastax.driver.core.ProtocolVersion.V3;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreparedStatementStoreTest {
+
+    private static final String QUERY = "SELECT v FROM t WHERE k = ?";
+    private static final UUID SCHEMA_VERSION = UUID.randomUUID();
+
+    private File file;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() throws Exception {
+        file = File.createTempFile("prepared", ".cache");
+        file.delete();
+    }
+
+    @AfterMethod(groups = "unit", alwaysRun = true)
+    public void teardown() {
+        file.delete();
+    }
+
+    @Test(groups = "unit")
+    public void should_reload_saved_statements() {
+        save(SCHEMA_VERSION, V4);
+
+        PreparedStatementStore store = load(SCHEMA_VERSION, V4);
+        Responses.Result.Prepared prepared = store.get("ks", QUERY, CodecRegistry.DEFAULT_INSTANCE);
+
+        assertThat(prepared).isNotNull();
+        assertThat(prepared.statementId).isEqualTo(MD5Digest.wrap(new byte[]{1, 2, 3, 4}));
+        assertThat(prepared.metadata.columns.getName(0)).isEqualTo("k");
+        assertThat(prepared.metadata.columns.getType(0)).isEqualTo(DataType.cint());
+        assertThat(prepared.metadata.pkIndices).containsOnly(0);
+        assertThat(prepared.resultMetadata.columns.getName(0)).isEqualTo("v");
+        // The keyspace is part of the key
+        assertThat(store.get("ks2", QUERY, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+        assertThat(store.get(null, QUERY, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_use_statements_before_validation() {
+        save(SCHEMA_VERSION, V4);
+
+        PreparedStatementStore store = new PreparedStatementStore(file);
+        store.load();
+
+        assertThat(store.get("ks", QUERY, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_discard_statements_saved_with_other_schema_version() {
+        save(SCHEMA_VERSION, V4);
+
+        PreparedStatementStore store = load(UUID.randomUUID(), V4);
+
+        assertThat(store.get("ks", QUERY, CodecRegistry.DEFAULT_INSTANCE)).isNull();
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_discard_statements_saved_with_other_protocol_version() {
+        save(SCHEMA_VERSION, V4);
+
+        PreparedStatementStore store = load(SCHEMA_VERSION, V3);
+
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_discard_statements_when_schema_changes() {
+        PreparedStatementStore store = load(SCHEMA_VERSION, V4);
+        store.put("ks", QUERY, prepared());
+        assertThat(store.size()).isEqualTo(1);
+
+        // Same version, e.g. a refresh that didn't change anything
+        store.onSchemaVersion(SCHEMA_VERSION, V4);
+        assertThat(store.size()).isEqualTo(1);
+
+        store.onSchemaVersion(UUID.randomUUID(), V4);
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_discard_statements_on_schema_change_event() {
+        PreparedStatementStore store = load(SCHEMA_VERSION, V4);
+        store.put("ks", QUERY, prepared());
+
+        store.onSchemaChange();
+
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_ignore_responses_without_encoded_body() {
+        PreparedStatementStore store = load(SCHEMA_VERSION, V4);
+        Responses.Result.Prepared prepared = prepared();
+        ByteBuf body = Unpooled.wrappedBuffer(prepared.encoded);
+
+        store.put("ks", QUERY, Responses.Result.Prepared.decode(body, V4, CodecRegistry.DEFAULT_INSTANCE, false));
+
+        assertThat(store.size()).isEqualTo(0);
+    }
+
+    private void save(UUID schemaVersion, ProtocolVersion protocolVersion) {
+        PreparedStatementStore store = load(schemaVersion, protocolVersion);
+        store.put("ks", QUERY, prepared());
+        store.save();
+        assertThat(file).exists();
+    }
+
+    private PreparedStatementStore load(UUID schemaVersion, ProtocolVersion protocolVersion) {
+        PreparedStatementStore store = new PreparedStatementStore(file);
+        store.load();
+        store.onSchemaVersion(schemaVersion, protocolVersion);
+        return store;
+    }
+
+    // A protocol v4 PREPARED response with one variable (the partition key) and one result column
+    private static Responses.Result.Prepared prepared() {
+        ByteBuf body = Unpooled.buffer();
+        CBUtil.writeBytes(new byte[]{1, 2, 3, 4}, body);
+        // variables: global table spec, 1 column, 1 partition key component at index 0
+        body.writeInt(0x0001);
+        body.writeInt(1);
+        body.writeInt(1);
+        body.writeShort(0);
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("t", body);
+        CBUtil.writeString("k", body);
+        body.writeShort(0x0009); // int
+        // result: global table spec, 1 column
+        body.writeInt(0x0001);
+        body.writeInt(1);
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("t", body);
+        CBUtil.writeString("v", body);
+        body.writeShort(0x000D); // varchar
+        return Responses.Result.Prepared.decode(body, V4, CodecRegistry.DEFAULT_INSTANCE, true);
+    }
+}
@@ -9,6 +9,7 @@ package com.datastax.driver.core;
 import org.testng.annotations.Test;
 
 import static com.datastax.driver.core.Assertions.assertThat;
+import static org.testng.Assert.fail;
 
 public class ProtocolOptionsTest extends CCMTestsSupport {
 
@@ -29,4 +30,27 @@ public class ProtocolOptionsTest extends CCMTestsSupport {
         ProtocolVersion version = cluster().getConfiguration().getProtocolOptions().getProtocolVersion();
         assertThat(version).isNotNull();
     }
+
+    @Test(groups = "unit")
+    public void should_reject_snappy_compression_with_protocol_v5() {
+        try {
+            Cluster.builder()
+                    .addContactPoint("127.0.0.1")
+                    .allowBetaProtocolVersion()
+                    .withCompression(ProtocolOptions.Compression.SNAPPY)
+                    .build();
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).isEqualTo("Snappy compression is not supported with protocol V5, use LZ4 instead");
+        }
+
+        ProtocolOptions options = new ProtocolOptions(ProtocolOptions.DEFAULT_PORT, ProtocolVersion.V5,
+                ProtocolOptions.DEFAULT_MAX_SCHEMA_AGREEMENT_WAIT_SECONDS, null, AuthProvider.NONE);
+        try {
+            options.setCompression(ProtocolOptions.Compression.SNAPPY);
+            fail("Expected IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(options.getCompression()).isEqualTo(ProtocolOptions.Compression.NONE);
+        }
+    }
 }
@@ -0,0 +1,209 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.fail;
+
+public class ReplicaGroupingWriterTest {
+
+    private static final String KEYSPACE = "ks";
+
+    private Session session;
+    private Metadata metadata;
+    private Host host1, host2;
+    private ScheduledExecutorService scheduler;
+    private List<BatchStatement> executed;
+    private List<MockFuture> futures;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        host1 = mock(Host.class);
+        host2 = mock(Host.class);
+        metadata = mock(Metadata.class);
+        when(metadata.getReplicas(eq(Metadata.quote(KEYSPACE)), any(ByteBuffer.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) {
+                // even keys on host1, odd keys on host2
+                ByteBuffer key = (ByteBuffer) invocation.getArguments()[1];
+                return (key.getInt(0) % 2 == 0) ? ImmutableSet.of(host1) : ImmutableSet.of(host2);
+            }
+        });
+
+        ProtocolOptions protocolOptions = mock(ProtocolOptions.class);
+        when(protocolOptions.getProtocolVersion()).thenReturn(ProtocolVersion.NEWEST_SUPPORTED);
+        Configuration configuration = mock(Configuration.class);
+        when(configuration.getProtocolOptions()).thenReturn(protocolOptions);
+        when(configuration.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(cluster.getConfiguration()).thenReturn(configuration);
+
+        executed = new CopyOnWriteArrayList<BatchStatement>();
+        futures = new CopyOnWriteArrayList<MockFuture>();
+        session = mock(Session.class);
+        when(session.getCluster()).thenReturn(cluster);
+        when(session.executeAsync(any(Statement.class))).thenAnswer(new Answer<ResultSetFuture>() {
+            @Override
+            public ResultSetFuture answer(InvocationOnMock invocation) {
+                executed.add((BatchStatement) invocation.getArguments()[0]);
+                MockFuture future = new MockFuture();
+                futures.add(future);
+                return future;
+            }
+        });
+
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterMethod(groups = "unit", alwaysRun = true)
+    public void teardown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test(groups = "unit")
+    public void should_group_statements_by_replicas() {
+        ReplicaGroupingWriter writer = newWriter().withMaxBatchStatements(2).build();
+        Statement s0 = statement(0), s1 = statement(1), s2 = statement(2), s4 = statement(4);
+
+        writer.write(s0);
+        writer.write(s1);
+        assertThat(executed).isEmpty();
+        writer.write(s2);
+        assertThat(executed).hasSize(1);
+        assertThat(executed.get(0).getStatements()).containsExactly(s0, s2);
+        assertThat(executed.get(0).getRoutingKey(ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE))
+                .isEqualTo(s0.getRoutingKey(ProtocolVersion.NEWEST_SUPPORTED, CodecRegistry.DEFAULT_INSTANCE));
+
+        writer.write(s4);
+        writer.flush();
+        assertThat(executed).hasSize(3);
+        assertThat(executed.get(1).getStatements()).hasSize(1);
+        assertThat(executed.get(2).getStatements()).hasSize(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_limit_batch_size_in_bytes() {
+        ReplicaGroupingWriter writer = newWriter().build();
+        int statementSize = writer.sizeOf(statement(0));
+        writer = newWriter().withMaxBatchBytes(statementSize * 2 + 1).build();
+
+        for (int i = 0; i < 6; i += 2)
+            writer.write(statement(i));
+
+        // the third statement does not fit in the first batch
+        assertThat(executed).hasSize(1);
+        assertThat(executed.get(0).getStatements()).hasSize(2);
+    }
+
+    @Test(groups = "unit")
+    public void should_send_incomplete_batch_after_max_delay() {
+        ReplicaGroupingWriter writer = newWriter().withMaxBatchDelay(10, TimeUnit.MILLISECONDS).build();
+
+        writer.write(statement(0));
+
+        verify(session, timeout(1000)).executeAsync(any(Statement.class));
+        assertThat(executed.get(0).getStatements()).hasSize(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_limit_concurrent_batches() {
+        ReplicaGroupingWriter writer = newWriter().withMaxBatchStatements(1).withMaxConcurrentBatches(1).build();
+
+        ListenableFuture<Void> future0 = writer.write(statement(0));
+        ListenableFuture<Void> future1 = writer.write(statement(1));
+        assertThat(executed).hasSize(1);
+
+        futures.get(0).complete();
+        assertThat(future0.isDone()).isTrue();
+        assertThat(executed).hasSize(2);
+        assertThat(future1.isDone()).isFalse();
+
+        futures.get(1).complete();
+        assertThat(future1.isDone()).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_report_batch_errors_on_flush() throws InterruptedException {
+        ReplicaGroupingWriter writer = newWriter().build();
+        writer.write(statement(0));
+        writer.write(statement(1));
+
+        ListenableFuture<Void> flushed = writer.close();
+        assertThat(executed).hasSize(2);
+        RuntimeException error = new RuntimeException("mock error");
+        futures.get(0).complete();
+        assertThat(flushed.isDone()).isFalse();
+        futures.get(1).fail(error);
+
+        try {
+            Uninterruptibles.getUninterruptibly(flushed);
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isSameAs(error);
+        }
+        try {
+            writer.write(statement(2));
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private ReplicaGroupingWriter.Builder newWriter() {
+        return ReplicaGroupingWriter.builder(session)
+                .withMaxBatchDelay(1, TimeUnit.HOURS)
+                .withScheduler(scheduler);
+    }
+
+    private static Statement statement(int key) {
+        ByteBuffer routingKey = ByteBuffer.allocate(4);
+        routingKey.putInt(0, key);
+        return new SimpleStatement("INSERT INTO foo (k, v) VALUES (?, ?)", key, "value" + key)
+                .setKeyspace(KEYSPACE)
+                .setRoutingKey(routingKey);
+    }
+
+    static class MockFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+
+        void complete() {
+            set(mock(ResultSet.class));
+        }
+
+        void fail(Throwable t) {
+            setException(t);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) throws TimeoutException {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+import com.datastax.driver.core.policies.ConcurrencyLimitingRequestThrottler;
+import org.scassandra.http.client.PrimingRequest;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.scassandra.http.client.PrimingRequest.then;
+import static org.testng.Assert.fail;
+
+public class RequestThrottlerTest extends ScassandraTestBase {
+
+    /**
+     * Validates that requests go through the session's throttler: requests beyond the concurrency limit wait for
+     * previous ones to complete, and are rejected once the throttler's queue is full.
+     *
+     * @test_category queries:throttling
+     */
+    @Test(groups = "short")
+    public void should_throttle_requests() throws Exception {
+        primingClient.prime(PrimingRequest.queryBuilder()
+                .withQuery("mock query")
+                .withThen(then().withFixedDelay(300L))
+                .build());
+        ConcurrencyLimitingRequestThrottler throttler = new ConcurrencyLimitingRequestThrottler(1, 1);
+        Cluster cluster = createClusterBuilder().withRequestThrottler(throttler).build();
+        try {
+            Session session = cluster.connect();
+
+            ResultSetFuture first = session.executeAsync("mock query");
+            ResultSetFuture second = session.executeAsync("mock query");
+            ResultSetFuture third = session.executeAsync("mock query");
+
+            assertThat(throttler.getConcurrentRequests()).isEqualTo(1);
+            assertThat(throttler.getQueueSize()).isEqualTo(1);
+            try {
+                third.get(1, TimeUnit.SECONDS);
+                fail("Expected a RequestThrottlingException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(RequestThrottlingException.class);
+            }
+
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertThat(throttler.getConcurrentRequests()).isEqualTo(0);
+            assertThat(throttler.getQueueSize()).isEqualTo(0);
+        } finally {
+            cluster.close();
+        }
+    }
+}
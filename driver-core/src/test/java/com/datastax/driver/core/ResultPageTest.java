@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.utils.Bytes;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ResultPageTest {
+
+    private static final ColumnDefinitions COLUMNS = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "t", "i", DataType.cint()),
+            new ColumnDefinitions.Definition("ks", "t", "s", DataType.text())
+    }, CodecRegistry.DEFAULT_INSTANCE);
+
+    @Test(groups = "unit")
+    public void should_decode_values_from_response_body() {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(0xCAFE); // bytes before the rows, should be ignored
+        int start = body.writerIndex();
+        writeValue(body, TypeCodec.cint().serialize(1, V4));
+        writeValue(body, TypeCodec.varchar().serialize("foo", V4));
+        writeValue(body, null);
+        writeValue(body, ByteBuffer.allocate(0));
+        body.writeInt(0xBABE); // bytes after the rows, should not be consumed
+        body.readerIndex(start);
+
+        ResultPage page = ResultPage.decode(body, 2, 2);
+
+        assertThat(body.readInt()).isEqualTo(0xBABE);
+        assertThat(page.size()).isEqualTo(2);
+        assertThat(page.getValue(0, 0)).isEqualTo(TypeCodec.cint().serialize(1, V4));
+        assertThat(page.getValue(0, 1)).isEqualTo(TypeCodec.varchar().serialize("foo", V4));
+        assertThat(page.getValue(1, 0)).isNull();
+        assertThat(page.getValue(1, 1).remaining()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_return_independent_buffers_for_each_read() {
+        ResultPage page = ResultPage.fromValues(Arrays.asList(Bytes.fromHexString("0x0102"), null));
+
+        ByteBuffer value = page.getValue(0, 0);
+        value.get();
+        assertThat(page.getValue(0, 0)).isEqualTo(Bytes.fromHexString("0x0102"));
+        assertThat(page.getValue(0, 0).remaining()).isEqualTo(2);
+        assertThat(page.getValue(0, 1)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_iterate_rows_lazily() {
+        ByteBuf body = Unpooled.buffer();
+        for (int i = 0; i < 3; i++) {
+            writeValue(body, TypeCodec.cint().serialize(i, V4));
+            writeValue(body, TypeCodec.varchar().serialize("value" + i, V4));
+        }
+        ResultPage page = ResultPage.decode(body, 3, 2);
+        // the page must not depend on the original buffer once decoded
+        body.setZero(0, body.capacity());
+
+        Iterable<Row> rows = page.rows(COLUMNS, null, V4);
+        // can be iterated multiple times
+        for (int pass = 0; pass < 2; pass++) {
+            Iterator<Row> iterator = rows.iterator();
+            for (int i = 0; i < 3; i++) {
+                Row row = iterator.next();
+                assertThat(row.getInt("i")).isEqualTo(i);
+                assertThat(row.getString(1)).isEqualTo("value" + i);
+            }
+            assertThat(iterator.hasNext()).isFalse();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_return_bytes_starting_at_position_zero() {
+        ColumnDefinitions columns = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+                new ColumnDefinitions.Definition("ks", "t", "i", DataType.cint()),
+                new ColumnDefinitions.Definition("ks", "t", "b", DataType.blob())
+        }, CodecRegistry.DEFAULT_INSTANCE);
+        ResultPage page = ResultPage.fromValues(Arrays.asList(
+                TypeCodec.cint().serialize(1, V4), Bytes.fromHexString("0x0102")));
+
+        Row row = page.rows(columns, null, V4).iterator().next();
+        for (ByteBuffer value : Arrays.asList(row.getBytesUnsafe(1), row.getBytes(1), row.get(1, ByteBuffer.class))) {
+            assertThat(value.position()).isEqualTo(0);
+            assertThat(value.remaining()).isEqualTo(2);
+            assertThat(Bytes.toHexString(value)).isEqualTo("0x0102");
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_empty_page() {
+        ResultPage page = ResultPage.decode(Unpooled.EMPTY_BUFFER, 0, 2);
+        assertThat(page.size()).isEqualTo(0);
+        assertThat(page.rows(COLUMNS, null, V4).iterator().hasNext()).isFalse();
+    }
+
+    private static void writeValue(ByteBuf body, ByteBuffer value) {
+        if (value == null) {
+            body.writeInt(-1);
+        } else {
+            body.writeInt(value.remaining());
+            body.writeBytes(value.duplicate());
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ResultSetPublisherTest {
+
+    @Test(groups = "unit")
+    public void should_emit_all_rows_across_pages() {
+        PagedResultSet rs = new PagedResultSet(3, 10);
+        RecordingSubscriber subscriber = subscribe(rs, 10);
+
+        subscriber.subscription.request(Long.MAX_VALUE);
+
+        assertThat(subscriber.rows).containsExactlyElementsOf(rs.allRows);
+        assertThat(subscriber.completed).isTrue();
+        assertThat(subscriber.error).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_only_fetch_pages_when_demand_requires_it() {
+        PagedResultSet rs = new PagedResultSet(3, 10);
+        RecordingSubscriber subscriber = subscribe(rs, 10);
+
+        subscriber.subscription.request(1);
+        assertThat(subscriber.rows).hasSize(1);
+        // 9 rows left: no need to fetch yet
+        assertThat(rs.fetchedPages).isEqualTo(1);
+
+        subscriber.subscription.request(5);
+        assertThat(subscriber.rows).hasSize(6);
+        // 4 rows left, which is less than half the fetch size: the next page should have been prefetched
+        assertThat(rs.fetchedPages).isEqualTo(2);
+        assertThat(subscriber.completed).isFalse();
+
+        subscriber.subscription.request(30);
+        assertThat(subscriber.rows).containsExactlyElementsOf(rs.allRows);
+        assertThat(subscriber.completed).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_execute_before_first_request() {
+        PagedResultSet rs = new PagedResultSet(1, 10);
+        Session session = mockSession(rs);
+        ResultSetPublisher publisher = new ResultSetPublisher(session, new SimpleStatement("mock query").setFetchSize(10));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+
+        publisher.subscribe(subscriber);
+        verify(session, never()).executeAsync(any(Statement.class));
+
+        subscriber.subscription.request(1);
+        verify(session).executeAsync(any(Statement.class));
+    }
+
+    @Test(groups = "unit")
+    public void should_stop_emitting_when_cancelled() {
+        PagedResultSet rs = new PagedResultSet(3, 10);
+        RecordingSubscriber subscriber = subscribe(rs, 10);
+
+        subscriber.subscription.request(5);
+        subscriber.subscription.cancel();
+        subscriber.subscription.request(5);
+
+        assertThat(subscriber.rows).hasSize(5);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_signal_execution_errors() {
+        Session session = mock(Session.class);
+        RuntimeException error = new RuntimeException("mock error");
+        when(session.executeAsync(any(Statement.class))).thenReturn(new TestResultSetFuture(null, error));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        new ResultSetPublisher(session, new SimpleStatement("mock query").setFetchSize(10)).subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+
+        assertThat(subscriber.error).isSameAs(error);
+        assertThat(subscriber.completed).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_signal_error_on_non_positive_request() {
+        PagedResultSet rs = new PagedResultSet(1, 10);
+        RecordingSubscriber subscriber = subscribe(rs, 10);
+
+        subscriber.subscription.request(0);
+
+        assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static RecordingSubscriber subscribe(PagedResultSet rs, int fetchSize) {
+        ResultSetPublisher publisher = new ResultSetPublisher(mockSession(rs), new SimpleStatement("mock query").setFetchSize(fetchSize));
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        return subscriber;
+    }
+
+    private static Session mockSession(ResultSet rs) {
+        Session session = mock(Session.class);
+        when(session.executeAsync(any(Statement.class))).thenReturn(new TestResultSetFuture(rs, null));
+        return session;
+    }
+
+    static class RecordingSubscriber implements Subscriber<Row> {
+        Subscription subscription;
+        final List<Row> rows = new ArrayList<Row>();
+        boolean completed;
+        Throwable error;
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(Row row) {
+            rows.add(row);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    static class TestResultSetFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+        TestResultSetFuture(ResultSet rs, Throwable error) {
+            if (error == null)
+                set(rs);
+            else
+                setException(error);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * A result set that returns pages of mock rows, and counts how many pages were fetched.
+     */
+    static class PagedResultSet implements ResultSet {
+        final List<Row> allRows = new ArrayList<Row>();
+        private final Queue<Row> available = new ArrayDeque<Row>();
+        private final int pageCount;
+        private final int pageSize;
+        int fetchedPages;
+
+        PagedResultSet(int pageCount, int pageSize) {
+            this.pageCount = pageCount;
+            this.pageSize = pageSize;
+            fetchPage();
+        }
+
+        private void fetchPage() {
+            for (int i = 0; i < pageSize; i++) {
+                Row row = mock(Row.class);
+                allRows.add(row);
+                available.add(row);
+            }
+            fetchedPages += 1;
+        }
+
+        @Override
+        public int getAvailableWithoutFetching() {
+            return available.size();
+        }
+
+        @Override
+        public boolean isFullyFetched() {
+            return fetchedPages == pageCount;
+        }
+
+        @Override
+        public ListenableFuture<ResultSet> fetchMoreResults() {
+            if (!isFullyFetched())
+                fetchPage();
+            return Futures.<ResultSet>immediateFuture(this);
+        }
+
+        @Override
+        public Row one() {
+            return available.poll();
+        }
+
+        @Override
+        public boolean isExhausted() {
+            assertThat(available).as("isExhausted() would block").isNotEmpty();
+            return false;
+        }
+
+        @Override
+        public List<Row> all() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Iterator<Row> iterator() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ColumnDefinitions getColumnDefinitions() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean wasApplied() {
+            return true;
+        }
+
+        @Override
+        public ExecutionInfo getExecutionInfo() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<ExecutionInfo> getAllExecutionInfo() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
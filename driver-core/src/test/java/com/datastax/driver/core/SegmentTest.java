@@ -0,0 +1,258 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.DriverInternalError;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.DecoderException;
+import org.testng.SkipException;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+public class SegmentTest {
+
+    @DataProvider(name = "compressors")
+    public static Object[][] compressors() {
+        return new Object[][]{
+                {null},
+                {FrameCompressor.LZ4Compressor.instance}
+        };
+    }
+
+    // Known answers for the layout of Cassandra's FrameEncoderCrc/FrameDecoderCrc and FrameEncoderLZ4/FrameDecoderLZ4.
+    // A self-contained segment with an OPTIONS request on stream 1 (9 bytes), as sent by the client:
+    private static final String OPTIONS_SEGMENT = "090002" + "a4c8c1" + "050000010500000000" + "b5557486";
+    // The same with the LZ4 header (the payload is not compressed since that wouldn't reduce its size):
+    private static final String OPTIONS_SEGMENT_LZ4 = "0900000004" + "c2b895" + "050000010500000000" + "b5557486";
+    // A self-contained segment with a READY response on stream 0, as sent by the server:
+    private static final String READY_SEGMENT = "090002" + "a4c8c1" + "850000000200000000" + "4f5a5d99";
+    private static final String READY_SEGMENT_LZ4 = "0900000004" + "c2b895" + "850000000200000000" + "4f5a5d99";
+
+    @Test(groups = "unit")
+    public void should_compute_known_checksums() {
+        // Header of an uncompressed, self-contained segment with a payload of 9 bytes
+        assertThat(Crc.computeCrc24(9 | (1 << 17), 3)).isEqualTo(0xC1C8A4);
+        // Header of a compressed, self-contained segment with a payload of 9 bytes, sent uncompressed
+        assertThat(Crc.computeCrc24(9 | (1L << 34), 5)).isEqualTo(0x95B8C2);
+        assertThat(Crc.computeCrc32(Unpooled.wrappedBuffer(hex("850000000200000000")), 0, 9)).isEqualTo(0x995D5A4F);
+        // Direct buffers are checksummed by chunks
+        ByteBuf direct = Unpooled.directBuffer().writeBytes(hex("050000010500000000"));
+        try {
+            assertThat(Crc.computeCrc32(direct, 0, 9)).isEqualTo(0x867455B5);
+        } finally {
+            direct.release();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_encode_known_segment() {
+        checkEncoded(null, OPTIONS_SEGMENT);
+    }
+
+    @Test(groups = "unit")
+    public void should_encode_known_segment_with_lz4_header() {
+        if (FrameCompressor.LZ4Compressor.instance == null)
+            throw new SkipException("Compression library not available");
+        checkEncoded(FrameCompressor.LZ4Compressor.instance, OPTIONS_SEGMENT_LZ4);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_known_segment() {
+        checkReady(new EmbeddedChannel(new Segment.Decoder(null)), READY_SEGMENT);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_known_segment_with_lz4_header() {
+        if (FrameCompressor.LZ4Compressor.instance == null)
+            throw new SkipException("Compression library not available");
+        checkReady(new EmbeddedChannel(new Segment.Decoder(FrameCompressor.LZ4Compressor.instance)), READY_SEGMENT_LZ4);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_segment_received_with_upgrade_response() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.attr(Message.CODEC_REGISTRY_ATTRIBUTE_KEY).set(CodecRegistry.DEFAULT_INSTANCE);
+        channel.pipeline().addLast("frameDecoder", new Frame.Decoder());
+        channel.pipeline().addLast("frameEncoder", new Frame.Encoder());
+        channel.pipeline().addLast("messageDecoder", new Message.ProtocolDecoder(false));
+        channel.pipeline().addLast("segmentUpgrader", new Segment.Upgrader(null));
+
+        // A READY response in the legacy format, and in the same read a segment with a VOID result on stream 1
+        channel.writeInbound(Unpooled.wrappedBuffer(hex("850000000200000000"
+                + "0d0002" + "cf07f7" + "85000001080000000400000001" + "1e43b5fd")));
+
+        Message.Response ready = (Message.Response) channel.readInbound();
+        assertThat(ready.type).isEqualTo(Message.Response.Type.READY);
+        Message.Response result = (Message.Response) channel.readInbound();
+        assertThat(result).isInstanceOf(Responses.Result.Void.class);
+        assertThat(result.getStreamId()).isEqualTo(1);
+        assertThat(channel.readInbound()).isNull();
+        assertThat(channel.pipeline().names()).contains("segmentDecoder", "segmentEncoder").doesNotContain("frameDecoder");
+        channel.finish();
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_pack_small_frames_in_one_segment(FrameCompressor.LZ4Compressor compressor) {
+        List<Frame> frames = new ArrayList<Frame>();
+        for (int i = 0; i < 10; i++)
+            frames.add(frame(i, 100));
+
+        List<ByteBuf> segments = encode(compressor, frames);
+
+        assertThat(segments).hasSize(1);
+        checkDecoded(compressor, segments, 10, 100);
+    }
+
+    @Test(groups = "unit", dataProvider = "compressors")
+    public void should_split_large_frames(FrameCompressor.LZ4Compressor compressor) {
+        List<Frame> frames = new ArrayList<Frame>();
+        frames.add(frame(0, 10));
+        frames.add(frame(1, 300 * 1024));
+        frames.add(frame(2, 10));
+
+        List<ByteBuf> segments = encode(compressor, frames);
+
+        // small frame, 3 segments for the large one, small frame
+        assertThat(segments).hasSize(5);
+        checkDecoded(compressor, segments, 3, -1);
+    }
+
+    @Test(groups = "unit")
+    public void should_compress_payloads() {
+        FrameCompressor.LZ4Compressor compressor = FrameCompressor.LZ4Compressor.instance;
+        if (compressor == null)
+            throw new SkipException("Compression library not available");
+        List<Frame> frames = new ArrayList<Frame>();
+        for (int i = 0; i < 10; i++)
+            frames.add(frame(i, 1000));
+
+        ByteBuf segment = encode(compressor, frames).get(0);
+        try {
+            assertThat(segment.readableBytes()).isLessThan(10 * 1000);
+        } finally {
+            segment.release();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_detect_corrupted_payload() {
+        List<Frame> frames = new ArrayList<Frame>();
+        frames.add(frame(0, 100));
+        ByteBuf segment = encode(null, frames).get(0);
+        segment.setByte(50, segment.getByte(50) ^ 1);
+
+        EmbeddedChannel channel = new EmbeddedChannel(new Segment.Decoder(null));
+        try {
+            channel.writeInbound(segment);
+            fail("Expected a DecoderException");
+        } catch (DecoderException e) {
+            assertThat(e.getCause()).isInstanceOf(DriverInternalError.class);
+            assertThat(e.getCause().getMessage()).contains("payload");
+        } finally {
+            channel.finish();
+        }
+    }
+
+    private static void checkEncoded(FrameCompressor.LZ4Compressor compressor, String expected) {
+        List<Frame> frames = new ArrayList<Frame>();
+        frames.add(Frame.create(ProtocolVersion.V5, Message.Request.Type.OPTIONS.opcode, 1,
+                EnumSet.noneOf(Frame.Header.Flag.class), Unpooled.EMPTY_BUFFER));
+        List<ByteBuf> segments = encode(compressor, frames);
+        assertThat(segments).hasSize(1);
+        try {
+            assertThat(ByteBufUtil.hexDump(segments.get(0))).isEqualTo(expected);
+        } finally {
+            segments.get(0).release();
+        }
+    }
+
+    private static void checkReady(EmbeddedChannel channel, String segment) {
+        channel.writeInbound(Unpooled.wrappedBuffer(hex(segment)));
+        Frame frame = (Frame) channel.readInbound();
+        assertThat(frame.header.version).isEqualTo(ProtocolVersion.V5);
+        assertThat(frame.header.streamId).isEqualTo(0);
+        assertThat(frame.header.opcode).isEqualTo(Message.Response.Type.READY.opcode);
+        assertThat(frame.body.readableBytes()).isEqualTo(0);
+        frame.body.release();
+        assertThat(channel.readInbound()).isNull();
+        channel.finish();
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++)
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        return bytes;
+    }
+
+    private static List<ByteBuf> encode(FrameCompressor.LZ4Compressor compressor, List<Frame> frames) {
+        EmbeddedChannel channel = new EmbeddedChannel(new Segment.Encoder(compressor));
+        for (Frame frame : frames)
+            channel.write(frame);
+        channel.flush();
+        List<ByteBuf> segments = new ArrayList<ByteBuf>();
+        ByteBuf segment;
+        while ((segment = (ByteBuf) channel.readOutbound()) != null)
+            segments.add(segment);
+        channel.finish();
+        return segments;
+    }
+
+    private static void checkDecoded(FrameCompressor.LZ4Compressor compressor, List<ByteBuf> segments,
+                                     int expectedFrames, int expectedLength) {
+        EmbeddedChannel channel = new EmbeddedChannel(new Segment.Decoder(compressor));
+        // Feed the bytes in arbitrary chunks, segments don't necessarily arrive in one read
+        ByteBuf all = Unpooled.wrappedBuffer(segments.toArray(new ByteBuf[segments.size()]));
+        while (all.isReadable())
+            channel.writeInbound(all.readSlice(Math.min(all.readableBytes(), 1000)).retain());
+        all.release();
+
+        for (int i = 0; i < expectedFrames; i++) {
+            Frame frame = (Frame) channel.readInbound();
+            assertThat(frame).isNotNull();
+            assertThat(frame.header.streamId).isEqualTo(i);
+            assertThat(frame.header.version).isEqualTo(ProtocolVersion.V5);
+            if (expectedLength >= 0)
+                assertThat(frame.body.readableBytes()).isEqualTo(expectedLength);
+            checkBody(frame.header.streamId, frame.body);
+            frame.body.release();
+        }
+        assertThat(channel.readInbound()).isNull();
+        channel.finish();
+    }
+
+    private static Frame frame(int streamId, int length) {
+        ByteBuf body = Unpooled.buffer(length);
+        Random random = new Random(streamId);
+        // Compressible but not trivial: random letters from a small alphabet
+        for (int i = 0; i < length; i++)
+            body.writeByte(nextLetter(random));
+        return Frame.create(ProtocolVersion.V5, Message.Response.Type.RESULT.opcode, streamId,
+                EnumSet.noneOf(Frame.Header.Flag.class), body);
+    }
+
+    private static void checkBody(int streamId, ByteBuf body) {
+        Random random = new Random(streamId);
+        for (int i = body.readerIndex(); i < body.writerIndex(); i++)
+            assertThat(body.getByte(i)).isEqualTo((byte) nextLetter(random));
+    }
+
+    private static int nextLetter(Random random) {
+        return 'a' + random.nextInt(4);
+    }
+}
@@ -6,12 +6,20 @@
  */
 package com.datastax.driver.core;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.testng.annotations.Test;
 
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -87,4 +95,73 @@ public class SimpleStatementTest {
         ).isEqualTo(2);
     }
 
+
+    @Test(groups = "unit")
+    public void should_encode_direct_values_like_serialized_values() {
+        ProtocolVersion version = ProtocolVersion.V4;
+        CodecRegistry codecRegistry = new CodecRegistry();
+        SimpleStatement statement = new SimpleStatement("doesn't matter",
+                1, 2L, 3.0, 4.0f, true, (short) 5, (byte) 6, UUID.randomUUID(),
+                "ascii", "caf\u00e9 \u20ac \ud83d\ude00 \ud83d", "",
+                new BigDecimal("7.5"), new Date(8), null);
+
+        List<Object> directValues = statement.getDirectValues(version, codecRegistry);
+        assertThat(directValues.get(0)).isInstanceOf(Requests.DirectValue.class);
+        assertThat(directValues.get(9)).isInstanceOf(Requests.DirectValue.class);
+        // mutable or non built-in types are serialized eagerly
+        assertThat(directValues.get(11)).isInstanceOf(ByteBuffer.class);
+        assertThat(directValues.get(12)).isInstanceOf(ByteBuffer.class);
+        assertThat(directValues.get(13)).isNull();
+
+        ByteBuf direct = encode(directValues, Collections.<String, Object>emptyMap(), version);
+        ByteBuf serialized = encode(Arrays.asList(statement.getValues(version, codecRegistry)),
+                Collections.<String, Object>emptyMap(), version);
+        assertThat(direct).isEqualTo(serialized);
+
+        Map<String, Object> namedValues = new HashMap<String, Object>();
+        namedValues.put("a", 1);
+        namedValues.put("b", "foo");
+        statement = new SimpleStatement("doesn't matter", namedValues);
+        direct = encode(Collections.emptyList(), statement.getDirectNamedValues(version, codecRegistry), version);
+        serialized = encode(Collections.emptyList(), statement.getNamedValues(version, codecRegistry), version);
+        assertThat(direct).isEqualTo(serialized);
+    }
+
+    @Test(groups = "unit")
+    public void should_encode_direct_values_in_batches() {
+        ProtocolVersion version = ProtocolVersion.V4;
+        CodecRegistry codecRegistry = new CodecRegistry();
+        SimpleStatement statement = new SimpleStatement("doesn't matter", 1, "foo", new BigDecimal("7.5"), null);
+        BatchStatement batch = new BatchStatement().add(statement);
+
+        BatchStatement.IdAndValues idAndVals = batch.getIdAndValues(version, codecRegistry);
+        assertThat(idAndVals.values.get(0).get(0)).isInstanceOf(Requests.DirectValue.class);
+
+        Requests.BatchProtocolOptions options = new Requests.BatchProtocolOptions(ConsistencyLevel.ONE,
+                ConsistencyLevel.SERIAL, Long.MIN_VALUE);
+        List<List<?>> serializedValues = new ArrayList<List<?>>();
+        serializedValues.add(Arrays.asList(statement.getValues(version, codecRegistry)));
+        ByteBuf direct = encode(new Requests.Batch(batch.batchType, idAndVals.ids, idAndVals.values, options, false), version);
+        ByteBuf serialized = encode(new Requests.Batch(batch.batchType, idAndVals.ids, serializedValues, options, false), version);
+        assertThat(direct).isEqualTo(serialized);
+    }
+
+    private static ByteBuf encode(Requests.Batch batch, ProtocolVersion version) {
+        int size = Requests.Batch.coder.encodedSize(batch, version);
+        ByteBuf buffer = Unpooled.buffer(size);
+        Requests.Batch.coder.encode(batch, buffer, version);
+        assertThat(buffer.readableBytes()).isEqualTo(size);
+        return buffer;
+    }
+
+    private static ByteBuf encode(List<?> positionalValues, Map<String, ?> namedValues, ProtocolVersion version) {
+        Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.QUERY,
+                ConsistencyLevel.ONE, positionalValues, namedValues, false, -1, null, ConsistencyLevel.SERIAL,
+                Long.MIN_VALUE, null);
+        int size = options.encodedSize(version);
+        ByteBuf buffer = Unpooled.buffer(size);
+        options.encode(buffer, version);
+        assertThat(buffer.readableBytes()).isEqualTo(size);
+        return buffer;
+    }
 }
@@ -0,0 +1,137 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Snapshot;
+import com.codahale.metrics.Timer;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.StatementLatencyTracker.Dimension.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class StatementLatencyTrackerTest {
+
+    private MetricRegistry registry;
+    private Cluster cluster;
+    private Host host;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        registry = new MetricRegistry();
+        Metrics metrics = mock(Metrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+        cluster = mock(Cluster.class);
+        when(cluster.getMetrics()).thenReturn(metrics);
+        when(cluster.getConfiguration()).thenReturn(Configuration.builder()
+                .withQueryOptions(new QueryOptions().setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM))
+                .build());
+        host = mock(Host.class);
+        when(host.getSocketAddress()).thenReturn(new InetSocketAddress("127.0.0.1", 9042));
+    }
+
+    @Test(groups = "unit")
+    public void should_name_metrics_after_enabled_dimensions() {
+        StatementLatencyTracker tracker = StatementLatencyTracker.builder(1000)
+                .withDimensions(CONSISTENCY_LEVEL, KEYSPACE, HOST, STATEMENT)
+                .build();
+        tracker.onRegister(cluster);
+
+        Statement statement = new SimpleStatement("SELECT * FROM foo").setKeyspace("ks");
+        String hash = String.format("%08x", "SELECT * FROM foo".hashCode());
+        assertThat(tracker.metricName(host, statement))
+                .isEqualTo("statement-latencies." + hash + ".ks.127_0_0_1_9042.LOCAL_QUORUM");
+
+        statement.setConsistencyLevel(ConsistencyLevel.ONE);
+        assertThat(tracker.metricName(host, statement))
+                .isEqualTo("statement-latencies." + hash + ".ks.127_0_0_1_9042.ONE");
+
+        assertThat(tracker.metricName(host, new BatchStatement()))
+                .isEqualTo("statement-latencies.batch.none.127_0_0_1_9042.LOCAL_QUORUM");
+    }
+
+    @Test(groups = "unit")
+    public void should_record_latencies_in_registry() {
+        StatementLatencyTracker tracker = StatementLatencyTracker.builder(1000)
+                .withInterval(0, TimeUnit.MILLISECONDS)
+                .build();
+        tracker.onRegister(cluster);
+        Statement statement = new SimpleStatement("SELECT * FROM foo");
+
+        for (int i = 1; i <= 100; i++)
+            tracker.update(host, statement, null, TimeUnit.MILLISECONDS.toNanos(i));
+        // excluded exceptions are ignored
+        tracker.update(host, statement, new UnavailableException(ConsistencyLevel.ONE, 1, 0), TimeUnit.MILLISECONDS.toNanos(999));
+
+        Timer timer = tracker.getTimer(host, statement);
+        assertThat(registry.getTimers()).containsEntry(tracker.metricName(host, statement), timer);
+        assertThat(timer.getCount()).isEqualTo(100);
+        Snapshot snapshot = timer.getSnapshot();
+        assertThat(snapshot.size()).isEqualTo(100);
+        // 2 significant digits: values are accurate within 1%
+        assertThat((double) snapshot.getMax()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100), offset(0.01 * 100e6));
+        assertThat(snapshot.get99thPercentile()).isEqualTo(99e6, offset(0.01 * 99e6));
+        assertThat(snapshot.getMedian()).isEqualTo(50e6, offset(0.01 * 50e6));
+    }
+
+    @Test(groups = "unit")
+    public void should_share_timer_between_equivalent_statements() {
+        StatementLatencyTracker tracker = StatementLatencyTracker.builder(1000)
+                .withDimensions(STATEMENT, CONSISTENCY_LEVEL)
+                .build();
+        tracker.onRegister(cluster);
+
+        tracker.update(host, new SimpleStatement("SELECT * FROM foo"), null, 1000);
+        tracker.update(host, new SimpleStatement("SELECT * FROM foo"), null, 1000);
+        tracker.update(host, new SimpleStatement("SELECT * FROM foo").setConsistencyLevel(ConsistencyLevel.LOCAL_QUORUM), null, 1000);
+        tracker.update(host, new SimpleStatement("SELECT * FROM foo").setConsistencyLevel(ConsistencyLevel.ONE), null, 1000);
+
+        assertThat(registry.getTimers()).hasSize(2);
+        assertThat(tracker.getTimer(host, new SimpleStatement("SELECT * FROM foo")).getCount()).isEqualTo(3);
+    }
+
+    @Test(groups = "unit")
+    public void should_evict_least_recently_used_metrics() {
+        StatementLatencyTracker tracker = StatementLatencyTracker.builder(1000)
+                .withMaxMetrics(2)
+                .build();
+        tracker.onRegister(cluster);
+
+        for (int i = 0; i < 10; i++)
+            tracker.update(host, new SimpleStatement("SELECT * FROM foo" + i), null, 1000);
+
+        assertThat(registry.getTimers()).hasSize(2);
+        assertThat(tracker.getTimer(host, new SimpleStatement("SELECT * FROM foo9"))).isNotNull();
+        assertThat(tracker.getTimer(host, new SimpleStatement("SELECT * FROM foo0"))).isNull();
+
+        tracker.onUnregister(cluster);
+        assertThat(registry.getTimers()).isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_do_nothing_if_metrics_disabled() {
+        when(cluster.getMetrics()).thenReturn(null);
+        StatementLatencyTracker tracker = StatementLatencyTracker.builder(1000).build();
+        tracker.onRegister(cluster);
+        Statement statement = new SimpleStatement("SELECT * FROM foo");
+
+        tracker.update(host, statement, null, 1000);
+
+        assertThat(tracker.getTimer(host, statement)).isNull();
+    }
+
+    private static org.assertj.core.data.Offset<Double> offset(double value) {
+        return org.assertj.core.data.Offset.offset(value);
+    }
+}
@@ -6,9 +6,17 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.MetricRegistry;
 import org.testng.annotations.Test;
 
+import java.util.BitSet;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class StreamIdGeneratorTest {
 
@@ -35,4 +43,82 @@ public class StreamIdGeneratorTest {
 
         assertEquals(generator.next(), -1);
     }
+
+    @Test(groups = "unit")
+    public void should_find_released_ids_when_almost_exhausted() {
+        Metrics metrics = mockMetrics();
+        StreamIdGenerator generator = StreamIdGenerator.newInstance(ProtocolVersion.V4, metrics);
+
+        for (int i = 0; i < StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3; i++)
+            assertTrue(generator.next() >= 0);
+        assertEquals(generator.next(), -1);
+        assertEquals(metrics.getStreamIdExhaustions().getCount(), 1);
+
+        // whatever the starting point of the next search, released ids should be found
+        for (int i = 0; i < 1000; i++) {
+            int id = (i * 7919) % StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3;
+            generator.release(id);
+            assertEquals(generator.next(), id);
+        }
+        assertEquals(generator.next(), -1);
+        assertEquals(metrics.getStreamIdExhaustions().getCount(), 2);
+    }
+
+    @Test(groups = "unit")
+    public void should_never_hand_out_the_same_id_twice_concurrently() throws Exception {
+        final StreamIdGenerator generator = StreamIdGenerator.newInstance(ProtocolVersion.V4);
+        final int max = StreamIdGenerator.MAX_STREAM_PER_CONNECTION_V3;
+        // keep most ids in use for the duration of the test
+        for (int i = 0; i < max - 64; i++)
+            generator.next();
+
+        final int threads = 8;
+        final AtomicReference<String> error = new AtomicReference<String>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final BitSet inUse = new BitSet(max);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        start.await();
+                        for (int i = 0; i < 100000; i++) {
+                            int id = generator.next();
+                            if (id < 0)
+                                continue;
+                            synchronized (inUse) {
+                                if (inUse.get(id))
+                                    error.compareAndSet(null, "id " + id + " was handed out twice");
+                                inUse.set(id);
+                            }
+                            synchronized (inUse) {
+                                inUse.clear(id);
+                            }
+                            generator.release(id);
+                        }
+                        return null;
+                    }
+                });
+            }
+            start.countDown();
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(error.get(), null);
+        // all the ids that were not held at the beginning of the test should be available again
+        for (int i = 0; i < 64; i++)
+            assertTrue(generator.next() >= 0);
+        assertEquals(generator.next(), -1);
+    }
+
+    private static Metrics mockMetrics() {
+        MetricRegistry registry = new MetricRegistry();
+        Metrics metrics = mock(Metrics.class);
+        when(metrics.getStreamIdCasRetries()).thenReturn(registry.counter("stream-id-cas-retries"));
+        when(metrics.getStreamIdExhaustions()).thenReturn(registry.counter("stream-id-exhaustions"));
+        return metrics;
+    }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@CCMConfig(numberOfNodes = 3)
+public class TableScannerIntegrationTest extends CCMTestsSupport {
+
+    private static final int ROWS = 1000;
+
+    @Override
+    public void onTestContextInitialized() {
+        List<String> statements = new ArrayList<String>();
+        statements.add("CREATE TABLE scanned (k int, c int, v text, PRIMARY KEY (k, c))");
+        for (int i = 0; i < ROWS; i++)
+            statements.add(String.format("INSERT INTO scanned (k, c, v) VALUES (%d, %d, 'value%d')", i / 10, i % 10, i));
+        execute(statements);
+    }
+
+    @Test(groups = "short")
+    public void should_scan_all_rows_with_iterator() {
+        TableScanner scanner = TableScanner.builder(session(), table())
+                .withSplitsPerHost(8)
+                .withFetchSize(7)
+                .build();
+
+        Set<String> values = newValueSet();
+        for (Row row : scanner)
+            assertThat(values.add(row.getString("v"))).isTrue();
+
+        assertThat(values).hasSize(ROWS);
+    }
+
+    @Test(groups = "short")
+    public void should_scan_all_rows_with_handler() throws ExecutionException {
+        TableScanner scanner = TableScanner.builder(session(), table())
+                .withColumns("v")
+                .withMaxConcurrentRangesPerHost(4)
+                .withFetchSize(13)
+                .withContinuousPaging(false)
+                .build();
+
+        final Set<String> values = newValueSet();
+        Uninterruptibles.getUninterruptibly(scanner.scan(new TableScanner.RowHandler() {
+            @Override
+            public void onRow(Row row) {
+                values.add(row.getString(0));
+            }
+        }));
+
+        assertThat(values).hasSize(ROWS);
+    }
+
+    private TableMetadata table() {
+        return cluster().getMetadata().getKeyspace(keyspace).getTable("scanned");
+    }
+
+    private static Set<String> newValueSet() {
+        return Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+public class TableScannerTest {
+
+    private static final String KEYSPACE = "ks";
+
+    private Token.Factory factory = Token.getFactory("Murmur3Partitioner");
+    private Host host1, host2, host3;
+    private Metadata metadata;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        host1 = mockHost(true);
+        host2 = mockHost(true);
+        host3 = mockHost(true);
+        metadata = mock(Metadata.class);
+    }
+
+    @Test(groups = "unit")
+    public void should_assign_ranges_evenly_across_replicas() {
+        // 6 ranges, each replicated on its owner and the next host
+        List<Host> hosts = Arrays.asList(host1, host2, host3);
+        Set<TokenRange> ring = new HashSet<TokenRange>();
+        for (int i = 0; i < 6; i++) {
+            TokenRange range = tokenRange(i * 100, ((i + 1) % 6) * 100);
+            ring.add(range);
+            when(metadata.getReplicas(KEYSPACE, range))
+                    .thenReturn(ImmutableSet.of(hosts.get(i % 3), hosts.get((i + 1) % 3)));
+        }
+        when(metadata.getTokenRanges()).thenReturn(ring);
+
+        Map<Host, List<TokenRange>> plan = TableScanner.planRanges(metadata, KEYSPACE, 1);
+
+        assertThat(plan.keySet()).containsOnly(host1, host2, host3);
+        int total = 0;
+        for (List<TokenRange> ranges : plan.values()) {
+            // 2 ranges per host, the wrapping one is unwrapped in 2 parts
+            assertThat(ranges.size()).isIn(2, 3);
+            for (TokenRange range : ranges)
+                assertThat(range.isWrappedAround()).isFalse();
+            total += ranges.size();
+        }
+        assertThat(total).isEqualTo(7);
+    }
+
+    @Test(groups = "unit")
+    public void should_prefer_replicas_that_are_up() {
+        when(host1.isUp()).thenReturn(false);
+        TokenRange range1 = tokenRange(0, 100);
+        TokenRange range2 = tokenRange(100, 0);
+        when(metadata.getTokenRanges()).thenReturn(ImmutableSet.of(range1, range2));
+        when(metadata.getReplicas(KEYSPACE, range1)).thenReturn(ImmutableSet.of(host1, host2));
+        when(metadata.getReplicas(KEYSPACE, range2)).thenReturn(ImmutableSet.of(host2, host1));
+
+        Map<Host, List<TokenRange>> plan = TableScanner.planRanges(metadata, KEYSPACE, 1);
+
+        assertThat(plan.keySet()).containsOnly(host2);
+        assertThat(plan.get(host2)).containsExactly(range1, tokenRange(100, factory.minToken()), tokenRange(factory.minToken(), factory.fromString("0")));
+    }
+
+    @Test(groups = "unit")
+    public void should_split_ranges_to_reach_splits_per_host() {
+        TokenRange wholeRing = new TokenRange(factory.minToken(), factory.minToken(), factory);
+        when(metadata.getTokenRanges()).thenReturn(ImmutableSet.of(wholeRing));
+        when(metadata.getReplicas(KEYSPACE, wholeRing)).thenReturn(ImmutableSet.of(host1));
+
+        Map<Host, List<TokenRange>> plan = TableScanner.planRanges(metadata, KEYSPACE, 4);
+
+        assertThat(plan.get(host1)).containsExactlyElementsOf(wholeRing.splitEvenly(4));
+    }
+
+    @Test(groups = "unit")
+    public void should_fail_if_token_metadata_is_not_available() {
+        when(metadata.getTokenRanges()).thenReturn(Collections.<TokenRange>emptySet());
+        try {
+            TableScanner.planRanges(metadata, KEYSPACE, 1);
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    private Host mockHost(boolean up) {
+        Host host = mock(Host.class);
+        when(host.isUp()).thenReturn(up);
+        return host;
+    }
+
+    private TokenRange tokenRange(long start, long end) {
+        return new TokenRange(factory.fromString(Long.toString(start)), factory.fromString(Long.toString(end)), factory);
+    }
+
+    private TokenRange tokenRange(long start, Token end) {
+        return new TokenRange(factory.fromString(Long.toString(start)), end, factory);
+    }
+
+    private TokenRange tokenRange(Token start, Token end) {
+        return new TokenRange(start, end, factory);
+    }
+}
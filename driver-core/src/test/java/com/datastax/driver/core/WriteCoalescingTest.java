@@ -0,0 +1,74 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.Futures;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class WriteCoalescingTest extends ScassandraTestBase {
+
+    /**
+     * Validates that requests complete when writes are held for a coalescing window, whether they are flushed because
+     * the window expired, because the connection had no other in-flight request, or because the byte bound was
+     * reached.
+     *
+     * @test_category connection
+     */
+    @Test(groups = "short")
+    public void should_complete_requests_with_coalescing_window() throws Exception {
+        should_complete_requests(new SocketOptions().setCoalescingWindowMicros(500));
+        should_complete_requests(new SocketOptions().setCoalescingWindowMicros(500).setCoalescingMaxBytes(1));
+        // Long window: only the load and byte bound conditions can trigger flushes in a timely manner.
+        should_complete_requests(new SocketOptions().setCoalescingWindowMicros(10000000));
+    }
+
+    /**
+     * Validates that requests complete without a coalescing window (the default), where writes are flushed directly
+     * at the end of each flusher run.
+     *
+     * @test_category connection
+     */
+    @Test(groups = "short")
+    public void should_complete_requests_without_coalescing_window() throws Exception {
+        should_complete_requests(new SocketOptions());
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void should_reject_negative_coalescing_window() {
+        new SocketOptions().setCoalescingWindowMicros(-1);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void should_reject_non_positive_coalescing_max_bytes() {
+        new SocketOptions().setCoalescingMaxBytes(0);
+    }
+
+    private void should_complete_requests(SocketOptions socketOptions) throws Exception {
+        Cluster cluster = createClusterBuilder().withSocketOptions(socketOptions).build();
+        try {
+            Session session = cluster.connect();
+
+            // single request: there is nothing to coalesce with, so it should not wait for the window
+            long start = System.nanoTime();
+            session.execute("mock query");
+            assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+
+            List<ResultSetFuture> futures = new ArrayList<ResultSetFuture>();
+            for (int i = 0; i < 100; i++)
+                futures.add(session.executeAsync("mock query"));
+            assertThat(Futures.allAsList(futures).get(5, TimeUnit.SECONDS)).hasSize(100);
+        } finally {
+            cluster.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.exceptions.OperationTimedOutException;
+import com.datastax.driver.core.exceptions.SyntaxError;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.policies.ConcurrencyLimitingRequestThrottlerTest.MockRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveConcurrencyLimitingRequestThrottlerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(200);
+
+    private Clock clock;
+    private AdaptiveConcurrencyLimitingRequestThrottler throttler;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(0L);
+        throttler = AdaptiveConcurrencyLimitingRequestThrottler.builder()
+                .withLimits(2, 4, 5)
+                .withLatencyThreshold(100, TimeUnit.MILLISECONDS)
+                .withBackoffRatio(0.5)
+                .withClock(clock)
+                .build();
+    }
+
+    @Test(groups = "unit")
+    public void should_increase_limit_after_a_window_of_fast_responses() {
+        List<MockRequest> inFlight = register(4);
+
+        // 4 fast responses (a full window) with the limit in use
+        for (int i = 0; i < 4; i++) {
+            throttler.signalSuccess(inFlight.remove(0), FAST);
+            inFlight.add(register(1).get(0));
+        }
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(5);
+
+        // capped at the maximum
+        for (int i = 0; i < 10; i++) {
+            throttler.signalSuccess(inFlight.remove(0), FAST);
+            inFlight.add(register(1).get(0));
+        }
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(5);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_increase_limit_if_it_is_not_used() {
+        for (int i = 0; i < 10; i++)
+            throttler.signalSuccess(register(1).get(0), FAST);
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(4);
+    }
+
+    @Test(groups = "unit")
+    public void should_decrease_limit_on_slow_responses_and_overload_errors() {
+        List<MockRequest> inFlight = register(4);
+
+        throttler.signalSuccess(inFlight.get(0), SLOW);
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(2);
+
+        // too close to the previous decrease, ignored
+        throttler.signalError(inFlight.get(1), new OperationTimedOutException(new InetSocketAddress(9042)), FAST);
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(2);
+
+        when(clock.nanoTime()).thenReturn(SLOW);
+        // not an overload error
+        throttler.signalError(inFlight.get(2), new SyntaxError(new InetSocketAddress(9042), "mock"), FAST);
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(2);
+
+        // never below the minimum
+        throttler.signalError(inFlight.get(3), new OperationTimedOutException(new InetSocketAddress(9042)), FAST);
+        assertThat(throttler.getMaxConcurrentRequests()).isEqualTo(2);
+    }
+
+    private List<MockRequest> register(int count) {
+        List<MockRequest> requests = new ArrayList<MockRequest>();
+        for (int i = 0; i < count; i++) {
+            MockRequest request = new MockRequest();
+            throttler.register(request);
+            assertThat(request.ready).isTrue();
+            requests.add(request);
+        }
+        return requests;
+    }
+}
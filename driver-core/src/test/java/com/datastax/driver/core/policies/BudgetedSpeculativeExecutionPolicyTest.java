@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Host;
+import com.datastax.driver.core.PercentileTracker;
+import com.datastax.driver.core.SimpleStatement;
+import com.datastax.driver.core.Statement;
+import com.datastax.driver.core.policies.SpeculativeExecutionPolicy.ConditionalSpeculativeExecutionPlan;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BudgetedSpeculativeExecutionPolicyTest {
+
+    private PercentileTracker tracker;
+    private Host host1, host2;
+    private Statement statement = new SimpleStatement("SELECT * FROM foo");
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        tracker = mock(PercentileTracker.class);
+        host1 = mock(Host.class);
+        host2 = mock(Host.class);
+        when(tracker.getLatencyAtPercentile(any(Host.class), any(Statement.class), any(Exception.class), anyDouble()))
+                .thenReturn(10L);
+    }
+
+    @Test(groups = "unit")
+    public void should_use_tracker_threshold_up_to_max_executions() {
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99)
+                .withMaxSpeculativeExecutions(2)
+                .build();
+        SpeculativeExecutionPolicy.SpeculativeExecutionPlan plan = policy.newPlan("ks", statement);
+
+        assertThat(plan.nextExecution(host1)).isEqualTo(10);
+        assertThat(plan.nextExecution(host2)).isEqualTo(10);
+        assertThat(plan.nextExecution(host1)).isEqualTo(-1);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_speculate_if_no_statistics() {
+        when(tracker.getLatencyAtPercentile(any(Host.class), any(Statement.class), any(Exception.class), anyDouble()))
+                .thenReturn(-1L);
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99).build();
+
+        assertThat(policy.newPlan("ks", statement).nextExecution(host1)).isEqualTo(-1);
+    }
+
+    @Test(groups = "unit")
+    public void should_limit_speculative_executions_to_budget() {
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99)
+                .withBudget(0.1, 1)
+                .build();
+
+        // The bucket starts full
+        assertThat(startSpeculativeExecution(policy, host1)).isTrue();
+        // 9 requests only earn 0.9 token
+        for (int i = 0; i < 8; i++)
+            policy.newPlan("ks", statement);
+        assertThat(startSpeculativeExecution(policy, host1)).isFalse();
+        // The 10th request completes the token
+        assertThat(startSpeculativeExecution(policy, host1)).isTrue();
+        assertThat(startSpeculativeExecution(policy, host1)).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_retry_after_veto() {
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99)
+                .withMaxSpeculativeExecutions(2)
+                .withBudget(0.01, 1)
+                .build();
+        assertThat(policy.tryAcquireToken()).isTrue();
+        ConditionalSpeculativeExecutionPlan plan = (ConditionalSpeculativeExecutionPlan) policy.newPlan("ks", statement);
+
+        plan.nextExecution(host1);
+        assertThat(plan.allowExecution()).isFalse();
+        assertThat(plan.nextExecution(host2)).isEqualTo(-1);
+    }
+
+    @Test(groups = "unit")
+    public void should_stop_speculating_during_cluster_wide_slowdown() {
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99)
+                .withBudget(1, 1000)
+                .withSlowdownDetection(5, 50, TimeUnit.MILLISECONDS)
+                .build();
+
+        // Every request to both hosts is late
+        for (int i = 0; i < 50; i++) {
+            assertThat(startSpeculativeExecution(policy, host1)).isTrue();
+            assertThat(startSpeculativeExecution(policy, host2)).isTrue();
+        }
+        Uninterruptibles.sleepUninterruptibly(60, TimeUnit.MILLISECONDS);
+
+        assertThat(startSpeculativeExecution(policy, host1)).isFalse();
+        assertThat(policy.isSlowdown()).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_keep_speculating_if_only_one_host_is_slow() {
+        BudgetedSpeculativeExecutionPolicy policy = BudgetedSpeculativeExecutionPolicy.builder(tracker, 99)
+                .withBudget(1, 1000)
+                .withSlowdownDetection(5, 50, TimeUnit.MILLISECONDS)
+                .build();
+
+        // All requests to host1 are late, requests to host2 are not
+        for (int i = 0; i < 50; i++) {
+            assertThat(startSpeculativeExecution(policy, host1)).isTrue();
+            policy.newPlan("ks", statement).nextExecution(host2);
+            policy.newPlan("ks", statement).nextExecution(host2);
+        }
+        Uninterruptibles.sleepUninterruptibly(60, TimeUnit.MILLISECONDS);
+
+        assertThat(startSpeculativeExecution(policy, host1)).isTrue();
+        assertThat(policy.isSlowdown()).isFalse();
+    }
+
+    private boolean startSpeculativeExecution(BudgetedSpeculativeExecutionPolicy policy, Host host) {
+        ConditionalSpeculativeExecutionPlan plan = (ConditionalSpeculativeExecutionPlan) policy.newPlan("ks", statement);
+        assertThat(plan.nextExecution(host)).isEqualTo(10);
+        return plan.allowExecution();
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConcurrencyLimitingRequestThrottlerTest {
+
+    @Test(groups = "unit")
+    public void should_queue_requests_beyond_limit_and_reject_when_queue_is_full() {
+        ConcurrencyLimitingRequestThrottler throttler = new ConcurrencyLimitingRequestThrottler(2, 1);
+        MockRequest first = new MockRequest(), second = new MockRequest(), third = new MockRequest(), fourth = new MockRequest();
+
+        throttler.register(first);
+        throttler.register(second);
+        throttler.register(third);
+        throttler.register(fourth);
+
+        assertThat(first.ready).isTrue();
+        assertThat(second.ready).isTrue();
+        assertThat(third.ready).isFalse();
+        assertThat(third.error).isNull();
+        assertThat(fourth.error).isInstanceOf(RequestThrottlingException.class);
+        assertThat(throttler.getConcurrentRequests()).isEqualTo(2);
+        assertThat(throttler.getQueueSize()).isEqualTo(1);
+
+        throttler.signalSuccess(first, 0);
+        assertThat(third.ready).isTrue();
+        assertThat(throttler.getConcurrentRequests()).isEqualTo(2);
+        assertThat(throttler.getQueueSize()).isEqualTo(0);
+
+        throttler.signalError(second, new RuntimeException(), 0);
+        throttler.signalSuccess(third, 0);
+        assertThat(throttler.getConcurrentRequests()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_reject_queued_requests_when_closed() {
+        ConcurrencyLimitingRequestThrottler throttler = new ConcurrencyLimitingRequestThrottler(1, 10);
+        MockRequest first = new MockRequest(), second = new MockRequest();
+        throttler.register(first);
+        throttler.register(second);
+
+        throttler.close();
+
+        assertThat(second.error).isInstanceOf(RequestThrottlingException.class);
+        MockRequest third = new MockRequest();
+        throttler.register(third);
+        assertThat(third.error).isInstanceOf(RequestThrottlingException.class);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void should_reject_non_positive_limit() {
+        new ConcurrencyLimitingRequestThrottler(0, 10);
+    }
+
+    static class MockRequest implements RequestThrottler.Throttled {
+        volatile boolean ready;
+        volatile RequestThrottlingException error;
+
+        @Override
+        public void onThrottleReady() {
+            assertThat(ready).isFalse();
+            ready = true;
+        }
+
+        @Override
+        public void onThrottleFailure(RequestThrottlingException error) {
+            this.error = error;
+        }
+    }
+}
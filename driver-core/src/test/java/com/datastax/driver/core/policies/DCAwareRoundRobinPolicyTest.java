@@ -19,6 +19,8 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 
 import static com.datastax.driver.core.Assertions.assertThat;
 import static com.datastax.driver.core.ScassandraCluster.datacenter;
@@ -26,7 +28,9 @@ import static com.datastax.driver.core.TestUtils.findHost;
 import static com.datastax.driver.core.TestUtils.nonQuietClusterCloseOptions;
 import static com.google.common.collect.Lists.newArrayList;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 public class DCAwareRoundRobinPolicyTest {
@@ -535,4 +539,59 @@ public class DCAwareRoundRobinPolicyTest {
             sCluster.stop();
         }
     }
+
+    /**
+     * Ensures that query plans and distances reflect the live hosts at the time of the last host event, and that
+     * query plans created before an event are not affected by it.
+     *
+     * @test_category load_balancing:dc_aware
+     */
+    @Test(groups = "unit")
+    public void should_update_live_hosts_snapshot_on_host_events() {
+        Host local1 = mockHost("dc1");
+        Host local2 = mockHost("dc1");
+        Host remote1 = mockHost("dc2");
+        Host remote2 = mockHost("dc2");
+        DCAwareRoundRobinPolicy policy = DCAwareRoundRobinPolicy.builder()
+                .withLocalDc("dc1")
+                .withUsedHostsPerRemoteDc(1)
+                .build();
+        policy.init(mock(Cluster.class), newArrayList(local1, local2, remote1, remote2));
+        Statement statement = new SimpleStatement("SELECT * FROM foo").setConsistencyLevel(ConsistencyLevel.ONE);
+
+        Iterator<Host> planBeforeEvents = policy.newQueryPlan("ks", statement);
+
+        List<Host> plan = newArrayList(policy.newQueryPlan("ks", statement));
+        assertThat(plan).hasSize(3);
+        assertThat(plan.subList(0, 2)).containsOnly(local1, local2);
+        assertThat(plan.get(2)).isEqualTo(remote1);
+        assertThat(policy.distance(local1)).isEqualTo(HostDistance.LOCAL);
+        assertThat(policy.distance(remote1)).isEqualTo(HostDistance.REMOTE);
+        assertThat(policy.distance(remote2)).isEqualTo(HostDistance.IGNORED);
+
+        policy.onDown(local1);
+        policy.onDown(remote1);
+
+        assertThat(newArrayList(policy.newQueryPlan("ks", statement))).containsExactly(local2, remote2);
+        assertThat(policy.distance(remote1)).isEqualTo(HostDistance.IGNORED);
+        assertThat(policy.distance(remote2)).isEqualTo(HostDistance.REMOTE);
+        // A plan works on the snapshot that was current when it was created
+        List<Host> oldPlan = newArrayList(planBeforeEvents);
+        assertThat(oldPlan).hasSize(3);
+        assertThat(oldPlan.subList(0, 2)).containsOnly(local1, local2);
+        assertThat(oldPlan.get(2)).isEqualTo(remote1);
+
+        policy.onUp(local1);
+
+        plan = newArrayList(policy.newQueryPlan("ks", statement));
+        assertThat(plan).hasSize(3);
+        assertThat(plan.subList(0, 2)).containsOnly(local1, local2);
+        assertThat(plan.get(2)).isEqualTo(remote2);
+    }
+
+    private static Host mockHost(String dc) {
+        Host host = mock(Host.class);
+        when(host.getDatacenter()).thenReturn(dc);
+        return host;
+    }
 }
@@ -10,13 +10,24 @@ import com.datastax.driver.core.*;
 import com.datastax.driver.core.exceptions.NoHostAvailableException;
 import com.datastax.driver.core.exceptions.ReadTimeoutException;
 import com.datastax.driver.core.exceptions.UnavailableException;
+import com.google.common.collect.Lists;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
 import static org.scassandra.http.client.PrimingRequest.queryBuilder;
 import static org.scassandra.http.client.PrimingRequest.then;
 import static org.scassandra.http.client.Result.read_request_timeout;
@@ -181,4 +192,65 @@ public class LatencyAwarePolicyTest extends ScassandraTestBase {
         }
     }
 
+    @Test(groups = "unit")
+    public void should_move_slow_hosts_to_the_end_of_query_plans() {
+        // given
+        final Host host1 = mock(Host.class);
+        final Host host2 = mock(Host.class);
+        LoadBalancingPolicy childPolicy = mock(LoadBalancingPolicy.class);
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class)))
+                .thenAnswer(new Answer<Iterator<Host>>() {
+                    @Override
+                    public Iterator<Host> answer(InvocationOnMock invocation) {
+                        return Lists.newArrayList(host2, host1).iterator();
+                    }
+                });
+        LatencyAwarePolicy latencyAwarePolicy = LatencyAwarePolicy.builder(childPolicy)
+                .withMininumMeasurements(1)
+                .withUpdateRate(1, NANOSECONDS)
+                .build();
+        Cluster cluster = mock(Cluster.class);
+        ScheduledExecutorService executor = mock(ScheduledExecutorService.class);
+        when(cluster.getScheduledTasksExecutor()).thenReturn(executor);
+        // run immediate updates inline
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).when(executor).execute(any(Runnable.class));
+        latencyAwarePolicy.init(cluster, Collections.<Host>emptyList());
+        ArgumentCaptor<LatencyTracker> trackerCaptor = ArgumentCaptor.forClass(LatencyTracker.class);
+        verify(cluster).register(trackerCaptor.capture());
+        LatencyTracker tracker = trackerCaptor.getValue();
+        // the updater runs on the cluster's shared executor
+        ArgumentCaptor<Runnable> updaterCaptor = ArgumentCaptor.forClass(Runnable.class);
+        verify(executor).scheduleAtFixedRate(updaterCaptor.capture(), eq(1L), eq(1L), eq(NANOSECONDS));
+        Runnable updater = updaterCaptor.getValue();
+
+        // when
+        Statement statement = new SimpleStatement("SELECT foo FROM bar");
+        Iterator<Host> plan = latencyAwarePolicy.newQueryPlan("ks", statement);
+        // then - no host is excluded, the child plan is returned as-is
+        assertThat(Lists.newArrayList(plan)).containsExactly(host2, host1);
+
+        // when
+        for (int i = 0; i < 10; i++) {
+            tracker.update(host1, statement, null, MILLISECONDS.toNanos(1));
+            tracker.update(host2, statement, null, MILLISECONDS.toNanos(100));
+        }
+        // then - nothing changes until the updater runs
+        assertThat(Lists.newArrayList(latencyAwarePolicy.newQueryPlan("ks", statement))).containsExactly(host2, host1);
+
+        // when
+        updater.run();
+        // then
+        assertThat(Lists.newArrayList(latencyAwarePolicy.newQueryPlan("ks", statement))).containsExactly(host1, host2);
+
+        // when
+        latencyAwarePolicy.onDown(host2);
+        // then
+        assertThat(Lists.newArrayList(latencyAwarePolicy.newQueryPlan("ks", statement))).containsExactly(host2, host1);
+    }
 }
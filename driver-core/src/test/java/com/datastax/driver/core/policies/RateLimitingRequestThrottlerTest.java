@@ -0,0 +1,104 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core.policies;
+
+import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.exceptions.RequestThrottlingException;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.policies.ConcurrencyLimitingRequestThrottlerTest.MockRequest;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RateLimitingRequestThrottlerTest {
+
+    @Test(groups = "unit")
+    public void should_queue_requests_beyond_rate_and_release_them_over_time() {
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(0L);
+        RateLimitingRequestThrottler throttler = new RateLimitingRequestThrottler(2, 2, 10, TimeUnit.MILLISECONDS, clock);
+
+        MockRequest[] requests = new MockRequest[5];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new MockRequest();
+            throttler.register(requests[i]);
+        }
+
+        // the initial burst is one second worth of permits
+        assertThat(requests[0].ready).isTrue();
+        assertThat(requests[1].ready).isTrue();
+        assertThat(requests[2].ready).isFalse();
+        assertThat(requests[3].ready).isFalse();
+        assertThat(requests[4].error).isInstanceOf(RequestThrottlingException.class);
+        assertThat(throttler.getQueueSize()).isEqualTo(2);
+
+        // 2 requests per second: one permit every 500 ms
+        when(clock.nanoTime()).thenReturn(TimeUnit.MILLISECONDS.toNanos(400));
+        throttler.drain();
+        assertThat(requests[2].ready).isFalse();
+
+        when(clock.nanoTime()).thenReturn(TimeUnit.MILLISECONDS.toNanos(500));
+        throttler.drain();
+        assertThat(requests[2].ready).isTrue();
+        assertThat(requests[3].ready).isFalse();
+
+        when(clock.nanoTime()).thenReturn(TimeUnit.MILLISECONDS.toNanos(1000));
+        throttler.drain();
+        assertThat(requests[3].ready).isTrue();
+        assertThat(throttler.getQueueSize()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_accumulate_more_than_one_second_of_permits() {
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(0L);
+        RateLimitingRequestThrottler throttler = new RateLimitingRequestThrottler(2, 0, 10, TimeUnit.MILLISECONDS, clock);
+
+        when(clock.nanoTime()).thenReturn(TimeUnit.SECONDS.toNanos(10));
+        MockRequest[] requests = new MockRequest[3];
+        for (int i = 0; i < requests.length; i++) {
+            requests[i] = new MockRequest();
+            throttler.register(requests[i]);
+        }
+
+        assertThat(requests[0].ready).isTrue();
+        assertThat(requests[1].ready).isTrue();
+        assertThat(requests[2].error).isInstanceOf(RequestThrottlingException.class);
+    }
+
+    @Test(groups = "unit")
+    public void should_schedule_drain_on_cluster_executor_and_cancel_it_on_close() {
+        Clock clock = mock(Clock.class);
+        when(clock.nanoTime()).thenReturn(0L);
+        ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+        ScheduledFuture<?> future = mock(ScheduledFuture.class);
+        doReturn(future).when(scheduler).schedule(any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(10)), eq(TimeUnit.NANOSECONDS));
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.getScheduledTasksExecutor()).thenReturn(scheduler);
+        RateLimitingRequestThrottler throttler = new RateLimitingRequestThrottler(1, 1, 10, TimeUnit.MILLISECONDS, clock);
+        throttler.init(cluster);
+
+        MockRequest first = new MockRequest();
+        MockRequest second = new MockRequest();
+        throttler.register(first);
+        throttler.register(second);
+        assertThat(first.ready).isTrue();
+        assertThat(second.ready).isFalse();
+        verify(scheduler).schedule(any(Runnable.class), eq(TimeUnit.MILLISECONDS.toNanos(10)), eq(TimeUnit.NANOSECONDS));
+
+        throttler.close();
+        verify(future).cancel(false);
+        verify(scheduler, never()).shutdown();
+        assertThat(second.error).isInstanceOf(RequestThrottlingException.class);
+    }
+}
@@ -8,19 +8,25 @@ package com.datastax.driver.core.policies;
 
 import com.datastax.driver.core.*;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.nio.ByteBuffer;
-import java.util.List;
-import java.util.Set;
+import java.util.*;
 
 import static com.datastax.driver.core.Assertions.assertThat;
 import static com.datastax.driver.core.CreateCCM.TestMode.PER_METHOD;
 import static com.datastax.driver.core.TestUtils.CREATE_KEYSPACE_SIMPLE_FORMAT;
 import static com.datastax.driver.core.TestUtils.nonQuietClusterCloseOptions;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 @CreateCCM(PER_METHOD)
 @CCMConfig(createCcm = false)
@@ -475,4 +481,108 @@ public class TokenAwarePolicyTest extends CCMTestsSupport {
             assertThat(r.getInt("i")).isEqualTo(3);
         }
     }
+
+    /**
+     * Ensures that {@link TokenAwarePolicy} checks the child policy's distance of each replica every time it builds a
+     * query plan, so that a change of distance that is not signaled by a host event (for example a filtering policy
+     * that gets reconfigured) is taken into account right away.
+     *
+     * @test_category load_balancing:token_aware
+     */
+    @Test(groups = "unit")
+    public void should_check_child_distance_for_each_query_plan() {
+        Host host1 = mockHost(), host2 = mockHost(), host3 = mockHost(), host4 = mockHost();
+        LoadBalancingPolicy childPolicy = mockChildPolicy(host4);
+        Metadata metadata = mockMetadata(ImmutableSet.of(host1, host2, host3));
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, false);
+        policy.init(mockCluster(metadata), Collections.<Host>emptyList());
+        Statement statement = routedStatement();
+
+        assertThat(Lists.newArrayList(policy.newQueryPlan("ks", statement))).containsExactly(host1, host2, host3, host4);
+
+        // no host event, the child policy just changed its mind
+        when(childPolicy.distance(host1)).thenReturn(HostDistance.IGNORED);
+
+        assertThat(Lists.newArrayList(policy.newQueryPlan("ks", statement))).containsExactly(host2, host3, host4);
+    }
+
+    /**
+     * Ensures that {@link TokenAwarePolicy} uses the new replicas as soon as the token map returns a new replica set.
+     *
+     * @test_category load_balancing:token_aware
+     */
+    @Test(groups = "unit")
+    public void should_use_new_replicas_when_token_map_changes() {
+        Host host1 = mockHost(), host2 = mockHost(), host3 = mockHost();
+        LoadBalancingPolicy childPolicy = mockChildPolicy();
+        Metadata metadata = mockMetadata(ImmutableSet.of(host1, host2));
+        TokenAwarePolicy policy = new TokenAwarePolicy(childPolicy, false);
+        policy.init(mockCluster(metadata), Collections.<Host>emptyList());
+        Statement statement = routedStatement();
+
+        assertThat(Lists.newArrayList(policy.newQueryPlan("ks", statement))).containsExactly(host1, host2);
+
+        when(metadata.getReplicas(anyString(), any(ByteBuffer.class))).thenReturn(ImmutableSet.of(host3, host1));
+
+        assertThat(Lists.newArrayList(policy.newQueryPlan("ks", statement))).containsExactly(host3, host1);
+    }
+
+    /**
+     * Ensures that {@link TokenAwarePolicy} shuffles the whole list of replicas, so that the failover order after the
+     * first replica varies too.
+     *
+     * @test_category load_balancing:token_aware
+     */
+    @Test(groups = "unit")
+    public void should_produce_all_replica_orders_when_shuffling() {
+        Host host1 = mockHost(), host2 = mockHost(), host3 = mockHost();
+        Metadata metadata = mockMetadata(ImmutableSet.of(host1, host2, host3));
+        TokenAwarePolicy policy = new TokenAwarePolicy(mockChildPolicy(), true);
+        policy.init(mockCluster(metadata), Collections.<Host>emptyList());
+        Statement statement = routedStatement();
+
+        Set<List<Host>> orders = new HashSet<List<Host>>();
+        for (int i = 0; i < 1000; i++)
+            orders.add(Lists.newArrayList(policy.newQueryPlan("ks", statement)));
+
+        // 3! permutations, a mere rotation would only produce 3 of them
+        assertThat(orders).hasSize(6);
+    }
+
+    private static Host mockHost() {
+        Host host = mock(Host.class);
+        when(host.isUp()).thenReturn(true);
+        return host;
+    }
+
+    private static LoadBalancingPolicy mockChildPolicy(final Host... plan) {
+        LoadBalancingPolicy childPolicy = mock(LoadBalancingPolicy.class);
+        when(childPolicy.distance(any(Host.class))).thenReturn(HostDistance.LOCAL);
+        when(childPolicy.newQueryPlan(anyString(), any(Statement.class))).thenAnswer(new Answer<Iterator<Host>>() {
+            @Override
+            public Iterator<Host> answer(InvocationOnMock invocation) {
+                return Lists.newArrayList(plan).iterator();
+            }
+        });
+        return childPolicy;
+    }
+
+    private static Metadata mockMetadata(Set<Host> replicas) {
+        Metadata metadata = mock(Metadata.class);
+        when(metadata.getReplicas(anyString(), any(ByteBuffer.class))).thenReturn(replicas);
+        return metadata;
+    }
+
+    private static Cluster mockCluster(Metadata metadata) {
+        Cluster cluster = mock(Cluster.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        when(cluster.getConfiguration()).thenReturn(Configuration.builder().build());
+        return cluster;
+    }
+
+    private static Statement routedStatement() {
+        return new SimpleStatement("SELECT * FROM foo WHERE k = 1")
+                .setRoutingKey(ByteBuffer.wrap(new byte[]{1}))
+                .setKeyspace("ks");
+    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.codecs.compression;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.datastax.driver.core.utils.Bytes;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A codec that compresses the values produced by another codec, and stores them in a {@code blob} column.
+ * <p/>
+ * Protocol-level compression (see {@link com.datastax.driver.core.ProtocolOptions.Compression}) only applies to the
+ * frames exchanged with the coordinator. Compressing large values on the client instead also reduces the traffic
+ * between nodes (including across datacenters) and the size of the data on disk, at the cost of making the values
+ * opaque to CQL. It is best suited for large, repetitive values, such as the JSON documents produced by
+ * {@link com.datastax.driver.extras.codecs.json.JacksonJsonCodec}:
+ * <pre>
+ * TypeCodec&lt;MyPojo&gt; jsonCodec = new JacksonJsonCodec&lt;MyPojo&gt;(MyPojo.class);
+ * codecRegistry.register(new LZ4CompressingCodec&lt;MyPojo&gt;(jsonCodec));
+ * </pre>
+ * Values smaller than a threshold are stored uncompressed, since compressing them would not save enough space to be
+ * worth it. Each value starts with a one-byte header that indicates how it was stored, so the threshold can be changed
+ * without affecting existing data.
+ *
+ * @param <T> The Java type of the values.
+ */
+public abstract class CompressingCodec<T> extends TypeCodec<T> {
+
+    /**
+     * The default minimum size of a serialized value for it to be compressed, in bytes.
+     */
+    public static final int DEFAULT_THRESHOLD = 512;
+
+    /**
+     * The header of values that are stored uncompressed.
+     */
+    protected static final byte UNCOMPRESSED = 0;
+
+    private final TypeCodec<T> innerCodec;
+    private final int threshold;
+    private final byte header;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param innerCodec the codec that serializes the values before compression.
+     * @param threshold  the minimum size of a serialized value for it to be compressed, in bytes.
+     * @param header     the header that identifies the values compressed by this codec. It must be strictly positive,
+     *                   and unique across the implementations of this class.
+     */
+    protected CompressingCodec(TypeCodec<T> innerCodec, int threshold, byte header) {
+        super(DataType.blob(), innerCodec.getJavaType());
+        if (header <= UNCOMPRESSED)
+            throw new IllegalArgumentException("header must be strictly positive, got " + header);
+        this.innerCodec = innerCodec;
+        this.threshold = threshold;
+        this.header = header;
+    }
+
+    /**
+     * Compresses a serialized value.
+     *
+     * @param input the value. Its position and limit must not be modified.
+     * @return the compressed value, which must not include the header.
+     */
+    protected abstract ByteBuffer compress(ByteBuffer input);
+
+    /**
+     * Decompresses a serialized value.
+     *
+     * @param input the compressed value, without its header.
+     * @return the decompressed value.
+     */
+    protected abstract ByteBuffer decompress(ByteBuffer input);
+
+    @Override
+    public ByteBuffer serialize(T value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        ByteBuffer serialized = innerCodec.serialize(value, protocolVersion);
+        if (serialized == null)
+            return null;
+        ByteBuffer result;
+        if (serialized.remaining() < threshold) {
+            result = ByteBuffer.allocate(1 + serialized.remaining());
+            result.put(UNCOMPRESSED);
+            result.put(serialized.duplicate());
+        } else {
+            ByteBuffer compressed = compress(serialized);
+            if (compressed.remaining() >= serialized.remaining()) {
+                // Incompressible data, store it as-is to save the decompression later
+                result = ByteBuffer.allocate(1 + serialized.remaining());
+                result.put(UNCOMPRESSED);
+                result.put(serialized.duplicate());
+            } else {
+                result = ByteBuffer.allocate(1 + compressed.remaining());
+                result.put(header);
+                result.put(compressed);
+            }
+        }
+        result.flip();
+        return result;
+    }
+
+    @Override
+    public T deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return innerCodec.deserialize(bytes, protocolVersion);
+        byte valueHeader = bytes.get(bytes.position());
+        ByteBuffer body = bytes.duplicate();
+        body.position(body.position() + 1);
+        if (valueHeader == UNCOMPRESSED)
+            return innerCodec.deserialize(body, protocolVersion);
+        else if (valueHeader == header)
+            return innerCodec.deserialize(decompress(body), protocolVersion);
+        else
+            throw new InvalidTypeException(String.format("Unknown compression header %d, "
+                    + "was this value written with a different codec?", valueHeader));
+    }
+
+    @Override
+    public String format(T value) throws InvalidTypeException {
+        if (value == null)
+            return "NULL";
+        return Bytes.toHexString(serialize(value, ProtocolVersion.NEWEST_SUPPORTED));
+    }
+
+    @Override
+    public T parse(String value) throws InvalidTypeException {
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("NULL"))
+            return null;
+        if (!value.startsWith("0x"))
+            throw new InvalidTypeException("Cannot parse blob value from \"" + value + "\"");
+        return deserialize(Bytes.fromHexString(value), ProtocolVersion.NEWEST_SUPPORTED);
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.codecs.compression;
+
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A {@link CompressingCodec} that uses the <a href="https://github.com/lz4/lz4-java">LZ4</a> algorithm.
+ * <p/>
+ * LZ4 is very fast, in particular to decompress, which makes it a good default when the same values are read more
+ * often than they are written.
+ * <p/>
+ * Note that this codec requires the presence of the LZ4 library at runtime.
+ * If you use Maven, this can be done by declaring the following dependency in your project:
+ * <p/>
+ * <pre>{@code
+ * <dependency>
+ *   <groupId>net.jpountz.lz4</groupId>
+ *   <artifactId>lz4</artifactId>
+ *   <version>1.3.0</version>
+ * </dependency>
+ * }</pre>
+ *
+ * @param <T> The Java type of the values.
+ */
+public class LZ4CompressingCodec<T> extends CompressingCodec<T> {
+
+    private static final byte LZ4_HEADER = 1;
+    private static final int INTEGER_BYTES = 4;
+
+    private final LZ4Compressor compressor;
+    private final LZ4FastDecompressor decompressor;
+
+    /**
+     * Creates a new instance with a threshold of {@link #DEFAULT_THRESHOLD}.
+     *
+     * @param innerCodec the codec that serializes the values before compression.
+     */
+    public LZ4CompressingCodec(TypeCodec<T> innerCodec) {
+        this(innerCodec, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param innerCodec the codec that serializes the values before compression.
+     * @param threshold  the minimum size of a serialized value for it to be compressed, in bytes.
+     */
+    public LZ4CompressingCodec(TypeCodec<T> innerCodec, int threshold) {
+        super(innerCodec, threshold, LZ4_HEADER);
+        LZ4Factory factory = LZ4Factory.fastestInstance();
+        this.compressor = factory.fastCompressor();
+        this.decompressor = factory.fastDecompressor();
+    }
+
+    @Override
+    protected ByteBuffer compress(ByteBuffer input) {
+        byte[] in;
+        int offset;
+        int length = input.remaining();
+        if (input.hasArray()) {
+            in = input.array();
+            offset = input.arrayOffset() + input.position();
+        } else {
+            in = new byte[length];
+            input.duplicate().get(in);
+            offset = 0;
+        }
+        int maxCompressedLength = compressor.maxCompressedLength(length);
+        byte[] out = new byte[INTEGER_BYTES + maxCompressedLength];
+        ByteBuffer.wrap(out).putInt(length);
+        int written = compressor.compress(in, offset, length, out, INTEGER_BYTES, maxCompressedLength);
+        return ByteBuffer.wrap(out, 0, INTEGER_BYTES + written);
+    }
+
+    @Override
+    protected ByteBuffer decompress(ByteBuffer input) {
+        if (input.remaining() < INTEGER_BYTES)
+            throw new InvalidTypeException("Invalid LZ4-compressed value, expected at least 4 bytes");
+        byte[] in;
+        int offset;
+        if (input.hasArray()) {
+            in = input.array();
+            offset = input.arrayOffset() + input.position();
+        } else {
+            in = new byte[input.remaining()];
+            input.duplicate().get(in);
+            offset = 0;
+        }
+        int uncompressedLength = input.getInt(input.position());
+        byte[] out = new byte[uncompressedLength];
+        try {
+            int read = decompressor.decompress(in, offset + INTEGER_BYTES, out, 0, uncompressedLength);
+            if (read != input.remaining() - INTEGER_BYTES)
+                throw new InvalidTypeException("Invalid LZ4-compressed value, compressed lengths mismatch");
+        } catch (LZ4Exception e) {
+            throw new InvalidTypeException("Invalid LZ4-compressed value", e);
+        }
+        return ByteBuffer.wrap(out);
+    }
+}
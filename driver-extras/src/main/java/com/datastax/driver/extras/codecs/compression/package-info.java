@@ -0,0 +1,11 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+/**
+ * This package contains {@link com.datastax.driver.core.TypeCodec TypeCodec} instances that compress the values
+ * of other codecs, in order to store large, repetitive values (such as JSON documents) in {@code blob} columns.
+ */
+package com.datastax.driver.extras.codecs.compression;
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.extras.codecs.compression;
+
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+public class LZ4CompressingCodecTest {
+
+    private final LZ4CompressingCodec<String> codec = new LZ4CompressingCodec<String>(TypeCodec.varchar(), 100);
+
+    @Test(groups = "unit")
+    public void should_compress_large_values() {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 100; i++)
+            json.append("{\"name\":\"value\",\"index\":").append(i).append("},");
+        String value = json.append("{}]").toString();
+
+        ByteBuffer serialized = codec.serialize(value, V4);
+
+        assertThat(serialized.get(serialized.position())).isEqualTo((byte) 1);
+        assertThat(serialized.remaining()).isLessThan(value.length() / 2);
+        assertThat(codec.deserialize(serialized, V4)).isEqualTo(value);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_compress_small_values() {
+        ByteBuffer serialized = codec.serialize("small", V4);
+
+        assertThat(serialized.get(serialized.position())).isEqualTo((byte) 0);
+        assertThat(serialized.remaining()).isEqualTo(6);
+        assertThat(codec.deserialize(serialized, V4)).isEqualTo("small");
+    }
+
+    @Test(groups = "unit")
+    public void should_not_compress_incompressible_values() {
+        LZ4CompressingCodec<ByteBuffer> blobCodec = new LZ4CompressingCodec<ByteBuffer>(TypeCodec.blob(), 100);
+        byte[] random = new byte[1000];
+        new Random(42).nextBytes(random);
+
+        ByteBuffer serialized = blobCodec.serialize(ByteBuffer.wrap(random), V4);
+
+        assertThat(serialized.get(serialized.position())).isEqualTo((byte) 0);
+        assertThat(blobCodec.deserialize(serialized, V4)).isEqualTo(ByteBuffer.wrap(random));
+    }
+
+    @Test(groups = "unit")
+    public void should_handle_null_values() {
+        assertThat(codec.serialize(null, V4)).isNull();
+        assertThat(codec.deserialize(null, V4)).isNull();
+        assertThat(codec.format(null)).isEqualTo("NULL");
+        assertThat(codec.parse("NULL")).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_format_and_parse_as_blob() {
+        String value = "abc";
+        String formatted = codec.format(value);
+        assertThat(formatted).isEqualTo("0x00616263");
+        assertThat(codec.parse(formatted)).isEqualTo(value);
+    }
+
+    @Test(groups = "unit")
+    public void should_fail_to_deserialize_unknown_header() {
+        try {
+            codec.deserialize(ByteBuffer.wrap(new byte[]{42, 1, 2, 3}), V4);
+            fail("Expected an InvalidTypeException");
+        } catch (InvalidTypeException e) {
+            assertThat(e.getMessage()).contains("Unknown compression header 42");
+        }
+    }
+}
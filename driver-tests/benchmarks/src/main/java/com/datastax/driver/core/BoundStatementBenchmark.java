@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * Measures {@link BoundStatement} binding (positional, by index and by name) and routing key computation, with
+ * statements prepared against a {@link StandInServer}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BoundStatementBenchmark {
+
+    private static final String INSERT = "INSERT INTO benchmarks.kv (k, c, v1, v2, v3) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_COMPOSITE = "INSERT INTO benchmarks.composite (k1, k2, c, v) VALUES (?, ?, ?, ?)";
+
+    private final UUID uuid = UUID.randomUUID();
+
+    private StandInServer server;
+    private Cluster cluster;
+    private PreparedStatement insert;
+    private BoundStatement boundInsert;
+    private BoundStatement boundCompositeInsert;
+    private ProtocolVersion protocolVersion;
+    private CodecRegistry codecRegistry;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new StandInServer(1, 1, 1, StandInServer.DEFAULT_PORT);
+        server.prime(INSERT,
+                new ColumnDefinitions.Definition[]{
+                        definition("benchmarks", "kv", "k", DataType.text()),
+                        definition("benchmarks", "kv", "c", DataType.cint()),
+                        definition("benchmarks", "kv", "v1", DataType.bigint()),
+                        definition("benchmarks", "kv", "v2", DataType.text()),
+                        definition("benchmarks", "kv", "v3", DataType.uuid())},
+                new int[]{0},
+                new ColumnDefinitions.Definition[0],
+                Collections.<Object[]>emptyList());
+        server.prime(INSERT_COMPOSITE,
+                new ColumnDefinitions.Definition[]{
+                        definition("benchmarks", "composite", "k1", DataType.text()),
+                        definition("benchmarks", "composite", "k2", DataType.cint()),
+                        definition("benchmarks", "composite", "c", DataType.cint()),
+                        definition("benchmarks", "composite", "v", DataType.text())},
+                new int[]{0, 1},
+                new ColumnDefinitions.Definition[0],
+                Collections.<Object[]>emptyList());
+        server.start();
+
+        cluster = server.clusterBuilder().build();
+        Session session = cluster.connect();
+        insert = session.prepare(INSERT);
+        PreparedStatement compositeInsert = session.prepare(INSERT_COMPOSITE);
+
+        boundInsert = insert.bind("key", 1, 2L, "value", uuid);
+        boundCompositeInsert = compositeInsert.bind("key", 1, 2, "value");
+        protocolVersion = cluster.getConfiguration().getProtocolOptions().getProtocolVersion();
+        codecRegistry = cluster.getConfiguration().getCodecRegistry();
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (cluster != null)
+            cluster.close();
+        if (server != null)
+            server.stop();
+    }
+
+    @Benchmark
+    public BoundStatement bindPositional() {
+        return insert.bind("key", 1, 2L, "value", uuid);
+    }
+
+    @Benchmark
+    public BoundStatement bindByIndex() {
+        return insert.bind()
+                .setString(0, "key")
+                .setInt(1, 1)
+                .setLong(2, 2L)
+                .setString(3, "value")
+                .setUUID(4, uuid);
+    }
+
+    @Benchmark
+    public BoundStatement bindByName() {
+        return insert.bind()
+                .setString("k", "key")
+                .setInt("c", 1)
+                .setLong("v1", 2L)
+                .setString("v2", "value")
+                .setUUID("v3", uuid);
+    }
+
+    @Benchmark
+    public ByteBuffer routingKey() {
+        return boundInsert.getRoutingKey(protocolVersion, codecRegistry);
+    }
+
+    @Benchmark
+    public ByteBuffer compositeRoutingKey() {
+        return boundCompositeInsert.getRoutingKey(protocolVersion, codecRegistry);
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the various {@link CodecRegistry#codecFor} lookups performed on the hot path: by CQL type only
+ * (generic {@code Row.getObject}), by CQL type and Java class (typed getters and setters), and by value
+ * ({@code SimpleStatement} positional values).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CodecRegistryBenchmark {
+
+    private static final TypeToken<List<Integer>> LIST_OF_INT = TypeTokens.listOf(Integer.class);
+
+    private final CodecRegistry registry = new CodecRegistry();
+    private final DataType listOfInt = DataType.list(DataType.cint());
+    private final List<Integer> listValue = Arrays.asList(1, 2, 3);
+
+    @Benchmark
+    public TypeCodec<Object> builtInByCqlType() {
+        return registry.codecFor(DataType.cint());
+    }
+
+    @Benchmark
+    public TypeCodec<String> builtInByCqlTypeAndClass() {
+        return registry.codecFor(DataType.varchar(), String.class);
+    }
+
+    @Benchmark
+    public TypeCodec<Integer> builtInByValue() {
+        return registry.codecFor(42);
+    }
+
+    @Benchmark
+    public TypeCodec<Integer> builtInByCqlTypeAndValue() {
+        return registry.codecFor(DataType.cint(), 42);
+    }
+
+    @Benchmark
+    public TypeCodec<List<Integer>> collectionByCqlTypeAndTypeToken() {
+        return registry.codecFor(listOfInt, LIST_OF_INT);
+    }
+
+    @Benchmark
+    public TypeCodec<List<Integer>> collectionByValue() {
+        return registry.codecFor(listValue);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Helpers to build the server-side encoded bodies that the driver decodes.
+ * <p/>
+ * The driver only knows how to decode responses (and encode requests), so the few response types that the
+ * benchmarks and the {@link StandInServer} need are hand-encoded here, following the native protocol specification.
+ */
+class Fixtures {
+
+    private static final int GLOBAL_TABLES_SPEC = 0x0001;
+    private static final int NO_METADATA = 0x0004;
+
+    private static final int RESULT_VOID = 1;
+    private static final int RESULT_ROWS = 2;
+    private static final int RESULT_SET_KEYSPACE = 3;
+    private static final int RESULT_PREPARED = 4;
+
+    private Fixtures() {
+    }
+
+    static ColumnDefinitions.Definition definition(String keyspace, String table, String name, DataType type) {
+        return new ColumnDefinitions.Definition(keyspace, table, name, type);
+    }
+
+    /**
+     * Builds a {@code ROWS} result body, including the result kind.
+     *
+     * @param columns      the result columns; they must all belong to the same table.
+     * @param rows         the rows, one value per column; values are serialized with the default codecs.
+     * @param skipMetadata whether to set the {@code NO_METADATA} flag instead of writing the column specs.
+     */
+    static ByteBuf rowsBody(ColumnDefinitions.Definition[] columns, List<Object[]> rows, boolean skipMetadata, ProtocolVersion version) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(RESULT_ROWS);
+        writeMetadata(body, columns, null, skipMetadata);
+        body.writeInt(rows.size());
+        for (Object[] row : rows) {
+            for (int i = 0; i < columns.length; i++) {
+                CBUtil.writeValue(serialize(columns[i].getType(), row[i], version), body);
+            }
+        }
+        return body;
+    }
+
+    /**
+     * Builds a {@code PREPARED} result body (protocol v4 layout), including the result kind.
+     */
+    static ByteBuf preparedBody(MD5Digest id, ColumnDefinitions.Definition[] variables, int[] pkIndices,
+                                ColumnDefinitions.Definition[] resultColumns) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(RESULT_PREPARED);
+        CBUtil.writeBytes(id.bytes, body);
+        writeMetadata(body, variables, pkIndices == null ? new int[0] : pkIndices, false);
+        if (resultColumns == null || resultColumns.length == 0) {
+            body.writeInt(NO_METADATA);
+            body.writeInt(0);
+        } else {
+            writeMetadata(body, resultColumns, null, false);
+        }
+        return body;
+    }
+
+    static ByteBuf voidBody() {
+        ByteBuf body = Unpooled.buffer(4);
+        body.writeInt(RESULT_VOID);
+        return body;
+    }
+
+    static ByteBuf setKeyspaceBody(String keyspace) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(RESULT_SET_KEYSPACE);
+        CBUtil.writeString(keyspace, body);
+        return body;
+    }
+
+    private static void writeMetadata(ByteBuf body, ColumnDefinitions.Definition[] columns, int[] pkIndices, boolean skipMetadata) {
+        if (skipMetadata) {
+            body.writeInt(NO_METADATA);
+            body.writeInt(columns.length);
+            return;
+        }
+        body.writeInt(columns.length == 0 ? 0 : GLOBAL_TABLES_SPEC);
+        body.writeInt(columns.length);
+        if (pkIndices != null) {
+            body.writeInt(pkIndices.length);
+            for (int pkIndex : pkIndices)
+                body.writeShort(pkIndex);
+        }
+        if (columns.length == 0)
+            return;
+        CBUtil.writeString(columns[0].getKeyspace(), body);
+        CBUtil.writeString(columns[0].getTable(), body);
+        for (ColumnDefinitions.Definition column : columns) {
+            CBUtil.writeString(column.getName(), body);
+            writeType(column.getType(), body);
+        }
+    }
+
+    private static void writeType(DataType type, ByteBuf body) {
+        body.writeShort(type.getName().protocolId);
+        switch (type.getName()) {
+            case LIST:
+            case SET:
+            case MAP:
+                for (DataType argument : type.getTypeArguments())
+                    writeType(argument, body);
+                break;
+            case CUSTOM:
+            case UDT:
+            case TUPLE:
+                throw new IllegalArgumentException("Unsupported type in fixtures: " + type);
+            default:
+                // native type, no options
+        }
+    }
+
+    private static ByteBuffer serialize(DataType type, Object value, ProtocolVersion version) {
+        if (value == null)
+            return null;
+        if (value instanceof ByteBuffer)
+            return (ByteBuffer) value;
+        return CodecRegistry.DEFAULT_INSTANCE.codecFor(type).serialize(value, version);
+    }
+
+    /**
+     * Returns a copy of the readable bytes of {@code source} as an unpooled heap buffer, leaving {@code source} untouched.
+     */
+    static ByteBuf copyOf(ByteBuf source) {
+        return Unpooled.copiedBuffer(source.duplicate());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Frame.Encoder} and {@link Frame.Decoder} in isolation: the handlers are invoked directly with the
+ * context of an embedded channel, so the pipeline itself is not part of the measurement.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrameCodecBenchmark {
+
+    @Param({"64", "1024", "16384"})
+    int bodySize;
+
+    private final Frame.Encoder encoder = new Frame.Encoder();
+    private final Frame.Decoder decoder = new Frame.Decoder();
+    private final List<Object> out = new ArrayList<Object>(2);
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext encoderContext;
+    private ChannelHandlerContext decoderContext;
+    private ByteBuf requestBody;
+    private ByteBuf responseFrame;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(encoder, decoder);
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        encoderContext = channel.pipeline().context(encoder);
+        decoderContext = channel.pipeline().context(decoder);
+
+        requestBody = PooledByteBufAllocator.DEFAULT.directBuffer(bodySize);
+        requestBody.writeZero(bodySize);
+
+        responseFrame = PooledByteBufAllocator.DEFAULT.directBuffer(9 + bodySize);
+        responseFrame.writeByte(0x80 | ProtocolVersion.V4.toInt());
+        responseFrame.writeByte(0);
+        responseFrame.writeShort(42);
+        responseFrame.writeByte(Message.Response.Type.RESULT.opcode);
+        responseFrame.writeInt(bodySize);
+        responseFrame.writeZero(bodySize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        requestBody.release();
+        responseFrame.release();
+        channel.finish();
+    }
+
+    @Benchmark
+    public int encode() throws Exception {
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Request.Type.QUERY.opcode, 42,
+                EnumSet.noneOf(Frame.Header.Flag.class), requestBody.duplicate().retain());
+        encoder.encode(encoderContext, frame, out);
+        int size = 0;
+        for (Object o : out) {
+            ByteBuf buf = (ByteBuf) o;
+            size += buf.readableBytes();
+            buf.release();
+        }
+        out.clear();
+        return size;
+    }
+
+    @Benchmark
+    public int decode() throws Exception {
+        decoder.decode(decoderContext, responseFrame.duplicate(), out);
+        Frame frame = (Frame) out.get(0);
+        out.clear();
+        int size = frame.body.readableBytes();
+        frame.body.release();
+        return size;
+    }
+}
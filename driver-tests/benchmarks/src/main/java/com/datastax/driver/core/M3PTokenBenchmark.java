@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the Murmur3 hashing of routing keys ({@link Token.M3PToken}), as performed for every token-aware request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class M3PTokenBenchmark {
+
+    @Param({"4", "16", "64", "256"})
+    int keySize;
+
+    private ByteBuffer heapKey;
+    private ByteBuffer directKey;
+
+    @Setup
+    public void setup() {
+        byte[] bytes = new byte[keySize];
+        new Random(42).nextBytes(bytes);
+        heapKey = ByteBuffer.wrap(bytes);
+        directKey = ByteBuffer.allocateDirect(keySize);
+        directKey.put(bytes);
+        directKey.flip();
+    }
+
+    @Benchmark
+    public Token hashHeap() {
+        return Token.M3PToken.FACTORY.hash(heapKey);
+    }
+
+    @Benchmark
+    public Token hashDirect() {
+        return Token.M3PToken.FACTORY.hash(directKey);
+    }
+}
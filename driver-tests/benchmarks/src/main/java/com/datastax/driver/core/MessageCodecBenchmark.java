@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * Measures {@link Message.ProtocolEncoder} for {@code QUERY} and {@code EXECUTE} requests, and
+ * {@link Message.ProtocolDecoder} for a {@code ROWS} response.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MessageCodecBenchmark {
+
+    private static final String QUERY = "INSERT INTO benchmarks.kv (k, c, v1, v2, v3) VALUES (?, ?, ?, ?, ?)";
+
+    @Param({"5", "50"})
+    int valueCount;
+
+    private final Message.ProtocolEncoder encoder = new Message.ProtocolEncoder(ProtocolVersion.V4);
+    private final Message.ProtocolDecoder decoder = new Message.ProtocolDecoder();
+    private final List<Object> out = new ArrayList<Object>(1);
+
+    private EmbeddedChannel channel;
+    private ChannelHandlerContext encoderContext;
+    private ChannelHandlerContext decoderContext;
+
+    private MD5Digest statementId;
+    private Requests.QueryProtocolOptions queryOptions;
+    private Requests.QueryProtocolOptions executeOptions;
+    private ByteBuf rowsBody;
+
+    @Setup
+    public void setup() {
+        channel = new EmbeddedChannel(encoder, decoder);
+        channel.config().setAllocator(PooledByteBufAllocator.DEFAULT);
+        channel.attr(Message.CODEC_REGISTRY_ATTRIBUTE_KEY).set(CodecRegistry.DEFAULT_INSTANCE);
+        encoderContext = channel.pipeline().context(encoder);
+        decoderContext = channel.pipeline().context(decoder);
+
+        List<ByteBuffer> values = new ArrayList<ByteBuffer>(valueCount);
+        for (int i = 0; i < valueCount; i++)
+            values.add(TypeCodec.varchar().serialize("value" + i, ProtocolVersion.V4));
+        statementId = MD5Digest.wrap(new byte[16]);
+        queryOptions = new Requests.QueryProtocolOptions(Message.Request.Type.QUERY, ConsistencyLevel.LOCAL_ONE,
+                values, Collections.<String, ByteBuffer>emptyMap(), false, 5000, null, ConsistencyLevel.SERIAL,
+                Long.MIN_VALUE, null);
+        executeOptions = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE, ConsistencyLevel.LOCAL_ONE,
+                values, Collections.<String, ByteBuffer>emptyMap(), true, 5000, null, ConsistencyLevel.SERIAL,
+                Long.MIN_VALUE, null);
+
+        ColumnDefinitions.Definition[] columns = new ColumnDefinitions.Definition[valueCount];
+        Object[] row = new Object[valueCount];
+        for (int i = 0; i < valueCount; i++) {
+            columns[i] = definition("benchmarks", "kv", "c" + i, DataType.varchar());
+            row[i] = "value" + i;
+        }
+        rowsBody = Fixtures.rowsBody(columns, Collections.nCopies(10, row), false, ProtocolVersion.V4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        rowsBody.release();
+        channel.finish();
+    }
+
+    @Benchmark
+    public int encodeQuery() throws Exception {
+        return encode(new Requests.Query(QUERY, queryOptions, false));
+    }
+
+    @Benchmark
+    public int encodeExecute() throws Exception {
+        return encode(new Requests.Execute(statementId, executeOptions, false));
+    }
+
+    @Benchmark
+    public Message.Response decodeRows() throws Exception {
+        Frame frame = Frame.create(ProtocolVersion.V4, Message.Response.Type.RESULT.opcode, 42,
+                EnumSet.noneOf(Frame.Header.Flag.class), rowsBody.duplicate().retain());
+        decoder.decode(decoderContext, frame, out);
+        Message.Response response = (Message.Response) out.get(0);
+        out.clear();
+        return response;
+    }
+
+    private int encode(Message.Request request) throws Exception {
+        encoder.encode(encoderContext, request, out);
+        Frame frame = (Frame) out.get(0);
+        out.clear();
+        int size = frame.body.readableBytes();
+        frame.body.release();
+        return size;
+    }
+}
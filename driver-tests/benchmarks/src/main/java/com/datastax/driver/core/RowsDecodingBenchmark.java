@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * Measures the decoding of {@code ROWS} results ({@link Responses.Result.Rows}), and the cost of then reading every
+ * cell through the public {@link Row} API.
+ * <p/>
+ * Columns cycle through {@code int}, {@code bigint}, {@code text}, {@code uuid} and {@code double}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RowsDecodingBenchmark {
+
+    private static final DataType[] TYPES = new DataType[]{
+            DataType.cint(), DataType.bigint(), DataType.text(), DataType.uuid(), DataType.cdouble()
+    };
+
+    @Param({"10", "100", "5000"})
+    int rowCount;
+
+    @Param({"5", "20"})
+    int columnCount;
+
+    private ByteBuf body;
+
+    @Setup
+    public void setup() {
+        ColumnDefinitions.Definition[] columns = new ColumnDefinitions.Definition[columnCount];
+        for (int i = 0; i < columnCount; i++)
+            columns[i] = definition("benchmarks", "wide", "c" + i, TYPES[i % TYPES.length]);
+        List<Object[]> rows = new ArrayList<Object[]>(rowCount);
+        for (int r = 0; r < rowCount; r++) {
+            Object[] row = new Object[columnCount];
+            for (int i = 0; i < columnCount; i++)
+                row[i] = sample(i % TYPES.length, r);
+            rows.add(row);
+        }
+        body = Fixtures.rowsBody(columns, rows, false, ProtocolVersion.V4);
+    }
+
+    @TearDown
+    public void tearDown() {
+        body.release();
+    }
+
+    @Benchmark
+    public Responses.Result decode() {
+        return Responses.Result.decoder.decode(body.duplicate(), ProtocolVersion.V4, CodecRegistry.DEFAULT_INSTANCE);
+    }
+
+    @Benchmark
+    public void decodeAndRead(Blackhole bh) {
+        Responses.Result result = Responses.Result.decoder.decode(body.duplicate(), ProtocolVersion.V4, CodecRegistry.DEFAULT_INSTANCE);
+        ResultSet rs = ArrayBackedResultSet.fromMessage(result, null, ProtocolVersion.V4, null, null);
+        for (Row row : rs) {
+            for (int i = 0; i < columnCount; i++) {
+                switch (i % TYPES.length) {
+                    case 0:
+                        bh.consume(row.getInt(i));
+                        break;
+                    case 1:
+                        bh.consume(row.getLong(i));
+                        break;
+                    case 2:
+                        bh.consume(row.getString(i));
+                        break;
+                    case 3:
+                        bh.consume(row.getUUID(i));
+                        break;
+                    default:
+                        bh.consume(row.getDouble(i));
+                }
+            }
+        }
+    }
+
+    private static Object sample(int typeIndex, int row) {
+        switch (typeIndex) {
+            case 0:
+                return row;
+            case 1:
+                return (long) row << 20;
+            case 2:
+                return "some moderately sized text value #" + row;
+            case 3:
+                return new UUID(row, ~row);
+            default:
+                return row / 3.0;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * Measures complete request/response round trips through a {@link Session}, against a single-node
+ * {@link StandInServer}. Use JMH's {@code -t} option to measure under concurrency.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionBenchmark {
+
+    private static final String SELECT = "SELECT c, v FROM benchmarks.kv WHERE k = ?";
+
+    @Param({"1", "100"})
+    int rowCount;
+
+    private StandInServer server;
+    private Cluster cluster;
+    private Session session;
+    private PreparedStatement select;
+
+    @Setup
+    public void setup() throws Exception {
+        List<Object[]> rows = new ArrayList<Object[]>(rowCount);
+        for (int i = 0; i < rowCount; i++)
+            rows.add(new Object[]{i, "value" + i});
+        server = new StandInServer(1, 1, 1, StandInServer.DEFAULT_PORT);
+        server.prime(SELECT,
+                new ColumnDefinitions.Definition[]{definition("benchmarks", "kv", "k", DataType.text())},
+                new int[]{0},
+                new ColumnDefinitions.Definition[]{
+                        definition("benchmarks", "kv", "c", DataType.cint()),
+                        definition("benchmarks", "kv", "v", DataType.text())},
+                rows);
+        server.start();
+
+        cluster = server.clusterBuilder().build();
+        session = cluster.connect();
+        select = session.prepare(SELECT);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (cluster != null)
+            cluster.close();
+        if (server != null)
+            server.stop();
+    }
+
+    @Benchmark
+    public void executePrepared(Blackhole bh) {
+        consume(session.execute(select.bind("key")), bh);
+    }
+
+    @Benchmark
+    public void executeSimple(Blackhole bh) {
+        consume(session.execute(SELECT, "key"), bh);
+    }
+
+    private static void consume(ResultSet rs, Blackhole bh) {
+        for (Row row : rs) {
+            bh.consume(row.getInt(0));
+            bh.consume(row.getString(1));
+        }
+    }
+}
@@ -0,0 +1,395 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * A minimal, in-process stand-in for a cluster of Cassandra nodes.
+ * <p/>
+ * Node {@code n} (starting at 1) listens on {@code 127.0.0.n}; all nodes share the same port and the same
+ * Netty event loop. The server answers just enough of the native protocol (v3 and above) for a {@link Cluster}
+ * to initialize against it: system tables describe a single-DC Murmur3 ring with a configurable number of vnodes
+ * per node, and {@code system_schema.keyspaces} exposes {@link #KEYSPACE} with {@code SimpleStrategy}.
+ * <p/>
+ * Application queries must be registered beforehand with {@link #prime}; unknown queries get a {@code VOID} result.
+ * Responses are pre-encoded, so the server adds as little noise as possible to client-side measurements.
+ */
+class StandInServer {
+
+    static final String KEYSPACE = "benchmarks";
+
+    /**
+     * The port used by benchmarks, can be overridden with {@code -Dbenchmarks.port}.
+     */
+    static final int DEFAULT_PORT = Integer.getInteger("benchmarks.port", 19042);
+
+    private static final String DATA_CENTER = "dc1";
+    private static final String RELEASE_VERSION = "3.11.0";
+    private static final UUID SCHEMA_VERSION = UUID.fromString("2a5bb8c8-3d46-4a18-9d8f-6ea3e7c44f11");
+
+    private static final int MAX_FRAME_LENGTH = 256 * 1024 * 1024;
+
+    private static final int OPCODE_ERROR = 0x00;
+    private static final int OPCODE_STARTUP = 0x01;
+    private static final int OPCODE_READY = 0x02;
+    private static final int OPCODE_OPTIONS = 0x05;
+    private static final int OPCODE_SUPPORTED = 0x06;
+    private static final int OPCODE_QUERY = 0x07;
+    private static final int OPCODE_RESULT = 0x08;
+    private static final int OPCODE_PREPARE = 0x09;
+    private static final int OPCODE_EXECUTE = 0x0A;
+    private static final int OPCODE_REGISTER = 0x0B;
+
+    private static final ColumnDefinitions.Definition[] LOCAL_COLUMNS = new ColumnDefinitions.Definition[]{
+            definition("system", "local", "key", DataType.varchar()),
+            definition("system", "local", "bootstrapped", DataType.varchar()),
+            definition("system", "local", "broadcast_address", DataType.inet()),
+            definition("system", "local", "cluster_name", DataType.varchar()),
+            definition("system", "local", "cql_version", DataType.varchar()),
+            definition("system", "local", "data_center", DataType.varchar()),
+            definition("system", "local", "host_id", DataType.uuid()),
+            definition("system", "local", "listen_address", DataType.inet()),
+            definition("system", "local", "partitioner", DataType.varchar()),
+            definition("system", "local", "rack", DataType.varchar()),
+            definition("system", "local", "release_version", DataType.varchar()),
+            definition("system", "local", "rpc_address", DataType.inet()),
+            definition("system", "local", "schema_version", DataType.uuid()),
+            definition("system", "local", "tokens", DataType.set(DataType.varchar()))
+    };
+
+    private static final ColumnDefinitions.Definition[] PEERS_COLUMNS = new ColumnDefinitions.Definition[]{
+            definition("system", "peers", "peer", DataType.inet()),
+            definition("system", "peers", "data_center", DataType.varchar()),
+            definition("system", "peers", "host_id", DataType.uuid()),
+            definition("system", "peers", "preferred_ip", DataType.inet()),
+            definition("system", "peers", "rack", DataType.varchar()),
+            definition("system", "peers", "release_version", DataType.varchar()),
+            definition("system", "peers", "rpc_address", DataType.inet()),
+            definition("system", "peers", "schema_version", DataType.uuid()),
+            definition("system", "peers", "tokens", DataType.set(DataType.varchar()))
+    };
+
+    private static final ColumnDefinitions.Definition[] KEYSPACES_COLUMNS = new ColumnDefinitions.Definition[]{
+            definition("system_schema", "keyspaces", "keyspace_name", DataType.varchar()),
+            definition("system_schema", "keyspaces", "durable_writes", DataType.cboolean()),
+            definition("system_schema", "keyspaces", "replication", DataType.map(DataType.varchar(), DataType.varchar()))
+    };
+
+    private final int nodes;
+    private final int port;
+
+    private final ConcurrentMap<String, Prime> primesByQuery = new ConcurrentHashMap<String, Prime>();
+    private final ConcurrentMap<MD5Digest, Prime> primesById = new ConcurrentHashMap<MD5Digest, Prime>();
+
+    private final List<List<String>> tokens;
+    private final ByteBuf[] localBodies;
+    private final ByteBuf[] peersBodies;
+    private final ByteBuf keyspacesBody;
+    private final ByteBuf emptyRowsBody;
+    private final ByteBuf voidBody;
+
+    private EventLoopGroup group;
+    private final List<Channel> serverChannels = new ArrayList<Channel>();
+
+    /**
+     * @param nodes             the number of nodes to simulate.
+     * @param tokensPerNode     the number of vnodes per node.
+     * @param replicationFactor the replication factor of {@link #KEYSPACE}.
+     * @param port              the port to listen on (on every node address).
+     */
+    StandInServer(int nodes, int tokensPerNode, int replicationFactor, int port) {
+        this.nodes = nodes;
+        this.port = port;
+
+        this.tokens = computeTokens(nodes, tokensPerNode);
+        this.localBodies = new ByteBuf[nodes];
+        this.peersBodies = new ByteBuf[nodes];
+        for (int node = 1; node <= nodes; node++) {
+            localBodies[node - 1] = Fixtures.rowsBody(LOCAL_COLUMNS, Collections.singletonList(localRow(node)), false, ProtocolVersion.V4);
+            List<Object[]> peers = new ArrayList<Object[]>();
+            for (int peer = 1; peer <= nodes; peer++) {
+                if (peer != node)
+                    peers.add(peerRow(peer));
+            }
+            peersBodies[node - 1] = Fixtures.rowsBody(PEERS_COLUMNS, peers, false, ProtocolVersion.V4);
+        }
+        Map<String, String> replication = ImmutableMap.of(
+                "class", "org.apache.cassandra.locator.SimpleStrategy",
+                "replication_factor", Integer.toString(replicationFactor));
+        this.keyspacesBody = Fixtures.rowsBody(KEYSPACES_COLUMNS,
+                Collections.singletonList(new Object[]{KEYSPACE, true, replication}), false, ProtocolVersion.V4);
+        this.emptyRowsBody = Fixtures.rowsBody(new ColumnDefinitions.Definition[0], Collections.<Object[]>emptyList(), false, ProtocolVersion.V4);
+        this.voidBody = Fixtures.voidBody();
+    }
+
+    /**
+     * Registers a query that can be prepared, executed or sent as a simple statement.
+     *
+     * @param query         the query string.
+     * @param variables     the bound variables (empty if none).
+     * @param pkIndices     the indices of the partition key variables, as returned in {@code PREPARED} responses.
+     * @param resultColumns the result columns (empty for statements that do not return rows).
+     * @param rows          the rows returned for each execution (ignored if {@code resultColumns} is empty).
+     */
+    void prime(String query, ColumnDefinitions.Definition[] variables, int[] pkIndices,
+               ColumnDefinitions.Definition[] resultColumns, List<Object[]> rows) {
+        Prime prime = new Prime(query, variables, pkIndices, resultColumns, rows);
+        primesByQuery.put(query, prime);
+        primesById.put(prime.id, prime);
+    }
+
+    StandInServer start() throws InterruptedException {
+        group = new NioEventLoopGroup();
+        ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel channel) throws Exception {
+                        channel.pipeline()
+                                // version, flags, stream id (2 bytes), opcode, then the body length
+                                .addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_LENGTH, 5, 4, 0, 0))
+                                .addLast(new RequestHandler());
+                    }
+                });
+        for (int node = 1; node <= nodes; node++) {
+            serverChannels.add(bootstrap.bind(address(node)).sync().channel());
+        }
+        return this;
+    }
+
+    void stop() {
+        for (Channel channel : serverChannels)
+            channel.close().syncUninterruptibly();
+        serverChannels.clear();
+        if (group != null)
+            group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    InetSocketAddress address(int node) {
+        return new InetSocketAddress(inetAddress(node), port);
+    }
+
+    /**
+     * Returns a cluster builder pointing to the first node, with protocol v4 and no JMX reporting.
+     */
+    Cluster.Builder clusterBuilder() {
+        return Cluster.builder()
+                .addContactPoints(inetAddress(1))
+                .withPort(port)
+                .withProtocolVersion(ProtocolVersion.V4)
+                .withoutJMXReporting();
+    }
+
+    /**
+     * The primary tokens of each node, as strings, in ring order for each node.
+     */
+    List<List<String>> getTokens() {
+        return tokens;
+    }
+
+    private Object[] localRow(int node) {
+        InetAddress address = inetAddress(node);
+        return new Object[]{"local", "COMPLETED", address, "stand-in", "3.4.4", DATA_CENTER, hostId(node), address,
+                "org.apache.cassandra.dht.Murmur3Partitioner", "rack1", RELEASE_VERSION, address, SCHEMA_VERSION,
+                new LinkedHashSet<String>(tokens.get(node - 1))};
+    }
+
+    private Object[] peerRow(int node) {
+        InetAddress address = inetAddress(node);
+        return new Object[]{address, DATA_CENTER, hostId(node), address, "rack1", RELEASE_VERSION, address, SCHEMA_VERSION,
+                new LinkedHashSet<String>(tokens.get(node - 1))};
+    }
+
+    private static UUID hostId(int node) {
+        return new UUID(0x5374616e64496e00L, node);
+    }
+
+    private static InetAddress inetAddress(int node) {
+        try {
+            return InetAddress.getByAddress(new byte[]{127, 0, 0, (byte) node});
+        } catch (UnknownHostException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    // Spreads nodes * tokensPerNode tokens evenly on the Murmur3 ring, interleaving nodes like vnodes would.
+    private static List<List<String>> computeTokens(int nodes, int tokensPerNode) {
+        List<List<String>> tokens = new ArrayList<List<String>>(nodes);
+        for (int node = 0; node < nodes; node++)
+            tokens.add(new ArrayList<String>(tokensPerNode));
+        int total = nodes * tokensPerNode;
+        long step = (Long.MAX_VALUE / total) * 2;
+        for (int i = 0; i < total; i++) {
+            long token = Long.MIN_VALUE + 1 + step * i;
+            tokens.get(i % nodes).add(Long.toString(token));
+        }
+        List<List<String>> result = new ArrayList<List<String>>(nodes);
+        for (List<String> nodeTokens : tokens)
+            result.add(ImmutableList.copyOf(nodeTokens));
+        return result;
+    }
+
+    private static MD5Digest md5(String query) {
+        try {
+            return MD5Digest.wrap(MessageDigest.getInstance("MD5").digest(query.getBytes("UTF-8")));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    private static class Prime {
+        final MD5Digest id;
+        final ByteBuf preparedBody;
+        final ByteBuf rowsBody;
+        final ByteBuf rowsBodyWithoutMetadata;
+
+        Prime(String query, ColumnDefinitions.Definition[] variables, int[] pkIndices,
+              ColumnDefinitions.Definition[] resultColumns, List<Object[]> rows) {
+            this.id = md5(query);
+            this.preparedBody = Fixtures.preparedBody(id, variables, pkIndices, resultColumns);
+            if (resultColumns.length == 0) {
+                this.rowsBody = this.rowsBodyWithoutMetadata = Fixtures.voidBody();
+            } else {
+                this.rowsBody = Fixtures.rowsBody(resultColumns, rows, false, ProtocolVersion.V4);
+                this.rowsBodyWithoutMetadata = Fixtures.rowsBody(resultColumns, rows, true, ProtocolVersion.V4);
+            }
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private class RequestHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) throws Exception {
+            int version = frame.readByte() & 0x7F;
+            frame.readByte(); // flags: tracing, custom payloads and beta versions are not supported
+            int streamId = frame.readShort();
+            int opcode = frame.readByte();
+            frame.readInt(); // length, already validated by the frame decoder
+
+            switch (opcode) {
+                case OPCODE_STARTUP:
+                case OPCODE_REGISTER:
+                    respond(ctx, version, streamId, OPCODE_READY, null);
+                    break;
+                case OPCODE_OPTIONS:
+                    Map<String, List<String>> supported = ImmutableMap.<String, List<String>>of(
+                            "CQL_VERSION", Collections.singletonList("3.4.4"),
+                            "COMPRESSION", Lists.newArrayList("snappy", "lz4"));
+                    ByteBuf body = ctx.alloc().buffer();
+                    CBUtil.writeStringToStringListMap(supported, body);
+                    respond(ctx, version, streamId, OPCODE_SUPPORTED, body);
+                    break;
+                case OPCODE_QUERY:
+                    respond(ctx, version, streamId, OPCODE_RESULT, queryResult(ctx, CBUtil.readLongString(frame)));
+                    break;
+                case OPCODE_PREPARE:
+                    String query = CBUtil.readLongString(frame);
+                    Prime prime = primesByQuery.get(query);
+                    if (prime == null)
+                        error(ctx, version, streamId, "Query was not primed: " + query);
+                    else
+                        respond(ctx, version, streamId, OPCODE_RESULT, prime.preparedBody.duplicate().retain());
+                    break;
+                case OPCODE_EXECUTE:
+                    MD5Digest id = MD5Digest.wrap(CBUtil.readBytes(frame));
+                    frame.readShort(); // consistency
+                    int flags = version >= 5 ? frame.readInt() : frame.readByte();
+                    boolean skipMetadata = (flags & 0x02) != 0;
+                    Prime executed = primesById.get(id);
+                    if (executed == null) {
+                        // 0x2500: UNPREPARED
+                        ByteBuf unprepared = ctx.alloc().buffer();
+                        unprepared.writeInt(0x2500);
+                        CBUtil.writeString("Unknown prepared statement", unprepared);
+                        CBUtil.writeBytes(id.bytes, unprepared);
+                        respond(ctx, version, streamId, OPCODE_ERROR, unprepared);
+                    } else {
+                        ByteBuf result = skipMetadata ? executed.rowsBodyWithoutMetadata : executed.rowsBody;
+                        respond(ctx, version, streamId, OPCODE_RESULT, result.duplicate().retain());
+                    }
+                    break;
+                default:
+                    // BATCH and anything else: acknowledge without results
+                    respond(ctx, version, streamId, OPCODE_RESULT, voidBody.duplicate().retain());
+            }
+        }
+
+        private ByteBuf queryResult(ChannelHandlerContext ctx, String query) {
+            if (query.contains("system.local")) {
+                return localBodies[nodeOf(ctx) - 1].duplicate().retain();
+            } else if (query.contains("system.peers")) {
+                return peersBodies[nodeOf(ctx) - 1].duplicate().retain();
+            } else if (query.contains("system_schema.keyspaces")) {
+                return keyspacesBody.duplicate().retain();
+            } else if (query.contains("system_schema.") || query.contains("system.schema_")) {
+                return emptyRowsBody.duplicate().retain();
+            } else if (query.regionMatches(true, 0, "USE ", 0, 4)) {
+                return Fixtures.setKeyspaceBody(query.substring(4).trim().replace("\"", ""));
+            }
+            Prime prime = primesByQuery.get(query);
+            return prime == null ? voidBody.duplicate().retain() : prime.rowsBody.duplicate().retain();
+        }
+
+        private int nodeOf(ChannelHandlerContext ctx) {
+            byte[] address = ((InetSocketAddress) ctx.channel().localAddress()).getAddress().getAddress();
+            return address[address.length - 1];
+        }
+
+        private void error(ChannelHandlerContext ctx, int version, int streamId, String message) {
+            ByteBuf body = ctx.alloc().buffer();
+            body.writeInt(0x2200); // INVALID
+            CBUtil.writeString(message, body);
+            respond(ctx, version, streamId, OPCODE_ERROR, body);
+        }
+
+        private void respond(ChannelHandlerContext ctx, int version, int streamId, int opcode, ByteBuf body) {
+            int length = body == null ? 0 : body.readableBytes();
+            ByteBuf header = ctx.alloc().ioBuffer(9);
+            header.writeByte(0x80 | version);
+            header.writeByte(0);
+            header.writeShort(streamId);
+            header.writeByte(opcode);
+            header.writeInt(length);
+            ctx.write(header);
+            if (body != null)
+                ctx.write(body);
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) throws Exception {
+            ctx.close();
+        }
+    }
+}
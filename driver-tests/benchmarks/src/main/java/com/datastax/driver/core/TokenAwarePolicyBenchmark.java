@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2012-2017 DataStax Inc.
+ *
+ * This software can be used solely with DataStax Enterprise. Please consult the license at
+ * http://www.datastax.com/terms/datastax-dse-driver-license-terms
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.policies.DCAwareRoundRobinPolicy;
+import com.datastax.driver.core.policies.LoadBalancingPolicy;
+import com.datastax.driver.core.policies.TokenAwarePolicy;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.Fixtures.definition;
+
+/**
+ * Measures {@link TokenAwarePolicy#newQueryPlan} for prepared statements, against a {@link StandInServer} ring.
+ * <p/>
+ * The simulated nodes listen on {@code 127.0.0.1} to {@code 127.0.0.<nodes>}; on systems that do not route the
+ * whole loopback range (e.g. macOS), the corresponding interface aliases must be created first.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenAwarePolicyBenchmark {
+
+    private static final String SELECT = "SELECT v FROM benchmarks.kv WHERE k = ?";
+    private static final int STATEMENTS = 1024;
+
+    @Param({"3", "12"})
+    int nodes;
+
+    @Param({"1", "256"})
+    int tokensPerNode;
+
+    @Param({"true", "false"})
+    boolean shuffleReplicas;
+
+    private StandInServer server;
+    private Cluster cluster;
+    private LoadBalancingPolicy policy;
+    private Statement[] statements;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new StandInServer(nodes, tokensPerNode, 3, StandInServer.DEFAULT_PORT);
+        server.prime(SELECT,
+                new ColumnDefinitions.Definition[]{definition("benchmarks", "kv", "k", DataType.text())},
+                new int[]{0},
+                new ColumnDefinitions.Definition[]{definition("benchmarks", "kv", "v", DataType.text())},
+                Collections.<Object[]>emptyList());
+        server.start();
+
+        policy = new TokenAwarePolicy(DCAwareRoundRobinPolicy.builder().build(), shuffleReplicas);
+        cluster = server.clusterBuilder()
+                .withLoadBalancingPolicy(policy)
+                .build();
+        PreparedStatement select = cluster.connect().prepare(SELECT);
+        statements = new Statement[STATEMENTS];
+        for (int i = 0; i < STATEMENTS; i++)
+            statements[i] = select.bind("key" + i);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (cluster != null)
+            cluster.close();
+        if (server != null)
+            server.stop();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    /**
+     * The common case: the coordinator is the first host of the plan.
+     */
+    @Benchmark
+    public Host firstHost(Cursor cursor) {
+        return policy.newQueryPlan(null, nextStatement(cursor)).next();
+    }
+
+    @Benchmark
+    public void fullPlan(Cursor cursor, Blackhole bh) {
+        Iterator<Host> plan = policy.newQueryPlan(null, nextStatement(cursor));
+        while (plan.hasNext())
+            bh.consume(plan.next());
+    }
+
+    private Statement nextStatement(Cursor cursor) {
+        Statement statement = statements[cursor.next];
+        cursor.next = (cursor.next + 1) & (STATEMENTS - 1);
+        return statement;
+    }
+}